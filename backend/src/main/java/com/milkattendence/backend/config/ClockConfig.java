@@ -0,0 +1,17 @@
+package com.milkattendence.backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.ZoneId;
+
+@Configuration
+public class ClockConfig {
+
+    // Business dates and reminder times are all India Standard Time
+    @Bean
+    public Clock clock() {
+        return Clock.system(ZoneId.of("Asia/Kolkata"));
+    }
+}
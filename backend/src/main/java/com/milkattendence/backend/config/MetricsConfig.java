@@ -0,0 +1,46 @@
+package com.milkattendence.backend.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+import javax.sql.DataSource;
+
+/**
+ * Metrics wiring; everything is scraped from /actuator/prometheus
+ * (see the MANAGEMENT section of application.properties).
+ */
+@Configuration
+public class MetricsConfig {
+
+    // http.server.requests gets a handler tag so latency histograms are per controller method
+    @Bean
+    public DefaultServerRequestObservationConvention handlerTaggingObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                String handler = RequestQueryMetrics.handlerName(context.getCarrier());
+                return super.getLowCardinalityKeyValues(context)
+                        .and(KeyValue.of("handler", handler != null ? handler : "none"));
+            }
+        };
+    }
+
+    // every JDBC statement is counted into the current QueryScope
+    @Bean
+    public static BeanPostProcessor queryCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource ds && !(bean instanceof QueryCountingDataSource)) {
+                    return new QueryCountingDataSource(ds);
+                }
+                return bean;
+            }
+        };
+    }
+}
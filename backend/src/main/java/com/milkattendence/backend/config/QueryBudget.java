@@ -0,0 +1,39 @@
+package com.milkattendence.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs requests and scheduled jobs that run more SQL statements than
+ * {@code query.budget.max-statements}: the signature of a query per row.
+ * Counting is done by {@link QueryCountingDataSource}; 0 disables the check.
+ */
+@Component
+public class QueryBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudget.class);
+
+    private final int maxStatements;
+
+    public QueryBudget(@Value("${query.budget.max-statements:20}") int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    /** Runs a scheduled job in its own scope and checks it against the budget. */
+    public void track(String job, Runnable work) {
+        try (QueryScope scope = QueryScope.open()) {
+            work.run();
+            check(job, scope);
+        }
+    }
+
+    /** True (and a warning logged) when the scope went over budget. */
+    public boolean check(String name, QueryScope scope) {
+        if (maxStatements <= 0 || scope.statements() <= maxStatements) return false;
+        logger.warn("{} ran {} SQL statements (budget {}, {} entities loaded)",
+                name, scope.statements(), maxStatements, scope.entityLoads());
+        return true;
+    }
+}
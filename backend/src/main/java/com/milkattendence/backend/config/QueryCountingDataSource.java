@@ -0,0 +1,76 @@
+package com.milkattendence.backend.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Wraps the pool so every statement execution is counted in the current
+ * {@link QueryScope}. A JDBC batch is one round trip and counts once.
+ *
+ * Sits below Hibernate, so native queries, JdbcTemplate and Flyway are all
+ * seen. Installed around the DataSource bean by {@link MetricsConfig}.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    public QueryCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    private static Connection connection(Connection target) {
+        return proxy(Connection.class, target, (proxy, method, args) -> {
+            if (method.getName().equals("equals")) return proxy == args[0];
+            Object result = invoke(target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> statement(Statement.class, (Statement) result);
+                case "prepareStatement" -> statement(PreparedStatement.class, (Statement) result);
+                case "prepareCall" -> statement(CallableStatement.class, (Statement) result);
+                default -> result;
+            };
+        });
+    }
+
+    private static <T extends Statement> T statement(Class<T> type, Statement target) {
+        return proxy(type, type.cast(target), (proxy, method, args) -> {
+            if (method.getName().equals("equals")) return proxy == args[0];
+            if (EXECUTE.contains(method.getName())) QueryScope.countStatement();
+            return invoke(target, method, args);
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(
+                QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
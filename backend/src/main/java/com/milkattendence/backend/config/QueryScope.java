@@ -0,0 +1,59 @@
+package com.milkattendence.backend.config;
+
+/**
+ * Statement and entity-load tally for one unit of work on the current thread
+ * (a request, a scheduled job, a test). Scopes nest; work is counted in every
+ * open scope, so an outer scope sees what inner ones ran.
+ *
+ * <pre>
+ * try (QueryScope scope = QueryScope.open()) {
+ *     ...
+ *     scope.statements();
+ * }
+ * </pre>
+ */
+public final class QueryScope implements AutoCloseable {
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final QueryScope parent;
+    private long statements;
+    private long entityLoads;
+    private boolean closed;
+
+    private QueryScope(QueryScope parent) {
+        this.parent = parent;
+    }
+
+    public static QueryScope open() {
+        QueryScope scope = new QueryScope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** Called by {@link QueryCountingDataSource} for every statement executed. */
+    static void countStatement() {
+        for (QueryScope s = CURRENT.get(); s != null; s = s.parent) s.statements++;
+    }
+
+    /** Called by the Hibernate POST_LOAD listener for every entity hydrated. */
+    static void countEntityLoad() {
+        for (QueryScope s = CURRENT.get(); s != null; s = s.parent) s.entityLoads++;
+    }
+
+    public long statements() {
+        return statements;
+    }
+
+    public long entityLoads() {
+        return entityLoads;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (parent == null) CURRENT.remove();
+        else CURRENT.set(parent);
+    }
+}
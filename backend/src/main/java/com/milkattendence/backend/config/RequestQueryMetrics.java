@@ -0,0 +1,78 @@
+package com.milkattendence.backend.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * SQL statements and entity loads per request, recorded per controller
+ * method as {@code request.sql.statements} and {@code request.entity.loads},
+ * and checked against the {@link QueryBudget}.
+ *
+ * Each request runs in its own {@link QueryScope}; statements are counted by
+ * {@link QueryCountingDataSource} and entity loads by a POST_LOAD listener.
+ */
+@Component
+public class RequestQueryMetrics extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+    private final QueryBudget budget;
+
+    public RequestQueryMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry registry, QueryBudget budget) {
+        this.registry = registry;
+        this.budget = budget;
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> QueryScope.countEntityLoad());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        QueryScope scope = QueryScope.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            scope.close();
+            String handler = handlerName(request);
+            if (handler != null) {
+                summary("request.sql.statements", "SQL statements executed per request", handler)
+                        .record(scope.statements());
+                summary("request.entity.loads", "Entities hydrated per request", handler)
+                        .record(scope.entityLoads());
+                budget.check(request.getMethod() + " " + request.getRequestURI() + " (" + handler + ")", scope);
+            }
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, String handler) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("handler", handler)
+                .register(registry);
+    }
+
+    /** "CustomerController.getCustomers", or null when no controller method matched. */
+    static String handlerName(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod m) {
+            return m.getBeanType().getSimpleName() + "." + m.getMethod().getName();
+        }
+        return null;
+    }
+}
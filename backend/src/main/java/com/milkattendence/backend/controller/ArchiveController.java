@@ -0,0 +1,68 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.service.MilkArchiveService;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Month close for milk entries:
+ *
+ *   POST /api/archive?userId=..&shift=..&month=..&year=..          archive a month that is over
+ *   POST /api/archive/restore?userId=..&shift=..&month=..&year=..  put its rows back
+ *
+ * An archived month stays readable everywhere (overview, entry lists,
+ * history, exports) but takes no writes until it is restored; see
+ * MilkArchiveService.
+ */
+@RestController
+@RequestMapping("/api/archive")
+@CrossOrigin(origins = "*")
+public class ArchiveController {
+
+    private final MilkArchiveService archive;
+
+    public ArchiveController(MilkArchiveService archive) {
+        this.archive = archive;
+    }
+
+    @PostMapping
+    public Map<String, Object> archiveMonth(
+            @RequestParam Long userId,
+            @RequestParam String shift,
+            @RequestParam int month,
+            @RequestParam int year
+    ) {
+        MilkArchiveService.ArchiveResult result;
+        try {
+            result = archive.archiveMonth(userId, shift, YearMonth.of(year, month));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("success", true);
+        resp.put("entries", result.entries());
+        resp.put("runs", result.runs());
+        resp.put("bytes", result.bytes());
+        return resp;
+    }
+
+    @PostMapping("/restore")
+    public Map<String, Object> restoreMonth(
+            @RequestParam Long userId,
+            @RequestParam String shift,
+            @RequestParam int month,
+            @RequestParam int year
+    ) {
+        int restored = archive.restoreMonth(userId, shift, YearMonth.of(year, month));
+        return Map.of("success", true, "entries", restored);
+    }
+}
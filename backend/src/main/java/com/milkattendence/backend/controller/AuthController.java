@@ -3,26 +3,32 @@ package com.milkattendence.backend.controller;
 import com.milkattendence.backend.model.User;
 import com.milkattendence.backend.repository.UserRepository;
 import com.milkattendence.backend.service.EmailService;
+import com.milkattendence.backend.service.OtpStore;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
+import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
 public class AuthController {
 
+    private static final Duration OTP_TTL = Duration.ofMinutes(10);
+
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final OtpStore otpStore;
+    private final SecureRandom random = new SecureRandom();
 
     @Autowired
-    public AuthController(UserRepository userRepository, EmailService emailService) {
+    public AuthController(UserRepository userRepository, EmailService emailService, OtpStore otpStore) {
         this.userRepository = userRepository;
         this.emailService = emailService;
+        this.otpStore = otpStore;
     }
 
     // ==========================================================
@@ -79,20 +85,10 @@ public class AuthController {
 
     // ==========================================================
     // 🟣 FORGOT PASSWORD — SEND OTP (SendGrid)
+    // OTPs live in the OtpStore (otp.store), one per email, and expire
+    // on their own.
     // ==========================================================
 
-    private static class OtpInfo {
-        String otp;
-        LocalDateTime expiresAt;
-
-        OtpInfo(String otp, LocalDateTime expiresAt) {
-            this.otp = otp;
-            this.expiresAt = expiresAt;
-        }
-    }
-
-    private final ConcurrentHashMap<String, OtpInfo> otpStore = new ConcurrentHashMap<>();
-
     @PostMapping("/forgot")
     public Map<String, Object> forgotPassword(@RequestBody Map<String, Object> body) {
 
@@ -104,8 +100,8 @@ public class AuthController {
         }
 
         try {
-            String otp = String.valueOf(new Random().nextInt(900000) + 100000);
-            otpStore.put(email, new OtpInfo(otp, LocalDateTime.now().plusMinutes(10)));
+            String otp = String.valueOf(random.nextInt(900000) + 100000);
+            otpStore.put(email, otp, OTP_TTL);
 
             String html =
                     "<h3>Password Reset OTP</h3>" +
@@ -139,17 +135,17 @@ public class AuthController {
             return Map.of("success", false, "error", "Missing fields");
         }
 
-        OtpInfo info = otpStore.get(email);
-        if (info == null) {
+        // checked and used up in one step, so two resets cannot both pass with the same OTP
+        OtpStore.Check check = otpStore.consume(email, otp);
+        if (check == OtpStore.Check.MISSING) {
             return Map.of("success", false, "error", "OTP not found. Request again.");
         }
 
-        if (LocalDateTime.now().isAfter(info.expiresAt)) {
-            otpStore.remove(email);
+        if (check == OtpStore.Check.EXPIRED) {
             return Map.of("success", false, "error", "OTP expired. Request new OTP.");
         }
 
-        if (!info.otp.equals(otp)) {
+        if (check == OtpStore.Check.INVALID) {
             return Map.of("success", false, "error", "Invalid OTP");
         }
 
@@ -162,8 +158,6 @@ public class AuthController {
         user.setPassword(newPassword);
         userRepository.save(user);
 
-        otpStore.remove(email);
-
         return Map.of("success", true, "message", "Password reset successful");
     }
 }
@@ -1,10 +1,19 @@
 package com.milkattendence.backend.controller;
 
 import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.CustomerBalance;
+import com.milkattendence.backend.repository.CustomerBalanceRepository;
 import com.milkattendence.backend.repository.CustomerRepository;
+import com.milkattendence.backend.service.CustomerBalanceService;
+import com.milkattendence.backend.service.CustomerRosterCache;
+import com.milkattendence.backend.service.DataVersionService;
+import com.milkattendence.backend.service.PaymentSeedTracker;
+import com.milkattendence.backend.util.ETags;
+import com.milkattendence.backend.util.FixedPoint;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -17,29 +26,51 @@ import java.util.Optional;
 public class CustomerController {
 
     private final CustomerRepository customerRepository;
-
-    public CustomerController(CustomerRepository customerRepository) {
+    private final PaymentSeedTracker paymentSeedTracker;
+    private final CustomerRosterCache rosterCache;
+    private final DataVersionService versions;
+    private final CustomerBalanceRepository balanceRepository;
+    private final CustomerBalanceService balanceService;
+
+    public CustomerController(
+            CustomerRepository customerRepository,
+            PaymentSeedTracker paymentSeedTracker,
+            CustomerRosterCache rosterCache,
+            DataVersionService versions,
+            CustomerBalanceRepository balanceRepository,
+            CustomerBalanceService balanceService
+    ) {
         this.customerRepository = customerRepository;
+        this.paymentSeedTracker = paymentSeedTracker;
+        this.rosterCache = rosterCache;
+        this.versions = versions;
+        this.balanceRepository = balanceRepository;
+        this.balanceService = balanceService;
     }
 
     // ==========================================================
     // ✅ GET Customers: Only retrieves ACTIVE customers
     // The required userId identifies the owner. Shift is an optional filter.
+    // ETag follows the user's roster version; a match is a 304 with no query.
     // ==========================================================
     @GetMapping
     public List<Customer> getCustomers(
             @RequestParam Long userId,
-            @RequestParam(required = false) String shift
+            @RequestParam(required = false) String shift,
+            WebRequest request
     ) {
+        if (ETags.notModified(request, "customers-" + versions.customers(userId))) {
+            return null;
+        }
+
         // If no shift is provided or if it's blank, fetch all active customers for the user.
         if (shift == null || shift.isBlank()) {
-            // Calls the new method in CustomerRepository: findByUserIdAndActive(Long userId, boolean active)
-            return customerRepository.findByUserIdAndActive(userId, true);
+            return rosterCache.activeCustomers(userId, null);
         }
         
         // If a shift is provided, fetch active customers filtered by shift.
-        // Calls the new method in CustomerRepository: findByShiftAndUserIdAndActive(String shift, Long userId, boolean active)
-        return customerRepository.findByShiftAndUserIdAndActive(shift, userId, true);
+        // Served from the roster cache; writes below invalidate it.
+        return rosterCache.activeCustomers(userId, shift);
     }
 
     // ==========================================================
@@ -58,6 +89,9 @@ public class CustomerController {
         // Set active to true on creation (Crucial to make it appear in lists)
         c.setActive(true); 
         Customer savedCustomer = customerRepository.save(c);
+        paymentSeedTracker.invalidate(savedCustomer.getUserId());
+        rosterCache.invalidate(savedCustomer.getUserId());
+        versions.bumpCustomers(savedCustomer.getUserId());
         
         // Return 201 Created status
         return new ResponseEntity<>(savedCustomer, HttpStatus.CREATED);
@@ -77,11 +111,15 @@ public class CustomerController {
         c.setFullName(updated.getFullName());
         c.setNickname(updated.getNickname());
         c.setShift(updated.getShift());
-        c.setPricePerLitre(updated.getPricePerLitre());
+        c.setPricePerLitrePaise(updated.getPricePerLitrePaise());
         // Allow updating active status
         c.setActive(updated.isActive()); 
 
-        return customerRepository.save(c);
+        Customer saved = customerRepository.save(c);
+        paymentSeedTracker.invalidate(saved.getUserId());
+        rosterCache.invalidate(saved.getUserId());
+        versions.bumpCustomers(saved.getUserId());
+        return saved;
     }
 
     // ==========================================================
@@ -98,11 +136,46 @@ public class CustomerController {
         // Perform a soft delete: set active to false
         c.setActive(false);
         customerRepository.save(c);
+        rosterCache.invalidate(c.getUserId());
+        versions.bumpCustomers(c.getUserId());
         
         // NOTE: If you need to physically delete, uncomment the line below and remove the two above:
         // customerRepository.deleteById(id);
     }
 
+    // ==========================================================
+    // BALANCE — one ledger row, no history scan
+    // GET /api/customers/{id}/balance
+    // Returns: { customerId, billedLitres, billed, paid, outstanding }
+    // ==========================================================
+    @GetMapping("/{id}/balance")
+    public Map<String, Object> getBalance(@PathVariable Long id) {
+        Optional<CustomerBalance> balance = balanceRepository.findByCustomerId(id);
+        if (balance.isEmpty() && !customerRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Customer not found with ID: " + id);
+        }
+
+        // customers with no entries yet have no ledger row
+        CustomerBalance b = balance.orElse(null);
+        return Map.of(
+                "customerId", id,
+                "billedLitres", FixedPoint.litres(b != null ? b.getBilledMl() : 0),
+                "billed", FixedPoint.rupees(b != null ? b.getBilledPaise() : 0),
+                "paid", FixedPoint.rupees(b != null ? b.getPaidPaise() : 0),
+                "outstanding", FixedPoint.rupees(b != null ? b.getOutstandingPaise() : 0)
+        );
+    }
+
+    // ==========================================================
+    // CONSISTENCY CHECK — recompute a user's balances from entries/payments
+    // POST /api/customers/balances/verify?userId=..
+    // ==========================================================
+    @PostMapping("/balances/verify")
+    public Map<String, Object> verifyBalances(@RequestParam Long userId) {
+        int drift = balanceService.verifyUser(userId);
+        return Map.of("success", true, "driftedBalances", drift);
+    }
+
     // ==========================================================
     // 🔔 REMINDER SETTINGS — READ
     // GET /api/customers/reminder?userId=..&shift=..
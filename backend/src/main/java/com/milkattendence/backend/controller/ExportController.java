@@ -0,0 +1,88 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.service.LedgerExportService;
+import com.milkattendence.backend.service.LedgerExportService.Format;
+import com.milkattendence.backend.service.LedgerExportService.Ledger;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * Downloads of the full ledgers:
+ *
+ *   GET /api/export/milk?userId=..[&shift=..][&from=..][&to=..][&format=csv|xlsx][&gzip=true]
+ *   GET /api/export/payments?...same
+ *
+ * The body is streamed from a database cursor (see LedgerExportService);
+ * gzip applies to CSV only, XLSX is already a zip.
+ */
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private final LedgerExportService exportService;
+
+    public ExportController(LedgerExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/milk")
+    public ResponseEntity<StreamingResponseBody> exportMilk(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String shift,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        return export(Ledger.MILK, userId, shift, from, to, format, gzip);
+    }
+
+    @GetMapping("/payments")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String shift,
+            @RequestParam(required = false) LocalDate from,
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        return export(Ledger.PAYMENTS, userId, shift, from, to, format, gzip);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(Ledger ledger, Long userId, String shift,
+                                                         LocalDate from, LocalDate to, String format, boolean gzip) {
+        Format f;
+        try {
+            f = Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        boolean compress = gzip && f == Format.CSV;
+
+        LedgerExportService.Request request =
+                new LedgerExportService.Request(ledger, userId, shift, from, to, f, compress);
+
+        String filename = ledger.name().toLowerCase() + "-" + userId
+                + (shift != null && !shift.isBlank() ? "-" + shift.toLowerCase() : "")
+                + "." + f.extension + (compress ? ".gz" : "");
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(MediaType.parseMediaType(compress ? "application/gzip" : f.contentType))
+                .body(out -> exportService.export(request, out));
+    }
+}
@@ -1,7 +1,9 @@
 package com.milkattendence.backend.controller;
 
 import com.milkattendence.backend.repository.CustomerRepository;
+import com.milkattendence.backend.service.CustomerRosterCache;
 import com.milkattendence.backend.service.EmailService;
+import com.milkattendence.backend.service.ReminderScheduler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -15,10 +17,19 @@ public class HealthController {
 
     private final CustomerRepository customerRepository;
     private final EmailService emailService;
-
-    public HealthController(CustomerRepository customerRepository, EmailService emailService) {
+    private final ReminderScheduler reminderScheduler;
+    private final CustomerRosterCache rosterCache;
+
+    public HealthController(
+            CustomerRepository customerRepository,
+            EmailService emailService,
+            ReminderScheduler reminderScheduler,
+            CustomerRosterCache rosterCache
+    ) {
         this.customerRepository = customerRepository;
         this.emailService = emailService;
+        this.reminderScheduler = reminderScheduler;
+        this.rosterCache = rosterCache;
     }
 
     @GetMapping("/health")
@@ -40,6 +51,12 @@ public class HealthController {
             out.put("email", Map.of("ok", false, "error", e.getMessage()));
         }
 
+        // Reminder digest counters
+        out.put("reminders", reminderScheduler.getStats());
+
+        // Customer roster cache hit/miss counters
+        out.put("rosterCache", rosterCache.getStats());
+
         out.put("ok", true);
         return out;
     }
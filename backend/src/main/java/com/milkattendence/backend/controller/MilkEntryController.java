@@ -1,12 +1,34 @@
 // replace with this file: src/main/java/.../MilkEntryController.java
 package com.milkattendence.backend.controller;
 
+import com.milkattendence.backend.dto.MilkBatchRequest;
+import com.milkattendence.backend.dto.MilkHistoryCursor;
+import com.milkattendence.backend.model.Customer;
 import com.milkattendence.backend.model.MilkEntry;
 import com.milkattendence.backend.repository.MilkEntryRepository;
+import com.milkattendence.backend.repository.MilkReportRepository;
+import com.milkattendence.backend.repository.projection.MilkEntryRow;
+import com.milkattendence.backend.service.CustomerRosterCache;
+import com.milkattendence.backend.service.DataVersionService;
+import com.milkattendence.backend.service.MilkAggregateService;
+import com.milkattendence.backend.service.MilkArchiveService;
+import com.milkattendence.backend.service.MilkArchiveService.KeyedRow;
+import com.milkattendence.backend.util.FixedPoint;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
 
 @RestController
@@ -14,27 +36,134 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class MilkEntryController {
 
+    static final int DEFAULT_HISTORY_LIMIT = 50;
+    static final int MAX_HISTORY_LIMIT = 500;
+
+    // newest first; on one day live rows (ids) before archived rows (negative keys)
+    private static final Comparator<KeyedRow> HISTORY_ORDER = Comparator
+            .comparing((KeyedRow k) -> k.row().date())
+            .thenComparingLong(KeyedRow::key)
+            .reversed();
+
     private final MilkEntryRepository repo;
+    private final MilkReportRepository reportRepo;
+    private final MilkAggregateService aggregates;
+    private final DataVersionService versions;
+    private final CustomerRosterCache rosterCache;
+    private final MilkArchiveService archive;
 
-    public MilkEntryController(MilkEntryRepository repo) {
+    public MilkEntryController(
+            MilkEntryRepository repo,
+            MilkReportRepository reportRepo,
+            MilkAggregateService aggregates,
+            DataVersionService versions,
+            CustomerRosterCache rosterCache,
+            MilkArchiveService archive
+    ) {
         this.repo = repo;
+        this.reportRepo = reportRepo;
+        this.aggregates = aggregates;
+        this.versions = versions;
+        this.rosterCache = rosterCache;
+        this.archive = archive;
     }
 
     @GetMapping
-    public List<MilkEntry> getEntriesByUserAndShift(
+    public List<?> getEntriesByUserAndShift(
             @RequestParam Long userId,
             @RequestParam String shift,
             @RequestParam(required = false) LocalDate start,
             @RequestParam(required = false) LocalDate end
     ) {
         if (start == null || end == null) {
-            // safe method — uses repository query that produces sensible SQL
-            return repo.findByUserIdAndShiftOrderByDateDesc(userId, shift);
+            // full history: read-only rows, nothing enters the persistence context
+            List<MilkEntryRow> rows = reportRepo.findRowsByUserIdAndShift(userId, shift);
+            if (archive.archivedMonths(userId, shift).isEmpty()) return rows;
+            List<MilkEntryRow> all = new ArrayList<>(rows);
+            all.addAll(archive.rows(userId, shift, null, null));
+            all.sort(Comparator.comparing(MilkEntryRow::date).reversed());
+            return all;
+        }
+        List<MilkEntry> entries = repo.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(userId, shift, start, end);
+        if (!archive.anyArchived(userId, shift, start, end)) return entries;
+
+        // archived months in range: their rows come from the blocks, without ids
+        List<MilkEntryRow> all = new ArrayList<>(archive.rows(userId, shift, start, end));
+        for (MilkEntry e : entries) all.add(row(e));
+        all.sort(Comparator.comparing(MilkEntryRow::date));
+        return all;
+    }
+
+    // ==========================================================
+    // HISTORY PAGES — GET /api/milk/history
+    // Newest first, keyset on (date, id): the cursor is the last row of the
+    // previous page, so page N costs the same as page 1. One extra row is
+    // read to know whether another page follows.
+    // Archived months are merged in once a page reaches back to them; their
+    // rows carry negative keys in place of ids (see MilkArchiveService).
+    // view=compact drops userId/shift (fixed by the request) and amount
+    // (litres × rate).
+    // ==========================================================
+    @GetMapping("/history")
+    public Map<String, Object> getHistory(
+            @RequestParam Long userId,
+            @RequestParam String shift,
+            @RequestParam(defaultValue = "" + DEFAULT_HISTORY_LIMIT) int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "full") String view
+    ) {
+        if (limit < 1 || limit > MAX_HISTORY_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_HISTORY_LIMIT);
+        }
+        if (!view.equals("full") && !view.equals("compact")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "view must be full or compact");
+        }
+
+        MilkHistoryCursor after = null;
+        List<MilkEntryRow> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = reportRepo.findHistoryFirstPage(userId, shift, Limit.of(limit + 1));
+        } else {
+            try {
+                after = MilkHistoryCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor");
+            }
+            rows = reportRepo.findHistoryPageAfter(userId, shift, after.date(), after.id(), Limit.of(limit + 1));
         }
-        return repo.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(userId, shift, start, end);
+
+        List<KeyedRow> page = new ArrayList<>(rows.size());
+        for (MilkEntryRow r : rows) page.add(new KeyedRow(r, r.id()));
+
+        // live rows newer than every archived month fill the page on their own
+        NavigableSet<YearMonth> archived = archive.archivedMonths(userId, shift);
+        if (!archived.isEmpty() && (page.size() <= limit
+                || !page.get(limit).row().date().isAfter(archived.last().atEndOfMonth()))) {
+            page.addAll(archive.historyAfter(userId, shift,
+                    after != null ? after.date() : null, after != null ? after.id() : 0, limit + 1));
+            page.sort(HISTORY_ORDER);
+            if (page.size() > limit + 1) page = page.subList(0, limit + 1);
+        }
+
+        String nextCursor = null;
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            KeyedRow last = page.get(limit - 1);
+            nextCursor = new MilkHistoryCursor(last.row().date(), last.key()).encode();
+        }
+        rows = page.stream().map(KeyedRow::row).toList();
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("entries", view.equals("compact")
+                ? rows.stream().map(MilkEntryRow::compact).toList()
+                : rows);
+        resp.put("nextCursor", nextCursor);
+        return resp;
     }
 
     @PostMapping
+    @Transactional
     public MilkEntry addOrUpdateEntry(@RequestBody MilkEntry entry) {
         if (entry.getUserId() == null) {
             throw new RuntimeException("userId is required");
@@ -43,39 +172,240 @@ public class MilkEntryController {
         if (entry.getDate() == null) {
             entry.setDate(LocalDate.now());
         }
+        requireOpenMonth(entry.getUserId(), entry.getShift(), entry.getDate());
 
-        Optional<MilkEntry> existing = repo.findByUserIdAndShiftAndDateAndCustomerName(
+        // link to the roster customer: by customerId when the client sends
+        // one (the name then defaults to the customer's), else by name
+        CustomerRosterCache.RosterIndex roster = rosterCache.index(entry.getUserId(), entry.getShift());
+        Customer customer = entry.getCustomerId() != null
+                ? roster.byId(entry.getCustomerId())
+                : roster.byName(entry.getCustomerName());
+        if (entry.getCustomerId() != null && customer == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "customerId is not an active customer of this shift");
+        }
+        if (customer != null) {
+            entry.setCustomerId(customer.getId());
+            if (entry.getCustomerName() == null || entry.getCustomerName().isBlank()) {
+                entry.setCustomerName(CustomerRosterCache.RosterIndex.displayName(customer));
+            }
+        }
+
+        // the customer's row for the day, whatever name it was typed under
+        List<MilkEntry> sameDay = repo.findDayEntriesForCustomer(
                 entry.getUserId(),
                 entry.getShift(),
                 entry.getDate(),
+                entry.getCustomerId(),
                 entry.getCustomerName()
         );
+        Optional<MilkEntry> existing = sameDay.stream()
+                .filter(e -> entry.getCustomerId() != null && entry.getCustomerId().equals(e.getCustomerId()))
+                .findFirst()
+                .or(() -> sameDay.stream().findFirst());
+
+        // aggregates are adjusted by delta: take the old row out before it changes
+        existing.ifPresent(aggregates::remove);
 
-        if (entry.getLitres() == 0) {
-            existing.ifPresent(repo::delete);
+        if (entry.getLitresMl() == 0) {
+            existing.ifPresent(e -> {
+                repo.delete(e);
+                versions.bumpMonth(e.getUserId(), e.getShift(), YearMonth.from(e.getDate()));
+            });
             return entry;
         }
 
-        entry.setAmount(entry.getLitres() * entry.getRate());
+        entry.setAmountPaise(FixedPoint.amountPaise(entry.getLitresMl(), entry.getRatePaise()));
 
         MilkEntry saveEntry = existing.orElse(new MilkEntry());
         saveEntry.setUserId(entry.getUserId());
-        saveEntry.setCustomerName(entry.getCustomerName());
+        saveEntry.setCustomerId(entry.getCustomerId());
+        if (saveEntry.getCustomerName() == null) saveEntry.setCustomerName(entry.getCustomerName());
         saveEntry.setShift(entry.getShift());
         saveEntry.setDate(entry.getDate());
-        saveEntry.setLitres(entry.getLitres());
-        saveEntry.setRate(entry.getRate());
-        saveEntry.setAmount(entry.getAmount());
+        saveEntry.setLitresMl(entry.getLitresMl());
+        saveEntry.setRatePaise(entry.getRatePaise());
+        saveEntry.setAmountPaise(entry.getAmountPaise());
+
+        MilkEntry saved = repo.save(saveEntry);
+        aggregates.add(saved);
+        versions.bumpMonth(saved.getUserId(), saved.getShift(), YearMonth.from(saved.getDate()));
+        return saved;
+    }
+
+    // ==========================================================
+    // BATCH SHEET — POST /api/milk/batch
+    // One SELECT for the day, then batched INSERT/UPDATE and a single DELETE.
+    // Returns a result per row: inserted / updated / deleted / unchanged / error.
+    // ==========================================================
+    @PostMapping("/batch")
+    @Transactional
+    public Map<String, Object> saveBatch(@RequestBody MilkBatchRequest sheet) {
+        if (sheet.userId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId is required");
+        }
+        if (sheet.shift() == null || sheet.shift().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "shift is required");
+        }
+        List<MilkBatchRequest.Row> rows = sheet.entries() != null ? sheet.entries() : List.of();
+        LocalDate date = sheet.date() != null ? sheet.date() : LocalDate.now();
+        requireOpenMonth(sheet.userId(), sheet.shift(), date);
+
+        // the day's rows by customer id, and by typed name (compared as the roster does) for unlinked ones
+        Map<Long, MilkEntry> existingById = new HashMap<>();
+        Map<String, MilkEntry> existing = new HashMap<>();
+        for (MilkEntry e : repo.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(
+                sheet.userId(), sheet.shift(), date, date)) {
+            if (e.getCustomerId() != null) existingById.putIfAbsent(e.getCustomerId(), e);
+            existing.put(CustomerRosterCache.RosterIndex.nameKey(e.getCustomerName()), e);
+        }
+        CustomerRosterCache.RosterIndex roster = rosterCache.index(sheet.userId(), sheet.shift());
+
+        List<MilkEntry> removed = new ArrayList<>();
+        List<MilkEntry> added = new ArrayList<>();
+        List<MilkEntry> toSave = new ArrayList<>();
+        List<MilkEntry> toDelete = new ArrayList<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        List<Map<String, Object>> results = new ArrayList<>(rows.size());
+        // entry behind each result row; new rows only get their id at flush
+        List<MilkEntry> resultEntries = new ArrayList<>(rows.size());
+
+        for (MilkBatchRequest.Row row : rows) {
+            Customer customer = row.customerId() != null
+                    ? roster.byId(row.customerId())
+                    : roster.byName(row.customerName());
+            String name = row.customerName() != null && !row.customerName().isBlank() ? row.customerName()
+                    : customer != null ? CustomerRosterCache.RosterIndex.displayName(customer)
+                    : row.customerName();
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("customerName", name);
+            if (customer != null) result.put("customerId", customer.getId());
+            results.add(result);
+            resultEntries.add(null);
+
+            String error = row.customerId() != null && customer == null
+                    ? "customerId is not an active customer of this shift"
+                    : validate(name, row);
+            if (error != null) {
+                result.put("status", "error");
+                result.put("error", error);
+                counts.merge("error", 1, Integer::sum);
+                continue;
+            }
+
+            long litresMl = FixedPoint.millilitres(row.litres());
+            long ratePaise = row.rate() != null ? FixedPoint.paise(row.rate()) : 0;
+            long amountPaise = FixedPoint.amountPaise(litresMl, ratePaise);
+            Long customerId = customer != null ? customer.getId() : null;
+            MilkEntry current = customerId != null ? existingById.get(customerId) : null;
+            if (current == null) current = existing.get(CustomerRosterCache.RosterIndex.nameKey(name));
+            String status;
+
+            if (litresMl == 0) {
+                if (current == null) {
+                    status = "unchanged";
+                } else {
+                    removed.add(copyOf(current));
+                    toDelete.add(current);
+                    existing.remove(CustomerRosterCache.RosterIndex.nameKey(current.getCustomerName()));
+                    if (current.getCustomerId() != null) existingById.remove(current.getCustomerId());
+                    status = "deleted";
+                }
+            } else if (current == null) {
+                MilkEntry e = new MilkEntry(name, sheet.shift(), 0, 0, 0, date, sheet.userId());
+                e.setLitresMl(litresMl);
+                e.setRatePaise(ratePaise);
+                e.setAmountPaise(amountPaise);
+                e.setCustomerId(customerId);
+                added.add(e);
+                toSave.add(e);
+                existing.put(CustomerRosterCache.RosterIndex.nameKey(name), e);
+                if (customerId != null) existingById.put(customerId, e);
+                resultEntries.set(results.size() - 1, e);
+                status = "inserted";
+            } else if (current.getLitresMl() == litresMl && current.getRatePaise() == ratePaise) {
+                resultEntries.set(results.size() - 1, current);
+                status = "unchanged";
+            } else {
+                removed.add(copyOf(current));
+                if (current.getCustomerId() == null) current.setCustomerId(customerId);
+                current.setLitresMl(litresMl);
+                current.setRatePaise(ratePaise);
+                current.setAmountPaise(amountPaise);
+                added.add(current);
+                resultEntries.set(results.size() - 1, current);
+                status = "updated";
+            }
+
+            result.put("status", status);
+            counts.merge(status, 1, Integer::sum);
+        }
+
+        aggregates.applyChanges(removed, added);
+        // delete first: a sheet may drop a row and re-add the same customer
+        if (!toDelete.isEmpty()) repo.deleteAllInBatch(toDelete);
+        repo.saveAll(toSave);
+        repo.flush();
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            versions.bumpMonth(sheet.userId(), sheet.shift(), YearMonth.from(date));
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            MilkEntry e = resultEntries.get(i);
+            if (e != null) results.get(i).put("id", e.getId());
+        }
+
+        Map<String, Object> resp = new LinkedHashMap<>();
+        resp.put("success", !counts.containsKey("error"));
+        resp.put("date", date);
+        resp.put("counts", counts);
+        resp.put("results", results);
+        return resp;
+    }
+
+    private static String validate(String customerName, MilkBatchRequest.Row row) {
+        if (customerName == null || customerName.isBlank()) return "customerName or customerId is required";
+        if (row.litres() == null) return "litres is required";
+        if (row.litres() < 0) return "litres must not be negative";
+        if (row.rate() != null && row.rate() < 0) return "rate must not be negative";
+        return null;
+    }
+
+    // archived months are read-only until restored (POST /api/archive/restore);
+    // checked in the database under the month's lock, not in the cached index
+    private void requireOpenMonth(Long userId, String shift, LocalDate date) {
+        if (!archive.lockOpenMonth(userId, shift, YearMonth.from(date))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "month " + YearMonth.from(date) + " is archived");
+        }
+    }
+
+    private static MilkEntryRow row(MilkEntry e) {
+        return new MilkEntryRow(e.getId(), e.getCustomerName(), e.getShift(), e.getLitresMl(), e.getRatePaise(),
+                e.getAmountPaise(), e.getDate(), e.getUserId(), e.getCustomerId());
+    }
 
-        return repo.save(saveEntry);
+    // detached snapshot of an entry's values before it is changed or deleted
+    private static MilkEntry copyOf(MilkEntry e) {
+        MilkEntry copy = new MilkEntry(e.getCustomerName(), e.getShift(), 0, 0, 0, e.getDate(), e.getUserId());
+        copy.setLitresMl(e.getLitresMl());
+        copy.setRatePaise(e.getRatePaise());
+        copy.setAmountPaise(e.getAmountPaise());
+        copy.setCustomerId(e.getCustomerId());
+        return copy;
     }
 
     @DeleteMapping("/{id}")
+    @Transactional
     public String deleteEntry(@PathVariable Long id) {
-        if (!repo.existsById(id)) {
+        Optional<MilkEntry> existing = repo.findById(id);
+        if (existing.isEmpty()) {
             return "Entry not found";
         }
-        repo.deleteById(id);
+        MilkEntry e = existing.get();
+        requireOpenMonth(e.getUserId(), e.getShift(), e.getDate());
+        aggregates.remove(e);
+        repo.delete(e);
+        versions.bumpMonth(e.getUserId(), e.getShift(), YearMonth.from(e.getDate()));
         return "Deleted";
     }
 }
@@ -1,29 +1,58 @@
 package com.milkattendence.backend.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.milkattendence.backend.model.Customer;
-import com.milkattendence.backend.model.MilkEntry;
-import com.milkattendence.backend.repository.CustomerRepository;
-import com.milkattendence.backend.repository.MilkEntryRepository;
+import com.milkattendence.backend.repository.MilkReportRepository;
+import com.milkattendence.backend.repository.projection.DailyCustomerTotal;
+import com.milkattendence.backend.service.CustomerRosterCache;
+import com.milkattendence.backend.service.DataVersionService;
+import com.milkattendence.backend.service.MilkAggregateService;
+import com.milkattendence.backend.service.MilkArchiveService;
+import com.milkattendence.backend.service.OverviewEngine;
+import com.milkattendence.backend.util.ETags;
+import com.milkattendence.backend.util.MilkArchiveCodec;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.util.*;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/overview")
 @CrossOrigin(origins = "*")
 public class OverviewController {
 
-    private final MilkEntryRepository milkEntryRepo;
-    private final CustomerRepository customerRepo;
+    public static final String COMPACT_MEDIA_TYPE = "application/vnd.milkattendence.overview-compact.v1+json";
+
+    private final MilkReportRepository reportRepo;
+    private final CustomerRosterCache rosterCache;
+    private final MilkAggregateService aggregateService;
+    private final ObjectMapper objectMapper;
+    private final DataVersionService versions;
+    private final MilkArchiveService archive;
 
     public OverviewController(
-            MilkEntryRepository milkEntryRepo,
-            CustomerRepository customerRepo
+            MilkReportRepository reportRepo,
+            CustomerRosterCache rosterCache,
+            MilkAggregateService aggregateService,
+            ObjectMapper objectMapper,
+            DataVersionService versions,
+            MilkArchiveService archive
     ) {
-        this.milkEntryRepo = milkEntryRepo;
-        this.customerRepo = customerRepo;
+        this.reportRepo = reportRepo;
+        this.rosterCache = rosterCache;
+        this.aggregateService = aggregateService;
+        this.objectMapper = objectMapper;
+        this.versions = versions;
+        this.archive = archive;
     }
 
     @GetMapping
@@ -31,115 +60,116 @@ public class OverviewController {
             @RequestParam String shift,
             @RequestParam int month,
             @RequestParam int year,
-            @RequestParam Long userId
+            @RequestParam Long userId,
+            WebRequest request
     ) {
+        if (ETags.notModified(request, tag("overview", shift, year, month, userId))) {
+            return null;
+        }
+        return buildEngine(shift, year, month, userId).toResponse(year, month);
+    }
+
+    /* ==========================================================
+       COMPACT OVERVIEW — ?format=compact or Accept: COMPACT_MEDIA_TYPE
+       Same numbers as above, written column-wise straight from the
+       engine's arrays: no per-cell maps, no Customer entities.
+       ========================================================== */
+    @GetMapping(params = "format=compact")
+    public void getCompactOverview(
+            @RequestParam String shift,
+            @RequestParam int month,
+            @RequestParam int year,
+            @RequestParam Long userId,
+            WebRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        if (ETags.notModified(request, tag("overview-compact", shift, year, month, userId))) {
+            return;
+        }
+        writeCompact(buildEngine(shift, year, month, userId), year, month, response);
+    }
+
+    @GetMapping(produces = COMPACT_MEDIA_TYPE)
+    public void getCompactOverviewByAccept(
+            @RequestParam String shift,
+            @RequestParam int month,
+            @RequestParam int year,
+            @RequestParam Long userId,
+            WebRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        if (ETags.notModified(request, tag("overview-compact", shift, year, month, userId))) {
+            return;
+        }
+        writeCompact(buildEngine(shift, year, month, userId), year, month, response);
+    }
 
+    // roster and month versions, taken before any data is read
+    private String tag(String representation, String shift, int year, int month, Long userId) {
+        return representation + "-" + versions.customers(userId)
+                + "-" + versions.month(userId, shift, YearMonth.of(year, month));
+    }
+
+    private void writeCompact(OverviewEngine engine, int year, int month, HttpServletResponse response)
+            throws IOException {
+        response.setContentType(COMPACT_MEDIA_TYPE);
+        try (JsonGenerator g = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            engine.writeCompact(g, year, month);
+        }
+    }
+
+    private OverviewEngine buildEngine(String shift, int year, int month, Long userId) {
         YearMonth ym = YearMonth.of(year, month);
         LocalDate start = ym.atDay(1);
         LocalDate end = ym.atEndOfMonth();
 
-        List<Customer> customers =
-                customerRepo.findByShiftAndUserIdAndActive(shift, userId, true);
-
-        List<MilkEntry> entries =
-                milkEntryRepo.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(
-                        userId, shift, start, end
-                );
-
-        int daysInMonth = ym.lengthOfMonth();
+        List<Customer> customers = rosterCache.activeCustomers(userId, shift);
 
-        // day -> customerId -> { litres }
-        Map<Integer, Map<Long, Map<String, Double>>> matrix = new HashMap<>();
-        for (int d = 1; d <= daysInMonth; d++) {
-            matrix.put(d, new HashMap<>());
-        }
+        OverviewEngine engine = new OverviewEngine(customers, ym.lengthOfMonth());
 
         // -----------------------------
         // BUILD MATRIX (LITRES ONLY)
         // -----------------------------
-        for (MilkEntry e : entries) {
-            int day = e.getDate().getDayOfMonth();
-
-            Optional<Customer> customerOpt = customers.stream()
-                    .filter(c ->
-                            (c.getFullName() != null &&
-                             c.getFullName().equalsIgnoreCase(e.getCustomerName()))
-                         || (c.getNickname() != null &&
-                             c.getNickname().equalsIgnoreCase(e.getCustomerName()))
-                    )
-                    .findFirst();
-
-            if (customerOpt.isEmpty()) continue;
-
-            Long customerId = customerOpt.get().getId();
-
-            Map<Long, Map<String, Double>> dayMap = matrix.get(day);
-            Map<String, Double> cell =
-                    dayMap.getOrDefault(customerId, new HashMap<>());
-
-            cell.put(
-                    "litres",
-                    cell.getOrDefault("litres", 0.0) + e.getLitres()
-            );
-
-            dayMap.put(customerId, cell);
+        if (archive.isArchived(userId, shift, ym)) {
+            // archived month: no daily aggregates left, the block's runs cover every day
+            for (MilkArchiveCodec.Run run : archive.runs(userId, shift, ym)) {
+                for (int day = run.startDay(); day <= run.endDay(); day++) {
+                    engine.add(day, run.customerId(), run.customerName(), run.litresMl());
+                }
+            }
+        } else {
+            // one pre-summed (day, customer, millilitres, paise) tuple per cell
+            List<DailyCustomerTotal> cells =
+                    reportRepo.findDailyCells(userId, shift, start, end);
+            for (DailyCustomerTotal cell : cells) {
+                engine.add(cell.day().getDayOfMonth(), cell.customerId(), cell.customerName(), cell.litresMl());
+            }
         }
 
         // -----------------------------
         // TOTALS (DYNAMIC PRICING)
         // -----------------------------
-        Map<Long, Double> totalLitresPerCustomer = new HashMap<>();
-        Map<Long, Double> totalAmountPerCustomer = new HashMap<>();
-        Map<Integer, Double> totalPerDay = new HashMap<>();
-        double grandTotalAmount = 0.0;
-
-        for (int day = 1; day <= daysInMonth; day++) {
-
-            double dayTotal = 0.0;
-
-            for (Customer c : customers) {
-
-                double litres =
-                        matrix.get(day)
-                              .getOrDefault(c.getId(), Map.of())
-                              .getOrDefault("litres", 0.0);
-
-                double price =
-                        c.getPricePerLitre() != null
-                                ? c.getPricePerLitre()
-                                : 0.0;
-
-                double amount = litres * price;
-
-                totalLitresPerCustomer.merge(
-                        c.getId(), litres, Double::sum
-                );
-
-                totalAmountPerCustomer.merge(
-                        c.getId(), amount, Double::sum
-                );
-
-                dayTotal += amount;
-                grandTotalAmount += amount;
-            }
+        return engine.computeTotals();
+    }
 
-            totalPerDay.put(day, dayTotal);
+    // ==========================================================
+    // CONSISTENCY CHECK — rebuild a month's aggregates from milk_entries
+    // POST /api/overview/rebuild?userId=..&shift=..&month=..&year=..
+    // ==========================================================
+    @PostMapping("/rebuild")
+    @Transactional
+    public Map<String, Object> rebuildMonth(
+            @RequestParam String shift,
+            @RequestParam int month,
+            @RequestParam int year,
+            @RequestParam Long userId
+    ) {
+        if (!archive.lockOpenMonth(userId, shift, YearMonth.of(year, month))) {
+            // its raw rows are in the archive block; a rebuild would wipe the month
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "month is archived");
         }
-
-        // -----------------------------
-        // RESPONSE
-        // -----------------------------
-        Map<String, Object> response = new HashMap<>();
-        response.put("year", year);
-        response.put("month", month);
-        response.put("daysInMonth", daysInMonth);
-        response.put("customers", customers);
-        response.put("matrix", matrix);
-        response.put("totalLitresPerCustomer", totalLitresPerCustomer);
-        response.put("totalAmountPerCustomer", totalAmountPerCustomer);
-        response.put("totalPerDay", totalPerDay);
-        response.put("grandTotalAmount", grandTotalAmount);
-
-        return response;
+        int drift = aggregateService.rebuildMonth(userId, shift, YearMonth.of(year, month));
+        if (drift > 0) versions.bumpMonth(userId, shift, YearMonth.of(year, month));
+        return Map.of("success", true, "driftedCells", drift);
     }
 }
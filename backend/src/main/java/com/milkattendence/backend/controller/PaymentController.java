@@ -1,20 +1,28 @@
 package com.milkattendence.backend.controller;
 
+import com.milkattendence.backend.config.QueryBudget;
 import com.milkattendence.backend.model.Customer;
 import com.milkattendence.backend.model.Payment;
 import com.milkattendence.backend.repository.CustomerRepository;
-import com.milkattendence.backend.repository.MilkEntryRepository;
 import com.milkattendence.backend.repository.PaymentRepository;
-import com.milkattendence.backend.service.EmailService;
+import com.milkattendence.backend.service.CustomerBalanceService;
+import com.milkattendence.backend.service.CustomerRosterCache;
+import com.milkattendence.backend.service.DataVersionService;
+import com.milkattendence.backend.service.PaymentSeedTracker;
+import com.milkattendence.backend.service.ReminderScheduler;
+import com.milkattendence.backend.service.UnpaidEmailService;
+import com.milkattendence.backend.util.ETags;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
 import java.util.*;
 
@@ -27,68 +35,97 @@ public class PaymentController {
 
     private final PaymentRepository paymentRepository;
     private final CustomerRepository customerRepository;
-    private final MilkEntryRepository milkEntryRepository;
-    private final EmailService emailService;
+    private final PaymentSeedTracker seedTracker;
+    private final UnpaidEmailService unpaidEmailService;
+    private final ReminderScheduler reminderScheduler;
+    private final CustomerRosterCache rosterCache;
+    private final QueryBudget queryBudget;
+    private final DataVersionService versions;
+    private final CustomerBalanceService balanceService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public PaymentController(
             PaymentRepository paymentRepository,
             CustomerRepository customerRepository,
-            MilkEntryRepository milkEntryRepository,
-            EmailService emailService
+            PaymentSeedTracker seedTracker,
+            UnpaidEmailService unpaidEmailService,
+            ReminderScheduler reminderScheduler,
+            CustomerRosterCache rosterCache,
+            QueryBudget queryBudget,
+            DataVersionService versions,
+            CustomerBalanceService balanceService,
+            PlatformTransactionManager transactionManager
     ) {
         this.paymentRepository = paymentRepository;
         this.customerRepository = customerRepository;
-        this.milkEntryRepository = milkEntryRepository;
-        this.emailService = emailService;
+        this.seedTracker = seedTracker;
+        this.unpaidEmailService = unpaidEmailService;
+        this.reminderScheduler = reminderScheduler;
+        this.rosterCache = rosterCache;
+        this.queryBudget = queryBudget;
+        this.versions = versions;
+        this.balanceService = balanceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /* ============================
        GET PAYMENTS
+       Today's sheet is fixed by the date, the roster (seeding) and the
+       month's payment writes, so those make up the ETag. Seeding commits
+       in its own transaction, so a failed seed rolls back alone and the
+       page still answers success:false, untagged and no-store so the
+       retry is not answered with a 304.
        ============================ */
     @GetMapping("/{shift}")
-    @Transactional
     public Map<String, Object> getPaymentsByShift(
             @PathVariable String shift,
-            @RequestParam Long userId
+            @RequestParam Long userId,
+            WebRequest request
     ) {
-        Map<String, Object> resp = new HashMap<>();
         LocalDate today = LocalDate.now(IST);
+        String tag = "payments-" + today + "-" + versions.customers(userId)
+                + "-" + versions.month(userId, shift, YearMonth.from(today));
+        // a sheet not seeded yet is not "unchanged": only tag it once the seed worked
+        boolean seeded = seedTracker.isSeeded(userId, shift, today);
+        if (seeded && ETags.notModified(request, tag)) {
+            return null;
+        }
 
-        try {
-            List<Customer> customers =
-                    customerRepository.findByShiftAndUserIdAndActive(shift, userId, true);
-
-            for (Customer c : customers) {
-                String name = c.getFullName() != null ? c.getFullName() : c.getNickname();
-                if (name == null || name.isBlank()) continue;
-
-                if (paymentRepository
-                        .findAllMatchingForUser(shift, today, name, userId)
-                        .isEmpty()) {
+        Map<String, Object> resp = new HashMap<>();
 
-                    Payment p = new Payment(name, shift, false, today, userId);
-                    paymentRepository.save(p);
-                }
+        try {
+            // first load of the day seeds every active customer in one statement;
+            // after that the page is a single indexed SELECT
+            if (!seeded) {
+                transactionTemplate.executeWithoutResult(
+                        status -> paymentRepository.seedUnpaidForDay(userId, shift, today));
+                seedTracker.markSeeded(userId, shift, today);
             }
 
             List<Payment> payments =
-                    paymentRepository.findByShiftAndDateAndUserId(shift, today, userId);
+                    paymentRepository.findByShiftAndDateAndUserIdOrderByCustomerNameAsc(shift, today, userId);
 
-            payments.sort(Comparator.comparing(Payment::getCustomerName));
             resp.put("success", true);
             resp.put("payments", payments);
 
         } catch (Exception e) {
+            ETags.noStore(request);
             resp.put("success", false);
             resp.put("error", e.getMessage());
+            return resp;
         }
 
+        if (!seeded) ETags.tag(request, tag);
         return resp;
     }
 
     /* ============================
        SAVE PAYMENT
+       The customer is named by customerId or customerName; today's row is
+       found by id, falling back to the name for rows written before
+       payments carried customer_id. Toggling paid settles against (or
+       gives back to) the customer's balance.
        ============================ */
     @PostMapping
     @Transactional
@@ -101,22 +138,40 @@ public class PaymentController {
             String shift = Objects.toString(body.get("shift"), "");
             boolean paid = Boolean.parseBoolean("" + body.get("paid"));
             Long userId = Long.parseLong("" + body.get("userId"));
+            Long customerId = body.get("customerId") != null ? Long.valueOf("" + body.get("customerId")) : null;
 
             LocalDate today = LocalDate.now(IST);
 
-            List<Payment> existing =
-                    paymentRepository.findAllMatchingForUser(
-                            shift, today, customerName, userId
-                    );
+            CustomerRosterCache.RosterIndex roster = rosterCache.index(userId, shift);
+            Customer customer = customerId != null ? roster.byId(customerId) : roster.byName(customerName);
+            if (customerId != null && customer == null) {
+                resp.put("success", false);
+                resp.put("error", "customerId is not an active customer of this shift");
+                return resp;
+            }
+            if (customer != null && customerName.isBlank()) {
+                customerName = CustomerRosterCache.RosterIndex.displayName(customer);
+            }
+
+            List<Payment> existing = customer != null
+                    ? paymentRepository.findByUserIdAndShiftAndDateAndCustomerId(userId, shift, today, customer.getId())
+                    : List.of();
+            if (existing.isEmpty()) {
+                existing = paymentRepository.findAllMatchingForUser(
+                        shift, today, customerName, userId
+                );
+            }
 
             Payment p = existing.isEmpty() ? new Payment() : existing.get(0);
-            p.setCustomerName(customerName);
+            if (p.getCustomerName() == null) p.setCustomerName(customerName);
+            if (customer != null) p.setCustomerId(customer.getId());
             p.setShift(shift);
-            p.setPaid(paid);
             p.setDate(today);
             p.setUserId(userId);
+            balanceService.settle(p, paid);
 
             paymentRepository.save(p);
+            versions.bumpMonth(userId, shift, YearMonth.from(today));
             resp.put("success", true);
 
         } catch (Exception e) {
@@ -151,6 +206,9 @@ public class PaymentController {
                 shift,
                 repeatDays
         );
+        rosterCache.invalidate(userId);
+        versions.bumpCustomers(userId);
+        reminderScheduler.reload(userId);
 
         return Map.of("success", true);
     }
@@ -161,95 +219,8 @@ public class PaymentController {
     @GetMapping("/check-reminders")
     @org.springframework.scheduling.annotation.Scheduled(cron = "0 * * * * *") // run at the top of every minute
     public void checkReminders() {
-
-        LocalTime now = LocalTime.now(IST);
-        LocalDate today = LocalDate.now(IST);
-
-        List<Customer> users = customerRepository.findAllWithRemindersEnabled();
-
-        for (Customer u : users) {
-
-            if (u.getReminderTime() == null) continue;
-
-            int interval = (u.getReminderIntervalDays() == null || u.getReminderIntervalDays() <= 0) ? 1 : u.getReminderIntervalDays();
-
-            boolean eligibleByDate = false;
-            if (u.getLastReminderSent() == null) {
-                eligibleByDate = true;
-            } else {
-                LocalDate next = u.getLastReminderSent().plusDays(interval);
-                if (!today.isBefore(next)) eligibleByDate = true;
-            }
-
-            if (!eligibleByDate) continue;
-
-            if (now.getHour() == u.getReminderTime().getHour()
-                    && now.getMinute() == u.getReminderTime().getMinute()) {
-
-                try {
-                    sendUnpaidEmailInternal(u.getUserId(), u.getReminderShift());
-                    customerRepository.updateLastReminderSent(u.getUserId(), today);
-                } catch (Exception e) {
-                    // Log and continue; do not stop the loop
-                    LoggerFactory.getLogger(PaymentController.class).error("Failed to send reminder email for user {}: {}", u.getUserId(), e.getMessage());
-                }
-            }
-        }
-    }
-
-    /* ============================
-       SENDGRID EMAIL
-       ============================ */
-    private void sendUnpaidEmailInternal(Long userId, String shift) throws Exception {
-            LocalDate today = LocalDate.now(IST);
-
-            List<Payment> unpaid =
-                    paymentRepository.findByShiftAndPaidFalseAndDateAndUserId(
-                            shift, today, userId
-                    );
-
-            if (unpaid.isEmpty()) return;
-
-            StringBuilder html = new StringBuilder();
-            html.append("<h3>Unpaid Customers — ").append(shift).append("</h3>");
-            html.append("<table border='1' cellpadding='6'>")
-                .append("<tr><th>Name</th><th>Litres</th><th>Rate</th><th>Total</th></tr>");
-
-            for (Payment p : unpaid) {
-
-                Double litres =
-                        milkEntryRepository.getTotalLitresForCustomer(
-                                p.getCustomerName(),
-                                p.getShift(),
-                                p.getUserId()
-                        );
-
-                double rate =
-                        customerRepository
-                                .findCustomerByNameForUser(
-                                        p.getUserId(),
-                                        p.getShift(),
-                                        p.getCustomerName()
-                                )
-                                .map(Customer::getPricePerLitre)
-                                .orElse(0.0);
-
-                html.append("<tr>")
-                    .append("<td>").append(p.getCustomerName()).append("</td>")
-                    .append("<td>").append(String.format("%.2f", litres)).append("</td>")
-                    .append("<td>").append(String.format("%.2f", rate)).append("</td>")
-                    .append("<td><b>")
-                    .append(String.format("%.2f", litres * rate))
-                    .append("</b></td>")
-                    .append("</tr>");
-            }
-
-            html.append("</table>");
-
-            emailService.sendHtmlEmail(
-                    "Unpaid Customers (" + shift + ") - " + today,
-                    html.toString()
-            );
+        // due reminders come off an in-memory queue; idle minutes do no database work
+        queryBudget.track("job checkReminders", reminderScheduler::tick);
     }
 
     /* ============================
@@ -261,8 +232,8 @@ public class PaymentController {
             @RequestParam Long userId
     ) {
         try {
-            sendUnpaidEmailInternal(userId, shift);
-            return Map.of("success", true, "message", "Email sent to admin");
+            unpaidEmailService.sendUnpaidEmail(userId, shift);
+            return Map.of("success", true, "message", "Email queued for admin");
         } catch (Exception e) {
             e.printStackTrace();
             return Map.of("success", false, "error", e.getMessage());
@@ -0,0 +1,29 @@
+package com.milkattendence.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A whole shift sheet for POST /api/milk/batch: one (userId, shift, date)
+ * and a row per customer. Rows with litres = 0 delete that customer's entry.
+ * A row names its customer by customerId, customerName, or both.
+ */
+public record MilkBatchRequest(
+        Long userId,
+        String shift,
+        LocalDate date,
+        List<Row> entries
+) {
+
+    public record Row(
+            String customerName,
+            Double litres,
+            Double rate,
+            Long customerId
+    ) {
+
+        public Row(String customerName, Double litres, Double rate) {
+            this(customerName, litres, rate, null);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.milkattendence.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position in a milk entry history page: the (date, id) of the last row the
+ * client has seen. Travels as an opaque base64url token so clients do not
+ * build or parse it themselves.
+ */
+public record MilkHistoryCursor(LocalDate date, long id) {
+
+    private static final String VERSION = "v1";
+
+    public String encode() {
+        String raw = VERSION + ":" + date + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws IllegalArgumentException when the token was not produced by {@link #encode()} */
+    public static MilkHistoryCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("unknown cursor format");
+            }
+            return new MilkHistoryCursor(LocalDate.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid cursor", e);
+        }
+    }
+}
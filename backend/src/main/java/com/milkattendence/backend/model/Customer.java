@@ -1,11 +1,16 @@
 package com.milkattendence.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.milkattendence.backend.util.FixedPoint;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "customer")
+@Table(
+    name = "customer",
+    indexes = @Index(name = "idx_customer_user_shift_active", columnList = "user_id, shift, active")
+)
 public class Customer {
 
     @Id
@@ -17,7 +22,10 @@ public class Customer {
     private String fullName;
     private String nickname;
     private String shift;
-    private Double pricePerLitre;
+
+    // paise per litre (see FixedPoint); null when no price is set
+    @Column(name = "price_per_litre_paise")
+    private Long pricePerLitrePaise;
 
     // Existing
     private boolean active = true;
@@ -85,11 +93,20 @@ public class Customer {
     }
 
     public Double getPricePerLitre() {
-        return pricePerLitre;
+        return FixedPoint.rupeesOrNull(pricePerLitrePaise);
     }
 
     public void setPricePerLitre(Double pricePerLitre) {
-        this.pricePerLitre = pricePerLitre;
+        this.pricePerLitrePaise = FixedPoint.paiseOrNull(pricePerLitre);
+    }
+
+    @JsonIgnore
+    public Long getPricePerLitrePaise() {
+        return pricePerLitrePaise;
+    }
+
+    public void setPricePerLitrePaise(Long pricePerLitrePaise) {
+        this.pricePerLitrePaise = pricePerLitrePaise;
     }
 
     public boolean isActive() {
@@ -0,0 +1,51 @@
+package com.milkattendence.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Running balance of one customer: everything billed (milk entries) and
+ * everything paid (settled payments). Maintained by CustomerBalanceService
+ * on every entry and payment write, and re-verified against milk_entries /
+ * payments by its nightly job.
+ */
+@Entity
+@Table(
+    name = "customer_balances",
+    indexes = @Index(name = "idx_customer_balances_user", columnList = "user_id")
+)
+public class CustomerBalance {
+
+    // same id as the customer row; created on the customer's first write
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "billed_ml")
+    private long billedMl;
+
+    @Column(name = "billed_paise")
+    private long billedPaise;
+
+    @Column(name = "paid_paise")
+    private long paidPaise;
+
+    public CustomerBalance() {}
+
+    public Long getCustomerId() { return customerId; }
+
+    public Long getUserId() { return userId; }
+
+    public long getBilledMl() { return billedMl; }
+    public void setBilledMl(long billedMl) { this.billedMl = billedMl; }
+
+    public long getBilledPaise() { return billedPaise; }
+    public void setBilledPaise(long billedPaise) { this.billedPaise = billedPaise; }
+
+    public long getPaidPaise() { return paidPaise; }
+    public void setPaidPaise(long paidPaise) { this.paidPaise = paidPaise; }
+
+    public long getOutstandingPaise() { return billedPaise - paidPaise; }
+}
@@ -0,0 +1,45 @@
+package com.milkattendence.backend.model;
+
+import jakarta.persistence.*;
+
+/**
+ * What one customer was billed and paid in months that retention detached
+ * from milk_entries and payments (PartitionMaintenanceService folds them in
+ * as it detaches). CustomerBalanceService's verification adds it to the
+ * totals it recomputes from the rows that are left.
+ */
+@Entity
+@Table(
+    name = "customer_balance_openings",
+    indexes = @Index(name = "idx_customer_balance_openings_user", columnList = "user_id")
+)
+public class CustomerBalanceOpening {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "billed_ml")
+    private long billedMl;
+
+    @Column(name = "billed_paise")
+    private long billedPaise;
+
+    @Column(name = "paid_paise")
+    private long paidPaise;
+
+    public CustomerBalanceOpening() {}
+
+    public Long getCustomerId() { return customerId; }
+
+    public Long getUserId() { return userId; }
+
+    public long getBilledMl() { return billedMl; }
+
+    public long getBilledPaise() { return billedPaise; }
+
+    public long getPaidPaise() { return paidPaise; }
+}
@@ -0,0 +1,57 @@
+package com.milkattendence.backend.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Change counter for one slice of a user's data, see DataVersionService.
+ * Scope is {@code customers} for the roster or {@code <shift>/<yyyy-MM>} for
+ * one month of milk entries and payments.
+ */
+@Entity
+@Table(name = "data_versions")
+@IdClass(DataVersion.Key.class)
+public class DataVersion {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(nullable = false, length = 100)
+    private String scope;
+
+    @Column(nullable = false)
+    private long version;
+
+    public DataVersion() {}
+
+    public Long getUserId() { return userId; }
+
+    public String getScope() { return scope; }
+
+    public long getVersion() { return version; }
+
+    public static class Key implements Serializable {
+
+        private Long userId;
+        private String scope;
+
+        public Key() {}
+
+        public Key(Long userId, String scope) {
+            this.userId = userId;
+            this.scope = scope;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Objects.equals(userId, k.userId) && Objects.equals(scope, k.scope);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(userId, scope); }
+    }
+}
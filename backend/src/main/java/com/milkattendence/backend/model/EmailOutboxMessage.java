@@ -0,0 +1,84 @@
+package com.milkattendence.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * One queued email. Rows are written by EmailService and delivered by
+ * EmailOutboxWorker; SENT and DEAD rows are kept as the delivery log.
+ */
+@Entity
+@Table(
+    name = "email_outbox",
+    indexes = @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at")
+)
+public class EmailOutboxMessage {
+
+    public enum Status { PENDING, SENDING, SENT, DEAD }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 320)
+    private String recipient;
+
+    @Column(nullable = false, length = 998)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String html;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    // set when a worker takes the row; stale claims are released on startup
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public EmailOutboxMessage() {}
+
+    public EmailOutboxMessage(String recipient, String subject, String html, Instant now) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.html = html;
+        this.createdAt = now;
+        this.nextAttemptAt = now;
+    }
+
+    public Long getId() { return id; }
+
+    public String getRecipient() { return recipient; }
+    public String getSubject() { return subject; }
+    public String getHtml() { return html; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+
+    public Instant getNextAttemptAt() { return nextAttemptAt; }
+
+    public Instant getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(Instant claimedAt) { this.claimedAt = claimedAt; }
+
+    public Instant getSentAt() { return sentAt; }
+    public Instant getCreatedAt() { return createdAt; }
+    public String getLastError() { return lastError; }
+}
@@ -0,0 +1,100 @@
+package com.milkattendence.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One archived (userId, shift, month) of milk entries as a run-length block
+ * (see MilkArchiveCodec). Written by MilkArchiveService when a closed month
+ * is archived; the month's milk_entries rows are gone from then on.
+ */
+@Entity
+@Table(
+    name = "milk_archive_blocks",
+    uniqueConstraints = @UniqueConstraint(
+        name = "ux_milk_archive_blocks_user_shift_month",
+        columnNames = {"user_id", "shift", "month_start"}
+    )
+)
+public class MilkArchiveBlock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String shift;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "format_version", nullable = false)
+    private int formatVersion;
+
+    @Column(name = "entry_count", nullable = false)
+    private int entryCount;
+
+    @Column(name = "run_count", nullable = false)
+    private int runCount;
+
+    @Column(name = "litres_ml", nullable = false)
+    private long litresMl;
+
+    @Column(name = "amount_paise", nullable = false)
+    private long amountPaise;
+
+    // CRC-32 of the uncompressed runs
+    @Column(nullable = false)
+    private long checksum;
+
+    // bytea; the length only keeps the H2 test schema from a 255-byte varbinary
+    @Column(nullable = false, length = 1_000_000)
+    private byte[] data;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public MilkArchiveBlock() {}
+
+    public MilkArchiveBlock(Long userId, String shift, LocalDate monthStart) {
+        this.userId = userId;
+        this.shift = shift;
+        this.monthStart = monthStart;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getUserId() { return userId; }
+
+    public String getShift() { return shift; }
+
+    public LocalDate getMonthStart() { return monthStart; }
+
+    public int getFormatVersion() { return formatVersion; }
+    public void setFormatVersion(int formatVersion) { this.formatVersion = formatVersion; }
+
+    public int getEntryCount() { return entryCount; }
+    public void setEntryCount(int entryCount) { this.entryCount = entryCount; }
+
+    public int getRunCount() { return runCount; }
+    public void setRunCount(int runCount) { this.runCount = runCount; }
+
+    public long getLitresMl() { return litresMl; }
+    public void setLitresMl(long litresMl) { this.litresMl = litresMl; }
+
+    public long getAmountPaise() { return amountPaise; }
+    public void setAmountPaise(long amountPaise) { this.amountPaise = amountPaise; }
+
+    public long getChecksum() { return checksum; }
+    public void setChecksum(long checksum) { this.checksum = checksum; }
+
+    public byte[] getData() { return data; }
+    public void setData(byte[] data) { this.data = data; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
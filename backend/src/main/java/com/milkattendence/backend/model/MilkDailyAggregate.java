@@ -0,0 +1,81 @@
+package com.milkattendence.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Materialized millilitres/paise per (userId, shift, customer, day).
+ * Maintained by MilkAggregateService on every milk entry write.
+ */
+@Entity
+@Table(
+    name = "milk_daily_aggregates",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "shift", "date", "customer_key"})
+)
+public class MilkDailyAggregate {
+
+    // pooled sequence (not IDENTITY) so Hibernate can batch inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "milk_daily_aggregates_seq")
+    @SequenceGenerator(name = "milk_daily_aggregates_seq", sequenceName = "milk_daily_aggregates_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String shift;
+
+    // lower-cased customer name, same key the overview engine matches on
+    @Column(name = "customer_key", nullable = false)
+    private String customerKey;
+
+    // roster customer behind the key; null while the name matches no customer
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @Column(name = "litres_ml")
+    private long litresMl;
+
+    @Column(name = "amount_paise")
+    private long amountPaise;
+
+    private int entryCount;
+
+    public MilkDailyAggregate() {}
+
+    public MilkDailyAggregate(Long userId, String shift, String customerKey, LocalDate date) {
+        this.userId = userId;
+        this.shift = shift;
+        this.customerKey = customerKey;
+        this.date = date;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getShift() { return shift; }
+    public void setShift(String shift) { this.shift = shift; }
+
+    public String getCustomerKey() { return customerKey; }
+    public void setCustomerKey(String customerKey) { this.customerKey = customerKey; }
+
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
+    public LocalDate getDate() { return date; }
+    public void setDate(LocalDate date) { this.date = date; }
+
+    public long getLitresMl() { return litresMl; }
+    public void setLitresMl(long litresMl) { this.litresMl = litresMl; }
+
+    public long getAmountPaise() { return amountPaise; }
+    public void setAmountPaise(long amountPaise) { this.amountPaise = amountPaise; }
+
+    public int getEntryCount() { return entryCount; }
+    public void setEntryCount(int entryCount) { this.entryCount = entryCount; }
+}
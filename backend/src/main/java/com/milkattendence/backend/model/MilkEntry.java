@@ -1,22 +1,53 @@
 package com.milkattendence.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.milkattendence.backend.util.FixedPoint;
 import jakarta.persistence.*;
+import org.hibernate.annotations.PartitionKey;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "milk_entries")
+@Table(
+    name = "milk_entries",
+    indexes = {
+        @Index(
+            name = "ux_milk_entries_user_shift_date_customer",
+            columnList = "user_id, shift, date, customer_name",
+            unique = true
+        ),
+        // keyset pages of the entry history (date DESC, id DESC)
+        @Index(name = "idx_milk_entries_user_shift_date_id", columnList = "user_id, shift, date, id"),
+        @Index(name = "idx_milk_entries_customer_date", columnList = "customer_id, date")
+    }
+)
 public class MilkEntry {
 
+    // pooled sequence (not IDENTITY) so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "milk_entries_seq")
+    @SequenceGenerator(name = "milk_entries_seq", sequenceName = "milk_entries_seq", allocationSize = 50)
     private Long id;
 
     private String customerName;
+
+    // roster customer this entry belongs to; customerName is what was typed
+    @Column(name = "customer_id")
+    private Long customerId;
+
     private String shift;
-    private double litres;
-    private double rate;
-    private double amount;
 
+    // fixed point (see FixedPoint); the getters/setters below speak litres and rupees
+    @Column(name = "litres_ml")
+    private long litresMl;
+
+    @Column(name = "rate_paise")
+    private long ratePaise;
+
+    @Column(name = "amount_paise")
+    private long amountPaise;
+
+    // monthly partitions on Postgres (db/maintenance/monthly_partitions.sql): UPDATE/DELETE by id also carry the date
+    @PartitionKey
     @Column(nullable = false)
     private LocalDate date;
 
@@ -36,9 +67,9 @@ public class MilkEntry {
     ) {
         this.customerName = customerName;
         this.shift = shift;
-        this.litres = litres;
-        this.rate = rate;
-        this.amount = amount;
+        this.litresMl = FixedPoint.millilitres(litres);
+        this.ratePaise = FixedPoint.paise(rate);
+        this.amountPaise = FixedPoint.paise(amount);
         this.date = (date != null ? date : LocalDate.now());
         this.userId = userId;
     }
@@ -48,17 +79,32 @@ public class MilkEntry {
     public String getCustomerName() { return customerName; }
     public void setCustomerName(String customerName) { this.customerName = customerName; }
 
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
     public String getShift() { return shift; }
     public void setShift(String shift) { this.shift = shift; }
 
-    public double getLitres() { return litres; }
-    public void setLitres(double litres) { this.litres = litres; }
+    public double getLitres() { return FixedPoint.litres(litresMl); }
+    public void setLitres(double litres) { this.litresMl = FixedPoint.millilitres(litres); }
+
+    public double getRate() { return FixedPoint.rupees(ratePaise); }
+    public void setRate(double rate) { this.ratePaise = FixedPoint.paise(rate); }
+
+    public double getAmount() { return FixedPoint.rupees(amountPaise); }
+    public void setAmount(double amount) { this.amountPaise = FixedPoint.paise(amount); }
+
+    @JsonIgnore
+    public long getLitresMl() { return litresMl; }
+    public void setLitresMl(long litresMl) { this.litresMl = litresMl; }
 
-    public double getRate() { return rate; }
-    public void setRate(double rate) { this.rate = rate; }
+    @JsonIgnore
+    public long getRatePaise() { return ratePaise; }
+    public void setRatePaise(long ratePaise) { this.ratePaise = ratePaise; }
 
-    public double getAmount() { return amount; }
-    public void setAmount(double amount) { this.amount = amount; }
+    @JsonIgnore
+    public long getAmountPaise() { return amountPaise; }
+    public void setAmountPaise(long amountPaise) { this.amountPaise = amountPaise; }
 
     public LocalDate getDate() { return date; }
     public void setDate(LocalDate date) {
@@ -73,10 +119,11 @@ public class MilkEntry {
         return "MilkEntry{" +
                 "id=" + id +
                 ", customerName='" + customerName + '\'' +
+                ", customerId=" + customerId +
                 ", shift='" + shift + '\'' +
-                ", litres=" + litres +
-                ", rate=" + rate +
-                ", amount=" + amount +
+                ", litresMl=" + litresMl +
+                ", ratePaise=" + ratePaise +
+                ", amountPaise=" + amountPaise +
                 ", date=" + date +
                 ", userId=" + userId +
                 '}';
@@ -0,0 +1,81 @@
+package com.milkattendence.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Materialized millilitres/paise per (userId, shift, customer, month).
+ * monthStart is always the first day of the month.
+ */
+@Entity
+@Table(
+    name = "milk_monthly_aggregates",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "shift", "month_start", "customer_key"}),
+    indexes = @Index(name = "idx_milk_monthly_aggregates_customer", columnList = "customer_id")
+)
+public class MilkMonthlyAggregate {
+
+    // pooled sequence (not IDENTITY) so Hibernate can batch inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "milk_monthly_aggregates_seq")
+    @SequenceGenerator(name = "milk_monthly_aggregates_seq", sequenceName = "milk_monthly_aggregates_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    private String shift;
+
+    @Column(name = "customer_key", nullable = false)
+    private String customerKey;
+
+    // roster customer behind the key; null while the name matches no customer
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "litres_ml")
+    private long litresMl;
+
+    @Column(name = "amount_paise")
+    private long amountPaise;
+
+    private int entryCount;
+
+    public MilkMonthlyAggregate() {}
+
+    public MilkMonthlyAggregate(Long userId, String shift, String customerKey, LocalDate monthStart) {
+        this.userId = userId;
+        this.shift = shift;
+        this.customerKey = customerKey;
+        this.monthStart = monthStart;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getShift() { return shift; }
+    public void setShift(String shift) { this.shift = shift; }
+
+    public String getCustomerKey() { return customerKey; }
+    public void setCustomerKey(String customerKey) { this.customerKey = customerKey; }
+
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
+    public LocalDate getMonthStart() { return monthStart; }
+    public void setMonthStart(LocalDate monthStart) { this.monthStart = monthStart; }
+
+    public long getLitresMl() { return litresMl; }
+    public void setLitresMl(long litresMl) { this.litresMl = litresMl; }
+
+    public long getAmountPaise() { return amountPaise; }
+    public void setAmountPaise(long amountPaise) { this.amountPaise = amountPaise; }
+
+    public int getEntryCount() { return entryCount; }
+    public void setEntryCount(int entryCount) { this.entryCount = entryCount; }
+}
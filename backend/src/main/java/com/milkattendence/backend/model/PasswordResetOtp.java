@@ -0,0 +1,33 @@
+package com.milkattendence.backend.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Live password reset OTP of one account (DatabaseOtpStore, otp.store=database).
+ */
+@Entity
+@Table(
+    name = "password_reset_otps",
+    indexes = @Index(name = "idx_password_reset_otps_expires_at", columnList = "expires_at")
+)
+public class PasswordResetOtp {
+
+    @Id
+    @Column(length = 320)
+    private String email;
+
+    @Column(nullable = false, length = 16)
+    private String otp;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public PasswordResetOtp() {}
+
+    public String getEmail() { return email; }
+
+    public String getOtp() { return otp; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+}
@@ -1,12 +1,20 @@
 package com.milkattendence.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.milkattendence.backend.util.FixedPoint;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.PartitionKey;
 import java.time.LocalDate;
 
 @Entity
 @Table(
     name = "payments",
-    uniqueConstraints = @UniqueConstraint(columnNames = {"customer_name", "shift", "date", "user_id"})
+    uniqueConstraints = @UniqueConstraint(columnNames = {"customer_name", "shift", "date", "user_id"}),
+    indexes = {
+        @Index(name = "idx_payments_user_shift_date", columnList = "user_id, shift, date"),
+        @Index(name = "idx_payments_customer_date", columnList = "customer_id, date")
+    }
 )
 public class Payment {
 
@@ -17,10 +25,21 @@ public class Payment {
     @Column(name = "customer_name")
     private String customerName;
 
+    @Column(name = "customer_id")
+    private Long customerId;
+
     private String shift;
 
     private boolean paid;
 
+    // what marking this row paid settled against the customer's balance
+    @Column(name = "amount_paise")
+    @ColumnDefault("0")
+    private long amountPaise;
+
+    // monthly partitions on Postgres (db/maintenance/monthly_partitions.sql): UPDATE/DELETE by id also carry the date
+    @PartitionKey
+    @Column(nullable = false)
     private LocalDate date;
 
     // NEW: link payment to a specific user
@@ -43,12 +62,21 @@ public class Payment {
     public String getCustomerName() { return customerName; }
     public void setCustomerName(String customerName) { this.customerName = customerName; }
 
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
     public String getShift() { return shift; }
     public void setShift(String shift) { this.shift = shift; }
 
     public boolean isPaid() { return paid; }
     public void setPaid(boolean paid) { this.paid = paid; }
 
+    public double getAmount() { return FixedPoint.rupees(amountPaise); }
+
+    @JsonIgnore
+    public long getAmountPaise() { return amountPaise; }
+    public void setAmountPaise(long amountPaise) { this.amountPaise = amountPaise; }
+
     public LocalDate getDate() { return date; }
     public void setDate(LocalDate date) { this.date = date; }
 
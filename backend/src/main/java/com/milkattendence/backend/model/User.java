@@ -4,7 +4,7 @@ package com.milkattendence.backend.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_email", columnList = "email"))
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,15 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.CustomerBalanceOpening;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/**
+ * Read side of customer_balance_openings; rows are only written by
+ * PartitionMaintenanceService, in the transaction that detaches a month.
+ */
+public interface CustomerBalanceOpeningRepository extends Repository<CustomerBalanceOpening, Long> {
+
+    List<CustomerBalanceOpening> findByUserId(Long userId);
+}
@@ -0,0 +1,54 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.CustomerBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ledger rows are only read and changed here; updates are plain dirty
+ * checking on rows loaded FOR UPDATE, so a batch sheet flushes as one
+ * batched UPDATE.
+ */
+public interface CustomerBalanceRepository extends Repository<CustomerBalance, Long> {
+
+    // outstanding dues of one customer: a primary-key lookup
+    Optional<CustomerBalance> findByCustomerId(Long customerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM CustomerBalance b WHERE b.customerId IN :customerIds")
+    List<CustomerBalance> findForUpdate(@Param("customerIds") Collection<Long> customerIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM CustomerBalance b WHERE b.userId = :userId")
+    List<CustomerBalance> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    // zero rows for customers that have none yet; concurrent creators are absorbed
+    @Modifying
+    @Query(value = """
+        INSERT INTO customer_balances (customer_id, user_id, billed_ml, billed_paise, paid_paise)
+        SELECT c.id, c.user_id, 0, 0, 0
+        FROM customer c
+        WHERE c.id IN (:customerIds)
+          AND c.user_id IS NOT NULL
+        ON CONFLICT DO NOTHING
+    """, nativeQuery = true)
+    int insertMissing(@Param("customerIds") Collection<Long> customerIds);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO customer_balances (customer_id, user_id, billed_ml, billed_paise, paid_paise)
+        SELECT c.id, c.user_id, 0, 0, 0
+        FROM customer c
+        WHERE c.user_id = :userId
+        ON CONFLICT DO NOTHING
+    """, nativeQuery = true)
+    int insertMissingForUser(@Param("userId") Long userId);
+}
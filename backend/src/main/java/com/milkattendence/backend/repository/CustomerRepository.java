@@ -1,6 +1,7 @@
 package com.milkattendence.backend.repository;
 
 import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.repository.projection.ReminderSetting;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,8 +25,14 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     List<Customer> findByShiftAndUserId(String shift, Long userId);
 
+    // every user with a roster (nightly balance verification)
+    @Query("SELECT DISTINCT c.userId FROM Customer c WHERE c.userId IS NOT NULL ORDER BY c.userId")
+    List<Long> findDistinctUserIds();
+
     // ==========================
     // FIND CUSTOMER BY NAME (FULLNAME / NICKNAME)
+    // Compatibility shim for callers that only have a typed name; rows carry
+    // customer_id now, so prefer findById / CustomerRosterCache.index.
     // ==========================
     @Query("""
         SELECT c FROM Customer c
@@ -69,6 +77,28 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     """)
     List<Customer> findAllWithRemindersEnabled();
 
+    // One row per user (ReminderScheduler loads these once at startup)
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.ReminderSetting(
+                   c.userId, c.reminderShift, c.reminderTime, c.reminderIntervalDays, MAX(c.lastReminderSent))
+        FROM Customer c
+        WHERE c.reminderEnabled = true
+          AND c.reminderTime IS NOT NULL
+        GROUP BY c.userId, c.reminderShift, c.reminderTime, c.reminderIntervalDays
+    """)
+    List<ReminderSetting> findReminderSettings();
+
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.ReminderSetting(
+                   c.userId, c.reminderShift, c.reminderTime, c.reminderIntervalDays, MAX(c.lastReminderSent))
+        FROM Customer c
+        WHERE c.userId = :userId
+          AND c.reminderEnabled = true
+          AND c.reminderTime IS NOT NULL
+        GROUP BY c.userId, c.reminderShift, c.reminderTime, c.reminderIntervalDays
+    """)
+    List<ReminderSetting> findReminderSettingsForUser(@Param("userId") Long userId);
+
     @Modifying
     @Transactional
     @Query("""
@@ -80,4 +110,17 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
             @Param("userId") Long userId,
             @Param("date") LocalDate date
     );
+
+    // one statement for every user whose reminder went out in a tick
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE Customer c
+        SET c.lastReminderSent = :date
+        WHERE c.userId IN :userIds
+    """)
+    void updateLastReminderSentForUsers(
+            @Param("userIds") Collection<Long> userIds,
+            @Param("date") LocalDate date
+    );
 }
@@ -0,0 +1,51 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.DataVersion;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface DataVersionRepository extends Repository<DataVersion, DataVersion.Key> {
+
+    // every counter of one user: a handful of rows (roster + one per shift-month)
+    List<DataVersion> findByUserId(Long userId);
+
+    @Modifying
+    @Query("""
+        UPDATE DataVersion v
+        SET v.version = v.version + 1
+        WHERE v.userId = :userId
+          AND v.scope = :scope
+    """)
+    int increment(@Param("userId") Long userId, @Param("scope") String scope);
+
+    // first write to a scope; a concurrent first write makes this a no-op
+    @Modifying
+    @Query(value = """
+        INSERT INTO data_versions (user_id, scope, version)
+        VALUES (:userId, :scope, 1)
+        ON CONFLICT DO NOTHING
+    """, nativeQuery = true)
+    int insertFirst(@Param("userId") Long userId, @Param("scope") String scope);
+
+    // a row to lock before the scope's first bump: version 0 reads the same as no row
+    @Modifying
+    @Query(value = """
+        INSERT INTO data_versions (user_id, scope, version)
+        VALUES (:userId, :scope, 0)
+        ON CONFLICT DO NOTHING
+    """, nativeQuery = true)
+    int insertZero(@Param("userId") Long userId, @Param("scope") String scope);
+
+    @Query(value = """
+        SELECT version
+        FROM data_versions
+        WHERE user_id = :userId
+          AND scope = :scope
+        FOR UPDATE
+    """, nativeQuery = true)
+    Long lock(@Param("userId") Long userId, @Param("scope") String scope);
+}
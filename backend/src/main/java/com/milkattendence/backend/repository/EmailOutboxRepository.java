@@ -0,0 +1,103 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.EmailOutboxMessage;
+import com.milkattendence.backend.model.EmailOutboxMessage.Status;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // ==========================
+    // CLAIMING — due rows, oldest first. SKIP LOCKED (lock timeout -2) lets
+    // several instances drain the same table without blocking each other.
+    // ==========================
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+        SELECT m FROM EmailOutboxMessage m
+        WHERE m.status = com.milkattendence.backend.model.EmailOutboxMessage.Status.PENDING
+          AND m.nextAttemptAt <= :now
+        ORDER BY m.nextAttemptAt
+    """)
+    List<EmailOutboxMessage> findDueForUpdate(@Param("now") Instant now, Pageable page);
+
+    // ==========================
+    // DELIVERY OUTCOMES (single-row UPDATEs, no reload)
+    // ==========================
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE EmailOutboxMessage m
+        SET m.status = com.milkattendence.backend.model.EmailOutboxMessage.Status.SENT,
+            m.attempts = m.attempts + 1,
+            m.sentAt = :now,
+            m.lastError = NULL
+        WHERE m.id = :id
+    """)
+    int markSent(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE EmailOutboxMessage m
+        SET m.status = com.milkattendence.backend.model.EmailOutboxMessage.Status.PENDING,
+            m.attempts = m.attempts + 1,
+            m.nextAttemptAt = :nextAttemptAt,
+            m.claimedAt = NULL,
+            m.lastError = :error
+        WHERE m.id = :id
+    """)
+    int markRetry(@Param("id") Long id, @Param("nextAttemptAt") Instant nextAttemptAt, @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE EmailOutboxMessage m
+        SET m.status = com.milkattendence.backend.model.EmailOutboxMessage.Status.DEAD,
+            m.attempts = m.attempts + 1,
+            m.claimedAt = NULL,
+            m.lastError = :error
+        WHERE m.id = :id
+    """)
+    int markDead(@Param("id") Long id, @Param("error") String error);
+
+    // ==========================
+    // RECOVERY — claims that never finished (crash, shutdown timeout)
+    // ==========================
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE EmailOutboxMessage m
+        SET m.status = com.milkattendence.backend.model.EmailOutboxMessage.Status.PENDING,
+            m.claimedAt = NULL
+        WHERE m.status = com.milkattendence.backend.model.EmailOutboxMessage.Status.SENDING
+          AND m.claimedAt < :before
+    """)
+    int releaseClaimsOlderThan(@Param("before") Instant before);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        UPDATE EmailOutboxMessage m
+        SET m.status = com.milkattendence.backend.model.EmailOutboxMessage.Status.PENDING,
+            m.claimedAt = NULL
+        WHERE m.status = com.milkattendence.backend.model.EmailOutboxMessage.Status.SENDING
+          AND m.id IN :ids
+    """)
+    int releaseClaims(@Param("ids") List<Long> ids);
+
+    long countByStatus(Status status);
+}
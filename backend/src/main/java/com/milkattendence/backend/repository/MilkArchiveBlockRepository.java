@@ -0,0 +1,33 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.MilkArchiveBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface MilkArchiveBlockRepository extends JpaRepository<MilkArchiveBlock, Long> {
+
+    Optional<MilkArchiveBlock> findByUserIdAndShiftAndMonthStart(Long userId, String shift, LocalDate monthStart);
+
+    boolean existsByUserIdAndShiftAndMonthStart(Long userId, String shift, LocalDate monthStart);
+
+    // blocks of one shift whose month starts in [from, to]
+    List<MilkArchiveBlock> findByUserIdAndShiftAndMonthStartBetweenOrderByMonthStartAsc(
+            Long userId, String shift, LocalDate from, LocalDate to
+    );
+
+    // every block of a user (balance verification, exports)
+    List<MilkArchiveBlock> findByUserIdOrderByShiftAscMonthStartAsc(Long userId);
+
+    // which months are archived, without the block data: (shift, monthStart)
+    @Query("""
+        SELECT b.shift, b.monthStart
+        FROM MilkArchiveBlock b
+        WHERE b.userId = :userId
+    """)
+    List<Object[]> findArchivedMonths(@Param("userId") Long userId);
+}
@@ -0,0 +1,46 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.MilkDailyAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface MilkDailyAggregateRepository extends JpaRepository<MilkDailyAggregate, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<MilkDailyAggregate> findByUserIdAndShiftAndDateAndCustomerKey(
+            Long userId, String shift, LocalDate date, String customerKey
+    );
+
+    // all cells of one day, locked for a batch update
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<MilkDailyAggregate> findByUserIdAndShiftAndDate(Long userId, String shift, LocalDate date);
+
+    // ==========================
+    // OVERVIEW (one row per customer per day)
+    // ==========================
+    List<MilkDailyAggregate> findByUserIdAndShiftAndDateBetween(
+            Long userId, String shift, LocalDate start, LocalDate end
+    );
+
+    @Modifying
+    @Query("""
+        DELETE FROM MilkDailyAggregate a
+        WHERE a.userId = :userId
+          AND a.shift = :shift
+          AND a.date BETWEEN :start AND :end
+    """)
+    int deleteMonth(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end
+    );
+}
@@ -2,6 +2,7 @@ package com.milkattendence.backend.repository;
 
 import com.milkattendence.backend.model.MilkEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -21,17 +22,69 @@ public interface MilkEntryRepository extends JpaRepository<MilkEntry, Long> {
             Long userId, String shift, LocalDate date, String customerName
     );
 
+    // today's row of one customer: the linked row, else an unlinked row under the typed name
+    // (trimmed, case-insensitive, as RosterIndex compares names)
+    @Query("""
+        SELECT m FROM MilkEntry m
+        WHERE m.userId = :userId
+          AND m.shift = :shift
+          AND m.date = :date
+          AND (m.customerId = :customerId OR LOWER(TRIM(m.customerName)) = LOWER(TRIM(:customerName)))
+    """)
+    List<MilkEntry> findDayEntriesForCustomer(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("date") LocalDate date,
+            @Param("customerId") Long customerId,
+            @Param("customerName") String customerName
+    );
+
+    @Query("""
+        SELECT COALESCE(SUM(m.litresMl), 0)
+        FROM MilkEntry m
+        WHERE m.customerId = :customerId
+    """)
+    Long getTotalMillilitresForCustomerId(@Param("customerId") Long customerId);
+
     // ✅ FINAL METHOD — USED FOR EMAIL REMINDERS
+    // Name-based compatibility shim (no index can serve LOWER()); prefer
+    // getTotalMillilitresForCustomerId.
     @Query("""
-        SELECT COALESCE(SUM(m.litres), 0)
+        SELECT COALESCE(SUM(m.litresMl), 0)
         FROM MilkEntry m
         WHERE LOWER(m.customerName) = LOWER(:customerName)
           AND m.shift = :shift
           AND m.userId = :userId
     """)
-    Double getTotalLitresForCustomer(
+    Long getTotalMillilitresForCustomer(
             @Param("customerName") String customerName,
             @Param("shift") String shift,
             @Param("userId") Long userId
     );
+
+    // ==========================
+    // AGGREGATE BACKFILL (MilkAggregateService)
+    // ==========================
+    @Query("""
+        SELECT DISTINCT m.userId, m.shift, EXTRACT(YEAR FROM m.date), EXTRACT(MONTH FROM m.date)
+        FROM MilkEntry m
+    """)
+    List<Object[]> findDistinctUserShiftMonths();
+
+    // ==========================
+    // MONTH ARCHIVE (MilkArchiveService)
+    // ==========================
+    @Modifying
+    @Query("""
+        DELETE FROM MilkEntry m
+        WHERE m.userId = :userId
+          AND m.shift = :shift
+          AND m.date BETWEEN :start AND :end
+    """)
+    int deleteMonth(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end
+    );
 }
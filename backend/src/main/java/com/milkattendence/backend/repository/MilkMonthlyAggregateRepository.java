@@ -0,0 +1,66 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.MilkMonthlyAggregate;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface MilkMonthlyAggregateRepository extends JpaRepository<MilkMonthlyAggregate, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<MilkMonthlyAggregate> findByUserIdAndShiftAndMonthStartAndCustomerKey(
+            Long userId, String shift, LocalDate monthStart, String customerKey
+    );
+
+    // all customers of one month, locked for a batch update
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT a FROM MilkMonthlyAggregate a
+        WHERE a.userId = :userId
+          AND a.shift = :shift
+          AND a.monthStart = :monthStart
+    """)
+    List<MilkMonthlyAggregate> findMonthForUpdate(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("monthStart") LocalDate monthStart
+    );
+
+    List<MilkMonthlyAggregate> findByUserIdAndShiftAndMonthStart(
+            Long userId, String shift, LocalDate monthStart
+    );
+
+    // Lifetime millilitres for one customer: one row per month instead of one per day
+    @Query("""
+        SELECT COALESCE(SUM(a.litresMl), 0)
+        FROM MilkMonthlyAggregate a
+        WHERE a.customerKey = :customerKey
+          AND a.shift = :shift
+          AND a.userId = :userId
+    """)
+    Long getTotalMillilitresForCustomer(
+            @Param("customerKey") String customerKey,
+            @Param("shift") String shift,
+            @Param("userId") Long userId
+    );
+
+    @Modifying
+    @Query("""
+        DELETE FROM MilkMonthlyAggregate a
+        WHERE a.userId = :userId
+          AND a.shift = :shift
+          AND a.monthStart = :monthStart
+    """)
+    int deleteMonth(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("monthStart") LocalDate monthStart
+    );
+}
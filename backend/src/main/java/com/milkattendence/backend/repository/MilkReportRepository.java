@@ -0,0 +1,188 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.repository.projection.CustomerAmountTotal;
+import com.milkattendence.backend.repository.projection.CustomerLitresTotal;
+import com.milkattendence.backend.repository.projection.DailyCustomerTotal;
+import com.milkattendence.backend.repository.projection.MilkEntryRow;
+import com.milkattendence.backend.repository.projection.UnpaidReportRow;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Read-side queries for reports. Everything here returns projections summed
+ * in the database, so no MilkEntry entities are hydrated or dirty-checked.
+ */
+public interface MilkReportRepository extends Repository<MilkEntry, Long> {
+
+    // ==========================
+    // OVERVIEW CELLS (daily aggregates)
+    // ==========================
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.DailyCustomerTotal(
+                   a.date, a.customerId, a.customerKey, a.litresMl, a.amountPaise, a.entryCount)
+        FROM MilkDailyAggregate a
+        WHERE a.userId = :userId
+          AND a.shift = :shift
+          AND a.date BETWEEN :start AND :end
+    """)
+    List<DailyCustomerTotal> findDailyCells(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end
+    );
+
+    // ==========================
+    // GROUP BY date, customer over raw entries
+    // ==========================
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.DailyCustomerTotal(
+                   m.date, m.customerId, m.customerName, SUM(m.litresMl), SUM(m.amountPaise), COUNT(m))
+        FROM MilkEntry m
+        WHERE m.userId = :userId
+          AND m.shift = :shift
+          AND m.date BETWEEN :start AND :end
+        GROUP BY m.date, m.customerId, m.customerName
+    """)
+    List<DailyCustomerTotal> sumByDayAndCustomer(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end
+    );
+
+    // ==========================
+    // LIFETIME LITRES PER CUSTOMER (email reports)
+    // ==========================
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.CustomerLitresTotal(
+                   a.customerKey, SUM(a.litresMl))
+        FROM MilkMonthlyAggregate a
+        WHERE a.userId = :userId
+          AND a.shift = :shift
+        GROUP BY a.customerKey
+    """)
+    List<CustomerLitresTotal> sumLitresByCustomer(
+            @Param("userId") Long userId,
+            @Param("shift") String shift
+    );
+
+    // ==========================
+    // UNPAID REPORT (one round trip per email)
+    // Joined on customer id to the customer's balance ledger row, so each
+    // line is a primary-key lookup instead of a sum over history. Payments
+    // written before they carried customer_id fall back to the lowest-id
+    // roster customer whose full name or nickname matches.
+    // ==========================
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.UnpaidReportRow(
+                   p.customerName,
+                   COALESCE(b.billedMl, 0),
+                   COALESCE(b.billedPaise, 0),
+                   COALESCE(b.paidPaise, 0))
+        FROM Payment p
+        LEFT JOIN CustomerBalance b
+               ON b.customerId = COALESCE(p.customerId,
+                                          (SELECT MIN(r.id)
+                                           FROM Customer r
+                                           WHERE r.userId = p.userId
+                                             AND r.shift = p.shift
+                                             AND (LOWER(TRIM(r.fullName)) = LOWER(TRIM(p.customerName))
+                                               OR LOWER(TRIM(r.nickname)) = LOWER(TRIM(p.customerName)))))
+        WHERE p.userId = :userId
+          AND p.shift = :shift
+          AND p.date = :date
+          AND p.paid = false
+        ORDER BY p.customerName
+    """)
+    List<UnpaidReportRow> findUnpaidReport(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("date") LocalDate date
+    );
+
+    // ==========================
+    // BALANCE VERIFICATION (CustomerBalanceService)
+    // Billed and paid totals recomputed from the raw rows of one user.
+    // ==========================
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.CustomerAmountTotal(
+                   m.customerId, SUM(m.litresMl), SUM(m.amountPaise))
+        FROM MilkEntry m
+        WHERE m.userId = :userId
+          AND m.customerId IS NOT NULL
+        GROUP BY m.customerId
+    """)
+    List<CustomerAmountTotal> sumBilledByCustomer(@Param("userId") Long userId);
+
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.CustomerAmountTotal(
+                   p.customerId, 0L, SUM(p.amountPaise))
+        FROM Payment p
+        WHERE p.userId = :userId
+          AND p.customerId IS NOT NULL
+          AND p.paid = true
+        GROUP BY p.customerId
+    """)
+    List<CustomerAmountTotal> sumPaidByCustomer(@Param("userId") Long userId);
+
+    // ==========================
+    // FULL HISTORY (no date range)
+    // ==========================
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.MilkEntryRow(
+                   m.id, m.customerName, m.shift, m.litresMl, m.ratePaise, m.amountPaise, m.date, m.userId, m.customerId)
+        FROM MilkEntry m
+        WHERE m.userId = :userId
+          AND m.shift = :shift
+        ORDER BY m.date DESC
+    """)
+    List<MilkEntryRow> findRowsByUserIdAndShift(
+            @Param("userId") Long userId,
+            @Param("shift") String shift
+    );
+
+    // ==========================
+    // HISTORY PAGES (keyset on date DESC, id DESC)
+    // Served by idx_milk_entries_user_shift_date_id; a page costs the same
+    // however long the history is. The plain date bound repeats the row
+    // comparison in a form Postgres prunes monthly partitions on.
+    // ==========================
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.MilkEntryRow(
+                   m.id, m.customerName, m.shift, m.litresMl, m.ratePaise, m.amountPaise, m.date, m.userId, m.customerId)
+        FROM MilkEntry m
+        WHERE m.userId = :userId
+          AND m.shift = :shift
+        ORDER BY m.date DESC, m.id DESC
+    """)
+    List<MilkEntryRow> findHistoryFirstPage(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            Limit limit
+    );
+
+    @Query("""
+        SELECT new com.milkattendence.backend.repository.projection.MilkEntryRow(
+                   m.id, m.customerName, m.shift, m.litresMl, m.ratePaise, m.amountPaise, m.date, m.userId, m.customerId)
+        FROM MilkEntry m
+        WHERE m.userId = :userId
+          AND m.shift = :shift
+          AND (m.date, m.id) < (:date, :id)
+          AND m.date <= :date
+        ORDER BY m.date DESC, m.id DESC
+    """)
+    List<MilkEntryRow> findHistoryPageAfter(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("date") LocalDate date,
+            @Param("id") Long id,
+            Limit limit
+    );
+}
@@ -0,0 +1,48 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.PasswordResetOtp;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface PasswordResetOtpRepository extends Repository<PasswordResetOtp, String> {
+
+    Optional<PasswordResetOtp> findByEmail(String email);
+
+    long count();
+
+    @Modifying
+    @Query("""
+        UPDATE PasswordResetOtp o
+        SET o.otp = :otp, o.expiresAt = :expiresAt
+        WHERE o.email = :email
+    """)
+    int replace(@Param("email") String email, @Param("otp") String otp, @Param("expiresAt") Instant expiresAt);
+
+    // first OTP of an account; a concurrent first request makes this a no-op
+    @Modifying
+    @Query(value = """
+        INSERT INTO password_reset_otps (email, otp, expires_at)
+        VALUES (:email, :otp, :expiresAt)
+        ON CONFLICT DO NOTHING
+    """, nativeQuery = true)
+    int insertFirst(@Param("email") String email, @Param("otp") String otp, @Param("expiresAt") Instant expiresAt);
+
+    // one-step check and use: of two requests with the same OTP only one deletes the row
+    @Modifying
+    @Query("DELETE FROM PasswordResetOtp o WHERE o.email = :email AND o.otp = :otp AND o.expiresAt > :now")
+    int deleteIfValid(@Param("email") String email, @Param("otp") String otp, @Param("now") Instant now);
+
+    // only when it is still the OTP that was found expired
+    @Modifying
+    @Query("DELETE FROM PasswordResetOtp o WHERE o.email = :email AND o.expiresAt <= :now")
+    int deleteExpired(@Param("email") String email, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM PasswordResetOtp o WHERE o.expiresAt <= :now")
+    int deleteAllExpired(@Param("now") Instant now);
+}
@@ -2,6 +2,7 @@ package com.milkattendence.backend.repository;
 
 import com.milkattendence.backend.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -21,9 +22,58 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             Long userId
     );
 
+    List<Payment> findByShiftAndDateAndUserIdOrderByCustomerNameAsc(
+            String shift,
+            LocalDate date,
+            Long userId
+    );
+
+    // ==========================
+    // DAILY SEEDING — one unpaid row per active customer, set-based.
+    // Skips customers that already have a row for the day (linked by id, or
+    // an unlinked row under the same name, case-insensitive) and lets the
+    // unique key absorb races. Customers sharing a name get one row, owned
+    // by the lowest id.
+    // ==========================
+    @Modifying
+    @Query(value = """
+        INSERT INTO payments (customer_id, customer_name, shift, paid, date, user_id)
+        SELECT MIN(c.id), COALESCE(c.full_name, c.nickname), c.shift, false, :date, c.user_id
+        FROM customer c
+        WHERE c.user_id = :userId
+          AND c.shift = :shift
+          AND c.active = true
+          AND TRIM(COALESCE(c.full_name, c.nickname, '')) <> ''
+          AND NOT EXISTS (
+              SELECT 1 FROM payments p
+              WHERE p.user_id = c.user_id
+                AND p.shift = c.shift
+                AND p.date = :date
+                AND (p.customer_id = c.id
+                  OR (p.customer_id IS NULL
+                      AND LOWER(p.customer_name) = LOWER(COALESCE(c.full_name, c.nickname))))
+          )
+        GROUP BY COALESCE(c.full_name, c.nickname), c.shift, c.user_id
+        ON CONFLICT DO NOTHING
+    """, nativeQuery = true)
+    int seedUnpaidForDay(
+            @Param("userId") Long userId,
+            @Param("shift") String shift,
+            @Param("date") LocalDate date
+    );
+
     // ==========================
     // SAVE / UPDATE PAYMENT
+    // By customer id; the name match below is the compatibility shim for
+    // rows written before payments carried customer_id.
     // ==========================
+    List<Payment> findByUserIdAndShiftAndDateAndCustomerId(
+            Long userId,
+            String shift,
+            LocalDate date,
+            Long customerId
+    );
+
     @Query("""
         SELECT p FROM Payment p
         WHERE LOWER(p.customerName) = LOWER(:customerName)
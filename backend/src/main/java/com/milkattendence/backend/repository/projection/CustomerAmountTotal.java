@@ -0,0 +1,11 @@
+package com.milkattendence.backend.repository.projection;
+
+/**
+ * Lifetime millilitres and paise for one customer id, recomputed from the
+ * raw rows to check the customer_balances ledger.
+ */
+public record CustomerAmountTotal(
+        Long customerId,
+        long litresMl,
+        long amountPaise
+) {}
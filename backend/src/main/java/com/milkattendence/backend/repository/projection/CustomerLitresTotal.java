@@ -0,0 +1,9 @@
+package com.milkattendence.backend.repository.projection;
+
+/**
+ * Lifetime millilitres for one customer key (lower-cased name).
+ */
+public record CustomerLitresTotal(
+        String customerKey,
+        long litresMl
+) {}
@@ -0,0 +1,22 @@
+package com.milkattendence.backend.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * One (day, customer) cell summed in the database, in millilitres and
+ * paise. customerId is null for rows no roster customer could be linked to.
+ */
+public record DailyCustomerTotal(
+        LocalDate day,
+        Long customerId,
+        String customerName,
+        long litresMl,
+        long amountPaise,
+        long entryCount
+) {
+
+    /** A cell known only by name. */
+    public DailyCustomerTotal(LocalDate day, String customerName, long litresMl, long amountPaise, long entryCount) {
+        this(day, null, customerName, litresMl, amountPaise, entryCount);
+    }
+}
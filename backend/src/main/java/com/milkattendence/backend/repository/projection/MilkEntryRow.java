@@ -0,0 +1,41 @@
+package com.milkattendence.backend.repository.projection;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.milkattendence.backend.util.FixedPoint;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only milk entry row. Serializes exactly like MilkEntry but is never
+ * attached to the persistence context.
+ *
+ * Components are in storage units (millilitres, paise) so the JPQL
+ * constructor expressions bind to the canonical constructor; the decimal
+ * accessors are what the API sees.
+ */
+@JsonPropertyOrder({"id", "customerName", "shift", "litres", "rate", "amount", "date", "userId", "customerId"})
+public record MilkEntryRow(
+        Long id,
+        String customerName,
+        String shift,
+        @JsonIgnore long litresMl,
+        @JsonIgnore long ratePaise,
+        @JsonIgnore long amountPaise,
+        LocalDate date,
+        Long userId,
+        Long customerId
+) {
+
+    @JsonProperty public double litres() { return FixedPoint.litres(litresMl); }
+    @JsonProperty public double rate() { return FixedPoint.rupees(ratePaise); }
+    @JsonProperty public double amount() { return FixedPoint.rupees(amountPaise); }
+
+    /** The row without the fields a history page already implies (userId, shift) or derives (amount). */
+    public Compact compact() {
+        return new Compact(id, date, customerId, customerName, litres(), rate());
+    }
+
+    public record Compact(Long id, LocalDate date, Long customerId, String customerName, double litres, double rate) {}
+}
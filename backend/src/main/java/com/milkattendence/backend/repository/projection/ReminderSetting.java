@@ -0,0 +1,16 @@
+package com.milkattendence.backend.repository.projection;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * A user's reminder configuration. Settings are written to every customer row
+ * of the user, so this is the per-user view of them.
+ */
+public record ReminderSetting(
+        Long userId,
+        String shift,
+        LocalTime time,
+        Integer intervalDays,
+        LocalDate lastSent
+) {}
@@ -0,0 +1,27 @@
+package com.milkattendence.backend.repository.projection;
+
+import com.milkattendence.backend.util.FixedPoint;
+
+/**
+ * One line of the unpaid-customers email, read from the customer's
+ * balance ledger row: everything billed, everything paid so far
+ * (millilitres and paise).
+ */
+public record UnpaidReportRow(
+        String customerName,
+        long litresMl,
+        long billedPaise,
+        long paidPaise
+) {
+    public long outstandingPaise() {
+        return billedPaise - paidPaise;
+    }
+
+    public double litres() { return FixedPoint.litres(litresMl); }
+
+    public double billed() { return FixedPoint.rupees(billedPaise); }
+
+    public double paid() { return FixedPoint.rupees(paidPaise); }
+
+    public double outstanding() { return FixedPoint.rupees(outstandingPaise()); }
+}
@@ -0,0 +1,228 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.config.QueryBudget;
+import com.milkattendence.backend.model.CustomerBalance;
+import com.milkattendence.backend.model.CustomerBalanceOpening;
+import com.milkattendence.backend.model.MilkArchiveBlock;
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.model.Payment;
+import com.milkattendence.backend.repository.CustomerBalanceOpeningRepository;
+import com.milkattendence.backend.repository.CustomerBalanceRepository;
+import com.milkattendence.backend.repository.CustomerRepository;
+import com.milkattendence.backend.repository.MilkArchiveBlockRepository;
+import com.milkattendence.backend.repository.MilkReportRepository;
+import com.milkattendence.backend.repository.projection.CustomerAmountTotal;
+import com.milkattendence.backend.util.MilkArchiveCodec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Keeps customer_balances (billed / paid / outstanding per customer) in step
+ * with milk_entries and payments.
+ *
+ * Entry writes reach {@link #applyChanges} through MilkAggregateService, in
+ * the writer's transaction; payment toggles call {@link #settle}. The nightly
+ * {@link #verifyAll()} recomputes the billed totals from the raw rows, checks
+ * the paid totals against the payment rows, and repairs whatever drifted
+ * (e.g. rows written by a node without the ledger code). Months that
+ * retention detached count through customer_balance_openings.
+ */
+@Service
+public class CustomerBalanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerBalanceService.class);
+
+    private final CustomerBalanceRepository balanceRepository;
+    private final CustomerRepository customerRepository;
+    private final MilkReportRepository reportRepository;
+    private final MilkArchiveBlockRepository archiveRepository;
+    private final CustomerBalanceOpeningRepository openingRepository;
+    private final QueryBudget queryBudget;
+    private final TransactionTemplate transactionTemplate;
+
+    public CustomerBalanceService(
+            CustomerBalanceRepository balanceRepository,
+            CustomerRepository customerRepository,
+            MilkReportRepository reportRepository,
+            MilkArchiveBlockRepository archiveRepository,
+            CustomerBalanceOpeningRepository openingRepository,
+            QueryBudget queryBudget,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.balanceRepository = balanceRepository;
+        this.customerRepository = customerRepository;
+        this.reportRepository = reportRepository;
+        this.archiveRepository = archiveRepository;
+        this.openingRepository = openingRepository;
+        this.queryBudget = queryBudget;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ==========================
+    // INCREMENTAL MAINTENANCE
+    // ==========================
+
+    /**
+     * Moves the billed totals by the entries taken out and put in. Entries
+     * without a customer id (typed names no roster customer matches) have no
+     * balance and are skipped.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyChanges(Collection<MilkEntry> removed, Collection<MilkEntry> added) {
+
+        // customerId -> {millilitres, paise}; sorted so concurrent writers lock in the same order
+        Map<Long, long[]> deltas = new TreeMap<>();
+        for (MilkEntry e : removed) fold(deltas, e, -1);
+        for (MilkEntry e : added) fold(deltas, e, 1);
+        deltas.values().removeIf(d -> d[0] == 0 && d[1] == 0);
+        if (deltas.isEmpty()) return;
+
+        for (CustomerBalance b : lock(deltas.keySet()).values()) {
+            long[] d = deltas.get(b.getCustomerId());
+            b.setBilledMl(b.getBilledMl() + d[0]);
+            b.setBilledPaise(b.getBilledPaise() + d[1]);
+        }
+    }
+
+    private static void fold(Map<Long, long[]> deltas, MilkEntry e, int sign) {
+        if (e.getCustomerId() == null) return;
+        long[] d = deltas.computeIfAbsent(e.getCustomerId(), k -> new long[2]);
+        d[0] += sign * e.getLitresMl();
+        d[1] += sign * e.getAmountPaise();
+    }
+
+    /**
+     * Applies a payment row's paid flag to its customer's balance. Marking it
+     * paid settles whatever is outstanding at that moment and records that
+     * amount on the row; un-marking it gives exactly that amount back.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void settle(Payment p, boolean paid) {
+        if (p.isPaid() == paid) return;
+        p.setPaid(paid);
+        if (p.getCustomerId() == null) return;
+
+        CustomerBalance b = lock(Set.of(p.getCustomerId())).get(p.getCustomerId());
+        if (b == null) return;
+
+        if (paid) {
+            long amount = Math.max(0, b.getOutstandingPaise());
+            p.setAmountPaise(amount);
+            b.setPaidPaise(b.getPaidPaise() + amount);
+        } else {
+            b.setPaidPaise(b.getPaidPaise() - p.getAmountPaise());
+            p.setAmountPaise(0);
+        }
+    }
+
+    // loads the balance rows FOR UPDATE, creating zero rows for first-time customers
+    private Map<Long, CustomerBalance> lock(Set<Long> customerIds) {
+        List<CustomerBalance> rows = balanceRepository.findForUpdate(customerIds);
+        if (rows.size() < customerIds.size()) {
+            balanceRepository.insertMissing(customerIds);
+            rows = balanceRepository.findForUpdate(customerIds);
+        }
+        Map<Long, CustomerBalance> byId = new HashMap<>();
+        for (CustomerBalance b : rows) byId.put(b.getCustomerId(), b);
+        return byId;
+    }
+
+    // ==========================
+    // VERIFICATION / REPAIR
+    // ==========================
+
+    /**
+     * Recomputes the billed totals of one user's balances from milk_entries
+     * (plus the user's archived months and the opening balances of detached
+     * months), repairs the rows that disagree and returns how many had drifted.
+     *
+     * Only the billed side is re-derived. The paid side is compared with the
+     * sum of payments.amount_paise, which {@link #settle} itself records, so
+     * it catches a balance row that lost a settlement but not a settlement
+     * that recorded the wrong amount.
+     *
+     * The balance rows are locked before anything is summed: a writer that
+     * committed earlier is in the sums, and one that commits later waits for
+     * the lock and applies its delta on top of the repaired row.
+     */
+    @Transactional
+    public int verifyUser(Long userId) {
+        balanceRepository.insertMissingForUser(userId);
+        Map<Long, CustomerBalance> actual = new HashMap<>();
+        for (CustomerBalance b : balanceRepository.findByUserIdForUpdate(userId)) actual.put(b.getCustomerId(), b);
+
+        Map<Long, long[]> expected = new HashMap<>();
+        for (CustomerAmountTotal t : reportRepository.sumBilledByCustomer(userId)) {
+            long[] e = expected.computeIfAbsent(t.customerId(), k -> new long[3]);
+            e[0] = t.litresMl();
+            e[1] = t.amountPaise();
+        }
+        // archived months have no raw rows left; read straight from their blocks
+        for (MilkArchiveBlock block : archiveRepository.findByUserIdOrderByShiftAscMonthStartAsc(userId)) {
+            for (MilkArchiveCodec.Run r : MilkArchiveCodec.decode(block.getData(), block.getChecksum())) {
+                if (r.customerId() == null) continue;
+                long[] e = expected.computeIfAbsent(r.customerId(), k -> new long[3]);
+                e[0] += r.litresMl() * r.days();
+                e[1] += r.amountPaise() * r.days();
+            }
+        }
+        for (CustomerAmountTotal t : reportRepository.sumPaidByCustomer(userId)) {
+            expected.computeIfAbsent(t.customerId(), k -> new long[3])[2] = t.amountPaise();
+        }
+        // months detached by retention: no rows left in either table
+        for (CustomerBalanceOpening o : openingRepository.findByUserId(userId)) {
+            long[] e = expected.computeIfAbsent(o.getCustomerId(), k -> new long[3]);
+            e[0] += o.getBilledMl();
+            e[1] += o.getBilledPaise();
+            e[2] += o.getPaidPaise();
+        }
+        // rows pointing at a customer of another user; rare enough to lock late
+        if (!actual.keySet().containsAll(expected.keySet())) {
+            balanceRepository.insertMissing(expected.keySet());
+            for (CustomerBalance b : balanceRepository.findForUpdate(expected.keySet())) actual.put(b.getCustomerId(), b);
+        }
+
+        int drift = 0;
+        for (CustomerBalance b : actual.values()) {
+            long[] e = expected.getOrDefault(b.getCustomerId(), new long[3]);
+            if (b.getBilledMl() != e[0] || b.getBilledPaise() != e[1] || b.getPaidPaise() != e[2]) {
+                drift++;
+                b.setBilledMl(e[0]);
+                b.setBilledPaise(e[1]);
+                b.setPaidPaise(e[2]);
+            }
+        }
+
+        if (drift > 0) {
+            logger.warn("Balances for user={} had {} drifted customers; repaired", userId, drift);
+        }
+        return drift;
+    }
+
+    /** Nightly check of every user's balances, one transaction (and query budget) per user. */
+    @Scheduled(cron = "${balances.verify.cron:0 30 2 * * *}", zone = "Asia/Kolkata")
+    public void verifyAll() {
+        for (Long userId : customerRepository.findDistinctUserIds()) {
+            try {
+                queryBudget.track("job verifyBalances",
+                        () -> transactionTemplate.executeWithoutResult(status -> verifyUser(userId)));
+            } catch (Exception e) {
+                logger.error("Balance verification failed for user={}: {}", userId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.milkattendence.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.repository.CustomerRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active customers per (userId, shift), cached in-process.
+ *
+ * Entries are unmodifiable lists of detached copies, so callers can neither
+ * change the cached snapshot nor get a managed entity dirty-checked back into
+ * the database. Every write path that touches customer rows calls
+ * {@link #invalidate(Long)}; the TTL only bounds staleness from writes made on
+ * other nodes.
+ *
+ * A per-user generation counter guards against a load that read the old
+ * roster racing with an invalidation: such a result is returned but dropped
+ * from the cache again.
+ */
+@Component
+public class CustomerRosterCache {
+
+    private record Key(Long userId, String shift) {}
+
+    // shift == null caches the all-shifts list (GET /api/customers without shift)
+    private final Cache<Key, List<Customer>> cache;
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private final CustomerRepository customerRepository;
+
+    public CustomerRosterCache(
+            CustomerRepository customerRepository,
+            @Value("${roster.cache.max-size:10000}") long maxSize,
+            @Value("${roster.cache.ttl:PT10M}") Duration ttl
+    ) {
+        this.customerRepository = customerRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public List<Customer> activeCustomers(Long userId, String shift) {
+        Key key = new Key(userId, shift);
+        List<Customer> cached = cache.getIfPresent(key);
+        if (cached != null) return cached;
+
+        long generation = generations.getOrDefault(userId, 0L);
+        List<Customer> loaded = snapshot(shift == null
+                ? customerRepository.findByUserIdAndActive(userId, true)
+                : customerRepository.findByShiftAndUserIdAndActive(shift, userId, true));
+
+        cache.put(key, loaded);
+        if (generations.getOrDefault(userId, 0L) != generation) {
+            cache.invalidate(key);
+        }
+        return loaded;
+    }
+
+    /**
+     * Id and name lookup over the active roster of one shift. Build it once
+     * per request; it is a plain view over the cached snapshot.
+     */
+    public RosterIndex index(Long userId, String shift) {
+        return new RosterIndex(activeCustomers(userId, shift));
+    }
+
+    /** Drops every cached shift of this user. */
+    public void invalidate(Long userId) {
+        if (userId == null) return;
+        generations.merge(userId, 1L, Long::sum);
+        cache.asMap().keySet().removeIf(k -> k.userId().equals(userId));
+    }
+
+    public void invalidateAll(Collection<Long> userIds) {
+        for (Long userId : userIds) invalidate(userId);
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats s = cache.stats();
+        return Map.of(
+                "size", cache.estimatedSize(),
+                "hits", s.hitCount(),
+                "misses", s.missCount(),
+                "hitRate", s.hitRate(),
+                "evictions", s.evictionCount()
+        );
+    }
+
+    /**
+     * Resolves what a client sent (a customer id, or a typed name) to a roster
+     * customer. Names match trimmed and case-insensitively on full name or
+     * nickname; the first customer in roster order wins, as in the overview.
+     */
+    public static final class RosterIndex {
+
+        private final Map<Long, Customer> byId = new HashMap<>();
+        private final Map<String, Customer> byName = new HashMap<>();
+
+        RosterIndex(List<Customer> roster) {
+            for (Customer c : roster) {
+                byId.put(c.getId(), c);
+                if (c.getFullName() != null) byName.putIfAbsent(nameKey(c.getFullName()), c);
+                if (c.getNickname() != null) byName.putIfAbsent(nameKey(c.getNickname()), c);
+            }
+            byName.remove("");
+        }
+
+        public Customer byId(Long customerId) {
+            return customerId == null ? null : byId.get(customerId);
+        }
+
+        public Customer byName(String name) {
+            return name == null ? null : byName.get(nameKey(name));
+        }
+
+        /** Name stored on rows written for this customer: full name, else nickname. */
+        public static String displayName(Customer c) {
+            return c.getFullName() != null && !c.getFullName().isBlank() ? c.getFullName() : c.getNickname();
+        }
+
+        /** How names are compared: trimmed, case-insensitive; "" for none. */
+        public static String nameKey(String name) {
+            return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static List<Customer> snapshot(List<Customer> customers) {
+        List<Customer> copies = new ArrayList<>(customers.size());
+        for (Customer c : customers) copies.add(copyOf(c));
+        return List.copyOf(copies);
+    }
+
+    private static Customer copyOf(Customer c) {
+        Customer copy = new Customer();
+        copy.setId(c.getId());
+        copy.setUserId(c.getUserId());
+        copy.setFullName(c.getFullName());
+        copy.setNickname(c.getNickname());
+        copy.setShift(c.getShift());
+        copy.setPricePerLitrePaise(c.getPricePerLitrePaise());
+        copy.setActive(c.isActive());
+        copy.setReminderEnabled(c.getReminderEnabled());
+        copy.setReminderTime(c.getReminderTime());
+        copy.setReminderShift(c.getReminderShift());
+        copy.setReminderIntervalDays(c.getReminderIntervalDays());
+        copy.setLastReminderSent(c.getLastReminderSent());
+        return copy;
+    }
+}
@@ -0,0 +1,119 @@
+package com.milkattendence.backend.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.milkattendence.backend.model.DataVersion;
+import com.milkattendence.backend.repository.DataVersionRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Change counters behind the ETags of /api/overview, /api/customers and
+ * /api/payments/{shift}.
+ *
+ * Two scopes per user: {@code customers} (every roster write, which changes
+ * all of the user's pages) and one per (shift, month) for milk entries and
+ * payments. Counters are persisted in data_versions, so tags survive restarts
+ * and agree between nodes; each node keeps a user's counters in memory and
+ * refreshes them in the background, so a conditional GET is answered without
+ * touching the database.
+ *
+ * Ordering is what keeps a 304 honest: writers bump inside their own
+ * transaction, and readers take the version before reading the data. A
+ * response can then only be tagged older than its content, which costs an
+ * extra 200 later, never a stale 304. Local writes drop the cached counters
+ * once they commit; writes on other nodes show up within the refresh interval.
+ */
+@Service
+public class DataVersionService {
+
+    public static final String CUSTOMERS = "customers";
+
+    private final DataVersionRepository repository;
+    private final LoadingCache<Long, Map<String, Long>> cache;
+
+    public DataVersionService(
+            DataVersionRepository repository,
+            @Value("${versions.cache.max-size:10000}") long maxSize,
+            @Value("${versions.cache.refresh:PT5S}") Duration refresh,
+            @Value("${versions.cache.ttl:PT10M}") Duration ttl
+    ) {
+        this.repository = repository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refresh)
+                .expireAfterAccess(ttl)
+                .build(this::load);
+    }
+
+    // ==========================
+    // READ (cached)
+    // ==========================
+    public long customers(Long userId) {
+        return cache.get(userId).getOrDefault(CUSTOMERS, 0L);
+    }
+
+    public long month(Long userId, String shift, YearMonth month) {
+        return cache.get(userId).getOrDefault(monthScope(shift, month), 0L);
+    }
+
+    // ==========================
+    // BUMP (joins the caller's transaction)
+    // ==========================
+    @Transactional
+    public void bumpCustomers(Long userId) {
+        bump(userId, CUSTOMERS);
+    }
+
+    @Transactional
+    public void bumpMonth(Long userId, String shift, YearMonth month) {
+        bump(userId, monthScope(shift, month));
+    }
+
+    /**
+     * Locks one (shift, month) counter until the caller's transaction ends,
+     * without changing it: month writers and MilkArchiveService take it, so
+     * an archive or restore never interleaves with a write to the month.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockMonth(Long userId, String shift, YearMonth month) {
+        String scope = monthScope(shift, month);
+        repository.insertZero(userId, scope);
+        repository.lock(userId, scope);
+    }
+
+    private void bump(Long userId, String scope) {
+        if (repository.increment(userId, scope) == 0 && repository.insertFirst(userId, scope) == 0) {
+            // another transaction created the row between our two statements
+            repository.increment(userId, scope);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.invalidate(userId);
+            }
+        });
+    }
+
+    private Map<String, Long> load(Long userId) {
+        Map<String, Long> versions = new HashMap<>();
+        for (DataVersion v : repository.findByUserId(userId)) {
+            versions.put(v.getScope(), v.getVersion());
+        }
+        return Map.copyOf(versions);
+    }
+
+    static String monthScope(String shift, YearMonth month) {
+        return shift + "/" + month;
+    }
+}
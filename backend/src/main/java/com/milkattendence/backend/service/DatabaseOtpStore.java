@@ -0,0 +1,98 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.config.QueryBudget;
+import com.milkattendence.backend.model.PasswordResetOtp;
+import com.milkattendence.backend.repository.PasswordResetOtpRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * OTPs in password_reset_otps, shared by every node and kept across
+ * restarts. One row per account email, so the table never holds more rows
+ * than there are users; the sweeper deletes expired rows through
+ * idx_password_reset_otps_expires_at.
+ */
+@Service
+@ConditionalOnProperty(name = "otp.store", havingValue = "database")
+public class DatabaseOtpStore implements OtpStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseOtpStore.class);
+
+    private final PasswordResetOtpRepository repository;
+    private final QueryBudget queryBudget;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    public DatabaseOtpStore(
+            PasswordResetOtpRepository repository,
+            QueryBudget queryBudget,
+            PlatformTransactionManager transactionManager,
+            Clock clock
+    ) {
+        this.repository = repository;
+        this.queryBudget = queryBudget;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+    }
+
+    @Override
+    @Transactional
+    public void put(String key, String otp, Duration ttl) {
+        Instant expiresAt = clock.instant().plus(ttl);
+        if (repository.replace(key, otp, expiresAt) == 0 && repository.insertFirst(key, otp, expiresAt) == 0) {
+            // another request created the row between our two statements
+            repository.replace(key, otp, expiresAt);
+        }
+    }
+
+    @Override
+    @Transactional
+    public Check consume(String key, String otp) {
+        if (repository.deleteIfValid(key, otp, clock.instant()) == 1) return Check.VALID;
+        // nothing deleted: say why; a VALID now means another request used it up meanwhile
+        Check check = reason(key, otp);
+        return check == Check.VALID ? Check.MISSING : check;
+    }
+
+    private Check reason(String key, String otp) {
+        Optional<PasswordResetOtp> row = repository.findByEmail(key);
+        if (row.isEmpty()) return Check.MISSING;
+        Instant now = clock.instant();
+        if (!now.isBefore(row.get().getExpiresAt())) {
+            repository.deleteExpired(key, now);
+            return Check.EXPIRED;
+        }
+        boolean matches = MessageDigest.isEqual(
+                row.get().getOtp().getBytes(StandardCharsets.UTF_8), otp.getBytes(StandardCharsets.UTF_8));
+        return matches ? Check.VALID : Check.INVALID;
+    }
+
+    @Override
+    public long size() {
+        return repository.count();
+    }
+
+    @Scheduled(fixedDelayString = "${otp.sweep-interval:PT30S}")
+    public void sweep() {
+        try {
+            queryBudget.track("job sweepOtps", () -> transactionTemplate.executeWithoutResult(
+                    status -> repository.deleteAllExpired(clock.instant())));
+        } catch (Exception e) {
+            logger.error("OTP sweep failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.model.EmailOutboxMessage;
+import com.milkattendence.backend.model.EmailOutboxMessage.Status;
+import com.milkattendence.backend.repository.EmailOutboxRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the email outbox.
+ *
+ * One dispatcher thread claims due rows (PENDING -> SENDING) in short
+ * transactions and hands them to a fixed pool of sender threads, never
+ * claiming more rows than there are free workers. Failed sends are retried
+ * with exponential backoff; permanent errors and rows that run out of
+ * attempts are dead-lettered (status DEAD, last_error kept).
+ *
+ * On shutdown the dispatcher stops claiming and in-flight sends get
+ * {@code email.outbox.drain-timeout} to finish; anything still unsent is put
+ * back to PENDING for the next start.
+ */
+@Component
+public class EmailOutboxWorker implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxWorker.class);
+
+    // a SENDING row older than this belongs to a worker that died
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(10);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final SendGridSender sender;
+    private final TransactionTemplate tx;
+    private final Clock clock;
+
+    private final boolean enabled;
+    private final int workers;
+    private final int maxAttempts;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final Duration pollInterval;
+    private final Duration drainTimeout;
+
+    private final MeterRegistry meterRegistry;
+    private final Timer queueDelay;
+
+    private final Object wakeLock = new Object();
+    private boolean wakeRequested;
+
+    private volatile boolean running;
+    private Thread dispatcher;
+    private ThreadPoolExecutor pool;
+    private Semaphore freeWorkers;
+
+    public EmailOutboxWorker(
+            EmailOutboxRepository outboxRepository,
+            SendGridSender sender,
+            PlatformTransactionManager transactionManager,
+            Clock clock,
+            MeterRegistry meterRegistry,
+            @Value("${email.outbox.enabled:true}") boolean enabled,
+            @Value("${email.outbox.workers:4}") int workers,
+            @Value("${email.outbox.max-attempts:6}") int maxAttempts,
+            @Value("${email.outbox.backoff-base:PT30S}") Duration backoffBase,
+            @Value("${email.outbox.backoff-max:PT1H}") Duration backoffMax,
+            @Value("${email.outbox.poll-interval:PT5S}") Duration pollInterval,
+            @Value("${email.outbox.drain-timeout:PT30S}") Duration drainTimeout
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.sender = sender;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.enabled = enabled;
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.pollInterval = pollInterval;
+        this.drainTimeout = drainTimeout;
+
+        this.meterRegistry = meterRegistry;
+        this.queueDelay = Timer.builder("email.outbox.delay")
+                .description("Time from enqueue to successful send")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.busy.workers", this, w -> w.freeWorkers == null ? 0 : w.workers - w.freeWorkers.availablePermits())
+                .description("Sender threads currently delivering")
+                .register(meterRegistry);
+    }
+
+    // ==========================
+    // LIFECYCLE
+    // ==========================
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        if (!sender.isConfigured()) {
+            // rows stay PENDING until a node with an API key picks them up
+            logger.warn("Email outbox not started: SendGrid API key is not configured");
+            return;
+        }
+
+        int released = outboxRepository.releaseClaimsOlderThan(clock.instant().minus(CLAIM_LEASE));
+        if (released > 0) logger.warn("Released {} stale email outbox claims", released);
+
+        AtomicInteger n = new AtomicInteger();
+        freeWorkers = new Semaphore(workers);
+        pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers),
+                r -> new Thread(r, "email-outbox-" + n.incrementAndGet()));
+
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "email-outbox-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        logger.info("Email outbox started with {} workers", workers);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        wakeUp();
+
+        try {
+            dispatcher.join(drainTimeout.toMillis());
+            pool.shutdown();
+            if (!pool.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                List<Long> unsent = new ArrayList<>();
+                for (Runnable r : pool.shutdownNow()) {
+                    if (r instanceof Delivery d) unsent.add(d.message.getId());
+                }
+                if (!unsent.isEmpty()) outboxRepository.releaseClaims(unsent);
+                logger.warn("Email outbox drain timed out; {} queued sends returned to PENDING", unsent.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Email outbox stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Asks the dispatcher to look for due rows now instead of at the next poll. */
+    public void wakeUp() {
+        synchronized (wakeLock) {
+            wakeRequested = true;
+            wakeLock.notifyAll();
+        }
+    }
+
+    // ==========================
+    // DISPATCH
+    // ==========================
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                int free = freeWorkers.availablePermits();
+                List<EmailOutboxMessage> claimed = free > 0 ? claim(free) : List.of();
+
+                for (EmailOutboxMessage m : claimed) {
+                    freeWorkers.acquireUninterruptibly();
+                    pool.execute(new Delivery(m));
+                }
+
+                // a full batch means there may be more due rows right away
+                if (claimed.isEmpty() || claimed.size() < free) awaitWork();
+            } catch (Exception e) {
+                logger.error("Email outbox dispatch failed: {}", e.getMessage());
+                awaitWork();
+            }
+        }
+    }
+
+    private List<EmailOutboxMessage> claim(int limit) {
+        Instant now = clock.instant();
+        return tx.execute(status -> {
+            List<EmailOutboxMessage> due = outboxRepository.findDueForUpdate(now, PageRequest.of(0, limit));
+            for (EmailOutboxMessage m : due) {
+                m.setStatus(Status.SENDING);
+                m.setClaimedAt(now);
+            }
+            return due;
+        });
+    }
+
+    private void awaitWork() {
+        synchronized (wakeLock) {
+            if (!wakeRequested && running) {
+                try {
+                    wakeLock.wait(pollInterval.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+            wakeRequested = false;
+        }
+    }
+
+    // ==========================
+    // DELIVERY
+    // ==========================
+    private final class Delivery implements Runnable {
+
+        private final EmailOutboxMessage message;
+
+        Delivery(EmailOutboxMessage message) {
+            this.message = message;
+        }
+
+        @Override
+        public void run() {
+            try {
+                deliver(message);
+            } finally {
+                freeWorkers.release();
+                wakeUp();
+            }
+        }
+    }
+
+    void deliver(EmailOutboxMessage m) {
+        long start = System.nanoTime();
+        try {
+            sender.send(m.getRecipient(), m.getSubject(), m.getHtml());
+            sendTimer("sent").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            Instant now = clock.instant();
+            outboxRepository.markSent(m.getId(), now);
+            if (m.getCreatedAt() != null) queueDelay.record(Duration.between(m.getCreatedAt(), now));
+        } catch (Exception e) {
+            String error = truncate(e.getMessage());
+            boolean retryable = !(e instanceof SendGridSender.DeliveryException d) || d.isRetryable();
+            int attempt = m.getAttempts() + 1;
+            sendTimer("failed").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            Counter.builder("email.send.failures")
+                    .description("Emails whose send attempt failed")
+                    .tag("retryable", String.valueOf(retryable))
+                    .register(meterRegistry)
+                    .increment();
+
+            if (retryable && attempt < maxAttempts) {
+                Instant next = clock.instant().plus(backoff(attempt));
+                outboxRepository.markRetry(m.getId(), next, error);
+                logger.warn("Email {} failed (attempt {}), retrying at {}: {}", m.getId(), attempt, next, error);
+            } else {
+                outboxRepository.markDead(m.getId(), error);
+                logger.error("Email {} dead-lettered after {} attempts: {}", m.getId(), attempt, error);
+            }
+        }
+    }
+
+    // one SendGrid request
+    private Timer sendTimer(String outcome) {
+        return Timer.builder("email.send")
+                .description("SendGrid request latency")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /** base * 2^(attempt - 1), capped at backoff-max. */
+    Duration backoff(int attempt) {
+        long factor = 1L << Math.min(attempt - 1, 30);
+        Duration d = backoffBase.multipliedBy(factor);
+        return d.compareTo(backoffMax) > 0 ? backoffMax : d;
+    }
+
+    private static String truncate(String s) {
+        if (s == null) return null;
+        return s.length() <= 1000 ? s : s.substring(0, 1000);
+    }
+}
@@ -1,18 +1,22 @@
 package com.milkattendence.backend.service;
 
-import com.sendgrid.SendGrid;
-import com.sendgrid.Request;
-import com.sendgrid.Method;
-
-import com.sendgrid.helpers.mail.Mail;
-import com.sendgrid.helpers.mail.objects.Email;
-import com.sendgrid.helpers.mail.objects.Content;
+import com.milkattendence.backend.model.EmailOutboxMessage;
+import com.milkattendence.backend.model.EmailOutboxMessage.Status;
+import com.milkattendence.backend.repository.EmailOutboxRepository;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Clock;
+
+/**
+ * Queues admin emails in the outbox. Callers return as soon as the row is
+ * written; EmailOutboxWorker does the SendGrid round trip in the background.
+ */
 @Service
 public class EmailService {
 
@@ -21,19 +25,65 @@ public class EmailService {
     @Value("${admin.email:}")
     private String adminEmail;
 
-    @Value("${SENDGRID_API_KEY:}")
-    private String sendgridApiKey;
+    // reminder digests go here when set, otherwise to the admin
+    @Value("${app.reminder.email:}")
+    private String reminderEmail;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailOutboxWorker outboxWorker;
+    private final SendGridSender sender;
+    private final Clock clock;
+
+    public EmailService(
+            EmailOutboxRepository outboxRepository,
+            EmailOutboxWorker outboxWorker,
+            SendGridSender sender,
+            Clock clock
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.outboxWorker = outboxWorker;
+        this.sender = sender;
+        this.clock = clock;
+    }
+
+    /**
+     * Queues an HTML email to the admin address and returns its outbox id.
+     * Missing configuration still fails here, so callers can report it.
+     */
+    public Long sendHtmlEmail(String subject, String htmlContent) {
+
+        String to = adminRecipient();
+
+        EmailOutboxMessage message = outboxRepository.save(
+                new EmailOutboxMessage(to, subject, htmlContent, clock.instant()));
+        logger.info("Queued email {} to {} with subject={}", message.getId(), to, subject);
+
+        wakeWorkerAfterCommit();
+        return message.getId();
+    }
+
+    /**
+     * Queues an HTML email to the reminder address (app.reminder.email, else
+     * the admin) and returns its outbox id.
+     */
+    public Long sendReminderEmail(String subject, String htmlContent) {
+        if (!sender.isConfigured()) {
+            logger.error("SENDGRID_API_KEY is missing");
+            throw new IllegalStateException("SENDGRID_API_KEY is missing");
+        }
 
-    @Value("${EMAIL_FROM:}")
-    private String emailFrom;
+        String to = reminderRecipient();
 
-    public void sendHtmlEmail(String subject, String htmlContent) throws Exception {
+        EmailOutboxMessage message = outboxRepository.save(
+                new EmailOutboxMessage(to, subject, htmlContent, clock.instant()));
+        logger.info("Queued reminder email {} to {} with subject={}", message.getId(), to, subject);
 
-        String apiKey = sendgridApiKey != null && !sendgridApiKey.isBlank()
-                ? sendgridApiKey
-                : System.getenv("SENDGRID_API_KEY");
+        wakeWorkerAfterCommit();
+        return message.getId();
+    }
 
-        if (apiKey == null || apiKey.isBlank()) {
+    public String adminRecipient() {
+        if (!sender.isConfigured()) {
             logger.error("SENDGRID_API_KEY is missing");
             throw new IllegalStateException("SENDGRID_API_KEY is missing");
         }
@@ -42,39 +92,39 @@ public class EmailService {
             logger.error("admin.email (ADMIN_EMAIL) is missing");
             throw new IllegalStateException("admin.email (ADMIN_EMAIL) is missing");
         }
+        return adminEmail;
+    }
 
-        logger.info("Sending email to {} with subject={}", adminEmail, subject);
-
-        String fromAddress = (emailFrom != null && !emailFrom.isBlank()) ? emailFrom : "noreply@milk-attendance.com";
-        Email from = new Email(fromAddress);
-        Email to = new Email(adminEmail);
-        Content content = new Content("text/html", htmlContent);
-        Mail mail = new Mail(from, subject, to, content);
-
-        SendGrid sg = new SendGrid(apiKey);
-        Request request = new Request();
-        request.setMethod(Method.POST);
-        request.setEndpoint("mail/send");
-        request.setBody(mail.build());
-
-        com.sendgrid.Response response = sg.api(request);
-        logger.info("SendGrid response: status={}, body={}", response.getStatusCode(), response.getBody());
+    public String reminderRecipient() {
+        return reminderEmail != null && !reminderEmail.isBlank() ? reminderEmail : adminRecipient();
+    }
 
-        if (response.getStatusCode() >= 400) {
-            throw new RuntimeException("Failed to send email: " + response.getStatusCode() + " " + response.getBody());
+    private void wakeWorkerAfterCommit() {
+        // inside a caller's transaction the rows are only visible after commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxWorker.wakeUp();
+                }
+            });
+        } else {
+            outboxWorker.wakeUp();
         }
     }
 
     public java.util.Map<String, Object> getHealthStatus() {
-        boolean sendgridPresent = (sendgridApiKey != null && !sendgridApiKey.isBlank()) || (System.getenv("SENDGRID_API_KEY") != null && !System.getenv("SENDGRID_API_KEY").isBlank());
+        boolean sendgridPresent = sender.isConfigured();
         boolean adminPresent = adminEmail != null && !adminEmail.isBlank();
-        boolean fromPresent = emailFrom != null && !emailFrom.isBlank();
         return java.util.Map.of(
                 "sendgridConfigured", sendgridPresent,
                 "adminEmailConfigured", adminPresent,
                 "adminEmail", adminPresent ? adminEmail : "",
-                "emailFromConfigured", fromPresent,
-                "emailFrom", fromPresent ? emailFrom : "noreply@milk-attendance.com"
+                "emailFromConfigured", sender.isFromConfigured(),
+                "emailFrom", sender.getFromAddress(),
+                "outboxPending", outboxRepository.countByStatus(Status.PENDING),
+                "outboxDead", outboxRepository.countByStatus(Status.DEAD),
+                "messagesSent", sender.getMessagesSent()
         );
     }
 }
@@ -0,0 +1,131 @@
+package com.milkattendence.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * OTPs in this node's heap, bounded in size and in time.
+ *
+ * Every OTP is also filed under the time bucket (of
+ * {@code otp.memory.bucket} width) it expires in. The sweeper
+ * ({@code otp.sweep-interval}) drops whole buckets that lie in the past, so
+ * it only touches expired keys, and {@code otp.memory.max-size} is a hard
+ * cap: a put over it evicts from the earliest bucket, i.e. the OTPs closest
+ * to expiring. Puts, checks and the sweeper only ever lock single map bins.
+ */
+@Service
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private record Entry(String otp, Instant expiresAt) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // bucket number -> keys filed under it; a key re-put later sits in two buckets
+    private final ConcurrentSkipListMap<Long, Queue<String>> buckets = new ConcurrentSkipListMap<>();
+
+    private final Clock clock;
+    private final int maxSize;
+    private final long bucketMillis;
+
+    public InMemoryOtpStore(
+            Clock clock,
+            @Value("${otp.memory.max-size:100000}") int maxSize,
+            @Value("${otp.memory.bucket:PT30S}") Duration bucket
+    ) {
+        this.clock = clock;
+        this.maxSize = maxSize;
+        this.bucketMillis = bucket.toMillis();
+    }
+
+    @Override
+    public void put(String key, String otp, Duration ttl) {
+        Instant expiresAt = clock.instant().plus(ttl);
+        entries.put(key, new Entry(otp, expiresAt));
+        buckets.computeIfAbsent(bucket(expiresAt), b -> new ConcurrentLinkedQueue<>()).add(key);
+        while (entries.size() > maxSize && evictOne()) {
+            // keep evicting until back under the cap
+        }
+    }
+
+    @Override
+    public Check consume(String key, String otp) {
+        Entry e = entries.get(key);
+        if (e == null) return Check.MISSING;
+        if (!clock.instant().isBefore(e.expiresAt())) {
+            entries.remove(key, e);
+            return Check.EXPIRED;
+        }
+        boolean matches = MessageDigest.isEqual(
+                e.otp().getBytes(StandardCharsets.UTF_8), otp.getBytes(StandardCharsets.UTF_8));
+        if (!matches) return Check.INVALID;
+        // removing exactly the entry that matched: a racing consume or a new put wins over us
+        return entries.remove(key, e) ? Check.VALID : Check.MISSING;
+    }
+
+    @Override
+    public long size() {
+        return entries.size();
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    // ==========================
+    // SWEEPING / EVICTION
+    // ==========================
+
+    /** Drops every bucket that ended before now, and the OTPs in it that were not re-put since. */
+    @Scheduled(fixedDelayString = "${otp.sweep-interval:PT30S}")
+    public void sweep() {
+        Instant now = clock.instant();
+        long current = bucket(now);
+        for (Map.Entry<Long, Queue<String>> b = buckets.firstEntry(); b != null && b.getKey() < current;
+             b = buckets.firstEntry()) {
+            buckets.remove(b.getKey(), b.getValue());
+            for (String key = b.getValue().poll(); key != null; key = b.getValue().poll()) {
+                entries.computeIfPresent(key, (k, e) -> e.expiresAt().isAfter(now) ? e : null);
+            }
+        }
+    }
+
+    // removes one OTP filed under the earliest bucket; false when there was nothing to evict
+    private boolean evictOne() {
+        for (Map.Entry<Long, Queue<String>> b : buckets.entrySet()) {
+            long bucket = b.getKey();
+            for (String key = b.getValue().poll(); key != null; key = b.getValue().poll()) {
+                boolean[] evicted = {false};
+                // a key re-put since belongs to its later bucket
+                entries.computeIfPresent(key, (k, e) -> {
+                    if (bucket(e.expiresAt()) != bucket) return e;
+                    evicted[0] = true;
+                    return null;
+                });
+                if (evicted[0]) return true;
+            }
+        }
+        // keys that lost their bucket (a put racing the sweeper past its expiry)
+        Iterator<String> any = entries.keySet().iterator();
+        if (!any.hasNext()) return false;
+        entries.remove(any.next());
+        return true;
+    }
+
+    private long bucket(Instant instant) {
+        return instant.toEpochMilli() / bucketMillis;
+    }
+}
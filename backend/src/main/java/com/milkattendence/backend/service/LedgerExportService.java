@@ -0,0 +1,207 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.repository.projection.MilkEntryRow;
+import com.milkattendence.backend.util.CsvRowWriter;
+import com.milkattendence.backend.util.FixedPoint;
+import com.milkattendence.backend.util.RowWriter;
+import com.milkattendence.backend.util.XlsxRowWriter;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full milk / payment history as CSV or XLSX, streamed row by row.
+ *
+ * One forward-only, read-only statement with a fixed fetch size inside a
+ * read-only transaction: PostgreSQL then keeps a server-side cursor and
+ * sends FETCH_SIZE rows at a time, so heap stays flat whatever the range
+ * and the first bytes go out as soon as the first batch arrives.
+ *
+ * Rows come in index order (user_id, shift, date, ...), so the database
+ * does not have to sort the whole history before the first row. Archived
+ * months (MilkArchiveService) are no longer in milk_entries; their rows are
+ * decoded a block at a time and merged into the stream in the same order.
+ */
+@Service
+public class LedgerExportService {
+
+    static final int FETCH_SIZE = 1000;
+
+    public enum Ledger {
+        MILK(
+                "SELECT date, shift, customer_name, litres_ml, rate_paise, amount_paise FROM milk_entries",
+                "Date", "Shift", "Customer", "Litres", "Rate", "Amount"
+        ),
+        PAYMENTS(
+                "SELECT date, shift, customer_name, paid FROM payments",
+                "Date", "Shift", "Customer", "Paid"
+        );
+
+        private final String select;
+        private final String[] columns;
+
+        Ledger(String select, String... columns) {
+            this.select = select;
+            this.columns = columns;
+        }
+    }
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        public final String contentType;
+        public final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Format parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("format must be csv or xlsx");
+            }
+        }
+    }
+
+    /** What to export; shift, from and to are optional filters. */
+    public record Request(Ledger ledger, Long userId, String shift, LocalDate from, LocalDate to,
+                          Format format, boolean gzip) {}
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate readOnly;
+    private final MilkArchiveService archive;
+
+    public LedgerExportService(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                               MilkArchiveService archive) {
+        this.jdbc = jdbc;
+        this.archive = archive;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /** Writes the whole export to {@code out}; returns the number of data rows. */
+    public long export(Request request, OutputStream out) throws IOException {
+        // syncFlush: without it flush() leaves the headers in the deflater
+        GZIPOutputStream gzip = request.gzip() ? new GZIPOutputStream(out, 16 * 1024, true) : null;
+        OutputStream target = gzip != null ? gzip : out;
+
+        RowWriter writer = request.format() == Format.XLSX ? new XlsxRowWriter(target) : new CsvRowWriter(target);
+        writer.header(request.ledger().columns);
+        writer.flush(); // headers and first bytes go out before the query runs
+
+        Long rows;
+        try {
+            rows = readOnly.execute(status -> {
+                long[] count = {0};
+                Iterator<MilkEntryRow> archived = archivedRows(request);
+                MilkEntryRow[] next = {archived.hasNext() ? archived.next() : null};
+                jdbc.query(statement(request), (RowCallbackHandler) rs -> {
+                    Object[] row = values(request.ledger(), rs);
+                    while (next[0] != null && comesBefore(next[0], (String) row[1], (LocalDate) row[0])) {
+                        write(writer, values(next[0]));
+                        count[0]++;
+                        next[0] = archived.hasNext() ? archived.next() : null;
+                    }
+                    write(writer, row);
+                    count[0]++;
+                });
+                for (MilkEntryRow r = next[0]; r != null; r = archived.hasNext() ? archived.next() : null) {
+                    write(writer, values(r));
+                    count[0]++;
+                }
+                return count[0];
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // client went away
+        }
+
+        writer.close();
+        if (gzip != null) gzip.finish();
+        return rows == null ? 0 : rows;
+    }
+
+    private Iterator<MilkEntryRow> archivedRows(Request request) {
+        if (request.ledger() != Ledger.MILK) return Collections.emptyIterator();
+        String shift = request.shift() != null && !request.shift().isBlank() ? request.shift() : null;
+        return archive.exportRows(request.userId(), shift, request.from(), request.to());
+    }
+
+    // ORDER BY shift, date: NULL shifts sort last, as in PostgreSQL
+    private static boolean comesBefore(MilkEntryRow archived, String shift, LocalDate date) {
+        if (shift == null) return true;
+        int c = archived.shift().compareTo(shift);
+        return c < 0 || (c == 0 && archived.date().isBefore(date));
+    }
+
+    private static void write(RowWriter writer, Object[] row) {
+        try {
+            writer.row(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static PreparedStatementCreator statement(Request request) {
+        StringBuilder sql = new StringBuilder(request.ledger().select).append(" WHERE user_id = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(request.userId());
+        if (request.shift() != null && !request.shift().isBlank()) {
+            sql.append(" AND shift = ?");
+            params.add(request.shift());
+        }
+        if (request.from() != null) {
+            sql.append(" AND date >= ?");
+            params.add(Date.valueOf(request.from()));
+        }
+        if (request.to() != null) {
+            sql.append(" AND date <= ?");
+            params.add(Date.valueOf(request.to()));
+        }
+        sql.append(" ORDER BY shift, date, customer_name");
+
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) ps.setObject(i + 1, params.get(i));
+            return ps;
+        };
+    }
+
+    private static Object[] values(Ledger ledger, ResultSet rs) throws SQLException {
+        Date date = rs.getDate(1);
+        LocalDate day = date != null ? date.toLocalDate() : null;
+        return switch (ledger) {
+            case MILK -> new Object[]{day, rs.getString(2), rs.getString(3),
+                    FixedPoint.litres(rs.getLong(4)), FixedPoint.rupees(rs.getLong(5)), FixedPoint.rupees(rs.getLong(6))};
+            case PAYMENTS -> new Object[]{day, rs.getString(2), rs.getString(3), rs.getBoolean(4)};
+        };
+    }
+
+    private static Object[] values(MilkEntryRow row) {
+        return new Object[]{row.date(), row.shift(), row.customerName(), row.litres(), row.rate(), row.amount()};
+    }
+}
@@ -0,0 +1,349 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.MilkDailyAggregate;
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.model.MilkMonthlyAggregate;
+import com.milkattendence.backend.repository.MilkDailyAggregateRepository;
+import com.milkattendence.backend.repository.MilkEntryRepository;
+import com.milkattendence.backend.repository.MilkMonthlyAggregateRepository;
+import com.milkattendence.backend.repository.MilkReportRepository;
+import com.milkattendence.backend.repository.projection.DailyCustomerTotal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps milk_daily_aggregates / milk_monthly_aggregates in step with milk_entries.
+ *
+ * Writers call {@link #add(MilkEntry)} / {@link #remove(MilkEntry)} inside their own
+ * transaction, so an entry, its aggregates and its customer's balance always
+ * commit together.
+ * {@link #rebuildMonth(Long, String, YearMonth)} is the consistency checker: it
+ * recomputes a month from milk_entries and reports how many cells had drifted.
+ */
+@Service
+public class MilkAggregateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MilkAggregateService.class);
+
+    private final MilkEntryRepository milkEntryRepository;
+    private final MilkDailyAggregateRepository dailyRepository;
+    private final MilkMonthlyAggregateRepository monthlyRepository;
+    private final MilkReportRepository reportRepository;
+    private final CustomerRosterCache rosterCache;
+    private final CustomerBalanceService balanceService;
+    private final TransactionTemplate transactionTemplate;
+
+    public MilkAggregateService(
+            MilkEntryRepository milkEntryRepository,
+            MilkDailyAggregateRepository dailyRepository,
+            MilkMonthlyAggregateRepository monthlyRepository,
+            MilkReportRepository reportRepository,
+            CustomerRosterCache rosterCache,
+            CustomerBalanceService balanceService,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.milkEntryRepository = milkEntryRepository;
+        this.dailyRepository = dailyRepository;
+        this.monthlyRepository = monthlyRepository;
+        this.reportRepository = reportRepository;
+        this.rosterCache = rosterCache;
+        this.balanceService = balanceService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public static String customerKey(String customerName) {
+        return customerName == null ? "" : customerName.toLowerCase(Locale.ROOT);
+    }
+
+    // ==========================
+    // INCREMENTAL MAINTENANCE
+    // ==========================
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(MilkEntry e) {
+        apply(e.getUserId(), e.getShift(), e.getCustomerName(), e.getCustomerId(), e.getDate(),
+                e.getLitresMl(), e.getAmountPaise(), 1);
+        balanceService.applyChanges(List.of(), List.of(e));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remove(MilkEntry e) {
+        apply(e.getUserId(), e.getShift(), e.getCustomerName(), e.getCustomerId(), e.getDate(),
+                -e.getLitresMl(), -e.getAmountPaise(), -1);
+        balanceService.applyChanges(List.of(e), List.of());
+    }
+
+    private void apply(Long userId, String shift, String customerName, Long customerId, LocalDate date,
+                       long litresMl, long amountPaise, int entries) {
+
+        String key = customerKey(customerName);
+
+        MilkDailyAggregate day = dailyRepository
+                .findByUserIdAndShiftAndDateAndCustomerKey(userId, shift, date, key)
+                .orElseGet(() -> new MilkDailyAggregate(userId, shift, key, date));
+        day.setLitresMl(day.getLitresMl() + litresMl);
+        day.setAmountPaise(day.getAmountPaise() + amountPaise);
+        day.setEntryCount(day.getEntryCount() + entries);
+        if (day.getCustomerId() == null) day.setCustomerId(customerId);
+        if (day.getEntryCount() <= 0) {
+            if (day.getId() != null) dailyRepository.delete(day);
+        } else {
+            dailyRepository.save(day);
+        }
+
+        LocalDate monthStart = date.withDayOfMonth(1);
+        MilkMonthlyAggregate month = monthlyRepository
+                .findByUserIdAndShiftAndMonthStartAndCustomerKey(userId, shift, monthStart, key)
+                .orElseGet(() -> new MilkMonthlyAggregate(userId, shift, key, monthStart));
+        month.setLitresMl(month.getLitresMl() + litresMl);
+        month.setAmountPaise(month.getAmountPaise() + amountPaise);
+        month.setEntryCount(month.getEntryCount() + entries);
+        if (month.getCustomerId() == null) month.setCustomerId(customerId);
+        if (month.getEntryCount() <= 0) {
+            if (month.getId() != null) monthlyRepository.delete(month);
+        } else {
+            monthlyRepository.save(month);
+        }
+    }
+
+    /**
+     * Set-based variant of add/remove for batch writes: folds all changes into
+     * per-cell deltas, then reads each touched day and month once (locked),
+     * and writes the result back with batched inserts/updates and one delete.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void applyChanges(Collection<MilkEntry> removed, Collection<MilkEntry> added) {
+
+        // (userId, shift, date) -> customerKey -> delta
+        Map<DayScope, Map<String, Delta>> deltas = new LinkedHashMap<>();
+        for (MilkEntry e : removed) fold(deltas, e, -1);
+        for (MilkEntry e : added) fold(deltas, e, 1);
+
+        List<MilkDailyAggregate> dailySaves = new ArrayList<>();
+        List<MilkDailyAggregate> dailyDeletes = new ArrayList<>();
+        Map<MonthScope, Map<String, Delta>> monthDeltas = new LinkedHashMap<>();
+
+        for (Map.Entry<DayScope, Map<String, Delta>> scope : deltas.entrySet()) {
+            DayScope day = scope.getKey();
+
+            Map<String, MilkDailyAggregate> rows = new HashMap<>();
+            for (MilkDailyAggregate a : dailyRepository.findByUserIdAndShiftAndDate(day.userId(), day.shift(), day.date())) {
+                rows.put(a.getCustomerKey(), a);
+            }
+
+            Map<String, Delta> month = monthDeltas.computeIfAbsent(
+                    new MonthScope(day.userId(), day.shift(), day.date().withDayOfMonth(1)),
+                    k -> new HashMap<>());
+
+            for (Map.Entry<String, Delta> cell : scope.getValue().entrySet()) {
+                Delta d = cell.getValue();
+                if (d.isEmpty()) continue;
+
+                MilkDailyAggregate a = rows.computeIfAbsent(cell.getKey(),
+                        key -> new MilkDailyAggregate(day.userId(), day.shift(), key, day.date()));
+                a.setLitresMl(a.getLitresMl() + d.litresMl);
+                a.setAmountPaise(a.getAmountPaise() + d.amountPaise);
+                a.setEntryCount(a.getEntryCount() + d.entries);
+                if (a.getCustomerId() == null) a.setCustomerId(d.customerId);
+                if (a.getEntryCount() > 0) {
+                    dailySaves.add(a);
+                } else if (a.getId() != null) {
+                    dailyDeletes.add(a);
+                }
+
+                month.computeIfAbsent(cell.getKey(), k -> new Delta()).add(d);
+            }
+        }
+
+        List<MilkMonthlyAggregate> monthlySaves = new ArrayList<>();
+        List<MilkMonthlyAggregate> monthlyDeletes = new ArrayList<>();
+
+        for (Map.Entry<MonthScope, Map<String, Delta>> scope : monthDeltas.entrySet()) {
+            MonthScope ms = scope.getKey();
+
+            Map<String, MilkMonthlyAggregate> rows = new HashMap<>();
+            for (MilkMonthlyAggregate a : monthlyRepository.findMonthForUpdate(ms.userId(), ms.shift(), ms.monthStart())) {
+                rows.put(a.getCustomerKey(), a);
+            }
+
+            for (Map.Entry<String, Delta> cell : scope.getValue().entrySet()) {
+                Delta d = cell.getValue();
+                if (d.isEmpty()) continue;
+
+                MilkMonthlyAggregate a = rows.computeIfAbsent(cell.getKey(),
+                        key -> new MilkMonthlyAggregate(ms.userId(), ms.shift(), key, ms.monthStart()));
+                a.setLitresMl(a.getLitresMl() + d.litresMl);
+                a.setAmountPaise(a.getAmountPaise() + d.amountPaise);
+                a.setEntryCount(a.getEntryCount() + d.entries);
+                if (a.getCustomerId() == null) a.setCustomerId(d.customerId);
+                if (a.getEntryCount() > 0) {
+                    monthlySaves.add(a);
+                } else if (a.getId() != null) {
+                    monthlyDeletes.add(a);
+                }
+            }
+        }
+
+        dailyRepository.saveAll(dailySaves);
+        monthlyRepository.saveAll(monthlySaves);
+        if (!dailyDeletes.isEmpty()) dailyRepository.deleteAllInBatch(dailyDeletes);
+        if (!monthlyDeletes.isEmpty()) monthlyRepository.deleteAllInBatch(monthlyDeletes);
+
+        balanceService.applyChanges(removed, added);
+    }
+
+    private static void fold(Map<DayScope, Map<String, Delta>> deltas, MilkEntry e, int sign) {
+        Delta d = deltas
+                .computeIfAbsent(new DayScope(e.getUserId(), e.getShift(), e.getDate()), k -> new HashMap<>())
+                .computeIfAbsent(customerKey(e.getCustomerName()), k -> new Delta());
+        d.litresMl += sign * e.getLitresMl();
+        d.amountPaise += sign * e.getAmountPaise();
+        d.entries += sign;
+        if (d.customerId == null) d.customerId = e.getCustomerId();
+    }
+
+    // change to one aggregate cell, plus the customer it belongs to
+    private static final class Delta {
+        long litresMl;
+        long amountPaise;
+        int entries;
+        Long customerId;
+
+        boolean isEmpty() { return entries == 0 && litresMl == 0 && amountPaise == 0; }
+
+        void add(Delta other) {
+            litresMl += other.litresMl;
+            amountPaise += other.amountPaise;
+            entries += other.entries;
+            if (customerId == null) customerId = other.customerId;
+        }
+    }
+
+    private record DayScope(Long userId, String shift, LocalDate date) {}
+
+    private record MonthScope(Long userId, String shift, LocalDate monthStart) {}
+
+    // ==========================
+    // CONSISTENCY CHECK / REBUILD
+    // ==========================
+
+    /**
+     * Recomputes one (userId, shift, month) from milk_entries, replaces its
+     * aggregate rows and returns the number of daily cells that had drifted.
+     */
+    @Transactional
+    public int rebuildMonth(Long userId, String shift, YearMonth ym) {
+        return rebuildMonth(userId, shift, ym, true);
+    }
+
+    // reportDrift=false: the caller knows the month has no daily cells (a restored archive month)
+    @Transactional
+    int rebuildMonth(Long userId, String shift, YearMonth ym, boolean reportDrift) {
+        LocalDate start = ym.atDay(1);
+        LocalDate end = ym.atEndOfMonth();
+
+        // (day|key) -> daily row, folded on the same key the writers use
+        Map<String, MilkDailyAggregate> expectedDays = new LinkedHashMap<>();
+        Map<String, MilkMonthlyAggregate> expectedMonths = new LinkedHashMap<>();
+        CustomerRosterCache.RosterIndex roster = null;
+
+        for (DailyCustomerTotal row : reportRepository.sumByDayAndCustomer(userId, shift, start, end)) {
+            LocalDate date = row.day();
+            String key = customerKey(row.customerName());
+            Long customerId = row.customerId();
+            if (customerId == null) {
+                // entries the V9 backfill could not link: resolve against today's roster
+                if (roster == null) roster = rosterCache.index(userId, shift);
+                Customer c = roster.byName(row.customerName());
+                if (c != null) customerId = c.getId();
+            }
+            long litresMl = row.litresMl();
+            long amountPaise = row.amountPaise();
+            int count = (int) row.entryCount();
+
+            MilkDailyAggregate day = expectedDays.computeIfAbsent(
+                    date + "|" + key, k -> new MilkDailyAggregate(userId, shift, key, date));
+            day.setLitresMl(day.getLitresMl() + litresMl);
+            day.setAmountPaise(day.getAmountPaise() + amountPaise);
+            day.setEntryCount(day.getEntryCount() + count);
+            if (day.getCustomerId() == null) day.setCustomerId(customerId);
+
+            MilkMonthlyAggregate month = expectedMonths.computeIfAbsent(
+                    key, k -> new MilkMonthlyAggregate(userId, shift, key, start));
+            month.setLitresMl(month.getLitresMl() + litresMl);
+            month.setAmountPaise(month.getAmountPaise() + amountPaise);
+            month.setEntryCount(month.getEntryCount() + count);
+            if (month.getCustomerId() == null) month.setCustomerId(customerId);
+        }
+
+        Map<String, MilkDailyAggregate> actualDays = new HashMap<>();
+        for (MilkDailyAggregate a : dailyRepository.findByUserIdAndShiftAndDateBetween(userId, shift, start, end)) {
+            actualDays.put(a.getDate() + "|" + a.getCustomerKey(), a);
+        }
+
+        int drift = 0;
+        for (Map.Entry<String, MilkDailyAggregate> e : expectedDays.entrySet()) {
+            MilkDailyAggregate actual = actualDays.remove(e.getKey());
+            MilkDailyAggregate expected = e.getValue();
+            if (actual == null
+                    || actual.getEntryCount() != expected.getEntryCount()
+                    || actual.getLitresMl() != expected.getLitresMl()
+                    || actual.getAmountPaise() != expected.getAmountPaise()) {
+                drift++;
+            }
+        }
+        drift += actualDays.size();
+
+        dailyRepository.deleteMonth(userId, shift, start, end);
+        monthlyRepository.deleteMonth(userId, shift, start);
+        dailyRepository.saveAll(expectedDays.values());
+        monthlyRepository.saveAll(expectedMonths.values());
+
+        if (drift > 0 && reportDrift) {
+            logger.warn("Aggregates for user={} shift={} month={} had {} drifted cells; rebuilt", userId, shift, ym, drift);
+        }
+        return drift;
+    }
+
+    /**
+     * First start after the aggregate tables were introduced: build every month
+     * that already has entries. No-op once any aggregate exists.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (monthlyRepository.count() > 0 || milkEntryRepository.count() == 0) return;
+
+        List<Object[]> months = milkEntryRepository.findDistinctUserShiftMonths();
+        logger.info("Backfilling milk aggregates for {} (user, shift, month) scopes", months.size());
+
+        for (Object[] row : months) {
+            Long userId = (Long) row[0];
+            String shift = (String) row[1];
+            YearMonth ym = YearMonth.of(((Number) row[2]).intValue(), ((Number) row[3]).intValue());
+            try {
+                // one transaction per month so a bad month does not roll back the rest
+                transactionTemplate.executeWithoutResult(status -> rebuildMonth(userId, shift, ym));
+            } catch (Exception e) {
+                logger.error("Aggregate backfill failed for user={} shift={} month={}: {}", userId, shift, ym, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.milkattendence.backend.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.milkattendence.backend.config.QueryBudget;
+import com.milkattendence.backend.model.MilkArchiveBlock;
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.repository.MilkArchiveBlockRepository;
+import com.milkattendence.backend.repository.MilkDailyAggregateRepository;
+import com.milkattendence.backend.repository.MilkEntryRepository;
+import com.milkattendence.backend.repository.projection.MilkEntryRow;
+import com.milkattendence.backend.util.MilkArchiveCodec;
+import com.milkattendence.backend.util.MilkArchiveCodec.Run;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * Archives closed months of milk entries as run-length blocks
+ * (milk_archive_blocks, see MilkArchiveCodec) and reads them back.
+ *
+ * {@link #archiveMonth} folds one (userId, shift, month) into a block,
+ * decodes it again and checks it reproduces every entry before the month's
+ * raw rows and daily aggregates are deleted; monthly aggregates and balances
+ * do not change. From then on the month is read-only: the overview, the
+ * entry lists, history pages and exports read it from the block, and writes
+ * into it are refused until {@link #restoreMonth} puts the rows back.
+ *
+ * Which months are archived is cached per user the same way as
+ * DataVersionService: dropped when a local archive/restore commits, refreshed
+ * in the background for changes made on other nodes. Reads go by that
+ * index; writes go by {@link #lockOpenMonth}, which asks the database under
+ * the month's lock, so no node writes into a month another node archived.
+ */
+@Service
+public class MilkArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MilkArchiveService.class);
+
+    // export order within one shift
+    private static final Comparator<MilkEntryRow> EXPORT_ORDER = Comparator
+            .comparing(MilkEntryRow::date)
+            .thenComparing(MilkEntryRow::customerName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    public record ArchiveResult(int entries, int runs, int bytes) {}
+
+    /**
+     * An archived row with the key it sorts by in history pages: archived rows
+     * have no id, so the n-th row of a day (block order) gets -(n + 1), which
+     * keeps them after that day's live rows in (date DESC, id DESC) order.
+     */
+    public record KeyedRow(MilkEntryRow row, long key) {}
+
+    private final MilkArchiveBlockRepository blockRepository;
+    private final MilkEntryRepository milkEntryRepository;
+    private final MilkDailyAggregateRepository dailyRepository;
+    private final MilkAggregateService aggregateService;
+    private final DataVersionService versions;
+    private final QueryBudget queryBudget;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int closeAfterMonths;
+
+    // userId -> shift -> archived months
+    private final LoadingCache<Long, Map<String, NavigableSet<YearMonth>>> index;
+
+    public MilkArchiveService(
+            MilkArchiveBlockRepository blockRepository,
+            MilkEntryRepository milkEntryRepository,
+            MilkDailyAggregateRepository dailyRepository,
+            MilkAggregateService aggregateService,
+            DataVersionService versions,
+            QueryBudget queryBudget,
+            PlatformTransactionManager transactionManager,
+            Clock clock,
+            @Value("${archive.close-after-months:0}") int closeAfterMonths,
+            @Value("${archive.cache.max-size:10000}") long maxSize,
+            @Value("${archive.cache.refresh:PT1M}") Duration refresh,
+            @Value("${archive.cache.ttl:PT10M}") Duration ttl
+    ) {
+        this.blockRepository = blockRepository;
+        this.milkEntryRepository = milkEntryRepository;
+        this.dailyRepository = dailyRepository;
+        this.aggregateService = aggregateService;
+        this.versions = versions;
+        this.queryBudget = queryBudget;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.closeAfterMonths = closeAfterMonths;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refresh)
+                .expireAfterAccess(ttl)
+                .build(this::load);
+    }
+
+    // ==========================
+    // INDEX (cached)
+    // ==========================
+    public NavigableSet<YearMonth> archivedMonths(Long userId, String shift) {
+        return index.get(userId).getOrDefault(shift, Collections.emptyNavigableSet());
+    }
+
+    public boolean isArchived(Long userId, String shift, YearMonth month) {
+        return archivedMonths(userId, shift).contains(month);
+    }
+
+    /** Whether any month from start to end (inclusive) is archived. */
+    public boolean anyArchived(Long userId, String shift, LocalDate start, LocalDate end) {
+        NavigableSet<YearMonth> months = archivedMonths(userId, shift);
+        if (months.isEmpty() || start.isAfter(end)) return false;
+        YearMonth first = months.ceiling(YearMonth.from(start));
+        return first != null && !first.isAfter(YearMonth.from(end));
+    }
+
+    private Map<String, NavigableSet<YearMonth>> load(Long userId) {
+        Map<String, NavigableSet<YearMonth>> months = new HashMap<>();
+        for (Object[] row : blockRepository.findArchivedMonths(userId)) {
+            months.computeIfAbsent((String) row[0], k -> new TreeSet<>())
+                    .add(YearMonth.from((LocalDate) row[1]));
+        }
+        months.replaceAll((shift, set) -> Collections.unmodifiableNavigableSet(set));
+        return Map.copyOf(months);
+    }
+
+    private void invalidateAfterCompletion(Long userId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                index.invalidate(userId);
+            }
+        });
+    }
+
+    /**
+     * For writers into a month, inside their transaction: locks the month
+     * against archiveMonth and restoreMonth until the writer commits, then
+     * checks milk_archive_blocks. False when the month is archived and the
+     * write must be refused.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean lockOpenMonth(Long userId, String shift, YearMonth month) {
+        versions.lockMonth(userId, shift, month);
+        return !blockRepository.existsByUserIdAndShiftAndMonthStart(userId, shift, month.atDay(1));
+    }
+
+    // ==========================
+    // ARCHIVE / RESTORE
+    // ==========================
+
+    /**
+     * Folds a closed month into its block (together with the block already
+     * there, if any) and deletes the month's raw rows and daily aggregates.
+     *
+     * @throws IllegalArgumentException when the month is not over yet
+     * @throws IllegalStateException when the block does not reproduce the
+     *         entries, or rows were written to the month meanwhile
+     */
+    @Transactional
+    public ArchiveResult archiveMonth(Long userId, String shift, YearMonth month) {
+        if (!month.isBefore(YearMonth.now(clock))) {
+            throw new IllegalArgumentException("only months that are over can be archived");
+        }
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.atEndOfMonth();
+        // writers to the month wait for us, and see the block once we commit
+        versions.lockMonth(userId, shift, month);
+
+        List<MilkEntry> raw = milkEntryRepository.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(userId, shift, start, end);
+        MilkArchiveBlock block = blockRepository.findByUserIdAndShiftAndMonthStart(userId, shift, start)
+                .orElse(null);
+        if (raw.isEmpty()) {
+            return block == null ? new ArchiveResult(0, 0, 0)
+                    : new ArchiveResult(block.getEntryCount(), block.getRunCount(), block.getData().length);
+        }
+
+        List<MilkEntry> entries = new ArrayList<>(raw);
+        if (block != null) entries.addAll(expand(block, decode(block)));
+
+        List<Run> runs = MilkArchiveCodec.runs(entries);
+        MilkArchiveCodec.Block encoded = MilkArchiveCodec.encode(runs);
+        List<MilkEntry> decoded = expand(userId, shift, month,
+                MilkArchiveCodec.decode(encoded.data(), encoded.checksum()));
+        if (!signatures(decoded).equals(signatures(entries))) {
+            throw new IllegalStateException("archive block for " + shift + " " + month + " does not match its entries");
+        }
+
+        if (block == null) block = new MilkArchiveBlock(userId, shift, start);
+        block.setFormatVersion(MilkArchiveCodec.FORMAT_VERSION);
+        block.setEntryCount(entries.size());
+        block.setRunCount(runs.size());
+        block.setLitresMl(entries.stream().mapToLong(MilkEntry::getLitresMl).sum());
+        block.setAmountPaise(entries.stream().mapToLong(MilkEntry::getAmountPaise).sum());
+        block.setChecksum(encoded.checksum());
+        block.setData(encoded.data());
+        block.setCreatedAt(clock.instant());
+        blockRepository.save(block);
+
+        // rolls everything back if an entry arrived after the rows were read
+        int deleted = milkEntryRepository.deleteMonth(userId, shift, start, end);
+        if (deleted != raw.size()) {
+            throw new IllegalStateException("entries of " + shift + " " + month + " changed while archiving; retry");
+        }
+        dailyRepository.deleteMonth(userId, shift, start, end);
+
+        versions.bumpMonth(userId, shift, month);
+        invalidateAfterCompletion(userId);
+        return new ArchiveResult(entries.size(), runs.size(), encoded.data().length);
+    }
+
+    /**
+     * Writes an archived month back to milk_entries (with new ids), rebuilds
+     * its aggregates and drops the block. Returns the number of entries
+     * restored, 0 when the month was not archived.
+     */
+    @Transactional
+    public int restoreMonth(Long userId, String shift, YearMonth month) {
+        versions.lockMonth(userId, shift, month);
+        MilkArchiveBlock block = blockRepository.findByUserIdAndShiftAndMonthStart(userId, shift, month.atDay(1))
+                .orElse(null);
+        if (block == null) return 0;
+
+        List<MilkEntry> entries = expand(block, decode(block));
+        blockRepository.delete(block);
+        milkEntryRepository.saveAll(entries);
+        milkEntryRepository.flush();
+        aggregateService.rebuildMonth(userId, shift, month, false);
+
+        versions.bumpMonth(userId, shift, month);
+        invalidateAfterCompletion(userId);
+        return entries.size();
+    }
+
+    /**
+     * Monthly (IST) close: archives every month that ended more than
+     * {@code archive.close-after-months} months ago and still has raw rows,
+     * one transaction (and query budget) per month. Off while that is 0.
+     */
+    @Scheduled(cron = "${archive.close.cron:0 45 2 2 * *}", zone = "Asia/Kolkata")
+    public void closeMonths() {
+        if (closeAfterMonths <= 0) return;
+        YearMonth cutoff = YearMonth.now(clock).minusMonths(closeAfterMonths);
+
+        for (Object[] row : milkEntryRepository.findDistinctUserShiftMonths()) {
+            Long userId = (Long) row[0];
+            String shift = (String) row[1];
+            YearMonth month = YearMonth.of(((Number) row[2]).intValue(), ((Number) row[3]).intValue());
+            if (!month.isBefore(cutoff) || shift == null) continue;
+            try {
+                queryBudget.track("job archiveMonth", () -> transactionTemplate.executeWithoutResult(status -> {
+                    ArchiveResult r = archiveMonth(userId, shift, month);
+                    logger.info("Archived user={} shift={} month={}: {} entries in {} runs, {} bytes",
+                            userId, shift, month, r.entries(), r.runs(), r.bytes());
+                }));
+            } catch (Exception e) {
+                logger.error("Archiving failed for user={} shift={} month={}: {}", userId, shift, month, e.getMessage());
+            }
+        }
+    }
+
+    // ==========================
+    // READ
+    // ==========================
+
+    /** Runs of one archived month; empty when the month is not archived. */
+    public List<Run> runs(Long userId, String shift, YearMonth month) {
+        return blockRepository.findByUserIdAndShiftAndMonthStart(userId, shift, month.atDay(1))
+                .map(this::decode)
+                .orElse(List.of());
+    }
+
+    /**
+     * Archived rows of one shift dated start..end (either bound may be null),
+     * oldest first. Rows have no id.
+     */
+    public List<MilkEntryRow> rows(Long userId, String shift, LocalDate start, LocalDate end) {
+        NavigableSet<YearMonth> months = archivedMonths(userId, shift);
+        if (months.isEmpty()) return List.of();
+        LocalDate from = start != null ? start.withDayOfMonth(1) : months.first().atDay(1);
+        LocalDate to = end != null ? end : months.last().atEndOfMonth();
+
+        List<MilkEntryRow> rows = new ArrayList<>();
+        for (MilkArchiveBlock block : blockRepository
+                .findByUserIdAndShiftAndMonthStartBetweenOrderByMonthStartAsc(userId, shift, from, to)) {
+            for (KeyedRow k : keyedRows(block)) {
+                LocalDate date = k.row().date();
+                if ((start == null || !date.isBefore(start)) && (end == null || !date.isAfter(end))) {
+                    rows.add(k.row());
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Up to {@code limit} archived rows of one shift that come after
+     * (before, beforeKey) in history order (date DESC, key DESC), newest
+     * first; from the newest archived month when {@code before} is null.
+     * Decodes one month at a time and stops as soon as the page is full.
+     */
+    public List<KeyedRow> historyAfter(Long userId, String shift, LocalDate before, long beforeKey, int limit) {
+        NavigableSet<YearMonth> months = archivedMonths(userId, shift);
+        if (before != null) months = months.headSet(YearMonth.from(before), true);
+
+        List<KeyedRow> page = new ArrayList<>(limit);
+        for (YearMonth month : months.descendingSet()) {
+            MilkArchiveBlock block = blockRepository.findByUserIdAndShiftAndMonthStart(userId, shift, month.atDay(1))
+                    .orElse(null);
+            if (block == null) continue;
+            List<KeyedRow> rows = keyedRows(block);
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                KeyedRow k = rows.get(i);
+                if (before != null) {
+                    int c = k.row().date().compareTo(before);
+                    if (c > 0 || (c == 0 && k.key() >= beforeKey)) continue;
+                }
+                page.add(k);
+                if (page.size() == limit) return page;
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Archived rows of one user in export order (shift, date, customer), for
+     * the given shift (null: all) and date bounds (null: open). Blocks are
+     * decoded one at a time as the iterator advances.
+     */
+    public Iterator<MilkEntryRow> exportRows(Long userId, String shift, LocalDate from, LocalDate to) {
+        List<MilkArchiveBlock> blocks = new ArrayList<>();
+        if (!index.get(userId).isEmpty()) {
+            for (MilkArchiveBlock b : blockRepository.findByUserIdOrderByShiftAscMonthStartAsc(userId)) {
+                if (shift != null && !shift.equals(b.getShift())) continue;
+                if (from != null && YearMonth.from(b.getMonthStart()).atEndOfMonth().isBefore(from)) continue;
+                if (to != null && b.getMonthStart().isAfter(to)) continue;
+                blocks.add(b);
+            }
+        }
+
+        return new Iterator<>() {
+            private final Iterator<MilkArchiveBlock> pending = blocks.iterator();
+            private Iterator<MilkEntryRow> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && pending.hasNext()) {
+                    List<MilkEntryRow> rows = new ArrayList<>();
+                    for (KeyedRow k : keyedRows(pending.next())) {
+                        LocalDate date = k.row().date();
+                        if ((from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to))) {
+                            rows.add(k.row());
+                        }
+                    }
+                    rows.sort(EXPORT_ORDER);
+                    current = rows.iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public MilkEntryRow next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return current.next();
+            }
+        };
+    }
+
+    // ==========================
+    // BLOCKS <-> ROWS
+    // ==========================
+    private List<Run> decode(MilkArchiveBlock block) {
+        return MilkArchiveCodec.decode(block.getData(), block.getChecksum());
+    }
+
+    // the block's rows by date, in block order within a day, with their history keys
+    private List<KeyedRow> keyedRows(MilkArchiveBlock block) {
+        YearMonth month = YearMonth.from(block.getMonthStart());
+        List<MilkEntryRow> rows = new ArrayList<>(block.getEntryCount());
+        for (Run r : decode(block)) {
+            for (int day = r.startDay(); day <= r.endDay(); day++) {
+                rows.add(new MilkEntryRow(null, r.customerName(), block.getShift(),
+                        r.litresMl(), r.ratePaise(), r.amountPaise(),
+                        month.atDay(day), block.getUserId(), r.customerId()));
+            }
+        }
+        // stable: runs are already in customer order
+        rows.sort(Comparator.comparing(MilkEntryRow::date));
+
+        List<KeyedRow> keyed = new ArrayList<>(rows.size());
+        LocalDate day = null;
+        long ordinal = 0;
+        for (MilkEntryRow row : rows) {
+            ordinal = row.date().equals(day) ? ordinal + 1 : 0;
+            day = row.date();
+            keyed.add(new KeyedRow(row, -(ordinal + 1)));
+        }
+        return keyed;
+    }
+
+    private static List<MilkEntry> expand(MilkArchiveBlock block, List<Run> runs) {
+        return expand(block.getUserId(), block.getShift(), YearMonth.from(block.getMonthStart()), runs);
+    }
+
+    // new (unsaved) entries, one per day of each run
+    private static List<MilkEntry> expand(Long userId, String shift, YearMonth month, List<Run> runs) {
+        List<MilkEntry> entries = new ArrayList<>();
+        for (Run r : runs) {
+            for (int day = r.startDay(); day <= r.endDay(); day++) {
+                MilkEntry e = new MilkEntry(r.customerName(), shift, 0, 0, 0, month.atDay(day), userId);
+                e.setCustomerId(r.customerId());
+                e.setLitresMl(r.litresMl());
+                e.setRatePaise(r.ratePaise());
+                e.setAmountPaise(r.amountPaise());
+                entries.add(e);
+            }
+        }
+        return entries;
+    }
+
+    // what an entry holds besides its id, sorted: equal lists mean nothing was lost
+    private static List<String> signatures(List<MilkEntry> entries) {
+        List<String> signatures = new ArrayList<>(entries.size());
+        for (MilkEntry e : entries) {
+            signatures.add(e.getDate() + "|" + e.getCustomerId() + "|" + e.getCustomerName() + "|"
+                    + e.getLitresMl() + "|" + e.getRatePaise() + "|" + e.getAmountPaise());
+        }
+        Collections.sort(signatures);
+        return signatures;
+    }
+}
@@ -0,0 +1,31 @@
+package com.milkattendence.backend.service;
+
+import java.time.Duration;
+
+/**
+ * One-time passwords of the password reset flow (/api/auth/forgot, /reset),
+ * one live OTP per key (the account email).
+ *
+ * {@code otp.store=memory} (default) keeps them in this node's heap
+ * (InMemoryOtpStore); {@code otp.store=database} keeps them in
+ * password_reset_otps (DatabaseOtpStore), so they survive restarts and an
+ * OTP sent by one node can be checked on another. Both drop expired OTPs in
+ * the background.
+ */
+public interface OtpStore {
+
+    enum Check { VALID, INVALID, EXPIRED, MISSING }
+
+    /** Stores {@code otp} for {@code key} for {@code ttl}, replacing any earlier one. */
+    void put(String key, String otp, Duration ttl);
+
+    /**
+     * Checks an OTP and, when it matches, removes it in the same step: of
+     * several concurrent calls with the right OTP only one gets VALID, the
+     * others MISSING. A wrong OTP is left in place; an expired one is dropped.
+     */
+    Check consume(String key, String otp);
+
+    /** OTPs currently held, including expired ones not swept yet. */
+    long size();
+}
@@ -0,0 +1,292 @@
+package com.milkattendence.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.util.FixedPoint;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds the monthly overview (day x customer litres matrix plus totals)
+ * on primitive arrays.
+ *
+ * Cells are mapped to a column by customer id (a binary search over the
+ * sorted roster ids; cells without one fall back to a lower-cased name
+ * index), millilitres are accumulated into a flat day-major {@code long[]}
+ * grid, and all totals are produced in a single pass over that grid. Each
+ * cell is priced once in whole paise and every total is an exact sum of
+ * cells, so per-customer, per-day and grand totals always agree. Adding
+ * cells and computing totals allocate nothing.
+ *
+ * {@link #toResponse(int, int)} renders the same JSON contract (decimal
+ * litres and rupees) that {@code /api/overview} has always returned;
+ * {@link #writeCompact} streams the columnar form straight from the arrays.
+ *
+ * Not thread-safe: create one engine per request.
+ */
+public final class OverviewEngine {
+
+    /** Version of the {@link #writeCompact} layout; bump on any incompatible change. */
+    public static final int COMPACT_VERSION = 1;
+
+    private final List<Customer> customers;
+    private final int daysInMonth;
+    private final int columns;
+
+    // roster ids in ascending order, and the column of each
+    private final long[] sortedIds;
+    private final int[] sortedColumns;
+
+    // lower-cased fullName / nickname -> column index (first customer wins)
+    private final Map<String, Integer> columnByName;
+
+    // paise per litre per column, 0 when unset
+    private final long[] prices;
+
+    // day-major grid of millilitres: index = (day - 1) * columns + column
+    private final long[] litresMl;
+
+    // cells that received at least one entry
+    private final BitSet present;
+
+    private long[] totalMlPerCustomer;
+    private long[] totalPaisePerCustomer;
+    private long[] totalPaisePerDay;
+    private long grandTotalPaise;
+
+    public OverviewEngine(List<Customer> customers, int daysInMonth) {
+        this.customers = customers;
+        this.daysInMonth = daysInMonth;
+        this.columns = customers.size();
+        this.columnByName = new HashMap<>(columns * 4);
+        this.prices = new long[columns];
+        this.litresMl = new long[daysInMonth * columns];
+        this.present = new BitSet(daysInMonth * columns);
+
+        // (id, column) pairs packed for one primitive sort; first column wins on duplicate ids
+        long[][] byId = new long[columns][];
+        int withId = 0;
+        for (int col = 0; col < columns; col++) {
+            Long id = customers.get(col).getId();
+            if (id != null) byId[withId++] = new long[]{id, col};
+        }
+        long[][] ids = Arrays.copyOf(byId, withId);
+        Arrays.sort(ids, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        int unique = 0;
+        long[] sorted = new long[withId];
+        int[] sortedCols = new int[withId];
+        for (long[] pair : ids) {
+            if (unique > 0 && sorted[unique - 1] == pair[0]) continue;
+            sorted[unique] = pair[0];
+            sortedCols[unique++] = (int) pair[1];
+        }
+        this.sortedIds = Arrays.copyOf(sorted, unique);
+        this.sortedColumns = Arrays.copyOf(sortedCols, unique);
+
+        for (int col = 0; col < columns; col++) {
+            Customer c = customers.get(col);
+            if (c.getFullName() != null) {
+                columnByName.putIfAbsent(key(c.getFullName()), col);
+            }
+            if (c.getNickname() != null) {
+                columnByName.putIfAbsent(key(c.getNickname()), col);
+            }
+            prices[col] = c.getPricePerLitrePaise() != null ? c.getPricePerLitrePaise() : 0;
+        }
+    }
+
+    /**
+     * Adds millilitres for the customer with the given name on the given day.
+     * Entries that match no active customer are ignored.
+     */
+    public void add(int day, String customerName, long millilitres) {
+        if (customerName == null) return;
+        Integer col = columnByName.get(key(customerName));
+        if (col != null) addAt(day, col, millilitres);
+    }
+
+    /**
+     * Adds millilitres for the given customer on the given day. A cell linked
+     * to a customer id goes to that customer's column (and is ignored when
+     * the customer is not on the roster); an unlinked cell is matched by name.
+     */
+    public void add(int day, Long customerId, String customerName, long millilitres) {
+        if (customerId == null) {
+            add(day, customerName, millilitres);
+            return;
+        }
+        int i = Arrays.binarySearch(sortedIds, customerId);
+        if (i >= 0) addAt(day, sortedColumns[i], millilitres);
+    }
+
+    private void addAt(int day, int col, long millilitres) {
+        if (day < 1 || day > daysInMonth) return;
+        int idx = (day - 1) * columns + col;
+        litresMl[idx] += millilitres;
+        present.set(idx);
+    }
+
+    /**
+     * Computes per-customer, per-day and grand totals in one pass over the grid.
+     */
+    public OverviewEngine computeTotals() {
+        totalMlPerCustomer = new long[columns];
+        totalPaisePerCustomer = new long[columns];
+        totalPaisePerDay = new long[daysInMonth];
+        long grand = 0;
+
+        int idx = 0;
+        for (int d = 0; d < daysInMonth; d++) {
+            long dayTotal = 0;
+            for (int col = 0; col < columns; col++, idx++) {
+                long ml = litresMl[idx];
+                if (ml == 0) continue;
+                long amount = FixedPoint.amountPaise(ml, prices[col]);
+                totalMlPerCustomer[col] += ml;
+                totalPaisePerCustomer[col] += amount;
+                dayTotal += amount;
+            }
+            totalPaisePerDay[d] = dayTotal;
+            grand += dayTotal;
+        }
+
+        grandTotalPaise = grand;
+        return this;
+    }
+
+    /**
+     * Renders the legacy {@code /api/overview} response:
+     * matrix is {@code day -> customerId -> {"litres": x}} with only filled cells.
+     */
+    public Map<String, Object> toResponse(int year, int month) {
+        if (totalPaisePerDay == null) computeTotals();
+
+        Map<Integer, Map<Long, Map<String, Double>>> matrix = new LinkedHashMap<>();
+        int idx = 0;
+        for (int d = 0; d < daysInMonth; d++) {
+            Map<Long, Map<String, Double>> dayMap = new LinkedHashMap<>();
+            for (int col = 0; col < columns; col++, idx++) {
+                if (present.get(idx)) {
+                    dayMap.put(customers.get(col).getId(), Map.of("litres", FixedPoint.litres(litresMl[idx])));
+                }
+            }
+            matrix.put(d + 1, dayMap);
+        }
+
+        Map<Long, Double> litresPerCustomer = new LinkedHashMap<>();
+        Map<Long, Double> amountPerCustomer = new LinkedHashMap<>();
+        for (int col = 0; col < columns; col++) {
+            Long id = customers.get(col).getId();
+            litresPerCustomer.put(id, FixedPoint.litres(totalMlPerCustomer[col]));
+            amountPerCustomer.put(id, FixedPoint.rupees(totalPaisePerCustomer[col]));
+        }
+
+        Map<Integer, Double> perDay = new LinkedHashMap<>();
+        for (int d = 0; d < daysInMonth; d++) {
+            perDay.put(d + 1, FixedPoint.rupees(totalPaisePerDay[d]));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("year", year);
+        response.put("month", month);
+        response.put("daysInMonth", daysInMonth);
+        response.put("customers", customers);
+        response.put("matrix", matrix);
+        response.put("totalLitresPerCustomer", litresPerCustomer);
+        response.put("totalAmountPerCustomer", amountPerCustomer);
+        response.put("totalPerDay", perDay);
+        response.put("grandTotalAmount", FixedPoint.rupees(grandTotalPaise));
+        return response;
+    }
+
+    /**
+     * Streams the compact overview (version {@value #COMPACT_VERSION}): customer
+     * fields as parallel arrays, {@code litres[day - 1][column]} with null for
+     * empty cells, and totals aligned to the same indexes.
+     */
+    public void writeCompact(JsonGenerator g, int year, int month) throws IOException {
+        if (totalPaisePerDay == null) computeTotals();
+
+        g.writeStartObject();
+        g.writeNumberField("version", COMPACT_VERSION);
+        g.writeNumberField("year", year);
+        g.writeNumberField("month", month);
+        g.writeNumberField("daysInMonth", daysInMonth);
+
+        g.writeObjectFieldStart("customers");
+        g.writeArrayFieldStart("id");
+        for (Customer c : customers) g.writeNumber(c.getId());
+        g.writeEndArray();
+        g.writeArrayFieldStart("fullName");
+        for (Customer c : customers) g.writeString(c.getFullName());
+        g.writeEndArray();
+        g.writeArrayFieldStart("nickname");
+        for (Customer c : customers) g.writeString(c.getNickname());
+        g.writeEndArray();
+        g.writeArrayFieldStart("pricePerLitre");
+        for (Customer c : customers) {
+            if (c.getPricePerLitre() != null) g.writeNumber(c.getPricePerLitre());
+            else g.writeNull();
+        }
+        g.writeEndArray();
+        g.writeEndObject();
+
+        g.writeArrayFieldStart("litres");
+        int idx = 0;
+        for (int d = 0; d < daysInMonth; d++) {
+            g.writeStartArray();
+            for (int col = 0; col < columns; col++, idx++) {
+                if (present.get(idx)) g.writeNumber(FixedPoint.litres(litresMl[idx]));
+                else g.writeNull();
+            }
+            g.writeEndArray();
+        }
+        g.writeEndArray();
+
+        g.writeArrayFieldStart("totalLitresPerCustomer");
+        for (long ml : totalMlPerCustomer) g.writeNumber(FixedPoint.litres(ml));
+        g.writeEndArray();
+        writeRupees(g, "totalAmountPerCustomer", totalPaisePerCustomer);
+        writeRupees(g, "totalPerDay", totalPaisePerDay);
+        g.writeNumberField("grandTotalAmount", FixedPoint.rupees(grandTotalPaise));
+        g.writeEndObject();
+    }
+
+    private static void writeRupees(JsonGenerator g, String field, long[] paise) throws IOException {
+        g.writeArrayFieldStart(field);
+        for (long p : paise) g.writeNumber(FixedPoint.rupees(p));
+        g.writeEndArray();
+    }
+
+    // ==========================
+    // ACCESSORS (primitive views)
+    // ==========================
+    public List<Customer> getCustomers() { return customers; }
+
+    public int getDaysInMonth() { return daysInMonth; }
+
+    public int getColumns() { return columns; }
+
+    public long millilitresAt(int day, int col) { return litresMl[(day - 1) * columns + col]; }
+
+    public boolean hasEntry(int day, int col) { return present.get((day - 1) * columns + col); }
+
+    public long[] getTotalMlPerCustomer() { return totalMlPerCustomer; }
+
+    public long[] getTotalPaisePerCustomer() { return totalPaisePerCustomer; }
+
+    public long[] getTotalPaisePerDay() { return totalPaisePerDay; }
+
+    public long getGrandTotalPaise() { return grandTotalPaise; }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
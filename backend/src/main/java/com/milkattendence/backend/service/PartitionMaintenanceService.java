@@ -0,0 +1,206 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.config.QueryBudget;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of milk_entries and payments ahead of the
+ * calendar on PostgreSQL, once db/maintenance/monthly_partitions.sql has
+ * converted the tables (by hand, with the application stopped; it is not a
+ * migration).
+ *
+ * Every run creates the current month and the next
+ * {@code partitions.months-ahead}, moves rows that landed in a table's
+ * DEFAULT partition into their own month, and, when
+ * {@code partitions.retention-months} is set, detaches months older than that
+ * and moves them to the {@code archive} schema. Detached months are out of
+ * every report and export from then on; their per-customer totals are folded
+ * into customer_balance_openings in the detaching transaction, which the
+ * balance verification adds back.
+ *
+ * Until then, and on other databases (the H2 test schema), the tables are
+ * not partitioned and this does nothing.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    static final List<String> TABLES = List.of("milk_entries", "payments");
+
+    private static final Pattern MONTH_PARTITION = Pattern.compile(".*_p(\\d{4})_(\\d{2})");
+
+    // one month partition's totals added to the opening balances (%s: the partition)
+    private static final Map<String, String> FOLD_INTO_OPENINGS = Map.of(
+            "milk_entries", """
+                    INSERT INTO customer_balance_openings (customer_id, user_id, billed_ml, billed_paise, paid_paise)
+                    SELECT m.customer_id, c.user_id, SUM(m.litres_ml), SUM(m.amount_paise), 0
+                    FROM %s m
+                    JOIN customer c ON c.id = m.customer_id
+                    WHERE c.user_id IS NOT NULL
+                    GROUP BY m.customer_id, c.user_id
+                    ON CONFLICT (customer_id) DO UPDATE
+                    SET billed_ml = customer_balance_openings.billed_ml + EXCLUDED.billed_ml,
+                        billed_paise = customer_balance_openings.billed_paise + EXCLUDED.billed_paise
+                    """,
+            "payments", """
+                    INSERT INTO customer_balance_openings (customer_id, user_id, billed_ml, billed_paise, paid_paise)
+                    SELECT p.customer_id, c.user_id, 0, 0, SUM(p.amount_paise)
+                    FROM %s p
+                    JOIN customer c ON c.id = p.customer_id
+                    WHERE p.paid
+                      AND c.user_id IS NOT NULL
+                    GROUP BY p.customer_id, c.user_id
+                    ON CONFLICT (customer_id) DO UPDATE
+                    SET paid_paise = customer_balance_openings.paid_paise + EXCLUDED.paid_paise
+                    """);
+
+    private final JdbcTemplate jdbc;
+    private final QueryBudget queryBudget;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    private Boolean partitioned;
+
+    public PartitionMaintenanceService(
+            JdbcTemplate jdbc,
+            QueryBudget queryBudget,
+            PlatformTransactionManager transactionManager,
+            Clock clock,
+            @Value("${partitions.months-ahead:3}") int monthsAhead,
+            @Value("${partitions.retention-months:0}") int retentionMonths
+    ) {
+        this.jdbc = jdbc;
+        this.queryBudget = queryBudget;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    // ==========================
+    // SCHEDULE
+    // ==========================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainOnStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${partitions.maintain.cron:0 15 2 * * *}", zone = "Asia/Kolkata")
+    public void maintain() {
+        if (!isPartitioned()) return;
+        YearMonth current = YearMonth.now(clock);
+        for (String table : TABLES) {
+            try {
+                queryBudget.track("job maintainPartitions " + table, () -> {
+                    int created = createMonths(table, current, current.plusMonths(monthsAhead));
+                    int drained = drainDefault(table);
+                    int detached = retentionMonths > 0 ? detachBefore(table, current.minusMonths(retentionMonths)) : 0;
+                    if (created + drained + detached > 0) {
+                        logger.info("Partitions of {}: {} created ahead, {} drained from default, {} archived",
+                                table, created, drained, detached);
+                    }
+                });
+            } catch (Exception e) {
+                logger.error("Partition maintenance failed for {}: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    // ==========================
+    // STEPS
+    // ==========================
+
+    /** Creates every month from..to (inclusive) that does not exist yet. */
+    int createMonths(String table, YearMonth from, YearMonth to) {
+        int created = 0;
+        for (YearMonth m = from; !m.isAfter(to); m = m.plusMonths(1)) {
+            if (ensureMonth(table, m)) created++;
+        }
+        return created;
+    }
+
+    // rows outside every month partition (a date typed years off, a month created late)
+    private int drainDefault(String table) {
+        List<Date> months = jdbc.queryForList(
+                "SELECT DISTINCT DATE_TRUNC('month', date)::DATE FROM " + table + "_default", Date.class);
+        int drained = 0;
+        for (Date month : months) {
+            if (ensureMonth(table, YearMonth.from(month.toLocalDate()))) drained++;
+        }
+        return drained;
+    }
+
+    private boolean ensureMonth(String table, YearMonth month) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT ensure_month_partition(?, ?)",
+                Boolean.class, table, Date.valueOf(month.atDay(1))));
+    }
+
+    private int detachBefore(String table, YearMonth cutoff) {
+        List<String> partitions = jdbc.queryForList("""
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = ?::regclass
+                """, String.class, table);
+        int detached = 0;
+        for (String partition : expired(partitions, cutoff)) {
+            // the month's totals go into the opening balances in the same
+            // transaction as the detach: counted once, whether it commits or not.
+            // Plain DETACH: CONCURRENTLY is not allowed while a DEFAULT partition exists
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbc.update(FOLD_INTO_OPENINGS.get(table).formatted(partition));
+                jdbc.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+                jdbc.execute("ALTER TABLE " + partition + " SET SCHEMA archive");
+            });
+            detached++;
+        }
+        return detached;
+    }
+
+    /** Month partitions (name suffix _pYYYY_MM) strictly before the cutoff month, oldest first. */
+    static List<String> expired(List<String> partitions, YearMonth cutoff) {
+        List<String> expired = new ArrayList<>();
+        for (String name : partitions) {
+            Matcher m = MONTH_PARTITION.matcher(name);
+            if (!m.matches()) continue;
+            YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            if (month.isBefore(cutoff)) expired.add(name);
+        }
+        expired.sort(null);
+        return expired;
+    }
+
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            String product = jdbc.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            partitioned = "PostgreSQL".equals(product)
+                    && jdbc.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('milk_entries')",
+                            Integer.class) > 0;
+        }
+        return partitioned;
+    }
+}
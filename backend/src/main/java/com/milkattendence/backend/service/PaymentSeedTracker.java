@@ -0,0 +1,38 @@
+package com.milkattendence.backend.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which (userId, shift, day) payment sheets this node has already
+ * seeded, so GET /api/payments/{shift} only runs the seeding INSERT once per
+ * day instead of on every page load.
+ *
+ * Purely an optimisation: seeding is idempotent, so a lost or stale marker
+ * (restart, another node) costs one extra statement, never a duplicate row.
+ * Roster changes clear the user's markers so new customers get their row.
+ */
+@Component
+public class PaymentSeedTracker {
+
+    private record Key(Long userId, String shift, LocalDate date) {}
+
+    private final Set<Key> seeded = ConcurrentHashMap.newKeySet();
+
+    public boolean isSeeded(Long userId, String shift, LocalDate date) {
+        return seeded.contains(new Key(userId, shift, date));
+    }
+
+    public void markSeeded(Long userId, String shift, LocalDate date) {
+        // markers for previous days are dead weight once the date rolls over
+        seeded.removeIf(k -> !k.date().equals(date));
+        seeded.add(new Key(userId, shift, date));
+    }
+
+    public void invalidate(Long userId) {
+        seeded.removeIf(k -> k.userId().equals(userId));
+    }
+}
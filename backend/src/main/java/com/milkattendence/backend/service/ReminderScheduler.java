@@ -0,0 +1,322 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.repository.CustomerRepository;
+import com.milkattendence.backend.repository.projection.ReminderSetting;
+import com.milkattendence.backend.util.EmailTemplateUtil;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory schedule of unpaid-customer reminders.
+ *
+ * Every user with reminders enabled has exactly one pending fire instant in a
+ * priority queue. The queue is loaded once at startup and updated through
+ * {@link #reload(Long)} when settings change, so {@link #tick()} only peeks at
+ * the head on idle minutes and touches the database only when something fires.
+ *
+ * A tick fires everything whose instant has passed, so reminders survive late
+ * ticks. On (re)load, a reminder missed by less than {@link #CATCH_UP} is still
+ * sent; older misses roll to the next day, as the every-minute scan did.
+ */
+@Service
+public class ReminderScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReminderScheduler.class);
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    static final Duration CATCH_UP = Duration.ofHours(1);
+    static final Duration RETRY_DELAY = Duration.ofMinutes(5);
+    static final int MAX_ATTEMPTS = 3;
+
+    private record Pending(
+            Long userId,
+            String shift,
+            LocalTime time,
+            int intervalDays,
+            Instant fireAt,
+            int attempt
+    ) {}
+
+    private record ReportKey(Long userId, String shift) {}
+
+    private final CustomerRepository customerRepository;
+    private final UnpaidEmailService unpaidEmailService;
+    private final EmailService emailService;
+    private final CustomerRosterCache rosterCache;
+    private final DataVersionService versions;
+    private final Clock clock;
+
+    private final Timer tickTimer;
+    private final Timer lateness;
+
+    private final AtomicLong remindersDue = new AtomicLong();
+    private final AtomicLong reportsBuilt = new AtomicLong();
+    private final AtomicLong reportEmails = new AtomicLong();
+    private final AtomicLong digestsQueued = new AtomicLong();
+
+    // guarded by this; entries no longer in byUser are stale and skipped
+    private final PriorityQueue<Pending> queue = new PriorityQueue<>(Comparator.comparing(Pending::fireAt));
+    private final Map<Long, Pending> byUser = new HashMap<>();
+
+    public ReminderScheduler(
+            CustomerRepository customerRepository,
+            UnpaidEmailService unpaidEmailService,
+            EmailService emailService,
+            CustomerRosterCache rosterCache,
+            DataVersionService versions,
+            Clock clock,
+            MeterRegistry meterRegistry
+    ) {
+        this.customerRepository = customerRepository;
+        this.unpaidEmailService = unpaidEmailService;
+        this.emailService = emailService;
+        this.rosterCache = rosterCache;
+        this.versions = versions;
+        this.clock = clock;
+
+        this.tickTimer = Timer.builder("reminders.tick")
+                .description("Time spent in one checkReminders tick")
+                .register(meterRegistry);
+        this.lateness = Timer.builder("reminders.lateness")
+                .description("How long after its scheduled time a reminder fired")
+                .register(meterRegistry);
+        Gauge.builder("reminders.scheduled", this, ReminderScheduler::size)
+                .description("Users with a pending reminder")
+                .register(meterRegistry);
+    }
+
+    // ==========================
+    // LOADING
+    // ==========================
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<ReminderSetting> settings = customerRepository.findReminderSettings();
+        Instant now = clock.instant();
+
+        synchronized (this) {
+            queue.clear();
+            byUser.clear();
+            for (ReminderSetting s : settings) {
+                if (!byUser.containsKey(s.userId())) {
+                    schedule(s, now);
+                }
+            }
+        }
+        logger.info("Loaded {} reminder schedules", byUser.size());
+    }
+
+    /** Re-reads one user's settings after /save-reminder. */
+    public void reload(Long userId) {
+        List<ReminderSetting> settings = customerRepository.findReminderSettingsForUser(userId);
+        Instant now = clock.instant();
+
+        synchronized (this) {
+            byUser.remove(userId);
+            if (!settings.isEmpty()) {
+                schedule(settings.get(0), now);
+            }
+        }
+    }
+
+    // ==========================
+    // FIRING
+    // ==========================
+
+    /**
+     * Fires every reminder that is due. Returns how many were attempted.
+     *
+     * Due reminders are coalesced: each (user, shift) report is built once
+     * and all reports of the tick are merged into one digest email to the
+     * reminder address (one outbox row, one SendGrid request).
+     */
+    public int tick() {
+        long start = System.nanoTime();
+        try {
+            return fireDue();
+        } finally {
+            tickTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int fireDue() {
+        Instant now = clock.instant();
+        List<Pending> due = new ArrayList<>();
+
+        synchronized (this) {
+            while (!queue.isEmpty() && !queue.peek().fireAt().isAfter(now)) {
+                Pending p = queue.poll();
+                if (byUser.get(p.userId()) == p) due.add(p);
+            }
+        }
+        if (due.isEmpty()) return 0;
+        remindersDue.addAndGet(due.size());
+        for (Pending p : due) lateness.record(Duration.between(p.fireAt(), now));
+
+        LocalDate today = now.atZone(IST).toLocalDate();
+
+        Map<ReportKey, List<Pending>> byReport = new LinkedHashMap<>();
+        for (Pending p : due) {
+            byReport.computeIfAbsent(new ReportKey(p.userId(), p.shift()), k -> new ArrayList<>()).add(p);
+        }
+
+        List<Pending> built = new ArrayList<>();
+        Map<Pending, Exception> failed = new LinkedHashMap<>();
+        List<UnpaidEmailService.Report> toSend = new ArrayList<>();
+
+        for (Map.Entry<ReportKey, List<Pending>> e : byReport.entrySet()) {
+            try {
+                Optional<UnpaidEmailService.Report> report =
+                        unpaidEmailService.buildReport(e.getKey().userId(), e.getKey().shift());
+                reportsBuilt.incrementAndGet();
+                report.ifPresent(toSend::add);
+                built.addAll(e.getValue());
+            } catch (Exception ex) {
+                for (Pending p : e.getValue()) failed.put(p, ex);
+            }
+        }
+
+        try {
+            if (!toSend.isEmpty()) {
+                sendDigest(toSend, today);
+                reportEmails.addAndGet(toSend.size());
+                digestsQueued.incrementAndGet();
+            }
+
+            if (!built.isEmpty()) {
+                Set<Long> userIds = new LinkedHashSet<>();
+                for (Pending p : built) userIds.add(p.userId());
+                customerRepository.updateLastReminderSentForUsers(userIds, today);
+                rosterCache.invalidateAll(userIds);
+                // lastReminderSent is part of the customer JSON
+                for (Long userId : userIds) versions.bumpCustomers(userId);
+            }
+        } catch (Exception ex) {
+            for (Pending p : built) failed.put(p, ex);
+            built.clear();
+        }
+
+        for (Pending p : built) {
+            reschedule(p, pending(p.userId(), p.shift(), p.time(), p.intervalDays(), today, now));
+        }
+        for (Map.Entry<Pending, Exception> f : failed.entrySet()) {
+            reschedule(f.getKey(), retry(f.getKey(), f.getValue(), today, now));
+        }
+        return due.size();
+    }
+
+    private void sendDigest(List<UnpaidEmailService.Report> reports, LocalDate today) {
+        if (reports.size() == 1) {
+            emailService.sendReminderEmail(reports.get(0).subject(), reports.get(0).html());
+            return;
+        }
+        List<String> sections = new ArrayList<>(reports.size());
+        for (UnpaidEmailService.Report r : reports) sections.add(r.html());
+        emailService.sendReminderEmail(
+                "Unpaid Customers (" + reports.size() + " reports) - " + today,
+                EmailTemplateUtil.buildReminderDigest(today, sections)
+        );
+    }
+
+    private Pending retry(Pending p, Exception e, LocalDate today, Instant now) {
+        if (p.attempt() + 1 < MAX_ATTEMPTS) {
+            logger.warn("Reminder for user {} failed (attempt {}), retrying in {}: {}",
+                    p.userId(), p.attempt() + 1, RETRY_DELAY, e.getMessage());
+            return new Pending(p.userId(), p.shift(), p.time(), p.intervalDays(),
+                    now.plus(RETRY_DELAY), p.attempt() + 1);
+        }
+        logger.error("Failed to send reminder email for user {}: {}", p.userId(), e.getMessage());
+        Instant tomorrow = today.plusDays(1).atTime(p.time()).atZone(IST).toInstant();
+        return new Pending(p.userId(), p.shift(), p.time(), p.intervalDays(), tomorrow, 0);
+    }
+
+    private synchronized void reschedule(Pending fired, Pending next) {
+        // settings may have changed while the tick was running
+        if (byUser.get(fired.userId()) == fired) {
+            byUser.put(fired.userId(), next);
+            queue.add(next);
+        }
+    }
+
+    // ==========================
+    // SCHEDULE MATH
+    // ==========================
+    private void schedule(ReminderSetting s, Instant now) {
+        if (s.time() == null) return;
+        int interval = (s.intervalDays() == null || s.intervalDays() <= 0) ? 1 : s.intervalDays();
+        Pending p = pending(s.userId(), s.shift(), s.time(), interval, s.lastSent(), now);
+        byUser.put(s.userId(), p);
+        queue.add(p);
+    }
+
+    /**
+     * Next fire instant: the reminder time on (lastSent + interval), but never
+     * before today, and rolled to the following day if it was missed by more
+     * than the catch-up window.
+     */
+    private static Pending pending(Long userId, String shift, LocalTime time, int intervalDays,
+                                   LocalDate lastSent, Instant now) {
+        LocalDate today = now.atZone(IST).toLocalDate();
+        LocalDate date = lastSent == null ? today : lastSent.plusDays(intervalDays);
+        if (date.isBefore(today)) date = today;
+
+        Instant fireAt = date.atTime(time).atZone(IST).toInstant();
+        while (fireAt.isBefore(now.minus(CATCH_UP))) {
+            date = date.plusDays(1);
+            fireAt = date.atTime(time).atZone(IST).toInstant();
+        }
+        return new Pending(userId, shift, time, intervalDays, fireAt, 0);
+    }
+
+    // ==========================
+    // INTROSPECTION
+    // ==========================
+    public synchronized int size() {
+        return byUser.size();
+    }
+
+    public synchronized Instant nextFireAt(Long userId) {
+        Pending p = byUser.get(userId);
+        return p != null ? p.fireAt() : null;
+    }
+
+    /** Coalescing counters; emailsSaved is reports that rode along in a digest. */
+    public Map<String, Object> getStats() {
+        long reports = reportEmails.get();
+        long digests = digestsQueued.get();
+        return Map.of(
+                "scheduled", size(),
+                "remindersDue", remindersDue.get(),
+                "reportsBuilt", reportsBuilt.get(),
+                "reportEmails", reports,
+                "digestsQueued", digests,
+                "emailsSaved", reports - digests
+        );
+    }
+}
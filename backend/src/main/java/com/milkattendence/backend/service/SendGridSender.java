@@ -0,0 +1,128 @@
+package com.milkattendence.backend.service;
+
+import com.sendgrid.Client;
+import com.sendgrid.Method;
+import com.sendgrid.Request;
+import com.sendgrid.Response;
+import com.sendgrid.SendGrid;
+import com.sendgrid.helpers.mail.Mail;
+import com.sendgrid.helpers.mail.objects.Content;
+import com.sendgrid.helpers.mail.objects.Email;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The single SendGrid client used by the outbox workers. The underlying
+ * HTTP connection pool is sized to the worker count and reused across sends.
+ *
+ * {@code sendgrid.base-url} points the client at another host, e.g. a local
+ * stand-in for offline testing; plain http is used when the URL says so.
+ */
+@Component
+public class SendGridSender implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(SendGridSender.class);
+
+    /** Thrown for non-2xx responses; {@link #isRetryable()} is false for permanent 4xx errors. */
+    public static class DeliveryException extends RuntimeException {
+        private final boolean retryable;
+
+        public DeliveryException(String message, boolean retryable) {
+            super(message);
+            this.retryable = retryable;
+        }
+
+        public boolean isRetryable() { return retryable; }
+    }
+
+    private final AtomicLong messagesSent = new AtomicLong();
+
+    private final String apiKey;
+    private final String fromAddress;
+    private final boolean fromConfigured;
+    private final CloseableHttpClient httpClient;
+    private final SendGrid sendGrid;
+
+    public SendGridSender(
+            @Value("${SENDGRID_API_KEY:}") String apiKey,
+            @Value("${EMAIL_FROM:}") String emailFrom,
+            @Value("${sendgrid.base-url:}") String baseUrl,
+            @Value("${email.outbox.workers:4}") int workers,
+            @Value("${sendgrid.timeout-ms:10000}") int timeoutMs
+    ) {
+        this.apiKey = apiKey != null && !apiKey.isBlank() ? apiKey : System.getenv("SENDGRID_API_KEY");
+        this.fromConfigured = emailFrom != null && !emailFrom.isBlank();
+        this.fromAddress = fromConfigured ? emailFrom : "noreply@milk-attendance.com";
+
+        RequestConfig timeouts = RequestConfig.custom()
+                .setConnectTimeout(timeoutMs)
+                .setConnectionRequestTimeout(timeoutMs)
+                .setSocketTimeout(timeoutMs)
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setMaxConnTotal(workers)
+                .setMaxConnPerRoute(workers)
+                .setDefaultRequestConfig(timeouts)
+                .build();
+
+        boolean plainHttp = false;
+        String host = null;
+        if (baseUrl != null && !baseUrl.isBlank()) {
+            URI uri = URI.create(baseUrl);
+            plainHttp = "http".equalsIgnoreCase(uri.getScheme());
+            host = uri.getAuthority();
+        }
+
+        this.sendGrid = new SendGrid(this.apiKey, new Client(httpClient, plainHttp));
+        if (host != null) sendGrid.setHost(host);
+    }
+
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
+    public boolean isFromConfigured() {
+        return fromConfigured;
+    }
+
+    public String getFromAddress() {
+        return fromAddress;
+    }
+
+    public void send(String to, String subject, String html) throws IOException {
+        Mail mail = new Mail(new Email(fromAddress), subject, new Email(to), new Content("text/html", html));
+
+        Request request = new Request();
+        request.setMethod(Method.POST);
+        request.setEndpoint("mail/send");
+        request.setBody(mail.build());
+
+        Response response = sendGrid.api(request);
+        int status = response.getStatusCode();
+        logger.debug("SendGrid response: status={}, body={}", status, response.getBody());
+
+        if (status >= 400) {
+            boolean retryable = status == 429 || status >= 500;
+            throw new DeliveryException("SendGrid " + status + " " + response.getBody(), retryable);
+        }
+        messagesSent.incrementAndGet();
+    }
+
+    public long getMessagesSent() { return messagesSent.get(); }
+
+    @Override
+    public void destroy() throws IOException {
+        httpClient.close();
+    }
+}
@@ -0,0 +1,58 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.repository.MilkReportRepository;
+import com.milkattendence.backend.repository.projection.UnpaidReportRow;
+import com.milkattendence.backend.util.EmailTemplateUtil;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Builds and sends today's unpaid-customers email for a (user, shift).
+ * Used by the manual trigger in PaymentController and by ReminderScheduler.
+ *
+ * The whole report is one query ({@link MilkReportRepository#findUnpaidReport}),
+ * however many customers are unpaid.
+ */
+@Service
+public class UnpaidEmailService {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+
+    private final MilkReportRepository milkReportRepository;
+    private final EmailService emailService;
+
+    public UnpaidEmailService(MilkReportRepository milkReportRepository, EmailService emailService) {
+        this.milkReportRepository = milkReportRepository;
+        this.emailService = emailService;
+    }
+
+    /** A rendered unpaid report; ReminderScheduler folds several into one digest. */
+    public record Report(Long userId, String shift, LocalDate date, String subject, String html) {}
+
+    /** Today's report for (user, shift), or empty when everyone has paid. */
+    public Optional<Report> buildReport(Long userId, String shift) {
+        LocalDate today = LocalDate.now(IST);
+
+        List<UnpaidReportRow> rows = milkReportRepository.findUnpaidReport(userId, shift, today);
+        if (rows.isEmpty()) return Optional.empty();
+
+        return Optional.of(new Report(
+                userId,
+                shift,
+                today,
+                "Unpaid Customers (" + shift + ") - " + today,
+                EmailTemplateUtil.buildUnpaidReport(shift, rows)
+        ));
+    }
+
+    public void sendUnpaidEmail(Long userId, String shift) throws Exception {
+        Optional<Report> report = buildReport(userId, shift);
+        if (report.isEmpty()) return;
+
+        emailService.sendHtmlEmail(report.get().subject(), report.get().html());
+    }
+}
@@ -0,0 +1,68 @@
+package com.milkattendence.backend.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV (UTF-8, CRLF). Text that a spreadsheet would run as a
+ * formula (leading = + - @) is prefixed with an apostrophe.
+ */
+public class CsvRowWriter implements RowWriter {
+
+    private final Writer out;
+
+    public CsvRowWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    @Override
+    public void header(String... columns) throws IOException {
+        row((Object[]) columns);
+    }
+
+    @Override
+    public void row(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.write(',');
+            write(values[i]);
+        }
+        out.write("\r\n");
+    }
+
+    private void write(Object value) throws IOException {
+        if (value == null) return;
+        if (value instanceof Double d) {
+            out.write(BigDecimal.valueOf(d).stripTrailingZeros().toPlainString());
+            return;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            out.write(value.toString());
+            return;
+        }
+
+        String s = value.toString();
+        if (!s.isEmpty() && "=+-@".indexOf(s.charAt(0)) >= 0) s = "'" + s;
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        out.write(s.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,52 @@
+package com.milkattendence.backend.util;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Conditional GET for handlers whose content is identified by a version tag.
+ */
+public final class ETags {
+
+    private ETags() {}
+
+    /**
+     * Sets the ETag and asks clients to revalidate before reuse. Returns true
+     * (and the response becomes 304) when If-None-Match already holds the tag;
+     * the handler should then return without building a body.
+     */
+    public static boolean notModified(WebRequest request, String tag) {
+        if (request instanceof ServletWebRequest servlet) {
+            HttpServletResponse response = servlet.getResponse();
+            if (response != null) response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        return request.checkNotModified("\"" + tag + "\"");
+    }
+
+    /**
+     * Sets the ETag on a body this request had to build anyway, whatever
+     * If-None-Match holds; the next request can revalidate against it.
+     */
+    public static void tag(WebRequest request, String tag) {
+        if (request instanceof ServletWebRequest servlet) {
+            HttpServletResponse response = servlet.getResponse();
+            if (response != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+                response.setHeader(HttpHeaders.ETAG, "\"" + tag + "\"");
+            }
+        }
+    }
+
+    /**
+     * For error bodies: the browser keeps nothing, so it cannot revalidate
+     * an error into a 304 with an ETag set earlier in the request.
+     */
+    public static void noStore(WebRequest request) {
+        if (request instanceof ServletWebRequest servlet) {
+            HttpServletResponse response = servlet.getResponse();
+            if (response != null) response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        }
+    }
+}
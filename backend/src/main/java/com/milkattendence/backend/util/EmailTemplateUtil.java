@@ -1,7 +1,9 @@
 package com.milkattendence.backend.util;
 
 import com.milkattendence.backend.model.Payment;
+import com.milkattendence.backend.repository.projection.UnpaidReportRow;
 
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
@@ -45,11 +47,49 @@ public class EmailTemplateUtil {
         return sb.toString();
     }
 
+    public static String buildUnpaidReport(String shift, List<UnpaidReportRow> rows) {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<h3>Unpaid Customers — ").append(escape(shift)).append("</h3>");
+        sb.append("<table border='1' cellpadding='6'>")
+          .append("<tr><th>Name</th><th>Litres</th><th>Billed</th><th>Paid</th><th>Outstanding</th></tr>");
+
+        for (UnpaidReportRow r : rows) {
+            sb.append("<tr>")
+              .append("<td>").append(escape(r.customerName())).append("</td>")
+              .append("<td>").append(String.format("%.2f", r.litres())).append("</td>")
+              .append("<td>").append(String.format("%.2f", r.billed())).append("</td>")
+              .append("<td>").append(String.format("%.2f", r.paid())).append("</td>")
+              .append("<td><b>")
+              .append(String.format("%.2f", r.outstanding()))
+              .append("</b></td>")
+              .append("</tr>");
+        }
+
+        sb.append("</table>");
+        return sb.toString();
+    }
+
+    // Several unpaid reports for one recipient, in one email
+    public static String buildReminderDigest(LocalDate date, List<String> reports) {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<h2>Unpaid Reminders — ").append(date.format(DATE_FMT)).append("</h2>");
+
+        for (int i = 0; i < reports.size(); i++) {
+            if (i > 0) sb.append("<hr>");
+            sb.append(reports.get(i));
+        }
+        return sb.toString();
+    }
+
     // Basic HTML escaping for safety
     private static String escape(String s) {
         if (s == null) return "";
         return s.replace("&", "&amp;")
                 .replace("<", "&lt;")
-                .replace(">", "&gt;");
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;")
+                .replace("'", "&#39;");
     }
 }
@@ -0,0 +1,53 @@
+package com.milkattendence.backend.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point units used for storage and aggregation: quantities in whole
+ * millilitres, money in whole paise, prices in paise per litre. The API
+ * keeps speaking decimal litres and rupees; these are the conversions at
+ * that boundary, rounded half-up on the decimal value that was sent.
+ */
+public final class FixedPoint {
+
+    public static final long ML_PER_LITRE = 1000;
+    public static final long PAISE_PER_RUPEE = 100;
+
+    private FixedPoint() {}
+
+    public static long millilitres(double litres) {
+        return scaled(litres, 3);
+    }
+
+    public static double litres(long millilitres) {
+        return millilitres / (double) ML_PER_LITRE;
+    }
+
+    public static long paise(double rupees) {
+        return scaled(rupees, 2);
+    }
+
+    public static double rupees(long paise) {
+        return paise / (double) PAISE_PER_RUPEE;
+    }
+
+    public static Long paiseOrNull(Double rupees) {
+        return rupees != null ? paise(rupees) : null;
+    }
+
+    public static Double rupeesOrNull(Long paise) {
+        return paise != null ? rupees(paise) : null;
+    }
+
+    /** Price of a quantity: millilitres × paise per litre, rounded half-up to whole paise. */
+    public static long amountPaise(long millilitres, long pricePaisePerLitre) {
+        return Math.floorDiv(millilitres * pricePaisePerLitre + ML_PER_LITRE / 2, ML_PER_LITRE);
+    }
+
+    // BigDecimal.valueOf goes through Double.toString, so 2.675 rounds as typed
+    private static long scaled(double value, int places) {
+        if (value == 0) return 0;
+        return BigDecimal.valueOf(value).movePointRight(places).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
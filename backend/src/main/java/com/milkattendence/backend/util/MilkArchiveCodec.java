@@ -0,0 +1,182 @@
+package com.milkattendence.backend.util;
+
+import com.milkattendence.backend.model.MilkEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Run-length block format for one archived (user, shift, month).
+ *
+ * Entries are grouped per customer (customer id plus the name as typed) and
+ * consecutive days with the same millilitres, rate and amount collapse into
+ * one run, so a customer who took the same quantity all month is a single
+ * run instead of ~30 rows. Entry ids are not kept.
+ *
+ * Layout, DEFLATE-compressed, after a one-byte format version:
+ * <pre>
+ *   int groups
+ *   per group:  boolean hasId, [long customerId], boolean hasName, [UTF name], int runs
+ *   per run:    byte startDay, byte endDay, long litresMl, long ratePaise, long amountPaise
+ * </pre>
+ * The checksum is the CRC-32 of the uncompressed layout; {@link #decode}
+ * refuses a block that does not match it.
+ */
+public final class MilkArchiveCodec {
+
+    public static final int FORMAT_VERSION = 1;
+
+    /** Days startDay..endDay (inclusive) of one customer, each with the same values. */
+    public record Run(Long customerId, String customerName, int startDay, int endDay,
+                      long litresMl, long ratePaise, long amountPaise) {
+
+        public int days() { return endDay - startDay + 1; }
+    }
+
+    public record Block(byte[] data, long checksum) {}
+
+    private record Group(Long customerId, String customerName) {}
+
+    private static final Comparator<Group> GROUP_ORDER = Comparator
+            .comparing(Group::customerId, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Group::customerName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private MilkArchiveCodec() {}
+
+    // ==========================
+    // RUNS
+    // ==========================
+
+    /** Runs of one month's entries, grouped by customer (by id, then name) and ordered by day. */
+    public static List<Run> runs(List<MilkEntry> entries) {
+        List<MilkEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(MilkEntry::getDate));
+
+        Map<Group, List<MilkEntry>> byGroup = new LinkedHashMap<>();
+        for (MilkEntry e : sorted) {
+            byGroup.computeIfAbsent(new Group(e.getCustomerId(), e.getCustomerName()), k -> new ArrayList<>()).add(e);
+        }
+        List<Group> groups = new ArrayList<>(byGroup.keySet());
+        groups.sort(GROUP_ORDER);
+
+        List<Run> runs = new ArrayList<>();
+        for (Group g : groups) {
+            Run open = null;
+            for (MilkEntry e : byGroup.get(g)) {
+                int day = e.getDate().getDayOfMonth();
+                if (open != null && open.endDay() == day - 1 && open.litresMl() == e.getLitresMl()
+                        && open.ratePaise() == e.getRatePaise() && open.amountPaise() == e.getAmountPaise()) {
+                    open = new Run(g.customerId(), g.customerName(), open.startDay(), day,
+                            open.litresMl(), open.ratePaise(), open.amountPaise());
+                } else {
+                    if (open != null) runs.add(open);
+                    open = new Run(g.customerId(), g.customerName(), day, day,
+                            e.getLitresMl(), e.getRatePaise(), e.getAmountPaise());
+                }
+            }
+            if (open != null) runs.add(open);
+        }
+        return runs;
+    }
+
+    // ==========================
+    // ENCODE / DECODE
+    // ==========================
+
+    public static Block encode(List<Run> runs) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            List<List<Run>> groups = new ArrayList<>();
+            for (Run r : runs) {
+                List<Run> last = groups.isEmpty() ? null : groups.get(groups.size() - 1);
+                if (last != null && Objects.equals(last.get(0).customerId(), r.customerId())
+                        && Objects.equals(last.get(0).customerName(), r.customerName())) {
+                    last.add(r);
+                } else {
+                    groups.add(new ArrayList<>(List.of(r)));
+                }
+            }
+            out.writeInt(groups.size());
+            for (List<Run> group : groups) {
+                Run first = group.get(0);
+                out.writeBoolean(first.customerId() != null);
+                if (first.customerId() != null) out.writeLong(first.customerId());
+                out.writeBoolean(first.customerName() != null);
+                if (first.customerName() != null) out.writeUTF(first.customerName());
+                out.writeInt(group.size());
+                for (Run r : group) {
+                    out.writeByte(r.startDay());
+                    out.writeByte(r.endDay());
+                    out.writeLong(r.litresMl());
+                    out.writeLong(r.ratePaise());
+                    out.writeLong(r.amountPaise());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] payload = raw.toByteArray();
+        ByteArrayOutputStream packed = new ByteArrayOutputStream(payload.length / 4 + 16);
+        packed.write(FORMAT_VERSION);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(packed, new Deflater(Deflater.BEST_COMPRESSION))) {
+            out.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Block(packed.toByteArray(), crc(payload));
+    }
+
+    /** @throws IllegalStateException when the block is corrupt, of another version, or fails its checksum */
+    public static List<Run> decode(byte[] data, long checksum) {
+        if (data == null || data.length == 0 || data[0] != FORMAT_VERSION) {
+            throw new IllegalStateException("unknown archive block format");
+        }
+        byte[] payload;
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data, 1, data.length - 1))) {
+            payload = in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("corrupt archive block", e);
+        }
+        if (crc(payload) != checksum) {
+            throw new IllegalStateException("archive block checksum mismatch");
+        }
+
+        List<Run> runs = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int groups = in.readInt();
+            for (int g = 0; g < groups; g++) {
+                Long customerId = in.readBoolean() ? in.readLong() : null;
+                String customerName = in.readBoolean() ? in.readUTF() : null;
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    runs.add(new Run(customerId, customerName, in.readByte(), in.readByte(),
+                            in.readLong(), in.readLong(), in.readLong()));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("corrupt archive block", e);
+        }
+        return runs;
+    }
+
+    private static long crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,21 @@
+package com.milkattendence.backend.util;
+
+import java.io.IOException;
+
+/**
+ * Writes a table one row at a time, straight to an output stream.
+ * Cell values may be String, Number, Boolean, LocalDate or null.
+ */
+public interface RowWriter extends AutoCloseable {
+
+    void header(String... columns) throws IOException;
+
+    void row(Object... values) throws IOException;
+
+    /** Pushes buffered bytes to the client. */
+    void flush() throws IOException;
+
+    /** Finishes the document; does not close the underlying stream. */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,206 @@
+package com.milkattendence.backend.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Minimal streaming XLSX (SpreadsheetML in a zip). Rows are written into the
+ * sheet entry as they arrive, with inline strings so nothing is buffered for
+ * a shared-string table; only the sheet count is remembered.
+ *
+ * A sheet holds at most 1,048,576 rows; longer exports continue on
+ * "Sheet2", "Sheet3", ... each starting with the header again.
+ */
+public class XlsxRowWriter implements RowWriter {
+
+    static final int MAX_ROWS = 1_048_576;
+
+    // cellXfs indexes in styles.xml
+    private static final int STYLE_DATE = 1;
+    private static final int STYLE_HEADER = 2;
+    private static final long EXCEL_EPOCH = LocalDate.of(1899, 12, 30).toEpochDay();
+
+    private final ZipOutputStream zip;
+    private final Writer xml;
+    private final int maxRows;
+
+    private String[] header = new String[0];
+    private int sheets;
+    private int rowInSheet;
+
+    public XlsxRowWriter(OutputStream out) {
+        this(out, MAX_ROWS);
+    }
+
+    XlsxRowWriter(OutputStream out, int maxRows) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.xml = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 16 * 1024);
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public void header(String... columns) throws IOException {
+        this.header = columns.clone();
+        startSheet();
+    }
+
+    @Override
+    public void row(Object... values) throws IOException {
+        if (sheets == 0 || rowInSheet == maxRows) {
+            if (sheets > 0) endSheet();
+            startSheet();
+        }
+        writeRow(values, 0);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        xml.flush();
+        zip.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (sheets == 0) startSheet();
+        endSheet();
+        writeParts();
+        zip.finish();
+    }
+
+    // ==========================
+    // SHEETS
+    // ==========================
+    private void startSheet() throws IOException {
+        sheets++;
+        rowInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        xml.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<sheetData>");
+        if (header.length > 0) writeRow(header, STYLE_HEADER);
+    }
+
+    private void endSheet() throws IOException {
+        xml.write("</sheetData></worksheet>");
+        xml.flush();
+        zip.closeEntry();
+    }
+
+    private void writeRow(Object[] values, int textStyle) throws IOException {
+        int r = ++rowInSheet;
+        xml.write("<row r=\"");
+        xml.write(Integer.toString(r));
+        xml.write("\">");
+        for (int c = 0; c < values.length; c++) {
+            Object v = values[c];
+            if (v == null) continue;
+            String ref = column(c) + r;
+
+            if (v instanceof LocalDate d) {
+                cell(ref, " s=\"" + STYLE_DATE + "\"", Long.toString(d.toEpochDay() - EXCEL_EPOCH));
+            } else if (v instanceof Double d) {
+                cell(ref, "", BigDecimal.valueOf(d).toPlainString());
+            } else if (v instanceof Number n) {
+                cell(ref, "", n.toString());
+            } else if (v instanceof Boolean b) {
+                cell(ref, " t=\"b\"", b ? "1" : "0");
+            } else {
+                xml.write("<c r=\"" + ref + "\" t=\"inlineStr\"" + (textStyle > 0 ? " s=\"" + textStyle + "\"" : "") + "><is><t>");
+                escape(v.toString());
+                xml.write("</t></is></c>");
+            }
+        }
+        xml.write("</row>");
+    }
+
+    private void cell(String ref, String attrs, String value) throws IOException {
+        xml.write("<c r=\"" + ref + "\"" + attrs + "><v>" + value + "</v></c>");
+    }
+
+    private static String column(int index) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            sb.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return sb.toString();
+    }
+
+    // XML text; characters XML 1.0 cannot carry are dropped
+    private void escape(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '&' -> xml.write("&amp;");
+                case '<' -> xml.write("&lt;");
+                case '>' -> xml.write("&gt;");
+                default -> {
+                    if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') xml.write(ch);
+                }
+            }
+        }
+    }
+
+    // ==========================
+    // PACKAGE PARTS (after the sheets, once their count is known)
+    // ==========================
+    private void writeParts() throws IOException {
+        StringBuilder types = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        StringBuilder sheetList = new StringBuilder();
+        StringBuilder sheetRels = new StringBuilder();
+        for (int i = 1; i <= sheets; i++) {
+            types.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            sheetList.append("<sheet name=\"Sheet").append(i).append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+            sheetRels.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+        }
+        types.append("</Types>");
+
+        part("[Content_Types].xml", types.toString());
+        part("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        part("xl/workbook.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\""
+                + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+                + "<sheets>" + sheetList + "</sheets></workbook>");
+        part("xl/_rels/workbook.xml.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + sheetRels
+                + "<Relationship Id=\"rId" + (sheets + 1) + "\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>"
+                + "</Relationships>");
+        // 0 = default, 1 = date (built-in format 14), 2 = bold header
+        part("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<fonts count=\"2\"><font/><font><b/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border/></borders>"
+                + "<cellStyleXfs count=\"1\"><xf/></cellStyleXfs>"
+                + "<cellXfs count=\"3\"><xf/><xf numFmtId=\"14\" applyNumberFormat=\"1\"/><xf fontId=\"1\" applyFont=\"1\"/></cellXfs>"
+                + "</styleSheet>");
+    }
+
+    private void part(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        xml.write(content);
+        xml.flush();
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,271 @@
+-- ==========================
+-- MONTHLY PARTITIONS FOR milk_entries AND payments (PartitionMaintenanceService)
+-- Both tables become PARTITION BY RANGE (date) with one partition per
+-- calendar month (milk_entries_p2025_07, payments_p2025_07, ...) and a
+-- DEFAULT partition for dates no month partition covers yet. Every
+-- repository read carries a date predicate, so the planner only touches the
+-- months a query asks for; vacuum and index sizes stay per month.
+--
+-- Keys on a partitioned table have to include the partition key: the
+-- primary keys become (id, date). Ids still come from their sequences and
+-- stay unique; the entities mark date as @PartitionKey so Hibernate's
+-- UPDATE/DELETE by id is pruned to one partition too.
+--
+-- ensure_month_partition() creates one month, moving any rows the DEFAULT
+-- partition already holds for it; once the tables are partitioned, the
+-- application calls it to keep the coming months created.
+--
+-- This is NOT a Flyway migration: it rewrites both tables, and rows written
+-- while it runs would be lost. Run it by hand in a maintenance window:
+--
+--   1. stop every backend node (and anything else writing to the database);
+--   2. take a backup;
+--   3. PGOPTIONS='-c milk.partition_tables=on' \
+--        psql "postgresql://USER@HOST:5432/DB" -v ON_ERROR_STOP=1 \
+--        -f backend/src/main/resources/db/maintenance/monthly_partitions.sql
+--   4. start the nodes; PartitionMaintenanceService sees the partitioned
+--      tables and keeps the months ahead created from then on.
+--
+-- Without milk.partition_tables=on every step refuses to run. Each step
+-- checks what is already done, so after a failure (or an interrupted run)
+-- fix the cause and run the whole script again. The copy commits every
+-- 10,000 ids; the old tables are only dropped once every row is found in
+-- the new ones.
+-- ==========================
+
+CREATE OR REPLACE FUNCTION pg_temp.require_partition_flag()
+RETURNS VOID
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF current_setting('milk.partition_tables', true) IS DISTINCT FROM 'on' THEN
+        RAISE EXCEPTION 'monthly_partitions.sql rewrites milk_entries and payments; stop the application and run it with milk.partition_tables=on';
+    END IF;
+END $$;
+
+SELECT pg_temp.require_partition_flag();
+
+-- --------------------------
+-- 1. Partitioned parents, in one transaction: a table is either still the
+--    old one or renamed with its partitioned replacement in place
+-- --------------------------
+DO $step$
+BEGIN
+    PERFORM pg_temp.require_partition_flag();
+
+    CREATE SCHEMA IF NOT EXISTS archive;
+
+    EXECUTE $fn$
+        CREATE OR REPLACE FUNCTION ensure_month_partition(parent TEXT, month_start DATE)
+        RETURNS BOOLEAN
+        LANGUAGE plpgsql
+        AS $$
+        DECLARE
+            part      TEXT := parent || '_p' || to_char(month_start, 'YYYY_MM');
+            month_end DATE := (month_start + INTERVAL '1 month')::DATE;
+        BEGIN
+            IF to_regclass(part) IS NOT NULL THEN
+                RETURN FALSE;
+            END IF;
+            -- attaching checks the DEFAULT partition holds nothing for the month
+            EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', part, parent);
+            EXECUTE format('WITH moved AS (DELETE FROM %I WHERE date >= %L AND date < %L RETURNING *) INSERT INTO %I SELECT * FROM moved',
+                           parent || '_default', month_start, month_end, part);
+            EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           parent, part, month_start, month_end);
+            RETURN TRUE;
+        END $$
+    $fn$;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('milk_entries')) THEN
+        ALTER TABLE milk_entries RENAME TO milk_entries_unpartitioned;
+        CREATE TABLE milk_entries (
+            id              BIGINT       NOT NULL,
+            customer_name   VARCHAR(255),
+            shift           VARCHAR(255),
+            date            DATE         NOT NULL,
+            user_id         BIGINT       NOT NULL,
+            customer_id     BIGINT,
+            litres_ml       BIGINT       NOT NULL DEFAULT 0,
+            rate_paise      BIGINT       NOT NULL DEFAULT 0,
+            amount_paise    BIGINT       NOT NULL DEFAULT 0,
+            PRIMARY KEY (id, date)
+        ) PARTITION BY RANGE (date);
+        CREATE TABLE milk_entries_default PARTITION OF milk_entries DEFAULT;
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('payments')) THEN
+        ALTER TABLE payments RENAME TO payments_unpartitioned;
+        CREATE TABLE payments (
+            id              BIGINT       NOT NULL,
+            customer_name   VARCHAR(255),
+            shift           VARCHAR(255),
+            paid            BOOLEAN      NOT NULL,
+            date            DATE         NOT NULL,
+            user_id         BIGINT       NOT NULL,
+            customer_id     BIGINT,
+            amount_paise    BIGINT       NOT NULL DEFAULT 0,
+            PRIMARY KEY (id, date)
+        ) PARTITION BY RANGE (date);
+        CREATE TABLE payments_default PARTITION OF payments DEFAULT;
+    END IF;
+END $step$;
+
+-- --------------------------
+-- 2. One partition per month that has rows, plus the last year and the
+--    next three months
+-- --------------------------
+DO $step$
+DECLARE
+    m DATE;
+BEGIN
+    PERFORM pg_temp.require_partition_flag();
+
+    IF to_regclass('milk_entries_unpartitioned') IS NOT NULL THEN
+        FOR m IN SELECT DISTINCT DATE_TRUNC('month', date)::DATE FROM milk_entries_unpartitioned LOOP
+            PERFORM ensure_month_partition('milk_entries', m);
+        END LOOP;
+    END IF;
+    IF to_regclass('payments_unpartitioned') IS NOT NULL THEN
+        FOR m IN SELECT DISTINCT DATE_TRUNC('month', date)::DATE FROM payments_unpartitioned WHERE date IS NOT NULL LOOP
+            PERFORM ensure_month_partition('payments', m);
+        END LOOP;
+    END IF;
+    FOR m IN
+        SELECT generate_series(DATE_TRUNC('month', CURRENT_DATE) - INTERVAL '12 months',
+                               DATE_TRUNC('month', CURRENT_DATE) + INTERVAL '3 months',
+                               INTERVAL '1 month')::DATE
+    LOOP
+        PERFORM ensure_month_partition('milk_entries', m);
+        PERFORM ensure_month_partition('payments', m);
+    END LOOP;
+END $step$;
+
+-- --------------------------
+-- 3. Copy, one id range per transaction; rows a previous run already
+--    copied are skipped
+-- --------------------------
+DO $step$
+DECLARE
+    lo BIGINT;
+    hi BIGINT;
+BEGIN
+    PERFORM pg_temp.require_partition_flag();
+
+    IF to_regclass('milk_entries_unpartitioned') IS NOT NULL THEN
+        SELECT MIN(id), MAX(id) INTO lo, hi FROM milk_entries_unpartitioned;
+        WHILE lo <= hi LOOP
+            INSERT INTO milk_entries (id, customer_name, shift, date, user_id, customer_id, litres_ml, rate_paise, amount_paise)
+            SELECT id, customer_name, shift, date, user_id, customer_id, litres_ml, rate_paise, amount_paise
+            FROM milk_entries_unpartitioned
+            WHERE id >= lo AND id < lo + 10000
+            ON CONFLICT DO NOTHING;
+            COMMIT;
+            lo := lo + 10000;
+        END LOOP;
+    END IF;
+
+    IF to_regclass('payments_unpartitioned') IS NOT NULL THEN
+        SELECT MIN(id), MAX(id) INTO lo, hi FROM payments_unpartitioned;
+        WHILE lo <= hi LOOP
+            INSERT INTO payments (id, customer_name, shift, paid, date, user_id, customer_id, amount_paise)
+            SELECT id, customer_name, shift, paid, date, user_id, customer_id, amount_paise
+            FROM payments_unpartitioned
+            WHERE id >= lo AND id < lo + 10000
+              AND date IS NOT NULL
+            ON CONFLICT DO NOTHING;
+            COMMIT;
+            lo := lo + 10000;
+        END LOOP;
+    END IF;
+END $step$;
+
+-- --------------------------
+-- 4. Drop the old tables once every row is accounted for. Payment rows
+--    without a date cannot be partitioned, and no query (all of them filter
+--    on date) ever read them; they are kept aside, not deleted.
+-- --------------------------
+DO $step$
+DECLARE
+    missing BIGINT;
+BEGIN
+    PERFORM pg_temp.require_partition_flag();
+
+    IF to_regclass('milk_entries_unpartitioned') IS NOT NULL THEN
+        SELECT COUNT(*) INTO missing
+        FROM milk_entries_unpartitioned u
+        WHERE NOT EXISTS (SELECT 1 FROM milk_entries m WHERE m.id = u.id AND m.date = u.date);
+        IF missing > 0 THEN
+            RAISE EXCEPTION '% milk_entries rows were not copied; milk_entries_unpartitioned is left in place', missing;
+        END IF;
+        DROP TABLE milk_entries_unpartitioned;
+    END IF;
+
+    IF to_regclass('payments_unpartitioned') IS NOT NULL THEN
+        CREATE TABLE IF NOT EXISTS archive.payments_undated (LIKE payments_unpartitioned);
+        INSERT INTO archive.payments_undated
+        SELECT u.* FROM payments_unpartitioned u
+        WHERE u.date IS NULL
+          AND NOT EXISTS (SELECT 1 FROM archive.payments_undated a WHERE a.id = u.id);
+
+        SELECT COUNT(*) INTO missing
+        FROM payments_unpartitioned u
+        WHERE u.date IS NOT NULL
+          AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.id = u.id AND p.date = u.date);
+        IF missing > 0 THEN
+            RAISE EXCEPTION '% payments rows were not copied; payments_unpartitioned is left in place', missing;
+        END IF;
+        DROP TABLE payments_unpartitioned;
+    END IF;
+END $step$;
+
+-- --------------------------
+-- 5. Ids, indexes and keys, declared once on the parent and built per
+--    partition
+-- --------------------------
+DO $step$
+BEGIN
+    PERFORM pg_temp.require_partition_flag();
+    -- the old tables still hold these index names and payments_id_seq
+    IF to_regclass('milk_entries_unpartitioned') IS NOT NULL OR to_regclass('payments_unpartitioned') IS NOT NULL THEN
+        RAISE EXCEPTION 'the old tables are still there; fix what stopped step 4 and run the script again';
+    END IF;
+
+    -- payments ids were an identity column (whose payments_id_seq went with
+    -- the old table), which a partitioned table cannot have before
+    -- PostgreSQL 17; a sequence default does the same job
+    CREATE SEQUENCE IF NOT EXISTS payments_id_seq OWNED BY payments.id;
+    PERFORM setval('payments_id_seq', COALESCE((SELECT MAX(id) FROM payments), 0) + 1, false);
+    ALTER TABLE payments ALTER COLUMN id SET DEFAULT nextval('payments_id_seq');
+
+    CREATE UNIQUE INDEX IF NOT EXISTS ux_milk_entries_user_shift_date_customer
+        ON milk_entries (user_id, shift, date, customer_name);
+    CREATE INDEX IF NOT EXISTS idx_milk_entries_user_shift_date_id
+        ON milk_entries (user_id, shift, date, id);
+    CREATE INDEX IF NOT EXISTS idx_milk_entries_customer_date
+        ON milk_entries (customer_id, date);
+
+    CREATE INDEX IF NOT EXISTS idx_payments_user_shift_date
+        ON payments (user_id, shift, date);
+    CREATE INDEX IF NOT EXISTS idx_payments_customer_date
+        ON payments (customer_id, date);
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'payments'::regclass
+                   AND conname = 'payments_customer_name_shift_date_user_id_key') THEN
+        ALTER TABLE payments ADD CONSTRAINT payments_customer_name_shift_date_user_id_key
+            UNIQUE (customer_name, shift, date, user_id);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'milk_entries'::regclass
+                   AND conname = 'fk_milk_entries_customer') THEN
+        ALTER TABLE milk_entries ADD CONSTRAINT fk_milk_entries_customer
+            FOREIGN KEY (customer_id) REFERENCES customer (id) ON DELETE SET NULL;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = 'payments'::regclass
+                   AND conname = 'fk_payments_customer') THEN
+        ALTER TABLE payments ADD CONSTRAINT fk_payments_customer
+            FOREIGN KEY (customer_id) REFERENCES customer (id) ON DELETE SET NULL;
+    END IF;
+END $step$;
+
+ANALYZE milk_entries;
+ANALYZE payments;
@@ -0,0 +1,88 @@
+-- ==========================
+-- CUSTOMER BALANCES (CustomerBalanceService)
+-- One row per customer with everything billed and everything paid, kept up
+-- to date by entry and payment writes, so outstanding dues are a primary-key
+-- lookup instead of a sum over the customer's whole history.
+--
+-- payments.amount records what marking a row paid settled, so un-marking it
+-- can give exactly that back.
+--
+-- Runs outside a transaction (see V10__customer_balances.sql.conf) so the
+-- payments backfill commits every 10,000 ids. Writes made by nodes still on
+-- the previous release while this runs are not in the ledger; the nightly
+-- verification job (balances.verify.cron) recomputes and repairs them.
+-- ==========================
+
+ALTER TABLE payments ADD COLUMN IF NOT EXISTS amount DOUBLE PRECISION NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS customer_balances (
+    customer_id   BIGINT           PRIMARY KEY REFERENCES customer (id) ON DELETE CASCADE,
+    user_id       BIGINT           NOT NULL,
+    billed_litres DOUBLE PRECISION NOT NULL DEFAULT 0,
+    billed_amount DOUBLE PRECISION NOT NULL DEFAULT 0,
+    paid_amount   DOUBLE PRECISION NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_balances_user ON customer_balances (user_id);
+
+-- --------------------------
+-- Settled amount of each historical paid row: what the customer was billed
+-- for days after their previous paid row, up to this one.
+-- --------------------------
+CREATE TEMPORARY TABLE payment_settlements AS
+SELECT q.id,
+       COALESCE((SELECT SUM(m.amount)
+                 FROM milk_entries m
+                 WHERE m.customer_id = q.customer_id
+                   AND m.date <= q.date
+                   AND (q.prev_date IS NULL OR m.date > q.prev_date)), 0) AS amount
+FROM (
+    SELECT id, customer_id, date,
+           LAG(date) OVER (PARTITION BY customer_id ORDER BY date, id) AS prev_date
+    FROM payments
+    WHERE paid
+      AND customer_id IS NOT NULL
+) q;
+
+CREATE INDEX ON payment_settlements (id);
+ANALYZE payment_settlements;
+
+DO $$
+DECLARE
+    lo BIGINT;
+    hi BIGINT;
+BEGIN
+    SELECT MIN(id), MAX(id) INTO lo, hi FROM payment_settlements;
+    WHILE lo <= hi LOOP
+        UPDATE payments p
+        SET amount = s.amount
+        FROM payment_settlements s
+        WHERE s.id >= lo AND s.id < lo + 10000
+          AND p.id = s.id
+          AND p.amount = 0;
+        COMMIT;
+        lo := lo + 10000;
+    END LOOP;
+END $$;
+
+DROP TABLE payment_settlements;
+
+-- --------------------------
+-- Opening balances
+-- --------------------------
+INSERT INTO customer_balances (customer_id, user_id, billed_litres, billed_amount, paid_amount)
+SELECT c.id, c.user_id,
+       COALESCE(b.litres, 0), COALESCE(b.amount, 0), COALESCE(p.amount, 0)
+FROM customer c
+LEFT JOIN (SELECT customer_id, SUM(litres) AS litres, SUM(amount) AS amount
+           FROM milk_entries
+           WHERE customer_id IS NOT NULL
+           GROUP BY customer_id) b ON b.customer_id = c.id
+LEFT JOIN (SELECT customer_id, SUM(amount) AS amount
+           FROM payments
+           WHERE paid
+             AND customer_id IS NOT NULL
+           GROUP BY customer_id) p ON p.customer_id = c.id
+WHERE c.user_id IS NOT NULL
+  AND (b.customer_id IS NOT NULL OR p.customer_id IS NOT NULL)
+ON CONFLICT (customer_id) DO NOTHING;
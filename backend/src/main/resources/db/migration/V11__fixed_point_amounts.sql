@@ -0,0 +1,151 @@
+-- ==========================
+-- FIXED-POINT QUANTITIES AND MONEY (util/FixedPoint)
+-- Litres are stored as whole millilitres and rupees as whole paise in BIGINT
+-- columns, so sums over a month (or a customer's whole history) are exact
+-- and the aggregation paths work on primitive longs. The API keeps sending
+-- and returning decimal litres and rupees.
+--
+-- Entries are converted first; the aggregates and balances are then
+-- recomputed from the converted entries rather than rounded from their own
+-- double sums, so they agree with SUM(litres_ml) / SUM(amount_paise) to the
+-- unit.
+--
+-- Runs outside a transaction (see V11__fixed_point_amounts.sql.conf) so the
+-- large tables are converted in 10,000-id batches. The old double columns are
+-- dropped at the end: drain nodes still on the previous release before
+-- running this.
+-- ==========================
+
+ALTER TABLE customer                ADD COLUMN IF NOT EXISTS price_per_litre_paise BIGINT;
+ALTER TABLE milk_entries            ADD COLUMN IF NOT EXISTS litres_ml    BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE milk_entries            ADD COLUMN IF NOT EXISTS rate_paise   BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE milk_entries            ADD COLUMN IF NOT EXISTS amount_paise BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE milk_daily_aggregates   ADD COLUMN IF NOT EXISTS litres_ml    BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE milk_daily_aggregates   ADD COLUMN IF NOT EXISTS amount_paise BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE milk_monthly_aggregates ADD COLUMN IF NOT EXISTS litres_ml    BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE milk_monthly_aggregates ADD COLUMN IF NOT EXISTS amount_paise BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE payments                ADD COLUMN IF NOT EXISTS amount_paise BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE customer_balances       ADD COLUMN IF NOT EXISTS billed_ml    BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE customer_balances       ADD COLUMN IF NOT EXISTS billed_paise BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE customer_balances       ADD COLUMN IF NOT EXISTS paid_paise   BIGINT NOT NULL DEFAULT 0;
+
+UPDATE customer
+SET price_per_litre_paise = ROUND(price_per_litre::NUMERIC * 100)
+WHERE price_per_litre IS NOT NULL;
+
+-- --------------------------
+-- Raw rows
+-- --------------------------
+DO $$
+DECLARE
+    lo BIGINT;
+    hi BIGINT;
+BEGIN
+    SELECT MIN(id), MAX(id) INTO lo, hi FROM milk_entries;
+    WHILE lo <= hi LOOP
+        UPDATE milk_entries
+        SET litres_ml    = ROUND(litres::NUMERIC * 1000),
+            rate_paise   = ROUND(rate::NUMERIC * 100),
+            amount_paise = ROUND(amount::NUMERIC * 100)
+        WHERE id >= lo AND id < lo + 10000;
+        COMMIT;
+        lo := lo + 10000;
+    END LOOP;
+
+    SELECT MIN(id), MAX(id) INTO lo, hi FROM payments;
+    WHILE lo <= hi LOOP
+        UPDATE payments
+        SET amount_paise = ROUND(amount::NUMERIC * 100)
+        WHERE id >= lo AND id < lo + 10000
+          AND amount <> 0;
+        COMMIT;
+        lo := lo + 10000;
+    END LOOP;
+END $$;
+
+-- --------------------------
+-- Aggregates, recomputed from the converted entries on the writers' key
+-- --------------------------
+CREATE TEMPORARY TABLE daily_fixed_point AS
+SELECT user_id, shift, date, COALESCE(LOWER(customer_name), '') AS customer_key,
+       SUM(litres_ml) AS litres_ml, SUM(amount_paise) AS amount_paise
+FROM milk_entries
+GROUP BY user_id, shift, date, COALESCE(LOWER(customer_name), '');
+
+CREATE INDEX ON daily_fixed_point (user_id, date, customer_key);
+ANALYZE daily_fixed_point;
+
+DO $$
+DECLARE
+    lo BIGINT;
+    hi BIGINT;
+BEGIN
+    SELECT MIN(id), MAX(id) INTO lo, hi FROM milk_daily_aggregates;
+    WHILE lo <= hi LOOP
+        -- rows whose key no longer matches an entry group keep their own rounded sums
+        UPDATE milk_daily_aggregates a
+        SET litres_ml    = COALESCE(s.litres_ml, ROUND(a.litres::NUMERIC * 1000)),
+            amount_paise = COALESCE(s.amount_paise, ROUND(a.amount::NUMERIC * 100))
+        FROM milk_daily_aggregates x
+        LEFT JOIN daily_fixed_point s
+               ON s.user_id = x.user_id
+              AND s.shift IS NOT DISTINCT FROM x.shift
+              AND s.date = x.date
+              AND s.customer_key = x.customer_key
+        WHERE x.id = a.id
+          AND a.id >= lo AND a.id < lo + 10000;
+        COMMIT;
+        lo := lo + 10000;
+    END LOOP;
+END $$;
+
+UPDATE milk_monthly_aggregates m
+SET litres_ml    = COALESCE(s.litres_ml, ROUND(m.litres::NUMERIC * 1000)),
+    amount_paise = COALESCE(s.amount_paise, ROUND(m.amount::NUMERIC * 100))
+FROM milk_monthly_aggregates x
+LEFT JOIN (SELECT user_id, shift, DATE_TRUNC('month', date)::DATE AS month_start, customer_key,
+                  SUM(litres_ml) AS litres_ml, SUM(amount_paise) AS amount_paise
+           FROM daily_fixed_point
+           GROUP BY user_id, shift, DATE_TRUNC('month', date), customer_key) s
+       ON s.user_id = x.user_id
+      AND s.shift IS NOT DISTINCT FROM x.shift
+      AND s.month_start = x.month_start
+      AND s.customer_key = x.customer_key
+WHERE x.id = m.id;
+
+DROP TABLE daily_fixed_point;
+
+-- --------------------------
+-- Balances
+-- --------------------------
+UPDATE customer_balances b
+SET billed_ml    = COALESCE(e.litres_ml, 0),
+    billed_paise = COALESCE(e.amount_paise, 0),
+    paid_paise   = COALESCE(p.amount_paise, 0)
+FROM customer_balances x
+LEFT JOIN (SELECT customer_id, SUM(litres_ml) AS litres_ml, SUM(amount_paise) AS amount_paise
+           FROM milk_entries
+           WHERE customer_id IS NOT NULL
+           GROUP BY customer_id) e ON e.customer_id = x.customer_id
+LEFT JOIN (SELECT customer_id, SUM(amount_paise) AS amount_paise
+           FROM payments
+           WHERE paid
+             AND customer_id IS NOT NULL
+           GROUP BY customer_id) p ON p.customer_id = x.customer_id
+WHERE x.customer_id = b.customer_id;
+
+-- --------------------------
+-- Old double columns
+-- --------------------------
+ALTER TABLE customer                DROP COLUMN IF EXISTS price_per_litre;
+ALTER TABLE milk_entries            DROP COLUMN IF EXISTS litres,
+                                    DROP COLUMN IF EXISTS rate,
+                                    DROP COLUMN IF EXISTS amount;
+ALTER TABLE milk_daily_aggregates   DROP COLUMN IF EXISTS litres,
+                                    DROP COLUMN IF EXISTS amount;
+ALTER TABLE milk_monthly_aggregates DROP COLUMN IF EXISTS litres,
+                                    DROP COLUMN IF EXISTS amount;
+ALTER TABLE payments                DROP COLUMN IF EXISTS amount;
+ALTER TABLE customer_balances       DROP COLUMN IF EXISTS billed_litres,
+                                    DROP COLUMN IF EXISTS billed_amount,
+                                    DROP COLUMN IF EXISTS paid_amount;
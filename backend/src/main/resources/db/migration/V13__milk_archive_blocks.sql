@@ -0,0 +1,27 @@
+-- ==========================
+-- ARCHIVED MONTHS (MilkArchiveService)
+-- A closed (user, shift, month) of milk entries folded into one block of
+-- per-customer runs (MilkArchiveCodec): consecutive days with the same
+-- quantity, rate and amount become one run, compressed, with a CRC-32 of
+-- the runs. Once a block is written and verified, the month's raw rows and
+-- daily aggregates are deleted; its monthly aggregates stay.
+--
+-- entry_count / litres_ml / amount_paise repeat the block's totals so the
+-- month can be checked without decoding it.
+-- ==========================
+
+CREATE TABLE IF NOT EXISTS milk_archive_blocks (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id        BIGINT       NOT NULL,
+    shift          VARCHAR(255) NOT NULL,
+    month_start    DATE         NOT NULL,
+    format_version INTEGER      NOT NULL,
+    entry_count    INTEGER      NOT NULL,
+    run_count      INTEGER      NOT NULL,
+    litres_ml      BIGINT       NOT NULL,
+    amount_paise   BIGINT       NOT NULL,
+    checksum       BIGINT       NOT NULL,
+    data           BYTEA        NOT NULL,
+    created_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT ux_milk_archive_blocks_user_shift_month UNIQUE (user_id, shift, month_start)
+);
@@ -0,0 +1,15 @@
+-- ==========================
+-- PASSWORD RESET OTPS (DatabaseOtpStore, otp.store=database)
+-- The live OTP of each account, so a reset works after a restart and on a
+-- different node from the one that sent the email. Expired rows are
+-- deleted in the background through the expires_at index.
+-- ==========================
+
+CREATE TABLE IF NOT EXISTS password_reset_otps (
+    email      VARCHAR(320) PRIMARY KEY,
+    otp        VARCHAR(16)  NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_password_reset_otps_expires_at
+    ON password_reset_otps (expires_at);
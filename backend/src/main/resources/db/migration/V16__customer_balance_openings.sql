@@ -0,0 +1,17 @@
+-- ==========================
+-- CUSTOMER BALANCE OPENINGS (PartitionMaintenanceService, CustomerBalanceService)
+-- What the months detached by partitions.retention-months billed and
+-- settled, per customer. Each month is folded in by the transaction that
+-- detaches it, and the nightly balance verification adds these rows back,
+-- so balances neither lose a detached month nor count it twice.
+-- ==========================
+
+CREATE TABLE IF NOT EXISTS customer_balance_openings (
+    customer_id  BIGINT PRIMARY KEY REFERENCES customer (id) ON DELETE CASCADE,
+    user_id      BIGINT NOT NULL,
+    billed_ml    BIGINT NOT NULL DEFAULT 0,
+    billed_paise BIGINT NOT NULL DEFAULT 0,
+    paid_paise   BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_balance_openings_user ON customer_balance_openings (user_id);
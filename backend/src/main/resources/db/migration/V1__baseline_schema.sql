@@ -0,0 +1,48 @@
+-- ==========================
+-- BASELINE SCHEMA
+-- Matches what ddl-auto=update created before migrations were introduced,
+-- so it is a no-op on existing databases and builds a fresh one from scratch.
+-- ==========================
+
+CREATE TABLE IF NOT EXISTS users (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email       VARCHAR(255),
+    name        VARCHAR(255),
+    password    VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS customer (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                 BIGINT,
+    full_name               VARCHAR(255),
+    nickname                VARCHAR(255),
+    shift                   VARCHAR(255),
+    price_per_litre         FLOAT(53),
+    active                  BOOLEAN NOT NULL,
+    reminder_enabled        BOOLEAN,
+    reminder_time           TIME(6),
+    reminder_shift          VARCHAR(255),
+    reminder_interval_days  INTEGER,
+    last_reminder_sent      DATE
+);
+
+CREATE TABLE IF NOT EXISTS milk_entries (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    customer_name   VARCHAR(255),
+    shift           VARCHAR(255),
+    litres          FLOAT(53) NOT NULL,
+    rate            FLOAT(53) NOT NULL,
+    amount          FLOAT(53) NOT NULL,
+    date            DATE NOT NULL,
+    user_id         BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS payments (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    customer_name   VARCHAR(255),
+    shift           VARCHAR(255),
+    paid            BOOLEAN NOT NULL,
+    date            DATE,
+    user_id         BIGINT NOT NULL,
+    UNIQUE (customer_name, shift, date, user_id)
+);
@@ -0,0 +1,28 @@
+-- ==========================
+-- MATERIALIZED MILK AGGREGATES (MilkAggregateService)
+-- Rows are backfilled by the application on first start.
+-- ==========================
+
+CREATE TABLE IF NOT EXISTS milk_daily_aggregates (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id         BIGINT NOT NULL,
+    shift           VARCHAR(255),
+    customer_key    VARCHAR(255) NOT NULL,
+    date            DATE NOT NULL,
+    litres          FLOAT(53) NOT NULL,
+    amount          FLOAT(53) NOT NULL,
+    entry_count     INTEGER NOT NULL,
+    UNIQUE (user_id, shift, date, customer_key)
+);
+
+CREATE TABLE IF NOT EXISTS milk_monthly_aggregates (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id         BIGINT NOT NULL,
+    shift           VARCHAR(255),
+    customer_key    VARCHAR(255) NOT NULL,
+    month_start     DATE NOT NULL,
+    litres          FLOAT(53) NOT NULL,
+    amount          FLOAT(53) NOT NULL,
+    entry_count     INTEGER NOT NULL,
+    UNIQUE (user_id, shift, month_start, customer_key)
+);
@@ -0,0 +1,65 @@
+-- ==========================
+-- INDEXES FOR REPOSITORY ACCESS PATHS
+-- Names match the @Index declarations on the entities.
+-- ==========================
+
+-- milk_entries: one row per (user, shift, date, customer) is what the upsert in
+-- MilkEntryController intends. Concurrent saves left some keys with several
+-- rows; the newest one stays and the older ones are moved, not deleted, to
+-- milk_entries_duplicates (with the id of the row that stayed), so they can
+-- be reviewed and re-entered by hand.
+CREATE TABLE IF NOT EXISTS milk_entries_duplicates AS
+SELECT m.*, 0::BIGINT AS kept_id, NOW() AS moved_at
+FROM milk_entries m
+WITH NO DATA;
+
+INSERT INTO milk_entries_duplicates
+SELECT m.*, k.kept_id, NOW()
+FROM milk_entries m
+JOIN (SELECT user_id, shift, date, customer_name, MAX(id) AS kept_id
+      FROM milk_entries
+      GROUP BY user_id, shift, date, customer_name
+      HAVING COUNT(*) > 1) k
+  ON m.user_id = k.user_id
+ AND m.shift IS NOT DISTINCT FROM k.shift
+ AND m.date = k.date
+ AND m.customer_name IS NOT DISTINCT FROM k.customer_name
+WHERE m.id < k.kept_id;
+
+DELETE FROM milk_entries m
+USING milk_entries_duplicates d
+WHERE m.id = d.id;
+
+DO $$
+DECLARE
+    moved BIGINT;
+BEGIN
+    SELECT COUNT(*) INTO moved FROM milk_entries_duplicates;
+    IF moved > 0 THEN
+        RAISE WARNING '% duplicate milk_entries rows moved to milk_entries_duplicates', moved;
+    END IF;
+END $$;
+
+-- findByUserIdAndShiftAndDateAndCustomerName (full key) and every
+-- (user_id, shift[, date range]) read as a prefix
+CREATE UNIQUE INDEX IF NOT EXISTS ux_milk_entries_user_shift_date_customer
+    ON milk_entries (user_id, shift, date, customer_name);
+
+-- findByShiftAndUserIdAndActive / findByShiftAndUserId / findByUserIdAndActive /
+-- findCustomerByNameForUser
+CREATE INDEX IF NOT EXISTS idx_customer_user_shift_active
+    ON customer (user_id, shift, active);
+
+-- findAllWithRemindersEnabled only ever wants the few rows with reminders on
+CREATE INDEX IF NOT EXISTS idx_customer_reminders_enabled
+    ON customer (user_id)
+    WHERE reminder_enabled = true AND reminder_time IS NOT NULL;
+
+-- findByShiftAndDateAndUserId / findAllMatchingForUser /
+-- findByShiftAndPaidFalseAndDateAndUserId (the unique key leads with customer_name)
+CREATE INDEX IF NOT EXISTS idx_payments_user_shift_date
+    ON payments (user_id, shift, date);
+
+-- findByEmail (login, register, forgot/reset)
+CREATE INDEX IF NOT EXISTS idx_users_email
+    ON users (email);
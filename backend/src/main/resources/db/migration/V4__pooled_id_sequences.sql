@@ -0,0 +1,18 @@
+-- ==========================
+-- POOLED ID SEQUENCES
+-- MilkEntry and the aggregate tables switch from IDENTITY to a sequence with
+-- allocationSize = 50, which lets Hibernate batch their inserts. The identity
+-- defaults stay in place; Hibernate now supplies the ids itself.
+--
+-- Hibernate's pooled optimizer hands out (value - 49 .. value], so each
+-- sequence starts one block above the current max id.
+-- ==========================
+
+CREATE SEQUENCE IF NOT EXISTS milk_entries_seq INCREMENT BY 50;
+SELECT setval('milk_entries_seq', COALESCE((SELECT MAX(id) FROM milk_entries), 0) + 50);
+
+CREATE SEQUENCE IF NOT EXISTS milk_daily_aggregates_seq INCREMENT BY 50;
+SELECT setval('milk_daily_aggregates_seq', COALESCE((SELECT MAX(id) FROM milk_daily_aggregates), 0) + 50);
+
+CREATE SEQUENCE IF NOT EXISTS milk_monthly_aggregates_seq INCREMENT BY 50;
+SELECT setval('milk_monthly_aggregates_seq', COALESCE((SELECT MAX(id) FROM milk_monthly_aggregates), 0) + 50);
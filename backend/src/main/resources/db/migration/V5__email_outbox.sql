@@ -0,0 +1,22 @@
+-- ==========================
+-- EMAIL OUTBOX (EmailService / EmailOutboxWorker)
+-- Callers insert a PENDING row and return; workers claim due rows with
+-- FOR UPDATE SKIP LOCKED, so the status index leads with status.
+-- ==========================
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    recipient       VARCHAR(320) NOT NULL,
+    subject         VARCHAR(998) NOT NULL,
+    html            TEXT NOT NULL,
+    status          VARCHAR(16) NOT NULL,
+    attempts        INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    claimed_at      TIMESTAMP(6) WITH TIME ZONE,
+    sent_at         TIMESTAMP(6) WITH TIME ZONE,
+    created_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    last_error      VARCHAR(1000)
+);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_status_next
+    ON email_outbox (status, next_attempt_at);
@@ -0,0 +1,9 @@
+-- ==========================
+-- KEYSET INDEX FOR THE ENTRY HISTORY
+-- GET /api/milk/history seeks on (date, id) below a cursor inside one
+-- (user_id, shift) and reads it backwards; the trailing id makes the order
+-- total so a page boundary never splits or repeats rows of the same day.
+-- ==========================
+
+CREATE INDEX IF NOT EXISTS idx_milk_entries_user_shift_date_id
+    ON milk_entries (user_id, shift, date, id);
@@ -0,0 +1,13 @@
+-- ==========================
+-- DATA VERSIONS (DataVersionService)
+-- One change counter per (user, scope); ETags of the overview, customer and
+-- payment pages are built from them. Bumped in the same transaction as the
+-- write they describe.
+-- ==========================
+
+CREATE TABLE IF NOT EXISTS data_versions (
+    user_id BIGINT       NOT NULL,
+    scope   VARCHAR(100) NOT NULL,
+    version BIGINT       NOT NULL,
+    PRIMARY KEY (user_id, scope)
+);
@@ -0,0 +1,158 @@
+-- ==========================
+-- CUSTOMER LINKS
+-- milk_entries, payments and the milk aggregates get a customer_id next to
+-- the typed name, so reports join on an integer key instead of
+-- LOWER(TRIM(name)) comparisons.
+--
+-- Runs outside a transaction (see V9__customer_links.sql.conf): the backfill
+-- commits every 10,000 ids so row locks stay short while the application
+-- keeps writing, and the indexes are built CONCURRENTLY. Every step is
+-- idempotent, so a run interrupted half-way can be repeated (after dropping
+-- any index an interrupted concurrent build left INVALID).
+-- ==========================
+
+ALTER TABLE milk_entries            ADD COLUMN IF NOT EXISTS customer_id BIGINT;
+ALTER TABLE payments                ADD COLUMN IF NOT EXISTS customer_id BIGINT;
+ALTER TABLE milk_daily_aggregates   ADD COLUMN IF NOT EXISTS customer_id BIGINT;
+ALTER TABLE milk_monthly_aggregates ADD COLUMN IF NOT EXISTS customer_id BIGINT;
+
+-- --------------------------
+-- Name -> customer, resolved the way the application does it: within one
+-- (user_id, shift), trimmed and case-insensitive, full name or nickname.
+-- Active customers win over inactive ones, then the lowest id, then the
+-- full name over a nickname.
+-- --------------------------
+CREATE TEMPORARY TABLE customer_name_links AS
+SELECT DISTINCT ON (user_id, shift, name_key) user_id, shift, name_key, customer_id
+FROM (
+    SELECT user_id, shift, LOWER(TRIM(full_name)) AS name_key, id AS customer_id, active, 0 AS pref
+    FROM customer
+    WHERE full_name IS NOT NULL
+    UNION ALL
+    SELECT user_id, shift, LOWER(TRIM(nickname)), id, active, 1
+    FROM customer
+    WHERE nickname IS NOT NULL
+) names
+WHERE name_key <> ''
+ORDER BY user_id, shift, name_key, active DESC, customer_id, pref;
+
+CREATE INDEX ON customer_name_links (user_id, shift, name_key);
+ANALYZE customer_name_links;
+
+-- --------------------------
+-- Batched backfill, one id range per transaction
+-- --------------------------
+DO $$
+DECLARE
+    lo BIGINT;
+    hi BIGINT;
+BEGIN
+    SELECT MIN(id), MAX(id) INTO lo, hi FROM milk_entries;
+    WHILE lo <= hi LOOP
+        UPDATE milk_entries m
+        SET customer_id = l.customer_id
+        FROM customer_name_links l
+        WHERE m.id >= lo AND m.id < lo + 10000
+          AND m.customer_id IS NULL
+          AND l.user_id = m.user_id
+          AND l.shift = m.shift
+          AND l.name_key = LOWER(TRIM(m.customer_name));
+        COMMIT;
+        lo := lo + 10000;
+    END LOOP;
+END $$;
+
+DO $$
+DECLARE
+    lo BIGINT;
+    hi BIGINT;
+BEGIN
+    SELECT MIN(id), MAX(id) INTO lo, hi FROM payments;
+    WHILE lo <= hi LOOP
+        UPDATE payments p
+        SET customer_id = l.customer_id
+        FROM customer_name_links l
+        WHERE p.id >= lo AND p.id < lo + 10000
+          AND p.customer_id IS NULL
+          AND l.user_id = p.user_id
+          AND l.shift = p.shift
+          AND l.name_key = LOWER(TRIM(p.customer_name));
+        COMMIT;
+        lo := lo + 10000;
+    END LOOP;
+END $$;
+
+-- aggregate keys are already lower-cased names
+DO $$
+DECLARE
+    lo BIGINT;
+    hi BIGINT;
+BEGIN
+    SELECT MIN(id), MAX(id) INTO lo, hi FROM milk_daily_aggregates;
+    WHILE lo <= hi LOOP
+        UPDATE milk_daily_aggregates a
+        SET customer_id = l.customer_id
+        FROM customer_name_links l
+        WHERE a.id >= lo AND a.id < lo + 10000
+          AND a.customer_id IS NULL
+          AND l.user_id = a.user_id
+          AND l.shift = a.shift
+          AND l.name_key = TRIM(a.customer_key);
+        COMMIT;
+        lo := lo + 10000;
+    END LOOP;
+END $$;
+
+DO $$
+DECLARE
+    lo BIGINT;
+    hi BIGINT;
+BEGIN
+    SELECT MIN(id), MAX(id) INTO lo, hi FROM milk_monthly_aggregates;
+    WHILE lo <= hi LOOP
+        UPDATE milk_monthly_aggregates a
+        SET customer_id = l.customer_id
+        FROM customer_name_links l
+        WHERE a.id >= lo AND a.id < lo + 10000
+          AND a.customer_id IS NULL
+          AND l.user_id = a.user_id
+          AND l.shift = a.shift
+          AND l.name_key = TRIM(a.customer_key);
+        COMMIT;
+        lo := lo + 10000;
+    END LOOP;
+END $$;
+
+DROP TABLE customer_name_links;
+
+-- --------------------------
+-- Indexes (no write lock while they build)
+-- --------------------------
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_milk_entries_customer_date
+    ON milk_entries (customer_id, date);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payments_customer_date
+    ON payments (customer_id, date);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_milk_monthly_aggregates_customer
+    ON milk_monthly_aggregates (customer_id);
+
+-- --------------------------
+-- Foreign keys: added NOT VALID (no scan under the ALTER's lock), then
+-- validated, which only takes a SHARE UPDATE EXCLUSIVE lock.
+-- Customers are soft-deleted; a hard delete keeps history by name.
+-- --------------------------
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_milk_entries_customer') THEN
+        ALTER TABLE milk_entries ADD CONSTRAINT fk_milk_entries_customer
+            FOREIGN KEY (customer_id) REFERENCES customer (id) ON DELETE SET NULL NOT VALID;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'fk_payments_customer') THEN
+        ALTER TABLE payments ADD CONSTRAINT fk_payments_customer
+            FOREIGN KEY (customer_id) REFERENCES customer (id) ON DELETE SET NULL NOT VALID;
+    END IF;
+END $$;
+
+ALTER TABLE milk_entries VALIDATE CONSTRAINT fk_milk_entries_customer;
+ALTER TABLE payments VALIDATE CONSTRAINT fk_payments_customer;
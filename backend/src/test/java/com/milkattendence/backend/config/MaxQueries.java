@@ -0,0 +1,22 @@
+package com.milkattendence.backend.config;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails the test if its body runs more than {@code value} SQL statements
+ * (counted by {@link QueryCountingDataSource} on the test thread, which
+ * includes MockMvc requests). Fixture loading belongs in @BeforeEach /
+ * @BeforeAll, which run outside the budget.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(MaxQueriesExtension.class)
+public @interface MaxQueries {
+
+	int value();
+}
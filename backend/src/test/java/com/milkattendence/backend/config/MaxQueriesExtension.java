@@ -0,0 +1,31 @@
+package com.milkattendence.backend.config;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Opens a {@link QueryScope} around the test method and checks it against
+ * the method's {@link MaxQueries} budget.
+ */
+class MaxQueriesExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+	private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(MaxQueriesExtension.class);
+
+	@Override
+	public void beforeTestExecution(ExtensionContext context) {
+		context.getStore(NAMESPACE).put(context.getUniqueId(), QueryScope.open());
+	}
+
+	@Override
+	public void afterTestExecution(ExtensionContext context) {
+		QueryScope scope = context.getStore(NAMESPACE).remove(context.getUniqueId(), QueryScope.class);
+		scope.close();
+
+		MaxQueries budget = context.getRequiredTestMethod().getAnnotation(MaxQueries.class);
+		if (budget != null && scope.statements() > budget.value()) {
+			throw new AssertionError(String.format("%s ran %d SQL statements, budget is %d (%d entities loaded)",
+					context.getDisplayName(), scope.statements(), budget.value(), scope.entityLoads()));
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package com.milkattendence.backend.config;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * One embedded PostgreSQL server for the whole test run (started on first
+ * use, stopped when the JVM exits). Each test class asks for its own empty
+ * database on it, so migrations always start from nothing.
+ */
+public final class PostgresTestDatabase {
+
+	public static final String USER = "postgres";
+	public static final String PASSWORD = "postgres";
+
+	private static EmbeddedPostgres server;
+
+	private PostgresTestDatabase() {}
+
+	/** Creates database {@code name} and returns its JDBC URL. */
+	public static synchronized String create(String name) {
+		try (Connection con = server().getPostgresDatabase().getConnection();
+			 Statement st = con.createStatement()) {
+			st.execute("DROP DATABASE IF EXISTS " + name);
+			st.execute("CREATE DATABASE " + name);
+		} catch (SQLException e) {
+			throw new IllegalStateException("could not create test database " + name, e);
+		}
+		return server.getJdbcUrl(USER, name);
+	}
+
+	public static DataSource dataSource(String url) {
+		return new DriverManagerDataSource(url, USER, PASSWORD);
+	}
+
+	private static EmbeddedPostgres server() {
+		if (server == null) {
+			try {
+				server = EmbeddedPostgres.builder().start();
+			} catch (IOException e) {
+				throw new UncheckedIOException("could not start embedded PostgreSQL", e);
+			}
+			EmbeddedPostgres started = server;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					started.close();
+				} catch (IOException ignored) {
+					// the JVM is going away either way
+				}
+			}));
+		}
+		return server;
+	}
+}
@@ -0,0 +1,70 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.model.User;
+import com.milkattendence.backend.repository.UserRepository;
+import com.milkattendence.backend.service.OtpStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"SENDGRID_API_KEY=test-key",
+		"admin.email=admin@example.com"
+})
+@AutoConfigureMockMvc
+class AuthControllerTests {
+
+	private static final int USERS = 5;
+
+	@Autowired private MockMvc mvc;
+	@Autowired private UserRepository userRepository;
+	@Autowired private OtpStore otpStore;
+
+	@Test
+	void aFloodOfForgotRequestsHoldsOneOtpPerAccount() throws Exception {
+		for (int u = 0; u < USERS; u++) userRepository.save(new User("flood" + u + "@example.com", "secret"));
+		long before = otpStore.size();
+
+		for (int i = 0; i < 4 * USERS; i++) {
+			mvc.perform(post("/api/auth/forgot").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"email\":\"flood" + (i % USERS) + "@example.com\"}"))
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.success").value(true));
+			// unknown emails never reach the store
+			mvc.perform(post("/api/auth/forgot").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"email\":\"nobody" + i + "@example.com\"}"))
+					.andExpect(jsonPath("$.success").value(false));
+		}
+
+		assertThat(otpStore.size() - before).isEqualTo(USERS);
+	}
+
+	@Test
+	void resetChecksTheStoredOtpOnce() throws Exception {
+		userRepository.save(new User("reset@example.com", "old"));
+		otpStore.put("reset@example.com", "424242", Duration.ofMinutes(10));
+
+		mvc.perform(post("/api/auth/reset").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"email\":\"reset@example.com\",\"otp\":\"000000\",\"newPassword\":\"new\"}"))
+				.andExpect(jsonPath("$.error").value("Invalid OTP"));
+		mvc.perform(post("/api/auth/reset").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"email\":\"reset@example.com\",\"otp\":\"424242\",\"newPassword\":\"new\"}"))
+				.andExpect(jsonPath("$.success").value(true));
+		mvc.perform(post("/api/auth/reset").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"email\":\"reset@example.com\",\"otp\":\"424242\",\"newPassword\":\"again\"}"))
+				.andExpect(jsonPath("$.error").value("OTP not found. Request again."));
+
+		assertThat(userRepository.findByEmail("reset@example.com")).get()
+				.extracting(User::getPassword).isEqualTo("new");
+	}
+}
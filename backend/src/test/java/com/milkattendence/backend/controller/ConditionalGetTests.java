@@ -0,0 +1,178 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.config.MaxQueries;
+import com.milkattendence.backend.repository.DataVersionRepository;
+import com.milkattendence.backend.service.DataVersionService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConditionalGetTests {
+
+	private static final long USER = 9301L;
+
+	@Autowired private MockMvc mvc;
+	@Autowired private Clock clock;
+	@Autowired private DataVersionService versions;
+	@Autowired private DataVersionRepository repository;
+	@Autowired private TransactionTemplate tx;
+
+	private final List<String> tags = new ArrayList<>();
+	private LocalDate today;
+	private long customerId;
+
+	@BeforeAll
+	void createCustomer() throws Exception {
+		today = LocalDate.now(clock);
+		String body = mvc.perform(post("/api/customers").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userId\":" + USER + ",\"fullName\":\"Asha\",\"shift\":\"Morning\",\"pricePerLitre\":50}"))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString();
+		customerId = Long.parseLong(body.replaceAll(".*\"id\":(\\d+).*", "$1"));
+	}
+
+	// current tag of every page, fetched outside the @MaxQueries budget
+	@BeforeEach
+	void fetchTags() throws Exception {
+		tags.clear();
+		for (MockHttpServletRequestBuilder page : pages()) tags.add(etag(page));
+	}
+
+	@Test
+	@MaxQueries(0)
+	void matchingTagIsAnsweredWithoutAnyQuery() throws Exception {
+		MockHttpServletRequestBuilder[] pages = pages();
+		for (int i = 0; i < pages.length; i++) {
+			mvc.perform(pages[i].header(HttpHeaders.IF_NONE_MATCH, tags.get(i)))
+					.andExpect(status().isNotModified())
+					.andExpect(header().string(HttpHeaders.ETAG, tags.get(i)));
+		}
+	}
+
+	@Test
+	void milkEntryChangesOnlyItsMonth() throws Exception {
+		String overview = etag(overview(today));
+		String otherMonth = etag(overview(today.minusMonths(2)));
+		String customers = etag(customers());
+
+		saveEntry(today, 2.0);
+
+		assertThat(etag(overview(today))).isNotEqualTo(overview);
+		assertThat(etag(overview(today.minusMonths(2)))).isEqualTo(otherMonth);
+		assertThat(etag(customers())).isEqualTo(customers);
+		mvc.perform(overview(today).header(HttpHeaders.IF_NONE_MATCH, overview)).andExpect(status().isOk());
+	}
+
+	@Test
+	void customerChangeInvalidatesEveryPage() throws Exception {
+		String overview = etag(overview(today));
+		String payments = etag(payments());
+		String customers = etag(customers());
+
+		mvc.perform(put("/api/customers/" + customerId).contentType(MediaType.APPLICATION_JSON)
+						.content("{\"fullName\":\"Asha\",\"shift\":\"Morning\",\"pricePerLitre\":55,\"active\":true}"))
+				.andExpect(status().isOk());
+
+		assertThat(etag(overview(today))).isNotEqualTo(overview);
+		assertThat(etag(payments())).isNotEqualTo(payments);
+		assertThat(etag(customers())).isNotEqualTo(customers);
+	}
+
+	@Test
+	void paymentChangesThePaymentsTag() throws Exception {
+		String payments = etag(payments());
+
+		mvc.perform(post("/api/payments").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userId\":" + USER + ",\"customerName\":\"Asha\",\"shift\":\"Morning\",\"paid\":true}"))
+				.andExpect(status().isOk());
+
+		assertThat(etag(payments())).isNotEqualTo(payments);
+	}
+
+	@Test
+	void legacyAndCompactOverviewHaveDifferentTags() throws Exception {
+		assertThat(etag(overview(today).param("format", "compact"))).isNotEqualTo(etag(overview(today)));
+	}
+
+	@Test
+	void countersArePersistedAcrossInstances() throws Exception {
+		saveEntry(today.minusDays(today.getDayOfMonth() - 1), 1.0);
+		long before = versions.month(USER, "Morning", YearMonth.from(today));
+
+		// a fresh service (restart, or another node) reads the same counters back
+		DataVersionService other = new DataVersionService(repository, 100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+		assertThat(other.month(USER, "Morning", YearMonth.from(today))).isEqualTo(before).isPositive();
+		assertThat(other.customers(USER)).isEqualTo(versions.customers(USER)).isPositive();
+	}
+
+	@Test
+	void rolledBackBumpLeavesTheCounterAlone() {
+		YearMonth month = YearMonth.from(today).minusMonths(5);
+		long before = versions.month(USER, "Morning", month);
+
+		tx.executeWithoutResult(status -> {
+			versions.bumpMonth(USER, "Morning", month);
+			status.setRollbackOnly();
+		});
+
+		assertThat(versions.month(USER, "Morning", month)).isEqualTo(before);
+	}
+
+	private void saveEntry(LocalDate date, double litres) throws Exception {
+		mvc.perform(post("/api/milk").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userId\":" + USER + ",\"customerName\":\"Asha\",\"shift\":\"Morning\",\"date\":\""
+								+ date + "\",\"litres\":" + litres + ",\"rate\":50}"))
+				.andExpect(status().isOk());
+	}
+
+	private String etag(MockHttpServletRequestBuilder request) throws Exception {
+		String tag = mvc.perform(request).andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(tag).startsWith("\"");
+		return tag;
+	}
+
+	private MockHttpServletRequestBuilder[] pages() {
+		return new MockHttpServletRequestBuilder[]{
+				overview(today), overview(today).param("format", "compact"), customers(), payments()};
+	}
+
+	private MockHttpServletRequestBuilder overview(LocalDate month) {
+		return get("/api/overview").param("userId", "" + USER).param("shift", "Morning")
+				.param("month", "" + month.getMonthValue()).param("year", "" + month.getYear());
+	}
+
+	private MockHttpServletRequestBuilder customers() {
+		return get("/api/customers").param("userId", "" + USER).param("shift", "Morning");
+	}
+
+	private MockHttpServletRequestBuilder payments() {
+		return get("/api/payments/Morning").param("userId", "" + USER);
+	}
+}
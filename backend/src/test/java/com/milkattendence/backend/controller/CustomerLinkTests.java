@@ -0,0 +1,135 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.model.Payment;
+import com.milkattendence.backend.repository.MilkEntryRepository;
+import com.milkattendence.backend.repository.MilkReportRepository;
+import com.milkattendence.backend.repository.PaymentRepository;
+import com.milkattendence.backend.repository.projection.UnpaidReportRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.milkattendence.backend.service.CustomerFixtures.customer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CustomerLinkTests {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 7, 9);
+
+	@Autowired
+	private MilkEntryController milkController;
+
+	@Autowired
+	private CustomerController customerController;
+
+	@Autowired
+	private OverviewController overviewController;
+
+	@Autowired
+	private PaymentController paymentController;
+
+	@Autowired
+	private MilkEntryRepository entryRepository;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private MilkReportRepository reportRepository;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void renamedCustomerKeepsHistory() {
+		long userId = 9401L;
+		Customer asha = customerController.addCustomer(customer(userId, "Asha")).getBody();
+
+		MilkEntry saved = milkController.addOrUpdateEntry(entry(userId, "Asha", null, 2.0));
+		assertThat(saved.getCustomerId()).isEqualTo(asha.getId());
+
+		asha.setFullName("Asha Devi");
+		customerController.updateCustomer(asha.getId(), asha);
+
+		// by id only: updates the row typed as "Asha" instead of adding one
+		milkController.addOrUpdateEntry(entry(userId, null, asha.getId(), 3.0));
+		List<MilkEntry> rows = entryRepository.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(userId, "Morning", DAY, DAY);
+		assertThat(rows).singleElement().satisfies(e -> {
+			assertThat(e.getCustomerName()).isEqualTo("Asha");
+			assertThat(e.getLitres()).isEqualTo(3.0);
+		});
+
+		Map<String, Object> overview = overviewController.getOverview("Morning", DAY.getMonthValue(), DAY.getYear(), userId, request());
+		assertThat((Map<Long, Double>) overview.get("totalLitresPerCustomer")).containsEntry(asha.getId(), 3.0);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void paymentsFollowTheCustomerId() {
+		long userId = 9402L;
+		LocalDate today = LocalDate.now(ZoneId.of("Asia/Kolkata"));
+		Customer ravi = customerController.addCustomer(customer(userId, "Ravi")).getBody();
+		milkController.addOrUpdateEntry(entry(userId, "Ravi", null, 4.0));
+
+		// seeded rows carry the customer id
+		Map<String, Object> page = paymentController.getPaymentsByShift("Morning", userId, request());
+		assertThat((List<Payment>) page.get("payments"))
+				.singleElement()
+				.satisfies(p -> assertThat(p.getCustomerId()).isEqualTo(ravi.getId()));
+
+		ravi.setFullName("Ravi Kumar");
+		customerController.updateCustomer(ravi.getId(), ravi);
+
+		// the unpaid report still finds Ravi's balance through the id
+		assertThat(reportRepository.findUnpaidReport(userId, "Morning", today))
+				.singleElement()
+				.satisfies(r -> {
+					assertThat(r.customerName()).isEqualTo("Ravi");
+					assertThat(r.litres()).isEqualTo(4.0);
+					assertThat(r.outstanding()).isEqualTo(200.0);
+				});
+
+		Map<String, Object> body = new HashMap<>();
+		body.put("customerId", ravi.getId());
+		body.put("shift", "Morning");
+		body.put("paid", true);
+		body.put("userId", userId);
+		assertThat(paymentController.savePayment(body)).containsEntry("success", true);
+
+		assertThat(paymentRepository.findByShiftAndDateAndUserId("Morning", today, userId))
+				.singleElement()
+				.satisfies(p -> assertThat(p.isPaid()).isTrue());
+		assertThat(reportRepository.findUnpaidReport(userId, "Morning", today))
+				.extracting(UnpaidReportRow::customerName)
+				.isEmpty();
+	}
+
+	@Test
+	void rejectsUnknownCustomerId() {
+		assertThatThrownBy(() -> milkController.addOrUpdateEntry(entry(9403L, null, 987_654L, 1.0)))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+	}
+
+	private static MilkEntry entry(long userId, String customerName, Long customerId, double litres) {
+		MilkEntry e = new MilkEntry(customerName, "Morning", litres, 50.0, 0, DAY, userId);
+		e.setCustomerId(customerId);
+		return e;
+	}
+
+	private static ServletWebRequest request() {
+		return new ServletWebRequest(new MockHttpServletRequest());
+	}
+}
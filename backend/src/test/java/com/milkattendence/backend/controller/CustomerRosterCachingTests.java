@@ -0,0 +1,50 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Map;
+
+import static com.milkattendence.backend.service.CustomerFixtures.customer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CustomerRosterCachingTests {
+
+	@Autowired
+	private CustomerController customerController;
+
+	@Autowired
+	private PaymentController paymentController;
+
+	@Test
+	void everyCustomerWriteIsVisibleOnTheNextRead() {
+		long userId = 6001L;
+		assertThat(customerController.getCustomers(userId, "Morning", request())).isEmpty();
+
+		Customer asha = customerController.addCustomer(customer(userId, "Asha")).getBody();
+		assertThat(customerController.getCustomers(userId, "Morning", request()))
+				.extracting(Customer::getFullName).containsExactly("Asha");
+
+		asha.setFullName("Asha Devi");
+		customerController.updateCustomer(asha.getId(), asha);
+		assertThat(customerController.getCustomers(userId, null, request()))
+				.extracting(Customer::getFullName).containsExactly("Asha Devi");
+
+		paymentController.saveReminder(Map.of("userId", userId, "shift", "Morning", "time", "07:15", "enabled", true));
+		assertThat(customerController.getCustomers(userId, "Morning", request()).get(0).getReminderEnabled()).isTrue();
+
+		customerController.deleteCustomer(asha.getId());
+		assertThat(customerController.getCustomers(userId, "Morning", request())).isEmpty();
+		assertThat(customerController.getCustomers(userId, null, request())).isEmpty();
+	}
+
+	// a plain GET without If-None-Match
+	private static ServletWebRequest request() {
+		return new ServletWebRequest(new MockHttpServletRequest());
+	}
+}
@@ -0,0 +1,149 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.service.LedgerExportService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LedgerExportTests {
+
+	private static final long USER = 9201L;
+	private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+	@Autowired private MockMvc mvc;
+	@Autowired private JdbcTemplate jdbc;
+	@Autowired private LedgerExportService exportService;
+
+	@BeforeAll
+	void loadFixture() {
+		jdbc.batchUpdate("INSERT INTO milk_entries (id, customer_name, shift, litres_ml, rate_paise, amount_paise, date, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", List.of(
+				new Object[]{70_000_001L, "Asha", "Morning", 1_500L, 5_000L, 7_500L, Date.valueOf(DAY), USER},
+				new Object[]{70_000_002L, "Ravi, Jr \"RJ\"", "Morning", 2_000L, 4_500L, 9_000L, Date.valueOf(DAY), USER},
+				new Object[]{70_000_003L, "=HYPERLINK(1)", "Evening", 1_000L, 5_000L, 5_000L, Date.valueOf(DAY), USER},
+				new Object[]{70_000_004L, "Asha", "Morning", 1_000L, 5_000L, 5_000L, Date.valueOf(DAY.plusDays(1)), USER},
+				new Object[]{70_000_005L, "Other user", "Morning", 1_000L, 5_000L, 5_000L, Date.valueOf(DAY), USER + 1}
+		));
+		jdbc.batchUpdate("INSERT INTO payments (customer_name, shift, paid, date, user_id) VALUES (?, ?, ?, ?, ?)", List.of(
+				new Object[]{"Asha", "Morning", true, Date.valueOf(DAY), USER},
+				new Object[]{"Asha", "Morning", false, Date.valueOf(DAY.plusDays(1)), USER}
+		));
+	}
+
+	@Test
+	void milkCsvIsOrderedByShiftDateCustomerAndEscaped() throws Exception {
+		MockHttpServletResponse response = download(get("/api/export/milk").param("userId", "" + USER));
+
+		assertThat(response.getContentType()).startsWith("text/csv");
+		assertThat(response.getHeader("Content-Disposition")).contains("milk-9201.csv");
+		assertThat(response.getContentAsString(StandardCharsets.UTF_8).split("\r\n")).containsExactly(
+				"Date,Shift,Customer,Litres,Rate,Amount",
+				"2024-03-01,Evening,'=HYPERLINK(1),1,50,50",
+				"2024-03-01,Morning,Asha,1.5,50,75",
+				"2024-03-01,Morning,\"Ravi, Jr \"\"RJ\"\"\",2,45,90",
+				"2024-03-02,Morning,Asha,1,50,50");
+	}
+
+	@Test
+	void paymentsCsvHonoursFiltersAndGzip() throws Exception {
+		MockHttpServletResponse response = download(get("/api/export/payments")
+				.param("userId", "" + USER).param("shift", "Morning")
+				.param("from", DAY.plusDays(1).toString()).param("gzip", "true"));
+
+		assertThat(response.getContentType()).isEqualTo("application/gzip");
+		assertThat(response.getHeader("Content-Disposition")).contains("payments-9201-morning.csv.gz");
+		String csv = new String(new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())).readAllBytes(),
+				StandardCharsets.UTF_8);
+		assertThat(csv).isEqualTo("Date,Shift,Customer,Paid\r\n2024-03-02,Morning,Asha,false\r\n");
+	}
+
+	@Test
+	void gzipHeadersAreDecodableBeforeTheQueryRuns() throws Exception {
+		ByteArrayOutputStream firstFlush = new ByteArrayOutputStream();
+		OutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void flush() {
+				if (firstFlush.size() == 0) firstFlush.writeBytes(toByteArray());
+			}
+		};
+		exportService.export(new LedgerExportService.Request(LedgerExportService.Ledger.PAYMENTS, USER, null,
+				null, null, LedgerExportService.Format.CSV, true), out);
+
+		String header = "Date,Shift,Customer,Paid\r\n";
+		byte[] decoded = new GZIPInputStream(new ByteArrayInputStream(firstFlush.toByteArray()))
+				.readNBytes(header.length());
+		assertThat(new String(decoded, StandardCharsets.UTF_8)).isEqualTo(header);
+	}
+
+	@Test
+	void milkXlsxIsAWorkbookWithTypedCells() throws Exception {
+		MockHttpServletResponse response = download(get("/api/export/milk")
+				.param("userId", "" + USER).param("shift", "Evening").param("format", "xlsx"));
+
+		assertThat(response.getContentType()).isEqualTo("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+		Map<String, String> parts = unzip(response.getContentAsByteArray());
+		assertThat(parts).containsKeys("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+				"xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml");
+		assertThat(parts.get("xl/workbook.xml")).contains("<sheet name=\"Sheet1\"");
+
+		String sheet = parts.get("xl/worksheets/sheet1.xml");
+		assertThat(sheet)
+				.contains("<c r=\"A1\" t=\"inlineStr\" s=\"2\"><is><t>Date</t></is></c>")
+				// 2024-03-01 as an Excel serial date
+				.contains("<c r=\"A2\" s=\"1\"><v>45352</v></c>")
+				.contains("<c r=\"C2\" t=\"inlineStr\"><is><t>=HYPERLINK(1)</t></is></c>")
+				.contains("<c r=\"F2\"><v>50.0</v></c>")
+				.doesNotContain("<row r=\"3\"");
+	}
+
+	@Test
+	void unknownFormatIsABadRequest() throws Exception {
+		mvc.perform(get("/api/export/milk").param("userId", "" + USER).param("format", "pdf"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private MockHttpServletResponse download(RequestBuilder request) throws Exception {
+		MvcResult started = mvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+		return mvc.perform(asyncDispatch(started)).andExpect(status().isOk()).andReturn().getResponse();
+	}
+
+	private static Map<String, String> unzip(byte[] bytes) throws IOException {
+		Map<String, String> parts = new HashMap<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+			for (ZipEntry e; (e = zip.getNextEntry()) != null; ) {
+				parts.put(e.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+		return parts;
+	}
+}
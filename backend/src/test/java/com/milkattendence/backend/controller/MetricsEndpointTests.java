@@ -0,0 +1,64 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.repository.CustomerRepository;
+import com.milkattendence.backend.service.DataVersionService;
+import com.milkattendence.backend.service.ReminderScheduler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=health,prometheus")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+class MetricsEndpointTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private ReminderScheduler reminderScheduler;
+
+	@Autowired
+	private DataVersionService versions;
+
+	@Test
+	void prometheusEndpointExposesRequestPoolAndSchedulerMetrics() throws Exception {
+		Customer asha = new Customer();
+		asha.setUserId(7001L);
+		asha.setFullName("Asha");
+		asha.setShift("Morning");
+		asha.setPricePerLitre(50.0);
+		customerRepository.save(asha);
+		versions.customers(7001L); // ETag counters in memory, so the request below is the roster read alone
+
+		mvc.perform(get("/api/customers").param("userId", "7001").param("shift", "Morning"))
+				.andExpect(status().isOk());
+		reminderScheduler.tick();
+
+		String scrape = mvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(scrape)
+				.containsPattern("http_server_requests_seconds_count\\{[^}]*handler=\"CustomerController.getCustomers\"")
+				// roster cache miss: one SELECT, one Customer hydrated
+				.contains("request_sql_statements_sum{handler=\"CustomerController.getCustomers\"} 1.0")
+				.contains("request_entity_loads_sum{handler=\"CustomerController.getCustomers\"} 1.0")
+				.contains("hikaricp_connections_active{")
+				.contains("hikaricp_connections_idle{")
+				.contains("hikaricp_connections_pending{")
+				.contains("reminders_tick_seconds_count")
+				.contains("reminders_lateness_seconds_count");
+	}
+}
@@ -0,0 +1,77 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.dto.MilkBatchRequest;
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.repository.MilkEntryRepository;
+import com.milkattendence.backend.service.MilkAggregateService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MilkEntryBatchTests {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 5, 14);
+
+	@Autowired
+	private MilkEntryController controller;
+
+	@Autowired
+	private MilkEntryRepository repository;
+
+	@Autowired
+	private MilkAggregateService aggregateService;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void savesWholeSheetWithPerRowResults() {
+		long userId = 4001L;
+
+		List<MilkBatchRequest.Row> first = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			first.add(new MilkBatchRequest.Row("Customer " + i, 1.0 + (i % 3), 50.0));
+		}
+		Map<String, Object> resp = controller.saveBatch(new MilkBatchRequest(userId, "Morning", DAY, first));
+
+		assertThat(resp.get("success")).isEqualTo(true);
+		assertThat((Map<String, Integer>) resp.get("counts")).containsEntry("inserted", 500);
+		assertThat(repository.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(userId, "Morning", DAY, DAY)).hasSize(500);
+
+		Map<String, Object> second = controller.saveBatch(new MilkBatchRequest(userId, "Morning", DAY, List.of(
+				new MilkBatchRequest.Row("Customer 0", 1.0, 50.0),     // unchanged
+				new MilkBatchRequest.Row("Customer 1", 4.0, 50.0),     // updated
+				new MilkBatchRequest.Row("Customer 2", 0.0, 50.0),     // deleted
+				new MilkBatchRequest.Row("Newcomer", 2.0, 45.0),       // inserted
+				new MilkBatchRequest.Row("", 1.0, 50.0)                // error
+		)));
+
+		List<Map<String, Object>> results = (List<Map<String, Object>>) second.get("results");
+		assertThat(results).extracting(r -> r.get("status"))
+				.containsExactly("unchanged", "updated", "deleted", "inserted", "error");
+		assertThat(results.get(3).get("id")).isNotNull();
+		assertThat(second.get("success")).isEqualTo(false);
+
+		MilkEntry updated = repository.findByUserIdAndShiftAndDateAndCustomerName(userId, "Morning", DAY, "Customer 1").orElseThrow();
+		assertThat(updated.getAmount()).isEqualTo(200.0);
+		assertThat(repository.findByUserIdAndShiftAndDateAndCustomerName(userId, "Morning", DAY, "Customer 2")).isEmpty();
+
+		// unlinked names match the day's row as single entries do: trimmed, any case
+		Map<String, Object> third = controller.saveBatch(new MilkBatchRequest(userId, "Morning", DAY, List.of(
+				new MilkBatchRequest.Row(" customer 1", 5.0, 50.0))));
+		assertThat((Map<String, Integer>) third.get("counts")).containsEntry("updated", 1);
+		assertThat(repository.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(userId, "Morning", DAY, DAY))
+				.filteredOn(e -> e.getCustomerName().equalsIgnoreCase("Customer 1")).hasSize(1)
+				.first().extracting(MilkEntry::getAmount).isEqualTo(250.0);
+
+		// batch path kept the aggregates exact
+		assertThat(aggregateService.rebuildMonth(userId, "Morning", YearMonth.from(DAY))).isZero();
+	}
+}
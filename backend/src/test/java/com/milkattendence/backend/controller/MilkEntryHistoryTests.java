@@ -0,0 +1,102 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.repository.projection.MilkEntryRow;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MilkEntryHistoryTests {
+
+	private static final long USER = 4101L;
+	private static final LocalDate START = LocalDate.of(2024, 1, 1);
+	private static final int DAYS = 30;
+	private static final int CUSTOMERS = 7; // several rows per day, so pages split inside a date
+
+	@Autowired private MilkEntryController controller;
+	@Autowired private JdbcTemplate jdbc;
+
+	@BeforeAll
+	void loadFixture() {
+		List<Object[]> entries = new ArrayList<>();
+		long id = 80_000_000L; // sequence-backed table: explicit ids clear of the other fixtures
+		for (int d = 0; d < DAYS; d++) {
+			for (int c = 0; c < CUSTOMERS; c++) {
+				Date date = Date.valueOf(START.plusDays(d));
+				entries.add(new Object[]{++id, "Customer " + c, "Morning", 1_000L, 5_000L, 5_000L, date, USER});
+				entries.add(new Object[]{++id, "Customer " + c, "Evening", 2_000L, 5_000L, 10_000L, date, USER});
+			}
+		}
+		jdbc.batchUpdate("INSERT INTO milk_entries (id, customer_name, shift, litres_ml, rate_paise, amount_paise, date, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", entries);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void pagesWalkTheWholeHistoryNewestFirstWithoutGapsOrRepeats() {
+		List<MilkEntryRow> all = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			Map<String, Object> page = controller.getHistory(USER, "Morning", 20, cursor, "full");
+			List<MilkEntryRow> entries = (List<MilkEntryRow>) page.get("entries");
+			assertThat(entries).hasSizeLessThanOrEqualTo(20);
+			all.addAll(entries);
+			cursor = (String) page.get("nextCursor");
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo((DAYS * CUSTOMERS + 19) / 20);
+		assertThat(all).hasSize(DAYS * CUSTOMERS);
+		assertThat(all).extracting(MilkEntryRow::id).doesNotHaveDuplicates();
+		assertThat(all).allSatisfy(r -> assertThat(r.shift()).isEqualTo("Morning"));
+		assertThat(all.get(0).date()).isEqualTo(START.plusDays(DAYS - 1));
+		for (int i = 1; i < all.size(); i++) {
+			MilkEntryRow prev = all.get(i - 1), cur = all.get(i);
+			assertThat(cur.date().isBefore(prev.date())
+					|| (cur.date().equals(prev.date()) && cur.id() < prev.id())).isTrue();
+		}
+	}
+
+	@Test
+	void lastPageHasNoCursor() {
+		Map<String, Object> page = controller.getHistory(USER, "Evening", DAYS * CUSTOMERS, null, "full");
+		assertThat((List<?>) page.get("entries")).hasSize(DAYS * CUSTOMERS);
+		assertThat(page.get("nextCursor")).isNull();
+	}
+
+	@Test
+	void compactViewDropsImpliedFields() {
+		Map<String, Object> page = controller.getHistory(USER, "Morning", 5, null, "compact");
+		assertThat((List<?>) page.get("entries")).hasSize(5)
+				.allSatisfy(e -> assertThat(e).isInstanceOf(MilkEntryRow.Compact.class));
+		assertThat(page.get("nextCursor")).isNotNull();
+	}
+
+	@Test
+	void rejectsBadLimitCursorAndView() {
+		assertThatThrownBy(() -> controller.getHistory(USER, "Morning", 0, null, "full"))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+		assertThatThrownBy(() -> controller.getHistory(USER, "Morning", 501, null, "full"))
+				.isInstanceOf(ResponseStatusException.class);
+		assertThatThrownBy(() -> controller.getHistory(USER, "Morning", 20, "not-a-cursor", "full"))
+				.isInstanceOf(ResponseStatusException.class);
+		assertThatThrownBy(() -> controller.getHistory(USER, "Morning", 20, null, "tiny"))
+				.isInstanceOf(ResponseStatusException.class);
+	}
+}
@@ -0,0 +1,115 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.Payment;
+import com.milkattendence.backend.repository.PaymentRepository;
+import com.milkattendence.backend.service.DataVersionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static com.milkattendence.backend.service.CustomerFixtures.customer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class PaymentSeedingTests {
+
+	@Autowired
+	private PaymentController paymentController;
+
+	@Autowired
+	private CustomerController customerController;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private DataVersionService versions;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void seedsEachActiveCustomerOncePerDay() {
+		long userId = 5001L;
+		LocalDate today = LocalDate.now(ZoneId.of("Asia/Kolkata"));
+
+		customerController.addCustomer(customer(userId, "Asha", null));
+		customerController.addCustomer(customer(userId, "Ravi", "R"));
+		Customer retired = customerController.addCustomer(customer(userId, "Old Timer", null)).getBody();
+		customerController.deleteCustomer(retired.getId());
+		// an existing row with different case must not be duplicated
+		paymentRepository.save(new Payment("ravi", "Morning", true, today, userId));
+
+		Map<String, Object> first = paymentController.getPaymentsByShift("Morning", userId, request());
+		Map<String, Object> second = paymentController.getPaymentsByShift("Morning", userId, request());
+
+		assertThat(first.get("success")).isEqualTo(true);
+		assertThat((List<Payment>) second.get("payments"))
+				.extracting(Payment::getCustomerName)
+				.containsExactly("Asha", "ravi");
+
+		customerController.addCustomer(customer(userId, "Meena", null));
+		Map<String, Object> third = paymentController.getPaymentsByShift("Morning", userId, request());
+
+		assertThat((List<Payment>) third.get("payments"))
+				.extracting(Payment::getCustomerName)
+				.containsExactly("Asha", "Meena", "ravi");
+	}
+
+	@Test
+	void aFailedSeedIsReportedAndRetried() {
+		long userId = 5002L;
+		LocalDate today = LocalDate.now(ZoneId.of("Asia/Kolkata"));
+		customerController.addCustomer(customer(userId, "Asha", null));
+		jdbc.execute("ALTER TABLE payments ADD CONSTRAINT no_rows_for_5002 CHECK (user_id <> 5002)");
+		MockHttpServletResponse failedResponse = new MockHttpServletResponse();
+		Map<String, Object> failed;
+		try {
+			failed = paymentController.getPaymentsByShift("Morning", userId,
+					new ServletWebRequest(get(), failedResponse));
+		} finally {
+			jdbc.execute("ALTER TABLE payments DROP CONSTRAINT no_rows_for_5002");
+		}
+
+		assertThat(failed.get("success")).isEqualTo(false);
+		assertThat(failedResponse.getHeader(HttpHeaders.ETAG)).isNull();
+		assertThat(failedResponse.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-store");
+
+		// the tag the page has while nothing changes, as a client holding it would send it
+		MockHttpServletRequest retry = get();
+		retry.addHeader(HttpHeaders.IF_NONE_MATCH, "\"payments-" + today + "-" + versions.customers(userId)
+				+ "-" + versions.month(userId, "Morning", YearMonth.from(today)) + "\"");
+		MockHttpServletResponse retryResponse = new MockHttpServletResponse();
+		Map<String, Object> retried = paymentController.getPaymentsByShift("Morning", userId,
+				new ServletWebRequest(retry, retryResponse));
+
+		assertThat(retryResponse.getStatus()).isEqualTo(200);
+		assertThat(retried.get("payments"))
+				.asList()
+				.extracting("customerName")
+				.containsExactly("Asha");
+		assertThat(retryResponse.getHeader(HttpHeaders.ETAG)).isNotNull();
+	}
+
+	// a plain GET without If-None-Match
+	private static ServletWebRequest request() {
+		return new ServletWebRequest(get());
+	}
+
+	private static MockHttpServletRequest get() {
+		return new MockHttpServletRequest("GET", "/api/payments/Morning");
+	}
+}
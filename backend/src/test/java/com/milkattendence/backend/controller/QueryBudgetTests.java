@@ -0,0 +1,184 @@
+package com.milkattendence.backend.controller;
+
+import com.milkattendence.backend.config.MaxQueries;
+import com.milkattendence.backend.config.QueryBudget;
+import com.milkattendence.backend.config.QueryScope;
+import com.milkattendence.backend.service.DataVersionService;
+import com.milkattendence.backend.service.MilkAggregateService;
+import com.milkattendence.backend.service.MilkArchiveService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets for the main endpoints on a large roster: a query per
+ * customer shows up as hundreds of statements and fails the budget.
+ */
+@SpringBootTest(properties = {
+		"SENDGRID_API_KEY=test-key",
+		"admin.email=admin@example.com"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTests {
+
+	private static final long USER = 9101L;
+	private static final int CUSTOMERS_PER_SHIFT = 300;
+	private static final String[] SHIFTS = {"Morning", "Evening"};
+
+	@Autowired private MockMvc mvc;
+	@Autowired private JdbcTemplate jdbc;
+	@Autowired private MilkAggregateService aggregateService;
+	@Autowired private DataVersionService versions;
+	@Autowired private MilkArchiveService archive;
+	@Autowired private Clock clock;
+
+	private LocalDate today;
+	private long balanceCustomerId;
+
+	@BeforeAll
+	void loadFixture() {
+		today = LocalDate.now(clock);
+		YearMonth month = YearMonth.from(today);
+
+		List<Object[]> customers = new ArrayList<>();
+		List<Object[]> entries = new ArrayList<>();
+		List<Object[]> payments = new ArrayList<>();
+		long id = 60_000_000L; // sequence-backed table: explicit ids far above anything Hibernate hands out here
+
+		for (String shift : SHIFTS) {
+			for (int c = 0; c < CUSTOMERS_PER_SHIFT; c++) {
+				String name = "Budget " + c;
+				customers.add(new Object[]{USER, name, "b" + c, shift, 5_000L, true, false, 1});
+				for (LocalDate d = month.atDay(1); !d.isAfter(today); d = d.plusDays(1)) {
+					entries.add(new Object[]{++id, name, shift, 1_500L, 5_000L, 7_500L, Date.valueOf(d), USER});
+				}
+				// the Morning page is half paid for today; Evening has to be seeded
+				if (shift.equals("Morning")) payments.add(new Object[]{name, shift, c % 2 == 0, Date.valueOf(today), USER});
+			}
+		}
+
+		jdbc.batchUpdate("""
+				INSERT INTO customer (user_id, full_name, nickname, shift, price_per_litre_paise, active,
+				                      reminder_enabled, reminder_interval_days)
+				VALUES (?, ?, ?, ?, ?, ?, ?, ?)""", customers);
+		jdbc.batchUpdate("INSERT INTO milk_entries (id, customer_name, shift, litres_ml, rate_paise, amount_paise, date, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", entries);
+		jdbc.batchUpdate("INSERT INTO payments (customer_name, shift, paid, date, user_id) VALUES (?, ?, ?, ?, ?)", payments);
+		for (String shift : SHIFTS) aggregateService.rebuildMonth(USER, shift, month);
+		balanceCustomerId = jdbc.queryForObject("SELECT MIN(id) FROM customer WHERE user_id = ?", Long.class, USER);
+		jdbc.update("INSERT INTO customer_balances (customer_id, user_id, billed_ml, billed_paise, paid_paise) VALUES (?, ?, 30000, 150000, 0)",
+				balanceCustomerId, USER);
+		// budgets measure the steady state: the user's ETag counters and archived months are already in memory
+		versions.customers(USER);
+		archive.archivedMonths(USER, SHIFTS[0]);
+	}
+
+	@Test
+	@MaxQueries(1)
+	void customersIsOneQuery() throws Exception {
+		mvc.perform(get("/api/customers").param("userId", "" + USER).param("shift", "Evening"))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	@MaxQueries(1)
+	void monthOfEntriesIsOneQuery() throws Exception {
+		YearMonth month = YearMonth.from(today);
+		mvc.perform(get("/api/milk").param("userId", "" + USER).param("shift", "Morning")
+						.param("start", month.atDay(1).toString()).param("end", month.atEndOfMonth().toString()))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	@MaxQueries(1)
+	void historyPageIsOneQuery() throws Exception {
+		mvc.perform(get("/api/milk/history").param("userId", "" + USER).param("shift", "Morning")
+						.param("limit", "100").param("view", "compact"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.entries.length()").value(100));
+	}
+
+	@Test
+	@MaxQueries(2)
+	void overviewIsRosterPlusCells() throws Exception {
+		mvc.perform(get("/api/overview").param("userId", "" + USER).param("shift", "Morning")
+						.param("month", "" + today.getMonthValue()).param("year", "" + today.getYear()))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	@MaxQueries(2)
+	void compactOverviewIsRosterPlusCells() throws Exception {
+		mvc.perform(get("/api/overview").param("userId", "" + USER).param("shift", "Morning")
+						.param("month", "" + today.getMonthValue()).param("year", "" + today.getYear())
+						.param("format", "compact"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(OverviewController.COMPACT_MEDIA_TYPE))
+				.andExpect(jsonPath("$.customers.id.length()").value(CUSTOMERS_PER_SHIFT))
+				.andExpect(jsonPath("$.litres[0].length()").value(CUSTOMERS_PER_SHIFT));
+	}
+
+	@Test
+	@MaxQueries(2)
+	void compactOverviewIsSelectableByAcceptHeader() throws Exception {
+		mvc.perform(get("/api/overview").param("userId", "" + USER).param("shift", "Morning")
+						.param("month", "" + today.getMonthValue()).param("year", "" + today.getYear())
+						.accept(OverviewController.COMPACT_MEDIA_TYPE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(OverviewController.COMPACT_MEDIA_TYPE))
+				.andExpect(jsonPath("$.version").value(1));
+	}
+
+	@Test
+	@MaxQueries(2)
+	void paymentsPageSeedsAndReadsInTwoStatements() throws Exception {
+		mvc.perform(get("/api/payments/Evening").param("userId", "" + USER))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	@MaxQueries(2)
+	void unpaidEmailIsOneReportQueryAndOneOutboxInsert() throws Exception {
+		mvc.perform(post("/api/payments/email/unpaid").param("userId", "" + USER).param("shift", "Morning"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.success").value(true));
+	}
+
+	@Test
+	@MaxQueries(1)
+	void customerBalanceIsOneLookup() throws Exception {
+		mvc.perform(get("/api/customers/" + balanceCustomerId + "/balance"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.outstanding").value(1500.0));
+	}
+
+	@Test
+	void budgetFlagsWorkOverTheLimitIncludingPlainJdbc() {
+		QueryBudget budget = new QueryBudget(2);
+		try (QueryScope scope = QueryScope.open()) {
+			for (int i = 0; i < 3; i++) jdbc.queryForObject("SELECT COUNT(*) FROM customer WHERE user_id = ?", Long.class, USER);
+			assertThat(scope.statements()).isEqualTo(3);
+			assertThat(budget.check("test", scope)).isTrue();
+			assertThat(new QueryBudget(0).check("disabled", scope)).isFalse();
+		}
+	}
+}
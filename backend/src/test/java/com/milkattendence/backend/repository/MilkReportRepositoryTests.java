@@ -0,0 +1,102 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.model.Payment;
+import com.milkattendence.backend.repository.projection.DailyCustomerTotal;
+import com.milkattendence.backend.repository.projection.MilkEntryRow;
+import com.milkattendence.backend.repository.projection.UnpaidReportRow;
+import com.milkattendence.backend.service.CustomerBalanceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.milkattendence.backend.service.CustomerFixtures.customer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MilkReportRepositoryTests {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 4, 10);
+
+	@Autowired
+	private MilkEntryRepository milkEntryRepository;
+
+	@Autowired
+	private MilkReportRepository reportRepository;
+
+	@Autowired
+	private CustomerRepository customerRepository;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private CustomerBalanceService balanceService;
+
+	@Test
+	void groupsEntriesByDayAndCustomerInTheDatabase() {
+		long userId = 3001L;
+		milkEntryRepository.save(new MilkEntry("Asha", "Evening", 1.0, 50, 50, DAY, userId));
+		milkEntryRepository.save(new MilkEntry("Asha", "Evening", 0.5, 50, 25, DAY.plusDays(1), userId));
+		milkEntryRepository.save(new MilkEntry("Ravi", "Evening", 2.0, 40, 80, DAY.plusDays(1), userId));
+
+		List<DailyCustomerTotal> totals =
+				reportRepository.sumByDayAndCustomer(userId, "Evening", DAY.withDayOfMonth(1), DAY.plusDays(5));
+
+		assertThat(totals).containsExactlyInAnyOrder(
+				new DailyCustomerTotal(DAY, "Asha", 1_000, 5_000, 1),
+				new DailyCustomerTotal(DAY.plusDays(1), "Asha", 500, 2_500, 1),
+				new DailyCustomerTotal(DAY.plusDays(1), "Ravi", 2_000, 8_000, 1)
+		);
+
+		List<MilkEntryRow> rows = reportRepository.findRowsByUserIdAndShift(userId, "Evening");
+		assertThat(rows).hasSize(3);
+		assertThat(rows.get(0).date()).isEqualTo(DAY.plusDays(1));
+		assertThat(rows.get(2)).satisfies(r -> {
+			assertThat(r.litresMl()).isEqualTo(1_000);
+			assertThat(r.litres()).isEqualTo(1.0);
+			assertThat(r.rate()).isEqualTo(50.0);
+			assertThat(r.amount()).isEqualTo(50.0);
+		});
+	}
+
+	@Test
+	void buildsUnpaidReportInOneQuery() {
+		long userId = 3002L;
+		Customer asha = customerRepository.save(customer(userId, "Asha Devi", "Asha", 50.0));
+		Customer ravi = customerRepository.save(customer(userId, "Ravi", null, null));
+		customerRepository.save(customer(userId, "Asha", null, 99.0)); // later id, loses to the nickname
+
+		for (MilkEntry e : List.of(
+				entry(asha, "asha", 1.5, 50, DAY),
+				entry(asha, "Asha", 1.0, 50, DAY.minusMonths(1)),
+				entry(ravi, "Ravi", 2.0, 40, DAY))) {
+			milkEntryRepository.save(e);
+		}
+		// entries saved past the writers: let the verification job build the ledger
+		balanceService.verifyUser(userId);
+
+		paymentRepository.save(new Payment("Asha", "Morning", false, DAY, userId));
+		paymentRepository.save(new Payment("Ravi", "Morning", false, DAY, userId));
+		paymentRepository.save(new Payment("Stranger", "Morning", false, DAY, userId));
+		paymentRepository.save(new Payment("Paid One", "Morning", true, DAY, userId));
+
+		List<UnpaidReportRow> rows = reportRepository.findUnpaidReport(userId, "Morning", DAY);
+
+		assertThat(rows).containsExactly(
+				new UnpaidReportRow("Asha", 2_500, 12_500, 0),
+				new UnpaidReportRow("Ravi", 2_000, 8_000, 0),
+				new UnpaidReportRow("Stranger", 0, 0, 0)
+		);
+	}
+
+	private static MilkEntry entry(Customer c, String typedName, double litres, double rate, LocalDate date) {
+		MilkEntry e = new MilkEntry(typedName, "Morning", litres, rate, litres * rate, date, c.getUserId());
+		e.setCustomerId(c.getId());
+		return e;
+	}
+}
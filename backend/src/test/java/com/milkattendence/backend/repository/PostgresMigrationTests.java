@@ -0,0 +1,103 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.config.PostgresTestDatabase;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the migrations over data in the shape the application wrote before
+ * them (V1/V2: names instead of customer ids, doubles instead of
+ * millilitres and paise, duplicate entries from racing saves), so the
+ * backfills in V3 and V9-V11 run on real rows rather than an empty schema.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostgresMigrationTests {
+
+	private JdbcTemplate jdbc;
+
+	@BeforeAll
+	void migrateLegacyData() {
+		DataSource dataSource = PostgresTestDatabase.dataSource(PostgresTestDatabase.create("legacy_upgrade"));
+		jdbc = new JdbcTemplate(dataSource);
+
+		flyway(dataSource, "2").migrate();
+
+		jdbc.update("INSERT INTO users (id, email, password) VALUES (1, 'owner@example.com', 'secret')");
+		jdbc.update("""
+				INSERT INTO customer (id, user_id, full_name, nickname, shift, price_per_litre, active)
+				VALUES (1, 1, 'Asha Devi', 'Asha', 'Morning', 52.5, true),
+				       (2, 1, 'Ravi', NULL, 'Morning', 50.0, true)""");
+		jdbc.update("""
+				INSERT INTO milk_entries (id, customer_name, shift, litres, rate, amount, date, user_id)
+				VALUES (1, ' asha devi ', 'Morning', 1.5, 52.5, 78.75, DATE '2025-01-01', 1),
+				       (2, 'Asha',        'Morning', 1.0, 52.5, 52.5,  DATE '2025-01-02', 1),
+				       (3, 'Ravi',        'Morning', 2.0, 50.0, 100.0, DATE '2025-01-01', 1),
+				       (4, 'Ravi',        'Morning', 2.5, 50.0, 125.0, DATE '2025-01-01', 1),
+				       (5, 'Walk-in',     'Morning', 1.0, 50.0, 50.0,  DATE '2025-01-01', 1)""");
+		jdbc.update("""
+				INSERT INTO payments (id, customer_name, shift, paid, date, user_id)
+				VALUES (1, 'Ravi',      'Morning', true,  DATE '2025-01-01', 1),
+				       (2, 'asha devi', 'Morning', false, DATE '2025-01-02', 1)""");
+
+		flyway(dataSource, "latest").migrate();
+	}
+
+	@Test
+	void olderDuplicateEntriesAreKeptAside() {
+		assertThat(jdbc.queryForList("SELECT id FROM milk_entries ORDER BY id", Long.class))
+				.containsExactly(1L, 2L, 4L, 5L);
+		assertThat(jdbc.queryForMap("SELECT id, kept_id, litres FROM milk_entries_duplicates"))
+				.containsEntry("id", 3L)
+				.containsEntry("kept_id", 4L)
+				.containsEntry("litres", 2.0);
+	}
+
+	@Test
+	void entriesAndPaymentsAreLinkedByNameOrNickname() {
+		assertThat(jdbc.queryForList("SELECT customer_id FROM milk_entries ORDER BY id", Long.class))
+				.containsExactly(1L, 1L, 2L, null);
+		assertThat(jdbc.queryForList("SELECT customer_id FROM payments ORDER BY id", Long.class))
+				.containsExactly(2L, 1L);
+	}
+
+	@Test
+	void amountsAreConvertedToMillilitresAndPaise() {
+		assertThat(jdbc.queryForMap("SELECT litres_ml, rate_paise, amount_paise FROM milk_entries WHERE id = 1"))
+				.containsEntry("litres_ml", 1500L)
+				.containsEntry("rate_paise", 5250L)
+				.containsEntry("amount_paise", 7875L);
+		assertThat(jdbc.queryForObject("SELECT price_per_litre_paise FROM customer WHERE id = 1", Long.class))
+				.isEqualTo(5250L);
+	}
+
+	@Test
+	void balancesOpenWithWhatWasBilledAndSettled() {
+		// Ravi's paid row settles everything billed up to its date
+		assertThat(jdbc.queryForObject("SELECT amount_paise FROM payments WHERE id = 1", Long.class)).isEqualTo(12_500L);
+		assertThat(jdbc.queryForMap("SELECT billed_ml, billed_paise, paid_paise FROM customer_balances WHERE customer_id = 1"))
+				.containsEntry("billed_ml", 2500L)
+				.containsEntry("billed_paise", 13_125L)
+				.containsEntry("paid_paise", 0L);
+		assertThat(jdbc.queryForMap("SELECT billed_ml, billed_paise, paid_paise FROM customer_balances WHERE customer_id = 2"))
+				.containsEntry("billed_ml", 2500L)
+				.containsEntry("billed_paise", 12_500L)
+				.containsEntry("paid_paise", 12_500L);
+	}
+
+	// same settings as spring.flyway.* in application.properties
+	private static Flyway flyway(DataSource dataSource, String target) {
+		return Flyway.configure()
+				.dataSource(dataSource)
+				.target(target)
+				.configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+				.load();
+	}
+}
@@ -0,0 +1,199 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.config.PostgresTestDatabase;
+import com.milkattendence.backend.config.QueryBudget;
+import com.milkattendence.backend.service.PartitionMaintenanceService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * db/maintenance/monthly_partitions.sql, the manual conversion to monthly
+ * partitions: it refuses to run without its flag, and any run, whole or cut
+ * short, can be followed by another. Retention then detaches months without
+ * losing them from the balances.
+ */
+class PostgresPartitioningTests {
+
+	private static final String SCRIPT = "/db/maintenance/monthly_partitions.sql";
+
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void migratedDatabaseWithRows() {
+		dataSource = new SingleConnectionDataSource(PostgresTestDatabase.create("partitioning"),
+				PostgresTestDatabase.USER, PostgresTestDatabase.PASSWORD, true);
+		jdbc = new JdbcTemplate(dataSource);
+		Flyway.configure()
+				.dataSource(dataSource)
+				.configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+				.load()
+				.migrate();
+
+		jdbc.update("INSERT INTO users (id, email, password) VALUES (1, 'owner@example.com', 'secret')");
+		jdbc.update("INSERT INTO customer (id, user_id, full_name, shift, price_per_litre_paise, active) VALUES (1, 1, 'Asha', 'Morning', 5000, true)");
+		jdbc.update("""
+				INSERT INTO milk_entries (id, customer_name, shift, date, user_id, customer_id, litres_ml, rate_paise, amount_paise)
+				SELECT n, 'Asha ' || n / 366, 'Morning', DATE '2024-01-01' + n % 366, 1, 1, 1000, 5000, 5000
+				FROM generate_series(1, 25000) n""");
+		jdbc.update("""
+				INSERT INTO payments (customer_name, shift, paid, date, user_id, customer_id)
+				VALUES ('Asha', 'Morning', true, DATE '2024-02-01', 1, 1),
+				       ('Asha', 'Morning', false, NULL, 1, 1)""");
+	}
+
+	@AfterEach
+	void close() {
+		dataSource.destroy();
+	}
+
+	@Test
+	void refusesWithoutTheFlag() {
+		assertThatThrownBy(() -> run(statements()))
+				.hasMessageContaining("milk.partition_tables=on");
+		assertThat(partitioned("milk_entries")).isFalse();
+		assertThat(jdbc.queryForObject("SELECT to_regproc('ensure_month_partition') IS NULL", Boolean.class)).isTrue();
+	}
+
+	@Test
+	void convertsAndCanRunAgain() {
+		flag();
+		run(statements());
+		run(statements());
+
+		assertConverted();
+		assertThat(jdbc.queryForObject("SELECT ensure_month_partition('milk_entries', DATE '2031-01-01')", Boolean.class)).isTrue();
+		assertThat(jdbc.queryForObject("SELECT ensure_month_partition('milk_entries', DATE '2031-01-01')", Boolean.class)).isFalse();
+	}
+
+	@Test
+	void finishesARunThatStoppedPartway() {
+		flag();
+		List<String> statements = statements();
+		// the parents and month partitions exist, and part of the copy committed
+		run(statements.subList(0, 4));
+		jdbc.update("""
+				INSERT INTO milk_entries (id, customer_name, shift, date, user_id, customer_id, litres_ml, rate_paise, amount_paise)
+				SELECT id, customer_name, shift, date, user_id, customer_id, litres_ml, rate_paise, amount_paise
+				FROM milk_entries_unpartitioned WHERE id <= 12000""");
+
+		run(statements);
+
+		assertConverted();
+	}
+
+	@Test
+	void retentionKeepsDetachedMonthsInTheOpeningBalances() {
+		flag();
+		run(statements());
+		jdbc.update("UPDATE payments SET amount_paise = 7000 WHERE paid");
+		PartitionMaintenanceService maintenance = new PartitionMaintenanceService(jdbc, new QueryBudget(1000),
+				new DataSourceTransactionManager(dataSource),
+				Clock.fixed(Instant.parse("2025-06-15T00:00:00Z"), ZoneOffset.UTC), 3, 3);
+
+		maintenance.maintain();
+		maintenance.maintain();
+
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM milk_entries", Long.class)).isZero();
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM payments", Long.class)).isZero();
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM archive.milk_entries_p2024_12", Long.class)).isPositive();
+		assertThat(jdbc.queryForMap("SELECT * FROM customer_balance_openings WHERE customer_id = 1"))
+				.containsEntry("billed_ml", 25_000_000L)
+				.containsEntry("billed_paise", 125_000_000L)
+				.containsEntry("paid_paise", 7_000L);
+	}
+
+	private void assertConverted() {
+		assertThat(partitioned("milk_entries")).isTrue();
+		assertThat(partitioned("payments")).isTrue();
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM milk_entries", Long.class)).isEqualTo(25_000L);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM milk_entries_p2024_12", Long.class)).isPositive();
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM milk_entries_default", Long.class)).isZero();
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM payments", Long.class)).isEqualTo(1L);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM archive.payments_undated", Long.class)).isEqualTo(1L);
+		assertThat(jdbc.queryForObject("SELECT to_regclass('milk_entries_unpartitioned') IS NULL", Boolean.class)).isTrue();
+
+		// new payments still get their id from the database
+		jdbc.update("INSERT INTO payments (customer_name, shift, paid, date, user_id) VALUES ('Asha', 'Morning', false, DATE '2024-02-02', 1)");
+		assertThat(jdbc.queryForObject("SELECT MAX(id) FROM payments", Long.class)).isGreaterThan(1L);
+	}
+
+	private boolean partitioned(String table) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass(?)",
+				Integer.class, table) > 0;
+	}
+
+	// what PGOPTIONS='-c milk.partition_tables=on' does for psql
+	private void flag() {
+		jdbc.execute("SET milk.partition_tables = on");
+	}
+
+	// autocommit, as psql runs it: the COMMITs inside the copy need it
+	private void run(List<String> statements) {
+		statements.forEach(jdbc::execute);
+	}
+
+	/** The script split on the semicolons psql would split it on. */
+	private static List<String> statements() {
+		String sql;
+		try (InputStream in = PostgresPartitioningTests.class.getResourceAsStream(SCRIPT)) {
+			sql = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		List<String> statements = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		String dollarTag = null;
+		boolean quoted = false;
+		for (int i = 0; i < sql.length(); i++) {
+			char ch = sql.charAt(i);
+			if (dollarTag == null && !quoted && sql.startsWith("--", i)) {
+				int eol = sql.indexOf('\n', i);
+				i = eol < 0 ? sql.length() : eol;
+				current.append('\n');
+				continue;
+			}
+			current.append(ch);
+			if (dollarTag != null) {
+				if (sql.startsWith(dollarTag, i)) {
+					current.append(dollarTag, 1, dollarTag.length());
+					i += dollarTag.length() - 1;
+					dollarTag = null;
+				}
+			} else if (ch == '\'') {
+				quoted = !quoted;
+			} else if (!quoted && ch == '$') {
+				int end = sql.indexOf('$', i + 1);
+				String tag = sql.substring(i, end + 1);
+				if (tag.matches("\\$\\w*\\$")) {
+					dollarTag = tag;
+					current.append(tag, 1, tag.length());
+					i = end;
+				}
+			} else if (!quoted && ch == ';') {
+				if (!current.toString().isBlank()) statements.add(current.toString().trim());
+				current.setLength(0);
+			}
+		}
+		if (!current.toString().isBlank()) statements.add(current.toString().trim());
+		return statements;
+	}
+}
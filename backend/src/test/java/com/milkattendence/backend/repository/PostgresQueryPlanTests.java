@@ -0,0 +1,97 @@
+package com.milkattendence.backend.repository;
+
+import com.milkattendence.backend.config.PostgresTestDatabase;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.StringJoiner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The schema production runs: an embedded PostgreSQL built by Flyway from
+ * V1 up, which Hibernate then validates (ddl-auto=validate) when the context
+ * starts. On top of that, the query plan checks run against PostgreSQL's own
+ * planner.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.driver-class-name=org.postgresql.Driver",
+		"spring.jpa.hibernate.ddl-auto=validate",
+		"spring.flyway.enabled=true",
+		"spring.flyway.postgresql.transactional-lock=false",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.milkattendence.backend.repository.SqlCapture"
+})
+class PostgresQueryPlanTests extends QueryPlanTestSupport {
+
+	@Autowired private Flyway flyway;
+
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		String url = PostgresTestDatabase.create("query_plans");
+		registry.add("spring.datasource.url", () -> url);
+		registry.add("spring.datasource.username", () -> PostgresTestDatabase.USER);
+		registry.add("spring.datasource.password", () -> PostgresTestDatabase.PASSWORD);
+	}
+
+	@Test
+	void everyMigrationIsApplied() {
+		assertThat(flyway.info().pending()).isEmpty();
+		assertThat(flyway.info().applied())
+				.isNotEmpty()
+				.allSatisfy(m -> assertThat(m.getState().isFailed()).as(m.getScript()).isFalse());
+		MigrationInfo[] all = flyway.info().all();
+		assertThat(flyway.info().current().getVersion()).isEqualTo(all[all.length - 1].getVersion());
+	}
+
+	// A generic plan does not depend on the parameter values, so the NULLs
+	// bound below cannot fold a predicate away, and with pruning off every
+	// month partition stays in the plan. With sequential scans priced out,
+	// one only shows up when no index can serve the query at all.
+	@Override
+	protected String explain(String sql) {
+		return jdbc.execute((Connection con) -> {
+			StringBuilder numbered = new StringBuilder();
+			StringJoiner nulls = new StringJoiner(", ", "(", ")").setEmptyValue("");
+			int params = 0;
+			for (char ch : sql.toCharArray()) {
+				if (ch == '?') {
+					nulls.add("NULL");
+					numbered.append('$').append(++params);
+				} else {
+					numbered.append(ch);
+				}
+			}
+			try (Statement st = con.createStatement()) {
+				st.execute("SET plan_cache_mode = force_generic_plan");
+				st.execute("SET enable_seqscan = off");
+				st.execute("SET enable_partition_pruning = off");
+				st.execute("PREPARE plan_check AS " + numbered);
+				try (ResultSet rs = st.executeQuery("EXPLAIN EXECUTE plan_check" + nulls)) {
+					StringJoiner plan = new StringJoiner("\n");
+					while (rs.next()) plan.add(rs.getString(1));
+					return plan.toString();
+				} finally {
+					st.execute("DEALLOCATE plan_check");
+					st.execute("RESET plan_cache_mode");
+					st.execute("RESET enable_seqscan");
+					st.execute("RESET enable_partition_pruning");
+				}
+			}
+		});
+	}
+
+	@Override
+	protected String fullScan(String table) {
+		// also matches month partitions (milk_entries_p2025_01, ...) on a
+		// database converted by db/maintenance/monthly_partitions.sql
+		return "Seq Scan on " + table;
+	}
+}
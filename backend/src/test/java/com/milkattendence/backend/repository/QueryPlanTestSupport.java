@@ -0,0 +1,153 @@
+package com.milkattendence.backend.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Loads a large fixture, runs every per-user repository query, captures the
+ * SQL Hibernate generates and fails if EXPLAIN shows a full table scan.
+ * Subclasses pick the database and say how to EXPLAIN on it and what a full
+ * scan looks like there; they need the
+ * {@code hibernate.session_factory.statement_inspector=...SqlCapture} property.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class QueryPlanTestSupport {
+
+	private static final int USERS = 40;
+	private static final int CUSTOMERS_PER_SHIFT = 25;
+	private static final int DAYS = 40;
+	private static final String[] SHIFTS = {"Morning", "Evening"};
+	private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+	@Autowired protected JdbcTemplate jdbc;
+	@Autowired private MilkEntryRepository milkEntryRepository;
+	@Autowired private CustomerRepository customerRepository;
+	@Autowired private PaymentRepository paymentRepository;
+	@Autowired private UserRepository userRepository;
+	@Autowired private MilkReportRepository reportRepository;
+	@Autowired private MilkDailyAggregateRepository dailyRepository;
+	@Autowired private MilkMonthlyAggregateRepository monthlyRepository;
+	@Autowired private CustomerBalanceRepository balanceRepository;
+
+	@BeforeAll
+	void loadFixture() {
+		List<Object[]> users = new ArrayList<>();
+		List<Object[]> customers = new ArrayList<>();
+		List<Object[]> entries = new ArrayList<>();
+		List<Object[]> payments = new ArrayList<>();
+		List<Object[]> daily = new ArrayList<>();
+		List<Object[]> monthly = new ArrayList<>();
+		long id = 0; // sequence-backed tables get explicit ids
+
+		for (long u = 1; u <= USERS; u++) {
+			users.add(new Object[]{"user" + u + "@example.com", "secret"});
+			for (String shift : SHIFTS) {
+				for (int c = 0; c < CUSTOMERS_PER_SHIFT; c++) {
+					String name = "Customer " + c;
+					customers.add(new Object[]{u, name, "C" + c, shift, 5_000L, true,
+							c == 0, Time.valueOf(LocalTime.of(8, 0)), shift, 1});
+					monthly.add(new Object[]{++id, u, shift, name.toLowerCase(Locale.ROOT), Date.valueOf(START), 30_000L, 150_000L, 30});
+					for (int d = 0; d < DAYS; d++) {
+						Date date = Date.valueOf(START.plusDays(d));
+						entries.add(new Object[]{++id, name, shift, 1_000L, 5_000L, 5_000L, date, u});
+						daily.add(new Object[]{++id, u, shift, name.toLowerCase(Locale.ROOT), date, 1_000L, 5_000L, 1});
+						if (d % 3 == 0) payments.add(new Object[]{name, shift, d % 2 == 0, date, u});
+					}
+				}
+			}
+		}
+
+		jdbc.batchUpdate("INSERT INTO users (email, password) VALUES (?, ?)", users);
+		jdbc.batchUpdate("""
+				INSERT INTO customer (user_id, full_name, nickname, shift, price_per_litre_paise, active,
+				                      reminder_enabled, reminder_time, reminder_shift, reminder_interval_days)
+				VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""", customers);
+		jdbc.batchUpdate("INSERT INTO milk_entries (id, customer_name, shift, litres_ml, rate_paise, amount_paise, date, user_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", entries);
+		jdbc.batchUpdate("INSERT INTO payments (customer_name, shift, paid, date, user_id) VALUES (?, ?, ?, ?, ?)", payments);
+		jdbc.batchUpdate("INSERT INTO milk_daily_aggregates (id, user_id, shift, customer_key, date, litres_ml, amount_paise, entry_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", daily);
+		jdbc.batchUpdate("INSERT INTO milk_monthly_aggregates (id, user_id, shift, customer_key, month_start, litres_ml, amount_paise, entry_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", monthly);
+		jdbc.execute("ANALYZE");
+	}
+
+	Stream<Arguments> repositoryQueries() {
+		LocalDate from = START.plusDays(10);
+		LocalDate to = START.plusDays(20);
+		return Stream.of(
+				query("milk_entries", () -> milkEntryRepository.findByUserIdAndShiftOrderByDateDesc(7L, "Morning")),
+				query("milk_entries", () -> milkEntryRepository.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(7L, "Morning", from, to)),
+				query("milk_entries", () -> milkEntryRepository.findByUserIdAndShiftAndDateAndCustomerName(7L, "Morning", from, "Customer 3")),
+				query("milk_entries", () -> milkEntryRepository.getTotalMillilitresForCustomer("Customer 3", "Morning", 7L)),
+				query("milk_entries", () -> milkEntryRepository.getTotalMillilitresForCustomerId(3L)),
+				query("milk_entries", () -> milkEntryRepository.findDayEntriesForCustomer(7L, "Morning", from, 3L, "Customer 3")),
+				query("customer", () -> customerRepository.findByUserIdAndActive(7L, true)),
+				query("customer", () -> customerRepository.findByShiftAndUserIdAndActive("Morning", 7L, true)),
+				query("customer", () -> customerRepository.findByShiftAndUserId("Morning", 7L)),
+				query("customer", () -> customerRepository.findCustomerByNameForUser(7L, "Morning", "C3")),
+				query("payments", () -> paymentRepository.findByShiftAndDateAndUserId("Morning", from, 7L)),
+				query("payments", () -> paymentRepository.findAllMatchingForUser("Morning", from, "Customer 3", 7L)),
+				query("payments", () -> paymentRepository.findByUserIdAndShiftAndDateAndCustomerId(7L, "Morning", from, 3L)),
+				query("payments", () -> paymentRepository.findByShiftAndPaidFalseAndDateAndUserId("Morning", from, 7L)),
+				query("users", () -> userRepository.findByEmail("user7@example.com")),
+				query("milk_entries", () -> reportRepository.sumByDayAndCustomer(7L, "Morning", from, to)),
+				query("milk_entries", () -> reportRepository.findRowsByUserIdAndShift(7L, "Morning")),
+				query("milk_entries", () -> reportRepository.findHistoryFirstPage(7L, "Morning", Limit.of(51))),
+				query("milk_entries", () -> reportRepository.findHistoryPageAfter(7L, "Morning", to, 1000L, Limit.of(51))),
+				query("milk_daily_aggregates", () -> reportRepository.findDailyCells(7L, "Morning", from, to)),
+				query("milk_daily_aggregates", () -> dailyRepository.findByUserIdAndShiftAndDateBetween(7L, "Morning", from, to)),
+				query("milk_monthly_aggregates", () -> reportRepository.sumLitresByCustomer(7L, "Morning")),
+				query("payments", () -> reportRepository.findUnpaidReport(7L, "Morning", from)),
+				query("customer", () -> reportRepository.findUnpaidReport(7L, "Morning", from)),
+				query("customer_balances", () -> reportRepository.findUnpaidReport(7L, "Morning", from)),
+				query("milk_entries", () -> reportRepository.sumBilledByCustomer(7L)),
+				query("payments", () -> reportRepository.sumPaidByCustomer(7L)),
+				query("customer_balances", () -> balanceRepository.findByCustomerId(3L)),
+				query("milk_monthly_aggregates", () -> monthlyRepository.findByUserIdAndShiftAndMonthStart(7L, "Morning", START))
+		);
+	}
+
+	@ParameterizedTest(name = "[{index}] {0}")
+	@MethodSource("repositoryQueries")
+	void repositoryQueryUsesAnIndex(String table, Runnable call) {
+		SqlCapture.clear();
+		call.run();
+
+		List<String> selects = SqlCapture.statements().stream()
+				.filter(sql -> sql.trim().toLowerCase(Locale.ROOT).startsWith("select"))
+				.toList();
+		assertThat(selects).as("captured SQL").isNotEmpty();
+
+		for (String sql : selects) {
+			String plan = explain(sql);
+			assertThat(plan)
+					.as("plan for %s", sql)
+					.doesNotContainIgnoringCase(fullScan(table));
+		}
+	}
+
+	/** The plan of {@code sql} as the database prints it, with its parameters unbound. */
+	protected abstract String explain(String sql);
+
+	/** What a full scan of {@code table} looks like in a plan. */
+	protected abstract String fullScan(String table);
+
+	private static Arguments query(String table, Runnable call) {
+		return Arguments.of(table, call);
+	}
+}
@@ -0,0 +1,30 @@
+package com.milkattendence.backend.repository;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The query plan checks on H2 (PostgreSQL mode) with the schema Hibernate
+ * generates from the entities.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:plans;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=com.milkattendence.backend.repository.SqlCapture"
+})
+class RepositoryQueryPlanTests extends QueryPlanTestSupport {
+
+	// Plans with unbound parameters, so constant folding cannot hide the access path
+	@Override
+	protected String explain(String sql) {
+		return jdbc.execute((java.sql.Connection con) -> {
+			try (var ps = con.prepareStatement("EXPLAIN " + sql); var rs = ps.executeQuery()) {
+				rs.next();
+				return rs.getString(1);
+			}
+		});
+	}
+
+	@Override
+	protected String fullScan(String table) {
+		return table + ".tableScan";
+	}
+}
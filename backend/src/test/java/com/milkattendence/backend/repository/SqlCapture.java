@@ -0,0 +1,35 @@
+package com.milkattendence.backend.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records every SQL string Hibernate prepares, so tests can inspect the
+ * exact statements a repository method issues.
+ */
+public class SqlCapture implements StatementInspector {
+
+	private static final List<String> STATEMENTS = new ArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		synchronized (STATEMENTS) {
+			STATEMENTS.add(sql);
+		}
+		return sql;
+	}
+
+	static void clear() {
+		synchronized (STATEMENTS) {
+			STATEMENTS.clear();
+		}
+	}
+
+	static List<String> statements() {
+		synchronized (STATEMENTS) {
+			return List.copyOf(STATEMENTS);
+		}
+	}
+}
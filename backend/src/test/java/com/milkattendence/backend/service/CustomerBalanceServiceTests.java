@@ -0,0 +1,144 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.controller.CustomerController;
+import com.milkattendence.backend.controller.MilkEntryController;
+import com.milkattendence.backend.controller.PaymentController;
+import com.milkattendence.backend.dto.MilkBatchRequest;
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.CustomerBalance;
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.repository.CustomerBalanceRepository;
+import com.milkattendence.backend.repository.MilkEntryRepository;
+import com.milkattendence.backend.repository.PaymentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.milkattendence.backend.service.CustomerFixtures.customer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CustomerBalanceServiceTests {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 8, 4);
+
+	@Autowired
+	private CustomerController customerController;
+
+	@Autowired
+	private MilkEntryController milkController;
+
+	@Autowired
+	private PaymentController paymentController;
+
+	@Autowired
+	private CustomerBalanceService balanceService;
+
+	@Autowired
+	private CustomerBalanceRepository balanceRepository;
+
+	@Autowired
+	private MilkEntryRepository entryRepository;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void entryWritesAndPaymentTogglesKeepTheBalanceInStep() {
+		long userId = 9501L;
+		Customer asha = customerController.addCustomer(customer(userId, "Asha")).getBody();
+
+		milkController.addOrUpdateEntry(entry(userId, asha.getId(), DAY, 2.0));
+		milkController.addOrUpdateEntry(entry(userId, asha.getId(), DAY, 3.0));                 // update
+		milkController.addOrUpdateEntry(entry(userId, asha.getId(), DAY.plusDays(1), 1.0));
+		milkController.saveBatch(new MilkBatchRequest(userId, "Morning", DAY.plusDays(2), List.of(
+				new MilkBatchRequest.Row(null, 2.0, 50.0, asha.getId()))));
+		assertThat(balance(asha)).satisfies(b -> {
+			assertThat(b.getBilledMl()).isEqualTo(6_000);
+			assertThat(b.getBilledPaise()).isEqualTo(30_000);
+			assertThat(b.getOutstandingPaise()).isEqualTo(30_000);
+		});
+
+		// marking today's row paid settles what is outstanding
+		assertThat(paymentController.savePayment(payment(userId, asha.getId(), true))).containsEntry("success", true);
+		assertThat(balance(asha).getPaidPaise()).isEqualTo(30_000);
+		assertThat(balance(asha).getOutstandingPaise()).isZero();
+
+		milkController.addOrUpdateEntry(entry(userId, asha.getId(), DAY.plusDays(3), 1.0));
+		assertThat(balance(asha).getOutstandingPaise()).isEqualTo(5_000);
+
+		// un-marking gives back exactly what was settled
+		paymentController.savePayment(payment(userId, asha.getId(), false));
+		assertThat(balance(asha).getPaidPaise()).isZero();
+		assertThat(balance(asha).getOutstandingPaise()).isEqualTo(35_000);
+		assertThat(paymentRepository.findByShiftAndDateAndUserId("Morning", LocalDate.now(ZoneId.of("Asia/Kolkata")), userId))
+				.singleElement()
+				.satisfies(p -> assertThat(p.getAmountPaise()).isZero());
+
+		assertThat(balanceService.verifyUser(userId)).isZero();
+	}
+
+	@Test
+	void verificationRepairsRowsWrittenBehindTheServicesBack() {
+		long userId = 9502L;
+		Customer ravi = customerController.addCustomer(customer(userId, "Ravi")).getBody();
+
+		milkController.addOrUpdateEntry(entry(userId, ravi.getId(), DAY, 2.0));
+		MilkEntry direct = entry(userId, ravi.getId(), DAY.plusDays(1), 1.0);
+		direct.setAmount(50.0);
+		entryRepository.save(direct);
+
+		assertThat(balanceService.verifyUser(userId)).isEqualTo(1);
+		assertThat(balance(ravi).getBilledPaise()).isEqualTo(15_000);
+		assertThat(balanceService.verifyUser(userId)).isZero();
+
+		Map<String, Object> body = customerController.getBalance(ravi.getId());
+		assertThat(body).containsEntry("billed", 150.0).containsEntry("outstanding", 150.0);
+	}
+
+	@Test
+	void detachedMonthsCountThroughTheirOpeningBalance() {
+		long userId = 9503L;
+		Customer asha = customerController.addCustomer(customer(userId, "Asha")).getBody();
+		milkController.addOrUpdateEntry(entry(userId, asha.getId(), DAY, 2.0));
+		milkController.addOrUpdateEntry(entry(userId, asha.getId(), DAY.plusMonths(1), 1.0));
+
+		// what retention does to August: its totals folded in, its rows gone
+		jdbc.update("""
+				INSERT INTO customer_balance_openings (customer_id, user_id, billed_ml, billed_paise, paid_paise)
+				VALUES (?, ?, 2000, 10000, 0)""", asha.getId(), userId);
+		jdbc.update("DELETE FROM milk_entries WHERE user_id = ? AND date = ?", userId, DAY);
+
+		assertThat(balanceService.verifyUser(userId)).isZero();
+		assertThat(balance(asha).getBilledPaise()).isEqualTo(15_000);
+	}
+
+	private CustomerBalance balance(Customer c) {
+		return balanceRepository.findByCustomerId(c.getId()).orElseThrow();
+	}
+
+	private static MilkEntry entry(long userId, Long customerId, LocalDate date, double litres) {
+		MilkEntry e = new MilkEntry(null, "Morning", litres, 50, 0, date, userId);
+		e.setCustomerId(customerId);
+		return e;
+	}
+
+	private static Map<String, Object> payment(long userId, Long customerId, boolean paid) {
+		Map<String, Object> body = new HashMap<>();
+		body.put("customerId", customerId);
+		body.put("shift", "Morning");
+		body.put("paid", paid);
+		body.put("userId", userId);
+		return body;
+	}
+}
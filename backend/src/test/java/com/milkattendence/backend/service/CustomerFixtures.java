@@ -0,0 +1,30 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.model.Customer;
+
+/**
+ * An unsaved Morning customer at 50 per litre, the roster row most tests
+ * start from.
+ */
+public final class CustomerFixtures {
+
+	private CustomerFixtures() {}
+
+	public static Customer customer(long userId, String fullName) {
+		return customer(userId, fullName, null);
+	}
+
+	public static Customer customer(long userId, String fullName, String nickname) {
+		return customer(userId, fullName, nickname, 50.0);
+	}
+
+	public static Customer customer(long userId, String fullName, String nickname, Double pricePerLitre) {
+		Customer c = new Customer();
+		c.setUserId(userId);
+		c.setFullName(fullName);
+		c.setNickname(nickname);
+		c.setShift("Morning");
+		c.setPricePerLitre(pricePerLitre);
+		return c;
+	}
+}
@@ -0,0 +1,85 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.milkattendence.backend.service.CustomerFixtures.customer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomerRosterCacheTests {
+
+	private final CustomerRepository repository = mock(CustomerRepository.class);
+	private final CustomerRosterCache cache = new CustomerRosterCache(repository, 100, Duration.ofMinutes(10));
+
+	@Test
+	void repeatedReadsHitTheCache() {
+		when(repository.findByShiftAndUserIdAndActive("Morning", 1L, true)).thenReturn(List.of(customer(1L, "Asha")));
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(cache.activeCustomers(1L, "Morning")).extracting(Customer::getFullName).containsExactly("Asha");
+		}
+
+		verify(repository, times(1)).findByShiftAndUserIdAndActive("Morning", 1L, true);
+		assertThat(cache.getStats()).containsEntry("hits", 9L).containsEntry("misses", 1L);
+	}
+
+	@Test
+	void invalidationDropsEveryShiftOfOnlyThatUser() {
+		when(repository.findByShiftAndUserIdAndActive("Morning", 1L, true)).thenReturn(List.of(customer(1L, "Asha")));
+		when(repository.findByUserIdAndActive(1L, true)).thenReturn(List.of(customer(1L, "Asha")));
+		when(repository.findByShiftAndUserIdAndActive("Morning", 2L, true)).thenReturn(List.of(customer(2L, "Ravi")));
+
+		cache.activeCustomers(1L, "Morning");
+		cache.activeCustomers(1L, null);
+		cache.activeCustomers(2L, "Morning");
+
+		cache.invalidate(1L);
+		cache.activeCustomers(1L, "Morning");
+		cache.activeCustomers(1L, null);
+		cache.activeCustomers(2L, "Morning");
+
+		verify(repository, times(2)).findByShiftAndUserIdAndActive("Morning", 1L, true);
+		verify(repository, times(2)).findByUserIdAndActive(1L, true);
+		verify(repository, times(1)).findByShiftAndUserIdAndActive("Morning", 2L, true);
+	}
+
+	@Test
+	void snapshotsAreDetachedAndUnmodifiable() {
+		Customer managed = customer(1L, "Asha");
+		when(repository.findByShiftAndUserIdAndActive("Morning", 1L, true)).thenReturn(List.of(managed));
+
+		List<Customer> roster = cache.activeCustomers(1L, "Morning");
+		managed.setFullName("changed by JPA");
+
+		assertThat(roster.get(0)).isNotSameAs(managed);
+		assertThat(roster.get(0).getFullName()).isEqualTo("Asha");
+		assertThatThrownBy(() -> roster.add(customer(1L, "x"))).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	void loadRacingWithInvalidationIsNotCached() {
+		AtomicReference<String> name = new AtomicReference<>("Old");
+		when(repository.findByShiftAndUserIdAndActive("Morning", 1L, true)).thenAnswer(inv -> {
+			List<Customer> result = List.of(customer(1L, name.get()));
+			if (name.get().equals("Old")) {
+				// a write commits and invalidates while this load is in flight
+				name.set("New");
+				cache.invalidate(1L);
+			}
+			return result;
+		});
+
+		assertThat(cache.activeCustomers(1L, "Morning").get(0).getFullName()).isEqualTo("Old");
+		assertThat(cache.activeCustomers(1L, "Morning").get(0).getFullName()).isEqualTo("New");
+	}
+}
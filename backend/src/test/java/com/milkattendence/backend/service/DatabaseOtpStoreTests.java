@@ -0,0 +1,59 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.repository.PasswordResetOtpRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "otp.store=database")
+class DatabaseOtpStoreTests {
+
+	@Autowired
+	private OtpStore store;
+
+	@Autowired
+	private PasswordResetOtpRepository repository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void otpsAreOneRowPerEmailAndExpiredRowsAreSwept() {
+		assertThat(store).isInstanceOf(DatabaseOtpStore.class);
+
+		for (int i = 0; i < 50; i++) store.put("flood@example.com", "12345" + (i % 10), Duration.ofMinutes(10));
+		store.put("old@example.com", "999999", Duration.ofMinutes(10));
+		jdbc.update("UPDATE password_reset_otps SET expires_at = ? WHERE email = ?",
+				Timestamp.from(Instant.now().minusSeconds(60)), "old@example.com");
+
+		assertThat(repository.count()).isEqualTo(2);
+
+		((DatabaseOtpStore) store).sweep();
+
+		assertThat(repository.count()).isEqualTo(1);
+		assertThat(store.consume("old@example.com", "999999")).isEqualTo(OtpStore.Check.MISSING);
+		// only the last of the fifty OTPs is live
+		assertThat(store.consume("flood@example.com", "123450")).isEqualTo(OtpStore.Check.INVALID);
+		assertThat(store.consume("flood@example.com", "123459")).isEqualTo(OtpStore.Check.VALID);
+	}
+
+	@Test
+	void consumingUsesAnOtpUpOnlyWhenItMatches() {
+		store.put("consume@example.com", "424242", Duration.ofMinutes(10));
+		store.put("late@example.com", "515151", Duration.ofMinutes(10));
+		jdbc.update("UPDATE password_reset_otps SET expires_at = ? WHERE email = ?",
+				Timestamp.from(Instant.now().minusSeconds(60)), "late@example.com");
+
+		assertThat(store.consume("consume@example.com", "000000")).isEqualTo(OtpStore.Check.INVALID);
+		assertThat(store.consume("consume@example.com", "424242")).isEqualTo(OtpStore.Check.VALID);
+		assertThat(store.consume("consume@example.com", "424242")).isEqualTo(OtpStore.Check.MISSING);
+		assertThat(store.consume("late@example.com", "515151")).isEqualTo(OtpStore.Check.EXPIRED);
+	}
+}
@@ -0,0 +1,160 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.model.EmailOutboxMessage;
+import com.milkattendence.backend.model.EmailOutboxMessage.Status;
+import com.milkattendence.backend.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:outbox;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"SENDGRID_API_KEY=test-key",
+		"admin.email=admin@example.com",
+		"app.reminder.email=reminders@example.com",
+		"email.outbox.enabled=true",
+		"email.outbox.workers=4",
+		"email.outbox.max-attempts=3",
+		"email.outbox.backoff-base=PT0.05S",
+		"email.outbox.poll-interval=PT0.1S"
+})
+class EmailOutboxTests {
+
+	private static final SendGridStub stub = SendGridStub.start();
+
+	@DynamicPropertySource
+	static void sendGridUrl(DynamicPropertyRegistry registry) {
+		registry.add("sendgrid.base-url", stub::baseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		stub.close();
+	}
+
+	@Autowired
+	private EmailService emailService;
+
+	@Autowired
+	private EmailOutboxWorker worker;
+
+	@Autowired
+	private EmailOutboxRepository outboxRepository;
+
+	@BeforeEach
+	void resetStub() {
+		stub.reset();
+	}
+
+	@Test
+	void enqueueReturnsWithoutWaitingForSendGrid() {
+		stub.setLatency(Duration.ofMillis(500));
+
+		long start = System.nanoTime();
+		Long id = emailService.sendHtmlEmail("slow", "<p>hi</p>");
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(elapsedMs).isLessThan(400);
+		awaitStatus(id, Status.SENT);
+		assertThat(stub.accepted()).anySatisfy(body -> assertThat(body).contains("admin@example.com", "slow"));
+	}
+
+	@Test
+	void workerPoolSendsConcurrently() {
+		stub.setLatency(Duration.ofMillis(50));
+
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 40; i++) ids.add(emailService.sendHtmlEmail("bulk " + i, "<p>" + i + "</p>"));
+
+		for (Long id : ids) awaitStatus(id, Status.SENT);
+		assertThat(stub.maxInFlight()).isBetween(2, 4);
+	}
+
+	@Test
+	void transientErrorsAreRetriedWithBackoff() {
+		stub.failNext(2, 503);
+
+		Long id = emailService.sendHtmlEmail("flaky", "<p>retry</p>");
+
+		EmailOutboxMessage sent = awaitStatus(id, Status.SENT);
+		assertThat(sent.getAttempts()).isEqualTo(3);
+		assertThat(worker.backoff(1)).isEqualTo(Duration.ofMillis(50));
+		assertThat(worker.backoff(3)).isEqualTo(Duration.ofMillis(200));
+	}
+
+	@Test
+	void permanentAndExhaustedFailuresAreDeadLettered() {
+		stub.failNext(1, 400);
+		Long rejected = emailService.sendHtmlEmail("bad request", "<p>x</p>");
+		EmailOutboxMessage dead = awaitStatus(rejected, Status.DEAD);
+		assertThat(dead.getAttempts()).isEqualTo(1);
+		assertThat(dead.getLastError()).contains("400");
+
+		stub.failNext(3, 500);
+		Long exhausted = emailService.sendHtmlEmail("always failing", "<p>y</p>");
+		assertThat(awaitStatus(exhausted, Status.DEAD).getAttempts()).isEqualTo(3);
+	}
+
+	@Test
+	void reminderDigestsGoToTheReminderAddress() {
+		Long id = emailService.sendReminderEmail("digest", "<p>unpaid</p>");
+
+		assertThat(awaitStatus(id, Status.SENT).getRecipient()).isEqualTo("reminders@example.com");
+		assertThat(stub.accepted()).anySatisfy(body -> assertThat(body).contains("reminders@example.com", "digest"));
+	}
+
+	@Test
+	void stopDrainsInFlightSends() {
+		stub.setLatency(Duration.ofMillis(300));
+
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 4; i++) ids.add(emailService.sendHtmlEmail("drain " + i, "<p>" + i + "</p>"));
+		await().atMost(Duration.ofSeconds(5)).until(() -> stub.inFlight() == 4);
+
+		worker.stop();
+		try {
+			for (Long id : ids) {
+				assertThat(outboxRepository.findById(id)).get()
+						.extracting(EmailOutboxMessage::getStatus).isEqualTo(Status.SENT);
+			}
+		} finally {
+			worker.start();
+		}
+	}
+
+	@Test
+	void withoutAnApiKeyNothingIsClaimed() {
+		SendGridSender unconfigured = mock(SendGridSender.class);
+		EmailOutboxRepository rows = mock(EmailOutboxRepository.class);
+		EmailOutboxWorker idle = new EmailOutboxWorker(rows, unconfigured, mock(PlatformTransactionManager.class),
+				Clock.systemUTC(), new SimpleMeterRegistry(), true, 1, 3,
+				Duration.ofSeconds(1), Duration.ofSeconds(1), Duration.ofMillis(100), Duration.ofSeconds(1));
+
+		idle.start();
+
+		assertThat(idle.isRunning()).isFalse();
+		verifyNoInteractions(rows);
+	}
+
+	private EmailOutboxMessage awaitStatus(Long id, Status status) {
+		await().atMost(Duration.ofSeconds(10))
+				.until(() -> outboxRepository.findById(id).map(EmailOutboxMessage::getStatus).orElse(null) == status);
+		return outboxRepository.findById(id).orElseThrow();
+	}
+}
@@ -0,0 +1,150 @@
+package com.milkattendence.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryOtpStoreTests {
+
+	private static final Duration TTL = Duration.ofMinutes(10);
+
+	private final MutableClock clock = new MutableClock(Instant.parse("2025-06-01T10:00:00Z"));
+
+	@Test
+	void aFloodOfDistinctKeysNeverGrowsPastTheCap() {
+		InMemoryOtpStore store = new InMemoryOtpStore(clock, 1_000, Duration.ofSeconds(30));
+
+		long max = 0;
+		for (int i = 0; i < 200_000; i++) {
+			store.put("user" + i + "@example.com", "123456", TTL);
+			max = Math.max(max, store.size());
+			if (i % 1_000 == 0) clock.advance(Duration.ofSeconds(1));
+		}
+
+		assertThat(max).isEqualTo(1_000);
+		// the newest OTPs are the ones kept
+		assertThat(store.consume("user199999@example.com", "123456")).isEqualTo(OtpStore.Check.VALID);
+		assertThat(store.consume("user0@example.com", "123456")).isEqualTo(OtpStore.Check.MISSING);
+	}
+
+	@Test
+	void concurrentFloodStaysUnderTheCapAndSweepsToEmpty() throws Exception {
+		InMemoryOtpStore store = new InMemoryOtpStore(clock, 5_000, Duration.ofSeconds(30));
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> floods = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				int thread = t;
+				floods.add(pool.submit(() -> {
+					for (int i = 0; i < 25_000; i++) store.put("t" + thread + "-" + i, "654321", TTL);
+				}));
+			}
+			for (Future<?> f : floods) f.get();
+		} finally {
+			pool.shutdown();
+		}
+		assertThat(store.size()).isLessThanOrEqualTo(5_000);
+
+		clock.advance(TTL.plusMinutes(1));
+		store.sweep();
+
+		assertThat(store.size()).isZero();
+		assertThat(store.bucketCount()).isZero();
+	}
+
+	@Test
+	void sweepingKeepsOtpsThatWereSentAgain() {
+		InMemoryOtpStore store = new InMemoryOtpStore(clock, 100, Duration.ofSeconds(30));
+		store.put("asha@example.com", "111111", TTL);
+		clock.advance(Duration.ofMinutes(8));
+		store.put("asha@example.com", "222222", TTL);
+		store.put("ravi@example.com", "333333", Duration.ofMinutes(1));
+
+		clock.advance(Duration.ofMinutes(3));
+		store.sweep();
+
+		assertThat(store.size()).isEqualTo(1);
+		assertThat(store.consume("asha@example.com", "111111")).isEqualTo(OtpStore.Check.INVALID);
+		assertThat(store.consume("asha@example.com", "222222")).isEqualTo(OtpStore.Check.VALID);
+		assertThat(store.consume("ravi@example.com", "333333")).isEqualTo(OtpStore.Check.MISSING);
+	}
+
+	@Test
+	void concurrentConsumersOfOneOtpGetOneValid() throws Exception {
+		InMemoryOtpStore store = new InMemoryOtpStore(clock, 100, Duration.ofSeconds(30));
+		store.put("asha@example.com", "111111", TTL);
+		assertThat(store.consume("asha@example.com", "000000")).isEqualTo(OtpStore.Check.INVALID);
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<OtpStore.Check> results = new ArrayList<>();
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<OtpStore.Check>> resets = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				resets.add(pool.submit(() -> {
+					start.await();
+					return store.consume("asha@example.com", "111111");
+				}));
+			}
+			start.countDown();
+			for (Future<OtpStore.Check> f : resets) results.add(f.get());
+		} finally {
+			pool.shutdown();
+		}
+
+		assertThat(results).containsOnlyOnce(OtpStore.Check.VALID);
+		assertThat(results).filteredOn(c -> c != OtpStore.Check.VALID).containsOnly(OtpStore.Check.MISSING);
+		assertThat(store.size()).isZero();
+	}
+
+	@Test
+	void anExpiredOtpIsReportedOnceAndDropped() {
+		InMemoryOtpStore store = new InMemoryOtpStore(clock, 100, Duration.ofSeconds(30));
+		store.put("asha@example.com", "111111", TTL);
+
+		clock.advance(TTL);
+
+		assertThat(store.consume("asha@example.com", "111111")).isEqualTo(OtpStore.Check.EXPIRED);
+		assertThat(store.consume("asha@example.com", "111111")).isEqualTo(OtpStore.Check.MISSING);
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private volatile Instant now;
+
+		MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		void advance(Duration d) {
+			this.now = now.plus(d);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.controller.MilkEntryController;
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.model.MilkMonthlyAggregate;
+import com.milkattendence.backend.repository.MilkDailyAggregateRepository;
+import com.milkattendence.backend.repository.MilkEntryRepository;
+import com.milkattendence.backend.repository.MilkMonthlyAggregateRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MilkAggregateServiceTests {
+
+	private static final YearMonth MONTH = YearMonth.of(2025, 3);
+
+	@Autowired
+	private MilkEntryController milkEntryController;
+
+	@Autowired
+	private MilkAggregateService aggregateService;
+
+	@Autowired
+	private MilkEntryRepository milkEntryRepository;
+
+	@Autowired
+	private MilkDailyAggregateRepository dailyRepository;
+
+	@Autowired
+	private MilkMonthlyAggregateRepository monthlyRepository;
+
+	@Test
+	void entryWritesKeepAggregatesInStep() {
+		long userId = 2001L;
+
+		milkEntryController.addOrUpdateEntry(entry(userId, "Asha", 1, 2.0));
+		milkEntryController.addOrUpdateEntry(entry(userId, "Asha", 2, 1.5));
+		milkEntryController.addOrUpdateEntry(entry(userId, "Asha", 2, 3.0));   // update
+		MilkEntry ravi = milkEntryController.addOrUpdateEntry(entry(userId, "Ravi", 2, 1.0));
+		milkEntryController.addOrUpdateEntry(entry(userId, "Asha", 1, 0));     // delete-if-zero
+		milkEntryController.deleteEntry(ravi.getId());
+
+		assertThat(dailyRepository.findByUserIdAndShiftAndDateBetween(
+				userId, "Morning", MONTH.atDay(1), MONTH.atEndOfMonth()))
+				.singleElement()
+				.satisfies(a -> {
+					assertThat(a.getDate()).isEqualTo(MONTH.atDay(2));
+					assertThat(a.getCustomerKey()).isEqualTo("asha");
+					assertThat(a.getLitresMl()).isEqualTo(3_000);
+				});
+
+		List<MilkMonthlyAggregate> months =
+				monthlyRepository.findByUserIdAndShiftAndMonthStart(userId, "Morning", MONTH.atDay(1));
+		assertThat(months).singleElement().satisfies(m -> {
+			assertThat(m.getLitresMl()).isEqualTo(3_000);
+			assertThat(m.getAmountPaise()).isEqualTo(15_000);
+			assertThat(m.getEntryCount()).isEqualTo(1);
+		});
+
+		assertThat(aggregateService.rebuildMonth(userId, "Morning", MONTH)).isZero();
+	}
+
+	@Test
+	void rebuildRepairsRowsWrittenBehindTheServicesBack() {
+		long userId = 2002L;
+
+		milkEntryController.addOrUpdateEntry(entry(userId, "Asha", 5, 2.0));
+		milkEntryRepository.save(new MilkEntry("Meena", "Morning", 1.0, 40, 40, MONTH.atDay(6), userId));
+
+		assertThat(aggregateService.rebuildMonth(userId, "Morning", MONTH)).isEqualTo(1);
+		assertThat(monthlyRepository.getTotalMillilitresForCustomer("meena", "Morning", userId)).isEqualTo(1_000);
+		assertThat(aggregateService.rebuildMonth(userId, "Morning", MONTH)).isZero();
+	}
+
+	private static MilkEntry entry(long userId, String name, int day, double litres) {
+		LocalDate date = MONTH.atDay(day);
+		return new MilkEntry(name, "Morning", litres, 50, 0, date, userId);
+	}
+}
@@ -0,0 +1,175 @@
+package com.milkattendence.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milkattendence.backend.config.QueryBudget;
+import com.milkattendence.backend.controller.CustomerController;
+import com.milkattendence.backend.controller.MilkEntryController;
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.repository.MilkArchiveBlockRepository;
+import com.milkattendence.backend.repository.MilkDailyAggregateRepository;
+import com.milkattendence.backend.repository.MilkEntryRepository;
+import com.milkattendence.backend.repository.projection.MilkEntryRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.milkattendence.backend.service.CustomerFixtures.customer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MilkArchiveServiceTests {
+
+	private static final YearMonth JANUARY = YearMonth.of(2025, 1);
+
+	@Autowired private MockMvc mvc;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private Clock clock;
+	@Autowired private CustomerController customerController;
+	@Autowired private MilkEntryController milkController;
+	@Autowired private MilkArchiveService archive;
+	@Autowired private CustomerBalanceService balanceService;
+	@Autowired private LedgerExportService exportService;
+	@Autowired private MilkEntryRepository entryRepository;
+	@Autowired private MilkAggregateService aggregateService;
+	@Autowired private PlatformTransactionManager transactionManager;
+	@Autowired private MilkArchiveBlockRepository blockRepository;
+	@Autowired private MilkDailyAggregateRepository dailyRepository;
+	@Autowired private DataVersionService versions;
+	@Autowired private QueryBudget queryBudget;
+
+	@Test
+	void archivedMonthReadsTheSameEverywhereAndRestores() throws Exception {
+		long userId = 9601L;
+		Customer asha = customerController.addCustomer(customer(userId, "Asha")).getBody();
+		Customer ravi = customerController.addCustomer(customer(userId, "Ravi")).getBody();
+		for (int d = 1; d <= 31; d++) {
+			milkController.addOrUpdateEntry(entry(userId, asha.getId(), JANUARY.atDay(d), 1.0));
+			milkController.addOrUpdateEntry(entry(userId, ravi.getId(), JANUARY.atDay(d), d <= 15 ? 2.0 : 2.5));
+		}
+		milkController.addOrUpdateEntry(entry(userId, asha.getId(), LocalDate.of(2025, 2, 1), 1.0));
+		String overview = overview(userId);
+
+		MilkArchiveService.ArchiveResult result = archive.archiveMonth(userId, "Morning", JANUARY);
+
+		assertThat(result.entries()).isEqualTo(62);
+		assertThat(result.runs()).isEqualTo(3);
+		assertThat(januaryRows(userId)).isEmpty();
+		assertThat(overview(userId)).isEqualTo(overview);
+
+		List<?> listed = milkController.getEntriesByUserAndShift(userId, "Morning", JANUARY.atDay(1), LocalDate.of(2025, 2, 28));
+		assertThat(listed).hasSize(63);
+		assertThat(((MilkEntryRow) listed.get(0)).id()).isNull();
+		assertThat(((MilkEntryRow) listed.get(62)).id()).isNotNull();
+		assertThat(milkController.getEntriesByUserAndShift(userId, "Morning", null, null)).hasSize(63);
+
+		// pages of 10: the live February row first, then January from the block, nothing twice
+		List<JsonNode> history = new ArrayList<>();
+		String cursor = null;
+		do {
+			JsonNode page = objectMapper.readTree(mvc.perform(get("/api/milk/history")
+							.param("userId", "" + userId).param("shift", "Morning").param("limit", "10")
+							.param("cursor", cursor == null ? "" : cursor))
+					.andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+			page.get("entries").forEach(history::add);
+			cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+		} while (cursor != null);
+		assertThat(history).hasSize(63);
+		assertThat(history.get(0).get("date").asText()).isEqualTo("2025-02-01");
+		assertThat(history.get(62).get("date").asText()).isEqualTo("2025-01-01");
+		assertThat(history.stream().map(e -> e.get("date").asText() + e.get("customerId").asText()).distinct()).hasSize(63);
+
+		ByteArrayOutputStream csv = new ByteArrayOutputStream();
+		long exported = exportService.export(new LedgerExportService.Request(LedgerExportService.Ledger.MILK,
+				userId, null, null, null, LedgerExportService.Format.CSV, false), csv);
+		assertThat(exported).isEqualTo(63);
+		assertThat(csv.toString(StandardCharsets.UTF_8).split("\r\n"))
+				.contains("2025-01-16,Morning,Ravi,2.5,50,125")
+				.endsWith("2025-02-01,Morning,Asha,1,50,50");
+
+		assertThat(balanceService.verifyUser(userId)).isZero();
+		assertThatThrownBy(() -> milkController.addOrUpdateEntry(entry(userId, asha.getId(), JANUARY.atDay(5), 3.0)))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+		assertThat(archive.restoreMonth(userId, "Morning", JANUARY)).isEqualTo(62);
+		assertThat(januaryRows(userId)).hasSize(62).allSatisfy(e -> assertThat(e.getId()).isNotNull());
+		assertThat(archive.isArchived(userId, "Morning", JANUARY)).isFalse();
+		assertThat(overview(userId)).isEqualTo(overview);
+		assertThat(balanceService.verifyUser(userId)).isZero();
+	}
+
+	@Test
+	void aMonthArchivedByAnotherNodeIsClosedToWritesHere() throws Exception {
+		long userId = 9603L;
+		Customer asha = customerController.addCustomer(customer(userId, "Asha")).getBody();
+		for (int d = 1; d <= 3; d++) {
+			milkController.addOrUpdateEntry(entry(userId, asha.getId(), JANUARY.atDay(d), 1.0));
+		}
+		// this node's index has the month open, and nothing tells it about the other node's archive
+		assertThat(archive.isArchived(userId, "Morning", JANUARY)).isFalse();
+		MilkArchiveService otherNode = new MilkArchiveService(blockRepository, entryRepository, dailyRepository,
+				aggregateService, versions, queryBudget, transactionManager, clock, 0,
+				100, Duration.ofMinutes(1), Duration.ofMinutes(10));
+		new TransactionTemplate(transactionManager).executeWithoutResult(
+				status -> otherNode.archiveMonth(userId, "Morning", JANUARY));
+
+		assertThat(archive.isArchived(userId, "Morning", JANUARY)).isFalse();
+		assertThatThrownBy(() -> milkController.addOrUpdateEntry(entry(userId, asha.getId(), JANUARY.atDay(2), 0.5)))
+				.isInstanceOfSatisfying(ResponseStatusException.class,
+						e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+		// once restored, a correction replaces the day's value, and the month archives again
+		assertThat(archive.restoreMonth(userId, "Morning", JANUARY)).isEqualTo(3);
+		milkController.addOrUpdateEntry(entry(userId, asha.getId(), JANUARY.atDay(2), 0.5));
+		assertThat(januaryRows(userId)).hasSize(3);
+		assertThat(objectMapper.readTree(overview(userId)).get("grandTotalAmount").asDouble()).isEqualTo(125.0);
+
+		assertThat(archive.archiveMonth(userId, "Morning", JANUARY).entries()).isEqualTo(3);
+		assertThat(objectMapper.readTree(overview(userId)).get("grandTotalAmount").asDouble()).isEqualTo(125.0);
+		assertThat(balanceService.verifyUser(userId)).isZero();
+	}
+
+	@Test
+	void onlyMonthsThatAreOverCanBeArchived() {
+		assertThatThrownBy(() -> archive.archiveMonth(9602L, "Morning", YearMonth.now(clock)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private String overview(long userId) throws Exception {
+		return mvc.perform(get("/api/overview").param("userId", "" + userId).param("shift", "Morning")
+						.param("month", "1").param("year", "2025"))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+	}
+
+	private List<MilkEntry> januaryRows(long userId) {
+		return entryRepository.findByUserIdAndShiftAndDateBetweenOrderByDateAsc(
+				userId, "Morning", JANUARY.atDay(1), JANUARY.atEndOfMonth());
+	}
+
+	private static MilkEntry entry(long userId, Long customerId, LocalDate date, double litres) {
+		MilkEntry e = new MilkEntry(null, "Morning", litres, 50, 0, date, userId);
+		e.setCustomerId(customerId);
+		return e;
+	}
+}
@@ -0,0 +1,93 @@
+package com.milkattendence.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.MilkEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OverviewEngineTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@ParameterizedTest
+	@ValueSource(ints = {100, 1000})
+	void matchesLegacyJsonContract(int customerCount) throws Exception {
+		List<Customer> customers = OverviewFixtures.customers(customerCount);
+		List<MilkEntry> entries = OverviewFixtures.entries(customers, customerCount);
+
+		Map<String, Object> expected = OverviewFixtures.legacy(customers, entries);
+		Map<String, Object> actual = OverviewFixtures.engine(customers, entries);
+
+		assertThat(mapper.readTree(mapper.writeValueAsString(actual)))
+				.isEqualTo(mapper.readTree(mapper.writeValueAsString(expected)));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {100, 1000})
+	void compactFormCarriesTheSameNumbersAsTheLegacyContract(int customerCount) throws Exception {
+		List<Customer> customers = OverviewFixtures.customers(customerCount);
+		List<MilkEntry> entries = OverviewFixtures.entries(customers, customerCount);
+
+		OverviewEngine engine = new OverviewEngine(customers, OverviewFixtures.MONTH.lengthOfMonth());
+		for (MilkEntry e : entries) {
+			engine.add(e.getDate().getDayOfMonth(), e.getCustomerName(), e.getLitresMl());
+		}
+		StringWriter out = new StringWriter();
+		try (JsonGenerator g = mapper.getFactory().createGenerator(out)) {
+			engine.writeCompact(g, OverviewFixtures.MONTH.getYear(), OverviewFixtures.MONTH.getMonthValue());
+		}
+		String compactJson = out.toString();
+		JsonNode compact = mapper.readTree(compactJson);
+		JsonNode legacy = mapper.readTree(mapper.writeValueAsString(OverviewFixtures.legacy(customers, entries)));
+
+		assertThat(compact.get("version").asInt()).isEqualTo(OverviewEngine.COMPACT_VERSION);
+		assertThat(compact.get("customers").get("id")).hasSize(customerCount);
+		for (int d = 1; d <= legacy.get("daysInMonth").asInt(); d++) {
+			JsonNode day = legacy.get("matrix").get(String.valueOf(d));
+			JsonNode row = compact.get("litres").get(d - 1);
+			assertThat(row).hasSize(customerCount);
+			for (int col = 0; col < customerCount; col++) {
+				String id = compact.get("customers").get("id").get(col).asText();
+				JsonNode cell = day.get(id);
+				if (cell == null) assertThat(row.get(col).isNull()).isTrue();
+				else assertThat(row.get(col).asDouble()).isEqualTo(cell.get("litres").asDouble());
+			}
+			assertThat(compact.get("totalPerDay").get(d - 1).asDouble())
+					.isEqualTo(legacy.get("totalPerDay").get(String.valueOf(d)).asDouble());
+		}
+		for (int col = 0; col < customerCount; col++) {
+			String id = compact.get("customers").get("id").get(col).asText();
+			assertThat(compact.get("totalAmountPerCustomer").get(col).asDouble())
+					.isEqualTo(legacy.get("totalAmountPerCustomer").get(id).asDouble());
+		}
+		assertThat(compact.get("grandTotalAmount").asDouble()).isEqualTo(legacy.get("grandTotalAmount").asDouble());
+		assertThat(compactJson.length()).isLessThan(mapper.writeValueAsString(OverviewFixtures.legacy(customers, entries)).length() / 2);
+	}
+
+	@Test
+	void firstMatchingCustomerWinsAndUnknownNamesAreSkipped() {
+		List<Customer> customers = OverviewFixtures.customers(2);
+		customers.get(1).setNickname("customer 0");
+
+		OverviewEngine engine = new OverviewEngine(customers, 31);
+		engine.add(1, "CUSTOMER 0", 2_000);
+		engine.add(1, "nobody", 5_000);
+		engine.add(2, null, 5_000);
+		engine.computeTotals();
+
+		assertThat(engine.hasEntry(1, 0)).isTrue();
+		assertThat(engine.hasEntry(1, 1)).isFalse();
+		assertThat(engine.millilitresAt(1, 0)).isEqualTo(2_000);
+		assertThat(engine.getTotalMlPerCustomer()).containsExactly(2_000, 0);
+	}
+}
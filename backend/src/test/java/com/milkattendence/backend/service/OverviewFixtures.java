@@ -0,0 +1,132 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.MilkEntry;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Synthetic months and the pre-engine overview algorithm, shared by the
+ * engine tests and the overview benchmark.
+ */
+final class OverviewFixtures {
+
+	static final YearMonth MONTH = YearMonth.of(2025, 1);
+
+	private OverviewFixtures() {}
+
+	static List<Customer> customers(int count) {
+		List<Customer> customers = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			Customer c = new Customer();
+			c.setId((long) i + 1);
+			c.setUserId(1L);
+			c.setShift("Morning");
+			c.setFullName("Customer " + i);
+			c.setNickname("C" + i);
+			c.setPricePerLitre(i % 7 == 0 ? null : 50.0 + (i % 11));
+			customers.add(c);
+		}
+		return customers;
+	}
+
+	/** Roughly one entry per customer per day, mixing full names, nicknames and case. */
+	static List<MilkEntry> entries(List<Customer> customers, long seed) {
+		Random rnd = new Random(seed);
+		List<MilkEntry> entries = new ArrayList<>();
+		for (int day = 1; day <= MONTH.lengthOfMonth(); day++) {
+			LocalDate date = MONTH.atDay(day);
+			for (Customer c : customers) {
+				if (rnd.nextInt(10) == 0) continue;
+				String name = switch (rnd.nextInt(3)) {
+					case 0 -> c.getFullName();
+					case 1 -> c.getNickname().toLowerCase();
+					default -> c.getFullName().toUpperCase();
+				};
+				double litres = 0.5 * (1 + rnd.nextInt(6));
+				entries.add(new MilkEntry(name, "Morning", litres, 50, litres * 50, date, 1L));
+			}
+			if (rnd.nextBoolean()) {
+				entries.add(new MilkEntry("Unknown walk-in", "Morning", 1, 50, 50, date, 1L));
+			}
+		}
+		return entries;
+	}
+
+	static Map<String, Object> engine(List<Customer> customers, List<MilkEntry> entries) {
+		OverviewEngine engine = new OverviewEngine(customers, MONTH.lengthOfMonth());
+		for (MilkEntry e : entries) {
+			engine.add(e.getDate().getDayOfMonth(), e.getCustomerName(), e.getLitresMl());
+		}
+		return engine.computeTotals().toResponse(MONTH.getYear(), MONTH.getMonthValue());
+	}
+
+	/** The nested-map implementation OverviewController used before OverviewEngine. */
+	static Map<String, Object> legacy(List<Customer> customers, List<MilkEntry> entries) {
+		int daysInMonth = MONTH.lengthOfMonth();
+
+		Map<Integer, Map<Long, Map<String, Double>>> matrix = new HashMap<>();
+		for (int d = 1; d <= daysInMonth; d++) {
+			matrix.put(d, new HashMap<>());
+		}
+
+		for (MilkEntry e : entries) {
+			int day = e.getDate().getDayOfMonth();
+			Optional<Customer> customerOpt = customers.stream()
+					.filter(c ->
+							(c.getFullName() != null &&
+							 c.getFullName().equalsIgnoreCase(e.getCustomerName()))
+						 || (c.getNickname() != null &&
+							 c.getNickname().equalsIgnoreCase(e.getCustomerName()))
+					)
+					.findFirst();
+			if (customerOpt.isEmpty()) continue;
+
+			Long customerId = customerOpt.get().getId();
+			Map<Long, Map<String, Double>> dayMap = matrix.get(day);
+			Map<String, Double> cell = dayMap.getOrDefault(customerId, new HashMap<>());
+			cell.put("litres", cell.getOrDefault("litres", 0.0) + e.getLitres());
+			dayMap.put(customerId, cell);
+		}
+
+		Map<Long, Double> totalLitresPerCustomer = new HashMap<>();
+		Map<Long, Double> totalAmountPerCustomer = new HashMap<>();
+		Map<Integer, Double> totalPerDay = new HashMap<>();
+		double grandTotalAmount = 0.0;
+
+		for (int day = 1; day <= daysInMonth; day++) {
+			double dayTotal = 0.0;
+			for (Customer c : customers) {
+				double litres = matrix.get(day)
+						.getOrDefault(c.getId(), Map.of())
+						.getOrDefault("litres", 0.0);
+				double price = c.getPricePerLitre() != null ? c.getPricePerLitre() : 0.0;
+				double amount = litres * price;
+				totalLitresPerCustomer.merge(c.getId(), litres, Double::sum);
+				totalAmountPerCustomer.merge(c.getId(), amount, Double::sum);
+				dayTotal += amount;
+				grandTotalAmount += amount;
+			}
+			totalPerDay.put(day, dayTotal);
+		}
+
+		Map<String, Object> response = new HashMap<>();
+		response.put("year", MONTH.getYear());
+		response.put("month", MONTH.getMonthValue());
+		response.put("daysInMonth", daysInMonth);
+		response.put("customers", customers);
+		response.put("matrix", matrix);
+		response.put("totalLitresPerCustomer", totalLitresPerCustomer);
+		response.put("totalAmountPerCustomer", totalAmountPerCustomer);
+		response.put("totalPerDay", totalPerDay);
+		response.put("grandTotalAmount", grandTotalAmount);
+		return response;
+	}
+}
@@ -0,0 +1,34 @@
+package com.milkattendence.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+@SpringBootTest
+class PartitionMaintenanceServiceTests {
+
+	@Autowired
+	private PartitionMaintenanceService service;
+
+	@Test
+	void expiresOnlyMonthPartitionsBeforeTheCutoff() {
+		List<String> partitions = List.of(
+				"milk_entries_p2025_03", "milk_entries_default", "milk_entries_p2024_12",
+				"milk_entries_p2025_02", "milk_entries_p2025_04");
+
+		assertThat(PartitionMaintenanceService.expired(partitions, YearMonth.of(2025, 3)))
+				.containsExactly("milk_entries_p2024_12", "milk_entries_p2025_02");
+	}
+
+	@Test
+	void isANoOpWhereTheTablesAreNotPartitioned() {
+		// the H2 test schema comes from the entities, without partitions
+		assertThatCode(service::maintain).doesNotThrowAnyException();
+	}
+}
@@ -0,0 +1,246 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.repository.CustomerRepository;
+import com.milkattendence.backend.repository.projection.ReminderSetting;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReminderSchedulerTests {
+
+	private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+	private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+	private final CustomerRepository customers = mock(CustomerRepository.class);
+	private final UnpaidEmailService reports = mock(UnpaidEmailService.class);
+	private final EmailService email = mock(EmailService.class);
+	private final MutableClock clock = new MutableClock(at(TODAY, "08:00"));
+
+	private ReminderScheduler scheduler;
+
+	@BeforeEach
+	void setUp() {
+		scheduler = new ReminderScheduler(customers, reports, email, mock(CustomerRosterCache.class),
+				mock(DataVersionService.class), clock,
+				new SimpleMeterRegistry());
+		when(reports.buildReport(anyLong(), anyString())).thenAnswer(inv -> Optional.of(report(inv.getArgument(0))));
+	}
+
+	@Test
+	void idleTicksDoNoDatabaseWork() {
+		when(customers.findReminderSettings()).thenReturn(List.of(setting(1L, "21:00", 1, null)));
+		scheduler.load();
+
+		for (int i = 0; i < 60; i++) {
+			clock.advance(Duration.ofMinutes(1));
+			assertThat(scheduler.tick()).isZero();
+		}
+
+		verify(customers, times(1)).findReminderSettings();
+		verify(customers, never()).findAllWithRemindersEnabled();
+		verifyNoInteractions(reports);
+		verify(email, never()).sendReminderEmail(any(), any());
+	}
+
+	@Test
+	void firesOncePerIntervalAndRecordsLastSent() throws Exception {
+		when(customers.findReminderSettings()).thenReturn(List.of(setting(1L, "21:00", 2, null)));
+		scheduler.load();
+
+		clock.set(at(TODAY, "21:00"));
+		assertThat(scheduler.tick()).isEqualTo(1);
+		verify(reports).buildReport(1L, "Morning");
+		verify(email).sendReminderEmail("report 1", "<p>1</p>");
+		verify(customers).updateLastReminderSentForUsers(Set.of(1L), TODAY);
+
+		assertThat(scheduler.nextFireAt(1L)).isEqualTo(at(TODAY.plusDays(2), "21:00"));
+
+		clock.set(at(TODAY.plusDays(1), "21:00"));
+		assertThat(scheduler.tick()).isZero();
+
+		clock.set(at(TODAY.plusDays(2), "21:00"));
+		assertThat(scheduler.tick()).isEqualTo(1);
+		verify(reports, times(2)).buildReport(1L, "Morning");
+	}
+
+	@Test
+	void lateTickStillFiresMissedMinute() throws Exception {
+		when(customers.findReminderSettings()).thenReturn(List.of(setting(1L, "21:00", 1, null)));
+		scheduler.load();
+
+		// the scheduler thread was paused over 21:00
+		clock.set(at(TODAY, "21:03"));
+		assertThat(scheduler.tick()).isEqualTo(1);
+		verify(reports).buildReport(1L, "Morning");
+	}
+
+	@Test
+	void restartHonoursLastSentAndCatchUpWindow() {
+		when(customers.findReminderSettings()).thenReturn(List.of(
+				setting(1L, "07:30", 1, null),          // missed 30 minutes ago: still sent
+				setting(2L, "06:00", 1, null),          // missed 2 hours ago: tomorrow
+				setting(3L, "21:00", 3, TODAY.minusDays(1)) // interval not yet elapsed
+		));
+		scheduler.load();
+
+		assertThat(scheduler.nextFireAt(1L)).isEqualTo(at(TODAY, "07:30"));
+		assertThat(scheduler.nextFireAt(2L)).isEqualTo(at(TODAY.plusDays(1), "06:00"));
+		assertThat(scheduler.nextFireAt(3L)).isEqualTo(at(TODAY.plusDays(2), "21:00"));
+	}
+
+	@Test
+	void failedSendIsRetriedThenDeferredToNextDay() throws Exception {
+		when(customers.findReminderSettings()).thenReturn(List.of(setting(1L, "21:00", 1, null)));
+		doThrow(new RuntimeException("outbox down")).when(email).sendReminderEmail(any(), any());
+		scheduler.load();
+
+		clock.set(at(TODAY, "21:00"));
+		for (int attempt = 0; attempt < ReminderScheduler.MAX_ATTEMPTS; attempt++) {
+			assertThat(scheduler.tick()).isEqualTo(1);
+			clock.advance(ReminderScheduler.RETRY_DELAY);
+		}
+
+		verify(email, times(ReminderScheduler.MAX_ATTEMPTS)).sendReminderEmail(any(), any());
+		verify(customers, never()).updateLastReminderSentForUsers(any(), any());
+		assertThat(scheduler.nextFireAt(1L)).isEqualTo(at(TODAY.plusDays(1), "21:00"));
+	}
+
+	@Test
+	void reloadReplacesPendingReminder() {
+		when(customers.findReminderSettings()).thenReturn(List.of(setting(1L, "21:00", 1, null)));
+		scheduler.load();
+
+		when(customers.findReminderSettingsForUser(1L)).thenReturn(List.of(setting(1L, "09:00", 1, null)));
+		scheduler.reload(1L);
+		assertThat(scheduler.nextFireAt(1L)).isEqualTo(at(TODAY, "09:00"));
+
+		when(customers.findReminderSettingsForUser(1L)).thenReturn(List.of());
+		scheduler.reload(1L);
+		assertThat(scheduler.nextFireAt(1L)).isNull();
+
+		clock.set(at(TODAY, "21:00"));
+		assertThat(scheduler.tick()).isZero();
+	}
+
+	@Test
+	void handlesOneHundredThousandReminders() throws Exception {
+		List<ReminderSetting> settings = new ArrayList<>();
+		for (long u = 0; u < 100_000; u++) {
+			String time = String.format("%02d:%02d", 9 + (int) (u % 12), (int) (u % 60));
+			settings.add(setting(u, time, 1 + (int) (u % 3), null));
+		}
+		when(customers.findReminderSettings()).thenReturn(settings);
+		scheduler.load();
+		assertThat(scheduler.size()).isEqualTo(100_000);
+
+		int fired = 0;
+		long start = System.nanoTime();
+		for (int minute = 0; minute < 24 * 60; minute++) {
+			clock.advance(Duration.ofMinutes(1));
+			fired += scheduler.tick();
+		}
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+		assertThat(fired).isEqualTo(100_000);
+		assertThat(elapsedMs).isLessThan(10_000);
+		verify(reports, times(100_000)).buildReport(anyLong(), anyString());
+
+		// one digest per busy minute instead of one email per reminder
+		Map<String, Object> stats = scheduler.getStats();
+		assertThat(stats.get("reportEmails")).isEqualTo(100_000L);
+		assertThat((Long) stats.get("digestsQueued")).isLessThanOrEqualTo(24 * 60L);
+		assertThat((Long) stats.get("emailsSaved")).isGreaterThan(98_000L);
+	}
+
+	@Test
+	void dueRemindersAreCoalescedIntoOneDigest() {
+		when(customers.findReminderSettings()).thenReturn(List.of(
+				setting(1L, "21:00", 1, null),
+				setting(2L, "21:00", 1, null),
+				setting(3L, "21:00", 1, null)
+		));
+		when(reports.buildReport(3L, "Morning")).thenReturn(Optional.empty()); // all paid
+		scheduler.load();
+
+		clock.set(at(TODAY, "21:00"));
+		assertThat(scheduler.tick()).isEqualTo(3);
+
+		ArgumentCaptor<String> subject = ArgumentCaptor.forClass(String.class);
+		ArgumentCaptor<String> html = ArgumentCaptor.forClass(String.class);
+		verify(email).sendReminderEmail(subject.capture(), html.capture());
+		assertThat(subject.getValue()).contains("2 reports");
+		assertThat(html.getValue()).contains("<p>1</p>", "<hr>", "<p>2</p>");
+		verify(customers).updateLastReminderSentForUsers(Set.of(1L, 2L, 3L), TODAY);
+		assertThat(scheduler.getStats()).containsEntry("emailsSaved", 1L);
+	}
+
+	private static UnpaidEmailService.Report report(Long userId) {
+		return new UnpaidEmailService.Report(userId, "Morning", TODAY, "report " + userId, "<p>" + userId + "</p>");
+	}
+
+	private static ReminderSetting setting(Long userId, String time, int interval, LocalDate lastSent) {
+		return new ReminderSetting(userId, "Morning", LocalTime.parse(time), interval, lastSent);
+	}
+
+	private static Instant at(LocalDate date, String time) {
+		return LocalDateTime.of(date, LocalTime.parse(time)).atZone(IST).toInstant();
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant now;
+
+		MutableClock(Instant now) {
+			this.now = now;
+		}
+
+		void set(Instant instant) {
+			this.now = instant;
+		}
+
+		void advance(Duration d) {
+			this.now = now.plus(d);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return IST;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return now;
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.milkattendence.backend.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for SendGrid's {@code POST /v3/mail/send}. Answers 202 by
+ * default; latency and scripted error statuses can be injected so outbox
+ * throughput and retry behaviour can be exercised offline.
+ *
+ * Point the app at it with {@code sendgrid.base-url=http://localhost:<port>}.
+ */
+public final class SendGridStub implements AutoCloseable {
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final Deque<Integer> scripted = new ArrayDeque<>();
+	private final List<String> accepted = new CopyOnWriteArrayList<>();
+	private final AtomicInteger requests = new AtomicInteger();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger maxInFlight = new AtomicInteger();
+	private volatile Duration latency = Duration.ZERO;
+
+	private SendGridStub(HttpServer server) {
+		this.server = server;
+		server.createContext("/v3/mail/send", this::handle);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public static SendGridStub start() {
+		try {
+			return new SendGridStub(HttpServer.create(new InetSocketAddress("localhost", 0), 0));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public String baseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	public void setLatency(Duration latency) {
+		this.latency = latency;
+	}
+
+	/** The next {@code times} requests are answered with {@code status}. */
+	public synchronized void failNext(int times, int status) {
+		for (int i = 0; i < times; i++) scripted.add(status);
+	}
+
+	public synchronized void reset() {
+		scripted.clear();
+		accepted.clear();
+		requests.set(0);
+		maxInFlight.set(0);
+		latency = Duration.ZERO;
+	}
+
+	/** Bodies of the requests answered with 202. */
+	public List<String> accepted() { return accepted; }
+
+	public int requests() { return requests.get(); }
+
+	public int inFlight() { return inFlight.get(); }
+
+	public int maxInFlight() { return maxInFlight.get(); }
+
+	private void handle(HttpExchange exchange) throws IOException {
+		int now = inFlight.incrementAndGet();
+		maxInFlight.accumulateAndGet(now, Math::max);
+		requests.incrementAndGet();
+		try {
+			String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			if (!latency.isZero()) Thread.sleep(latency.toMillis());
+
+			int status = nextStatus();
+			String auth = exchange.getRequestHeaders().getFirst("Authorization");
+			if (auth == null || !auth.startsWith("Bearer ")) status = 401;
+			if (status == 202) accepted.add(body);
+
+			byte[] reply = status == 202 ? new byte[0]
+					: ("{\"errors\":[{\"message\":\"stub " + status + "\"}]}").getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(status, reply.length == 0 ? -1 : reply.length);
+			if (reply.length > 0) {
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(reply);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			exchange.sendResponseHeaders(503, -1);
+		} finally {
+			inFlight.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	private synchronized int nextStatus() {
+		Integer s = scripted.poll();
+		return s != null ? s : 202;
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}
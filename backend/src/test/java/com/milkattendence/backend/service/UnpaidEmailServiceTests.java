@@ -0,0 +1,50 @@
+package com.milkattendence.backend.service;
+
+import com.milkattendence.backend.repository.MilkReportRepository;
+import com.milkattendence.backend.repository.projection.UnpaidReportRow;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UnpaidEmailServiceTests {
+
+	private final MilkReportRepository reports = mock(MilkReportRepository.class);
+	private final EmailService email = mock(EmailService.class);
+	private final UnpaidEmailService service = new UnpaidEmailService(reports, email);
+
+	@Test
+	void rendersEscapedRowsFromOneReportQuery() throws Exception {
+		when(reports.findUnpaidReport(eq(1L), eq("Morning"), any())).thenReturn(List.of(
+				new UnpaidReportRow("<b>Asha</b> & Co", 2_500, 12_500, 2_500),
+				new UnpaidReportRow("Ravi", 2_000, 0, 0)
+		));
+
+		service.sendUnpaidEmail(1L, "Morning");
+
+		ArgumentCaptor<String> html = ArgumentCaptor.forClass(String.class);
+		verify(email).sendHtmlEmail(anyString(), html.capture());
+		assertThat(html.getValue())
+				.contains("<td>&lt;b&gt;Asha&lt;/b&gt; &amp; Co</td>")
+				.contains("<td>125.00</td><td>25.00</td><td><b>100.00</b></td>")
+				.doesNotContain("<b>Asha</b>");
+	}
+
+	@Test
+	void sendsNothingWhenEveryoneHasPaid() throws Exception {
+		when(reports.findUnpaidReport(eq(1L), eq("Morning"), any())).thenReturn(List.of());
+
+		service.sendUnpaidEmail(1L, "Morning");
+
+		verifyNoInteractions(email);
+	}
+}
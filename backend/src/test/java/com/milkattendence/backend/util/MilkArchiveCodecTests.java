@@ -0,0 +1,66 @@
+package com.milkattendence.backend.util;
+
+import com.milkattendence.backend.model.MilkEntry;
+import com.milkattendence.backend.util.MilkArchiveCodec.Run;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MilkArchiveCodecTests {
+
+	@Test
+	void consecutiveEqualDaysCollapseIntoOneRun() {
+		List<MilkEntry> entries = new ArrayList<>();
+		for (int d = 1; d <= 10; d++) entries.add(entry(7L, "Asha", d, 1.5, 50));
+		entries.add(entry(7L, "Asha", 11, 2.0, 50)); // quantity changes
+		for (int d = 13; d <= 14; d++) entries.add(entry(7L, "Asha", d, 2.0, 50)); // day 12 missing
+		entries.add(entry(null, "walk-in", 3, 1.0, 60));
+
+		List<Run> runs = MilkArchiveCodec.runs(entries);
+
+		assertThat(runs).containsExactly(
+				new Run(7L, "Asha", 1, 10, 1_500, 5_000, 7_500),
+				new Run(7L, "Asha", 11, 11, 2_000, 5_000, 10_000),
+				new Run(7L, "Asha", 13, 14, 2_000, 5_000, 10_000),
+				new Run(null, "walk-in", 3, 3, 1_000, 6_000, 6_000));
+	}
+
+	@Test
+	void blocksDecodeToTheSameRuns() {
+		List<MilkEntry> entries = new ArrayList<>();
+		for (int c = 0; c < 50; c++) {
+			for (int d = 1; d <= 31; d++) entries.add(entry((long) c, "Customer " + c, d, d < 16 ? 1.0 : 1.25, 52));
+		}
+		List<Run> runs = MilkArchiveCodec.runs(entries);
+
+		MilkArchiveCodec.Block block = MilkArchiveCodec.encode(runs);
+
+		assertThat(runs).hasSize(100);
+		assertThat(MilkArchiveCodec.decode(block.data(), block.checksum())).isEqualTo(runs);
+		assertThat(block.data().length).isLessThan(entries.size() * 4);
+	}
+
+	@Test
+	void corruptBlocksAreRefused() {
+		MilkArchiveCodec.Block block = MilkArchiveCodec.encode(MilkArchiveCodec.runs(List.of(entry(1L, "Asha", 1, 1.0, 50))));
+
+		assertThatThrownBy(() -> MilkArchiveCodec.decode(block.data(), block.checksum() + 1))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("checksum");
+		byte[] otherVersion = block.data().clone();
+		otherVersion[0] = 9;
+		assertThatThrownBy(() -> MilkArchiveCodec.decode(otherVersion, block.checksum()))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	private static MilkEntry entry(Long customerId, String name, int day, double litres, double rate) {
+		MilkEntry e = new MilkEntry(name, "Morning", litres, rate, litres * rate, LocalDate.of(2025, 1, day), 1L);
+		e.setCustomerId(customerId);
+		return e;
+	}
+}
@@ -0,0 +1,52 @@
+package com.milkattendence.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XlsxRowWriterTests {
+
+	@Test
+	void fullSheetContinuesOnANewSheetWithTheHeader() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XlsxRowWriter writer = new XlsxRowWriter(out, 3); // header + 2 rows per sheet
+		writer.header("Name", "Litres");
+		for (int i = 1; i <= 5; i++) writer.row("C" + i, (double) i);
+		writer.close();
+
+		Map<String, String> parts = new LinkedHashMap<>();
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			for (ZipEntry e; (e = zip.getNextEntry()) != null; ) {
+				parts.put(e.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+
+		assertThat(parts.get("xl/workbook.xml")).contains("Sheet1", "Sheet2", "Sheet3").doesNotContain("Sheet4");
+		assertThat(parts.get("[Content_Types].xml")).contains("/xl/worksheets/sheet3.xml");
+		assertThat(parts.get("xl/worksheets/sheet2.xml"))
+				.contains("<t>Name</t>", "<t>C3</t>", "<t>C4</t>")
+				.doesNotContain("<t>C2</t>", "<t>C5</t>");
+		assertThat(parts.get("xl/worksheets/sheet3.xml")).contains("<row r=\"2\"><c r=\"A2\" t=\"inlineStr\"><is><t>C5</t>");
+	}
+
+	@Test
+	void textIsEscapedAndControlCharactersDropped() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XlsxRowWriter writer = new XlsxRowWriter(out);
+		writer.row("A & <B>\u0001");
+		writer.close();
+
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			assertThat(zip.getNextEntry().getName()).isEqualTo("xl/worksheets/sheet1.xml");
+			assertThat(new String(zip.readAllBytes(), StandardCharsets.UTF_8)).contains("<t>A &amp; &lt;B&gt;</t>");
+		}
+	}
+}
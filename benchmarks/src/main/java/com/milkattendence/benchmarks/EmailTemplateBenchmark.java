@@ -0,0 +1,44 @@
+package com.milkattendence.benchmarks;
+
+import com.milkattendence.backend.model.Payment;
+import com.milkattendence.backend.repository.projection.UnpaidReportRow;
+import com.milkattendence.backend.util.EmailTemplateUtil;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTML rendering for the unpaid emails, with names that need escaping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int rows;
+
+    private List<Payment> payments;
+    private List<UnpaidReportRow> reportRows;
+
+    @Setup
+    public void setUp() {
+        payments = Fixtures.unpaidPayments(rows);
+        reportRows = Fixtures.unpaidRows(rows);
+    }
+
+    @Benchmark
+    public String unpaidTable() {
+        return EmailTemplateUtil.buildUnpaidTable(payments);
+    }
+
+    @Benchmark
+    public String unpaidReport() {
+        return EmailTemplateUtil.buildUnpaidReport("Morning", reportRows);
+    }
+}
@@ -0,0 +1,96 @@
+package com.milkattendence.benchmarks;
+
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.model.Payment;
+import com.milkattendence.backend.repository.projection.DailyCustomerTotal;
+import com.milkattendence.backend.repository.projection.UnpaidReportRow;
+import com.milkattendence.backend.util.FixedPoint;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic data shaped like production: one roster per
+ * (user, shift), one cell per customer per day, most customers delivering daily.
+ */
+final class Fixtures {
+
+    static final YearMonth MONTH = YearMonth.of(2025, 3);
+
+    private Fixtures() {}
+
+    static List<Customer> customers(int count) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Customer c = new Customer();
+            c.setId((long) i + 1);
+            c.setUserId(1L);
+            c.setFullName("Customer " + i);
+            c.setNickname("C" + i);
+            c.setShift("Morning");
+            c.setPricePerLitre(40.0 + (i % 20));
+            customers.add(c);
+        }
+        return customers;
+    }
+
+    /** One daily aggregate cell per customer per day; ~10% of cells are skipped. */
+    static List<DailyCustomerTotal> cells(List<Customer> customers) {
+        Random random = new Random(42);
+        List<DailyCustomerTotal> cells = new ArrayList<>();
+        for (int day = 1; day <= MONTH.lengthOfMonth(); day++) {
+            LocalDate date = MONTH.atDay(day);
+            for (Customer c : customers) {
+                if (random.nextInt(10) == 0) continue;
+                long ml = 500 + random.nextInt(6) * 500L;
+                cells.add(new DailyCustomerTotal(date, c.getFullName().toLowerCase(), ml,
+                        FixedPoint.amountPaise(ml, c.getPricePerLitrePaise()), 1));
+            }
+        }
+        return cells;
+    }
+
+    static List<Payment> unpaidPayments(int count) {
+        List<Payment> payments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            payments.add(new Payment("Customer <" + i + "> & Sons", "Morning", false, MONTH.atDay(10), 1L));
+        }
+        return payments;
+    }
+
+    static List<UnpaidReportRow> unpaidRows(int count) {
+        List<UnpaidReportRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long ml = (30 + i % 7) * FixedPoint.ML_PER_LITRE;
+            long billed = FixedPoint.amountPaise(ml, (40 + i % 20) * FixedPoint.PAISE_PER_RUPEE);
+            rows.add(new UnpaidReportRow("Customer <" + i + "> & Sons", ml, billed, billed * (i % 3) / 4));
+        }
+        return rows;
+    }
+
+    /**
+     * Reminder settings as stored before the scheduler: copied onto every
+     * customer row of the user.
+     */
+    static List<Customer> reminderRows(int users, int customersPerUser) {
+        List<Customer> rows = new ArrayList<>(users * customersPerUser);
+        for (long u = 1; u <= users; u++) {
+            LocalTime time = LocalTime.of(6 + (int) (u % 16), (int) (u % 60));
+            for (int i = 0; i < customersPerUser; i++) {
+                Customer c = new Customer();
+                c.setUserId(u);
+                c.setReminderEnabled(true);
+                c.setReminderTime(time);
+                c.setReminderShift("Morning");
+                c.setReminderIntervalDays(1 + (int) (u % 3));
+                c.setLastReminderSent(u % 2 == 0 ? MONTH.atDay(9) : null);
+                rows.add(c);
+            }
+        }
+        return rows;
+    }
+}
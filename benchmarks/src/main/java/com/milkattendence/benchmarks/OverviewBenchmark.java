@@ -0,0 +1,58 @@
+package com.milkattendence.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.repository.projection.DailyCustomerTotal;
+import com.milkattendence.backend.service.OverviewEngine;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/overview without the database: the matrix and totals that
+ * OverviewController builds from daily cells, and the Jackson write of the
+ * resulting response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverviewBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int customers;
+
+    private List<Customer> roster;
+    private List<DailyCustomerTotal> cells;
+    private Map<String, Object> response;
+
+    // configured like Spring Boot's (JSR-310 module, ISO dates)
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Setup
+    public void setUp() {
+        roster = Fixtures.customers(customers);
+        cells = Fixtures.cells(roster);
+        response = buildOverview();
+    }
+
+    @Benchmark
+    public Map<String, Object> buildOverview() {
+        OverviewEngine engine = new OverviewEngine(roster, Fixtures.MONTH.lengthOfMonth());
+        for (DailyCustomerTotal cell : cells) {
+            engine.add(cell.day().getDayOfMonth(), cell.customerName(), cell.litresMl());
+        }
+        return engine.computeTotals().toResponse(Fixtures.MONTH.getYear(), Fixtures.MONTH.getMonthValue());
+    }
+
+    @Benchmark
+    public byte[] serializeOverview() throws Exception {
+        return mapper.writeValueAsBytes(response);
+    }
+}
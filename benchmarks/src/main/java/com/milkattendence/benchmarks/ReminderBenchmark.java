@@ -0,0 +1,106 @@
+package com.milkattendence.benchmarks;
+
+import com.milkattendence.backend.model.Customer;
+import com.milkattendence.backend.repository.CustomerRepository;
+import com.milkattendence.backend.repository.projection.ReminderSetting;
+import com.milkattendence.backend.service.ReminderScheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The once-a-minute reminder check.
+ *
+ * {@code legacyScan} is the eligibility loop checkReminders used to run over
+ * every reminder-enabled customer row (settings are copied onto each row);
+ * {@code schedulerIdleTick} is ReminderScheduler on a minute where nothing is due.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReminderBenchmark {
+
+    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
+    private static final int CUSTOMERS_PER_USER = 25;
+
+    @Param({"100", "1000", "10000"})
+    public int users;
+
+    private List<Customer> rows;
+    private ReminderScheduler scheduler;
+
+    // 05:30 IST: before every fixture reminder (06:00 - 21:59)
+    private final LocalDate today = Fixtures.MONTH.atDay(10);
+    private final LocalTime now = LocalTime.of(5, 30);
+
+    @Setup
+    public void setUp() {
+        rows = Fixtures.reminderRows(users, CUSTOMERS_PER_USER);
+
+        List<ReminderSetting> settings = new ArrayList<>(users);
+        for (int i = 0; i < rows.size(); i += CUSTOMERS_PER_USER) {
+            Customer c = rows.get(i);
+            settings.add(new ReminderSetting(c.getUserId(), c.getReminderShift(), c.getReminderTime(),
+                    c.getReminderIntervalDays(), c.getLastReminderSent()));
+        }
+
+        Clock clock = Clock.fixed(today.atTime(now).atZone(IST).toInstant(), IST);
+        scheduler = new ReminderScheduler(repository(settings), null, null, null, null, clock, new SimpleMeterRegistry());
+        scheduler.load();
+    }
+
+    @Benchmark
+    public int legacyScan() {
+        int due = 0;
+        for (Customer u : rows) {
+
+            if (u.getReminderTime() == null) continue;
+
+            int interval = (u.getReminderIntervalDays() == null || u.getReminderIntervalDays() <= 0) ? 1 : u.getReminderIntervalDays();
+
+            boolean eligibleByDate = false;
+            if (u.getLastReminderSent() == null) {
+                eligibleByDate = true;
+            } else {
+                LocalDate next = u.getLastReminderSent().plusDays(interval);
+                if (!today.isBefore(next)) eligibleByDate = true;
+            }
+
+            if (!eligibleByDate) continue;
+
+            if (now.getHour() == u.getReminderTime().getHour()
+                    && now.getMinute() == u.getReminderTime().getMinute()) {
+                due++;
+            }
+        }
+        return due;
+    }
+
+    @Benchmark
+    public int schedulerIdleTick() {
+        return scheduler.tick();
+    }
+
+    // only findReminderSettings is reached: nothing fires at 05:30
+    private static CustomerRepository repository(List<ReminderSetting> settings) {
+        return (CustomerRepository) Proxy.newProxyInstance(
+                CustomerRepository.class.getClassLoader(),
+                new Class<?>[]{CustomerRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findReminderSettings")) return settings;
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
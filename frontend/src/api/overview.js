@@ -0,0 +1,42 @@
+import api from "./axios";
+
+// Fetches the compact (columnar) overview and expands it into the shape the
+// pages render: customers as objects, matrix[day][customerId].litres and
+// totals keyed by customer id / day.
+export async function fetchOverview(params) {
+  const res = await api.get("/api/overview", {
+    params: { ...params, format: "compact" },
+  });
+  const c = res.data;
+
+  const customers = c.customers.id.map((id, i) => ({
+    id,
+    fullName: c.customers.fullName[i],
+    nickname: c.customers.nickname[i],
+    pricePerLitre: c.customers.pricePerLitre[i],
+  }));
+
+  const matrix = {};
+  c.litres.forEach((row, d) => {
+    const day = {};
+    row.forEach((litres, i) => {
+      if (litres !== null) day[customers[i].id] = { litres };
+    });
+    matrix[d + 1] = day;
+  });
+
+  const byCustomer = (values) =>
+    Object.fromEntries(customers.map((cu, i) => [cu.id, values[i]]));
+
+  return {
+    year: c.year,
+    month: c.month,
+    daysInMonth: c.daysInMonth,
+    customers,
+    matrix,
+    totalLitresPerCustomer: byCustomer(c.totalLitresPerCustomer),
+    totalAmountPerCustomer: byCustomer(c.totalAmountPerCustomer),
+    totalPerDay: Object.fromEntries(c.totalPerDay.map((v, d) => [d + 1, v])),
+    grandTotalAmount: c.grandTotalAmount,
+  };
+}
@@ -35,6 +35,7 @@ function DayWiseEntry() {
     new Date().toISOString().slice(0, 10)
   );
   const [entries, setEntries] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [anchorEl, setAnchorEl] = useState(null);
 
   /* ---------------- LOAD DATA ---------------- */
@@ -47,12 +48,15 @@ function DayWiseEntry() {
     setCustomers(res.data || []);
   };
 
-  const loadEntries = async () => {
+  // newest first, one page at a time; "Load more" follows nextCursor
+  const loadEntries = async (cursor) => {
     if (!userId) return;
-    const res = await api.get("/api/milk", {
-      params: { userId, shift },
+    const res = await api.get("/api/milk/history", {
+      params: { userId, shift, limit: 50, view: "compact", cursor },
     });
-    setEntries(res.data || []);
+    const page = res.data?.entries || [];
+    setEntries((prev) => (cursor ? [...prev, ...page] : page));
+    setNextCursor(res.data?.nextCursor || null);
   };
 
   useEffect(() => {
@@ -62,12 +66,11 @@ function DayWiseEntry() {
 
   /* ---------------- AUTO RATE ---------------- */
 
+  const findCustomer = (name) =>
+    customers.find((x) => x.fullName === name || x.nickname === name);
+
   useEffect(() => {
-    const c = customers.find(
-      (x) =>
-        x.fullName === selectedCustomer ||
-        x.nickname === selectedCustomer
-    );
+    const c = findCustomer(selectedCustomer);
     if (c) setRate(c.pricePerLitre || "");
   }, [selectedCustomer, customers]);
 
@@ -81,6 +84,7 @@ function DayWiseEntry() {
     }
 
     await api.post("/api/milk", {
+      customerId: findCustomer(selectedCustomer)?.id,
       customerName: selectedCustomer,
       shift,
       litres: Number(litres),
@@ -235,8 +239,9 @@ function DayWiseEntry() {
                   </TableCell>
                 </TableRow>
               ) : (
-                entries.map((e) => (
-                  <TableRow key={e.id}>
+                entries.map((e, i) => (
+                  // archived months come back without ids
+                  <TableRow key={e.id ?? `${e.date}-${i}`}>
                     <TableCell>{e.date}</TableCell>
                     <TableCell>{e.customerName}</TableCell>
                     <TableCell>{e.litres}</TableCell>
@@ -245,13 +250,15 @@ function DayWiseEntry() {
                       ₹{(e.litres * e.rate).toFixed(2)}
                     </TableCell>
                     <TableCell align="center">
-                      <Button
-                        size="small"
-                        color="error"
-                        onClick={() => handleDelete(e.id)}
-                      >
-                        Delete
-                      </Button>
+                      {e.id != null && (
+                        <Button
+                          size="small"
+                          color="error"
+                          onClick={() => handleDelete(e.id)}
+                        >
+                          Delete
+                        </Button>
+                      )}
                     </TableCell>
                   </TableRow>
                 ))
@@ -259,6 +266,14 @@ function DayWiseEntry() {
             </TableBody>
           </Table>
         </Paper>
+
+        {nextCursor && (
+          <Box textAlign="center" mt={1}>
+            <Button size="small" onClick={() => loadEntries(nextCursor)}>
+              Load more
+            </Button>
+          </Box>
+        )}
       </Card>
     </Box>
   );
@@ -20,6 +20,7 @@ import {
   Chip,
 } from "@mui/material";
 import api from "../api/axios";
+import { fetchOverview } from "../api/overview";
 import { useNavigate } from "react-router-dom";
 
 function Overview() {
@@ -48,10 +49,7 @@ function Overview() {
 
   const loadOverview = async () => {
     try {
-      const res = await api.get("/api/overview", {
-        params: { shift, month, year, userId },
-      });
-      setData(res.data);
+      setData(await fetchOverview({ shift, month, year, userId }));
     } catch {
       setData(null);
     }
@@ -79,6 +77,7 @@ function Overview() {
 
     try {
       await api.post("/api/milk", {
+        customerId: customer.id,
         customerName: customer.fullName || customer.nickname,
         shift,
         litres: updatedLitres,
@@ -90,8 +89,12 @@ function Overview() {
 
       setLocalLitres(updatedLitres);
       await loadOverview();
-    } catch {
-      alert("Error saving entry");
+    } catch (err) {
+      alert(
+        err.response?.status === 409
+          ? "This month is archived; restore it before changing entries"
+          : "Error saving entry"
+      );
     }
   };
 
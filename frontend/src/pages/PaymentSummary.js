@@ -84,26 +84,32 @@ function PaymentSummary() {
 
   /* ---------------- PAYMENT LOGIC ---------------- */
 
-  const getPaymentRow = (name) =>
-    payments.find(
-      (p) =>
-        p.customerName?.trim().toLowerCase() ===
-        name.trim().toLowerCase()
+  // rows carry customerId; older rows are matched by name
+  const getPaymentRow = (customer) => {
+    const name = customer.fullName || customer.nickname;
+    return (
+      payments.find((p) => p.customerId === customer.id) ||
+      payments.find(
+        (p) =>
+          p.customerId == null &&
+          p.customerName?.trim().toLowerCase() === name.trim().toLowerCase()
+      )
     );
+  };
 
-  const handlePaymentToggle = async (name) => {
-    const row = getPaymentRow(name);
+  const handlePaymentToggle = async (customer) => {
+    const name = customer.fullName || customer.nickname;
+    const row = getPaymentRow(customer);
     const paid = row ? row.paid : false;
 
     setPayments((prev) =>
-      prev.some((p) => p.customerName === name)
-        ? prev.map((p) =>
-            p.customerName === name ? { ...p, paid: !paid } : p
-          )
-        : [...prev, { customerName: name, paid: !paid, shift, userId }]
+      row
+        ? prev.map((p) => (p === row ? { ...p, paid: !paid } : p))
+        : [...prev, { customerId: customer.id, customerName: name, paid: !paid, shift, userId }]
     );
 
     await api.post("/api/payments", {
+      customerId: customer.id,
       customerName: name,
       shift,
       paid: !paid,
@@ -241,7 +247,7 @@ function PaymentSummary() {
               <TableBody>
                 {customers.map((c) => {
                   const name = c.fullName || c.nickname;
-                  const row = getPaymentRow(name);
+                  const row = getPaymentRow(c);
                   const paid = row ? row.paid : false;
 
                   return (
@@ -259,7 +265,7 @@ function PaymentSummary() {
                       <TableCell align="center">
                         <Switch
                           checked={paid}
-                          onChange={() => handlePaymentToggle(name)}
+                          onChange={() => handlePaymentToggle(c)}
                           color="success"
                         />
                       </TableCell>
@@ -12,7 +12,7 @@ import {
   Stack,
 } from "@mui/material";
 import { useNavigate } from "react-router-dom";
-import api from "../api/axios";
+import { fetchOverview } from "../api/overview";
 
 function PdfDownload() {
   const navigate = useNavigate();
@@ -39,10 +39,7 @@ function PdfDownload() {
   const loadOverviewData = async () => {
     try {
       const userId = localStorage.getItem("userId");
-      const res = await api.get("/api/overview", {
-        params: { shift, month, year, userId },
-      });
-      setData(res.data);
+      setData(await fetchOverview({ shift, month, year, userId }));
     } catch (err) {
       console.error("Error loading overview:", err);
     }
@@ -0,0 +1,182 @@
+package com.milkattendence.loadtest;
+
+import com.milkattendence.backend.util.FixedPoint;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills an empty database with N users, M customers each (alternating
+ * Morning/Evening) and Y years of daily milk entries and payment flags,
+ * using plain JDBC batches so millions of rows load in seconds.
+ *
+ * A database that already has users is reused as-is, so a real PostgreSQL
+ * can be loaded once and driven many times.
+ *
+ * Aggregates are not written here: MilkAggregateService.backfillIfEmpty()
+ * builds them from the entries afterwards, the same way a live deploy does.
+ */
+public class DataGenerator {
+
+    public static final String[] SHIFTS = {"Morning", "Evening"};
+
+    private static final String[] NAMES = {
+            "Asha", "Ravi", "Sunita", "Mahesh", "Kavita", "Ramesh", "Geeta", "Suresh",
+            "Anita", "Vijay", "Meena", "Arjun", "Pooja", "Dinesh", "Lata", "Manoj"
+    };
+    private static final int BATCH = 5_000;
+
+    /** One roster row; the driver writes entries against these. */
+    public record CustomerRef(long id, long userId, String shift, String name, double rate) {}
+
+    public record Dataset(List<Long> userIds, List<CustomerRef> customers, long milkEntries, long payments) {}
+
+    private final JdbcTemplate jdbc;
+    private final Random random;
+
+    public DataGenerator(JdbcTemplate jdbc, long seed) {
+        this.jdbc = jdbc;
+        this.random = new Random(seed);
+    }
+
+    public Dataset generate(LoadTestOptions options, LocalDate today) {
+        Long existing = jdbc.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        if (existing != null && existing > 0) {
+            System.out.printf("Reusing existing data (%d users)%n", existing);
+            return load();
+        }
+
+        insertUsers(options.users());
+        List<Long> userIds = userIds();
+        insertCustomers(userIds, options.customers());
+        List<CustomerRef> customers = customers();
+
+        LocalDate from = today.minusYears(options.years());
+        long entries = insertMilkEntries(customers, from, today);
+        long payments = insertPayments(customers, from, today);
+        resetMilkEntrySequence();
+
+        return new Dataset(userIds, customers, entries, payments);
+    }
+
+    // ==========================================================
+    // ROWS
+    // ==========================================================
+    private void insertUsers(int users) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int u = 1; u <= users; u++) {
+            rows.add(new Object[]{"loadtest-" + u + "@example.com", "Dairy " + u, "loadtest"});
+        }
+        jdbc.batchUpdate("INSERT INTO users (email, name, password) VALUES (?, ?, ?)", rows);
+    }
+
+    private void insertCustomers(List<Long> userIds, int perUser) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Long userId : userIds) {
+            for (int c = 0; c < perUser; c++) {
+                String first = NAMES[c % NAMES.length];
+                String name = first + " " + (c / NAMES.length + 1);
+                String nickname = random.nextInt(3) == 0 ? first.toLowerCase() + (c / NAMES.length + 1) : null;
+                double rate = 45 + random.nextInt(16);
+                rows.add(new Object[]{userId, name, nickname, SHIFTS[c % 2], FixedPoint.paise(rate), true, false, 1});
+            }
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO customer (user_id, full_name, nickname, shift, price_per_litre_paise,
+                                      active, reminder_enabled, reminder_interval_days)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                """, rows);
+    }
+
+    /** ~92% of days delivered, litres around a per-customer base in 0.25 steps. */
+    private long insertMilkEntries(List<CustomerRef> customers, LocalDate from, LocalDate today) {
+        String sql = """
+                INSERT INTO milk_entries (id, customer_id, customer_name, shift, litres_ml, rate_paise, amount_paise, date, user_id)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        long id = 0;
+
+        for (CustomerRef c : customers) {
+            double base = 0.5 * (1 + random.nextInt(6));
+            for (LocalDate d = from; !d.isAfter(today); d = d.plusDays(1)) {
+                if (random.nextInt(100) >= 92) continue;
+                double litres = Math.max(0.25, base + 0.25 * (random.nextInt(5) - 2));
+                long ml = FixedPoint.millilitres(litres);
+                long ratePaise = FixedPoint.paise(c.rate());
+                rows.add(new Object[]{++id, c.id(), c.name(), c.shift(), ml, ratePaise, FixedPoint.amountPaise(ml, ratePaise),
+                        Date.valueOf(d), c.userId()});
+                if (rows.size() == BATCH) flush(sql, rows);
+            }
+        }
+        flush(sql, rows);
+        return id;
+    }
+
+    /** Settled up to a week ago, mixed after that; today is left to the payments page. */
+    private long insertPayments(List<CustomerRef> customers, LocalDate from, LocalDate today) {
+        String sql = "INSERT INTO payments (customer_id, customer_name, shift, paid, date, user_id) VALUES (?, ?, ?, ?, ?, ?)";
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        LocalDate settled = today.minusDays(7);
+        long count = 0;
+
+        for (CustomerRef c : customers) {
+            for (LocalDate d = from; d.isBefore(today); d = d.plusDays(1)) {
+                boolean paid = d.isBefore(settled) || random.nextBoolean();
+                rows.add(new Object[]{c.id(), c.name(), c.shift(), paid, Date.valueOf(d), c.userId()});
+                count++;
+                if (rows.size() == BATCH) flush(sql, rows);
+            }
+        }
+        flush(sql, rows);
+        return count;
+    }
+
+    private void flush(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) return;
+        jdbc.batchUpdate(sql, rows);
+        rows.clear();
+    }
+
+    /**
+     * Ids above were assigned by hand; move the pooled sequence past them
+     * (Hibernate hands out (value - 49 .. value]).
+     */
+    private void resetMilkEntrySequence() {
+        Long max = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM milk_entries", Long.class);
+        long next = (max == null ? 0 : max) + 50;
+        String product = jdbc.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+        if ("H2".equals(product)) {
+            jdbc.execute("ALTER SEQUENCE milk_entries_seq RESTART WITH " + next);
+        } else {
+            jdbc.queryForObject("SELECT setval('milk_entries_seq', ?)", Long.class, next);
+        }
+    }
+
+    // ==========================================================
+    // READ BACK
+    // ==========================================================
+    private Dataset load() {
+        Long entries = jdbc.queryForObject("SELECT COUNT(*) FROM milk_entries", Long.class);
+        Long payments = jdbc.queryForObject("SELECT COUNT(*) FROM payments", Long.class);
+        return new Dataset(userIds(), customers(), entries == null ? 0 : entries, payments == null ? 0 : payments);
+    }
+
+    private List<Long> userIds() {
+        return jdbc.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+    }
+
+    private List<CustomerRef> customers() {
+        return jdbc.query("""
+                SELECT id, user_id, shift, full_name, price_per_litre_paise FROM customer
+                WHERE active = TRUE AND user_id IS NOT NULL
+                ORDER BY id
+                """, (rs, i) -> new CustomerRef(rs.getLong(1), rs.getLong(2), rs.getString(3),
+                        rs.getString(4), FixedPoint.rupees(rs.getLong(5))));
+    }
+}
@@ -0,0 +1,95 @@
+package com.milkattendence.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop driver: each client thread sends a request, waits for the
+ * response and immediately sends the next one, so offered load follows
+ * what the server can take. Latency is send to last byte of the response.
+ *
+ * Requests during the warm-up are sent but not recorded; SQL counting is
+ * switched on at the same moment.
+ */
+public class HttpDriver {
+
+    public record Result(Map<String, LatencyRecorder> endpoints, Duration measured) {}
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public Result run(Workload workload, int threads, Duration warmup, Duration duration, long seed)
+            throws Exception {
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Map<String, LatencyRecorder>>> clients = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(seed + t);
+                clients.add(pool.submit(() -> loop(workload, random, measureFrom, end)));
+            }
+
+            sleepUntil(measureFrom);
+            SqlStatementCounter.startRecording();
+            sleepUntil(end);
+
+            Map<String, LatencyRecorder> merged = new LinkedHashMap<>();
+            for (String endpoint : workload.endpoints()) merged.put(endpoint, new LatencyRecorder());
+            for (Future<Map<String, LatencyRecorder>> f : clients) {
+                f.get().forEach((endpoint, rec) -> merged.get(endpoint).merge(rec));
+            }
+            return new Result(merged, duration);
+        } finally {
+            SqlStatementCounter.stopRecording();
+            pool.shutdownNow();
+        }
+    }
+
+    private Map<String, LatencyRecorder> loop(Workload workload, Random random, long measureFrom, long end) {
+        Map<String, LatencyRecorder> recorders = new HashMap<>();
+        while (true) {
+            Workload.Request request = workload.next(random);
+            long sent = System.nanoTime();
+            if (sent >= end) return recorders;
+
+            boolean ok;
+            try {
+                HttpResponse<Void> response = client.send(request.http(), HttpResponse.BodyHandlers.discarding());
+                ok = response.statusCode() < 400;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return recorders;
+            } catch (Exception e) {
+                ok = false;
+            }
+
+            long done = System.nanoTime();
+            if (sent >= measureFrom && done <= end) {
+                recorders.computeIfAbsent(request.endpoint(), k -> new LatencyRecorder())
+                        .record((done - sent) / 1_000, ok);
+            }
+        }
+    }
+
+    private static void sleepUntil(long nanoTime) throws InterruptedException {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            Thread.sleep(Math.max(1, remaining / 1_000_000));
+        }
+    }
+}
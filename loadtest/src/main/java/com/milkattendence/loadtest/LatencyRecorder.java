@@ -0,0 +1,52 @@
+package com.milkattendence.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Every latency of one endpoint, in microseconds. Not thread-safe: each
+ * client thread keeps its own and they are merged after the run, so
+ * percentiles are exact rather than bucketed.
+ */
+public class LatencyRecorder {
+
+    private long[] micros = new long[1024];
+    private int size;
+    private long errors;
+
+    public void record(long latencyMicros, boolean ok) {
+        if (size == micros.length) micros = Arrays.copyOf(micros, size * 2);
+        micros[size++] = latencyMicros;
+        if (!ok) errors++;
+    }
+
+    public void merge(LatencyRecorder other) {
+        if (size + other.size > micros.length) {
+            micros = Arrays.copyOf(micros, Math.max(size + other.size, micros.length * 2));
+        }
+        System.arraycopy(other.micros, 0, micros, size, other.size);
+        size += other.size;
+        errors += other.errors;
+    }
+
+    public int count() {
+        return size;
+    }
+
+    public long errors() {
+        return errors;
+    }
+
+    /** Sorted copy, for {@link #percentile}. */
+    public long[] sorted() {
+        long[] copy = Arrays.copyOf(micros, size);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    /** Nearest-rank percentile of a sorted array, p in (0, 100]. */
+    public static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+}
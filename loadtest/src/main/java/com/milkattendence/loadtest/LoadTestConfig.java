@@ -0,0 +1,23 @@
+package com.milkattendence.loadtest;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Extra beans the load test adds to the backend context. The statement
+ * inspector itself is wired through a Hibernate property in
+ * {@link LoadTestRunner}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LoadTestConfig {
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementCounter.Filter> sqlStatementCounterFilter() {
+        FilterRegistrationBean<SqlStatementCounter.Filter> bean =
+                new FilterRegistrationBean<>(new SqlStatementCounter.Filter());
+        bean.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return bean;
+    }
+}
@@ -0,0 +1,124 @@
+package com.milkattendence.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command line options, all {@code --name=value}.
+ *
+ * <pre>
+ *   --users=20            generated accounts
+ *   --customers=30        customers per account, split across Morning/Evening
+ *   --years=1             years of milk and payment history per customer
+ *   --threads=16          concurrent clients (closed loop: one request in flight each)
+ *   --warmup=15s          traffic that is sent but not measured
+ *   --duration=60s        measured traffic
+ *   --seed=42             data and traffic are reproducible for a given seed
+ *   --mix=milk:20,...     endpoint weights, see {@link Workload}
+ *   --database=postgres   embedded PostgreSQL built by the migrations, as in production;
+ *                         h2 for a quicker in-memory H2 whose schema comes from the entities
+ *   --jdbc-url=...        run against this PostgreSQL instead of an embedded database
+ *   --db-user / --db-password
+ *   --out=target/loadtest-result.json
+ * </pre>
+ *
+ * Anything with a dot in its name is handed to the backend as a Spring
+ * property, e.g. {@code --spring.datasource.hikari.maximum-pool-size=20}.
+ */
+public record LoadTestOptions(
+        int users,
+        int customers,
+        int years,
+        int threads,
+        Duration warmup,
+        Duration duration,
+        long seed,
+        String mix,
+        String database,
+        String jdbcUrl,
+        String dbUser,
+        String dbPassword,
+        String out,
+        Map<String, String> backendProperties
+) {
+
+    public static final String H2_URL =
+            "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                positive(take(values, "users", "20"), "users"),
+                positive(take(values, "customers", "30"), "customers"),
+                positive(take(values, "years", "1"), "years"),
+                positive(take(values, "threads", "16"), "threads"),
+                duration(take(values, "warmup", "15s")),
+                duration(take(values, "duration", "60s")),
+                Long.parseLong(take(values, "seed", "42")),
+                take(values, "mix", Workload.DEFAULT_MIX),
+                database(take(values, "database", "postgres")),
+                take(values, "jdbc-url", ""),
+                take(values, "db-user", ""),
+                take(values, "db-password", ""),
+                take(values, "out", "target/loadtest-result.json"),
+                new LinkedHashMap<>()
+        );
+
+        values.entrySet().removeIf(e -> {
+            if (!e.getKey().contains(".")) return false;
+            options.backendProperties().put(e.getKey(), e.getValue());
+            return true;
+        });
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        return options;
+    }
+
+    /** No --jdbc-url: the runner starts the database itself. */
+    public boolean embedded() {
+        return jdbcUrl.isEmpty();
+    }
+
+    public boolean h2() {
+        return embedded() && database.equals("h2");
+    }
+
+    private static String take(Map<String, String> values, String name, String def) {
+        String v = values.remove(name);
+        return v != null ? v : def;
+    }
+
+    private static int positive(String text, String name) {
+        int v = Integer.parseInt(text);
+        if (v <= 0) throw new IllegalArgumentException("--" + name + " must be > 0");
+        return v;
+    }
+
+    private static String database(String text) {
+        if (!text.equals("postgres") && !text.equals("h2")) {
+            throw new IllegalArgumentException("--database must be postgres or h2");
+        }
+        return text;
+    }
+
+    /** 90s, 5m, 500ms or ISO-8601 (PT1M). */
+    static Duration duration(String text) {
+        String t = text.trim().toLowerCase();
+        if (t.startsWith("pt")) return Duration.parse(t.toUpperCase());
+        if (t.endsWith("ms")) return Duration.ofMillis(Long.parseLong(t.substring(0, t.length() - 2)));
+        if (t.endsWith("s")) return Duration.ofSeconds(Long.parseLong(t.substring(0, t.length() - 1)));
+        if (t.endsWith("m")) return Duration.ofMinutes(Long.parseLong(t.substring(0, t.length() - 1)));
+        return Duration.ofSeconds(Long.parseLong(t));
+    }
+}
@@ -0,0 +1,91 @@
+package com.milkattendence.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.milkattendence.loadtest.DataGenerator.Dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-endpoint throughput, p50/p99/p99.9 latency and SQL statements per
+ * request, as a console table and a JSON file for comparing runs.
+ */
+public class LoadTestReport {
+
+    private final Map<String, Object> json = new LinkedHashMap<>();
+    private final Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+
+    public LoadTestReport(LoadTestOptions options, Dataset data, HttpDriver.Result result) {
+        double seconds = result.measured().toMillis() / 1000.0;
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("database", options.h2() ? "h2 (PostgreSQL mode)"
+                : options.embedded() ? "embedded PostgreSQL" : options.jdbcUrl());
+        run.put("users", data.userIds().size());
+        run.put("customers", data.customers().size());
+        run.put("milkEntries", data.milkEntries());
+        run.put("payments", data.payments());
+        run.put("threads", options.threads());
+        run.put("warmupSeconds", options.warmup().toSeconds());
+        run.put("durationSeconds", seconds);
+        run.put("mix", options.mix());
+        run.put("seed", options.seed());
+        json.put("run", run);
+
+        LatencyRecorder all = new LatencyRecorder();
+        long allStatements = 0, allCounted = 0;
+
+        for (Map.Entry<String, LatencyRecorder> e : result.endpoints().entrySet()) {
+            String endpoint = e.getKey();
+            long statements = SqlStatementCounter.statements(endpoint);
+            long counted = SqlStatementCounter.requests(endpoint);
+            rows.put(endpoint, row(e.getValue(), seconds, statements, counted));
+            all.merge(e.getValue());
+            allStatements += statements;
+            allCounted += counted;
+        }
+        rows.put("total", row(all, seconds, allStatements, allCounted));
+        json.put("endpoints", rows);
+    }
+
+    private static Map<String, Object> row(LatencyRecorder rec, double seconds, long statements, long counted) {
+        long[] sorted = rec.sorted();
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("requests", rec.count());
+        row.put("errors", rec.errors());
+        row.put("throughputPerSecond", round(rec.count() / seconds));
+        row.put("p50Ms", millis(LatencyRecorder.percentile(sorted, 50)));
+        row.put("p99Ms", millis(LatencyRecorder.percentile(sorted, 99)));
+        row.put("p999Ms", millis(LatencyRecorder.percentile(sorted, 99.9)));
+        row.put("maxMs", millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        row.put("sqlStatements", statements);
+        row.put("sqlPerRequest", counted == 0 ? 0.0 : round((double) statements / counted));
+        return row;
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%n%-10s %9s %7s %9s %9s %9s %9s %9s %8s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "sql/req");
+        rows.forEach((endpoint, r) -> out.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %8.2f%n",
+                endpoint, r.get("requests"), r.get("errors"), r.get("throughputPerSecond"),
+                r.get("p50Ms"), r.get("p99Ms"), r.get("p999Ms"), r.get("maxMs"), r.get("sqlPerRequest")));
+    }
+
+    public void write(String path) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) file.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, json);
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.milkattendence.loadtest;
+
+import com.milkattendence.backend.BackendApplication;
+import com.milkattendence.backend.service.MilkAggregateService;
+import com.milkattendence.loadtest.DataGenerator.Dataset;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code java -jar loadtest.jar [--name=value ...]} (see {@link LoadTestOptions}).
+ *
+ * 1. boots the backend in this JVM on a random port, against an embedded
+ *    PostgreSQL that Flyway migrates and Hibernate validates like production
+ *    (--database=h2 swaps in H2, --jdbc-url an existing PostgreSQL);
+ * 2. generates users, customers and their milk/payment history;
+ * 3. builds the aggregates the way a first deploy does;
+ * 4. replays the traffic mix and reports latency, throughput and SQL counts
+ *    per endpoint.
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        try (EmbeddedPostgres postgres = options.embedded() && !options.h2()
+                     ? EmbeddedPostgres.builder().start() : null;
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                     BackendApplication.class, LoadTestConfig.class)
+                     .run(backendArgs(options, postgres))) {
+
+            LocalDate today = LocalDate.now(context.getBean(Clock.class));
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+            long t0 = System.nanoTime();
+            Dataset data = new DataGenerator(jdbc, options.seed()).generate(options, today);
+            context.getBean(MilkAggregateService.class).backfillIfEmpty();
+            System.out.printf("Data ready in %.1fs: %d users, %d customers, %d milk entries, %d payments%n",
+                    (System.nanoTime() - t0) / 1e9, data.userIds().size(), data.customers().size(),
+                    data.milkEntries(), data.payments());
+
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            Workload workload = new Workload(URI.create("http://127.0.0.1:" + port), data, options.mix(), today);
+
+            System.out.printf("Driving %d clients: %ds warm-up, %ds measured%n",
+                    options.threads(), options.warmup().toSeconds(), options.duration().toSeconds());
+            HttpDriver.Result result = new HttpDriver()
+                    .run(workload, options.threads(), options.warmup(), options.duration(), options.seed());
+
+            LoadTestReport report = new LoadTestReport(options, data, result);
+            report.print(System.out);
+            report.write(options.out());
+            System.out.println("\nResults written to " + options.out());
+        }
+    }
+
+    private static String[] backendArgs(LoadTestOptions options, EmbeddedPostgres postgres) {
+        String url = options.jdbcUrl();
+        String user = options.dbUser();
+        String password = options.dbPassword();
+        if (options.h2()) {
+            url = LoadTestOptions.H2_URL;
+            user = "sa";
+        } else if (postgres != null) {
+            url = postgres.getJdbcUrl("postgres", "postgres");
+            user = "postgres";
+            password = "postgres";
+        }
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--server.address=127.0.0.1",
+                "--management.server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                // every generated month is "drifted" on the first backfill
+                "--logging.level.com.milkattendence.backend.service.MilkAggregateService=ERROR",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + user,
+                "--spring.datasource.password=" + password,
+                "--spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                        + SqlStatementCounter.class.getName(),
+                "--admin.email=",
+                "--app.reminder.email="
+        ));
+        if (options.h2()) {
+            // migrations are PostgreSQL-only; H2 gets its schema from the entities, as in the tests
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            args.add("--spring.jpa.hibernate.ddl-auto=update");
+            args.add("--spring.flyway.enabled=false");
+        }
+        options.backendProperties().forEach((k, v) -> args.add("--" + k + "=" + v));
+        return args.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,87 @@
+package com.milkattendence.loadtest;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements Hibernate prepares while serving each request,
+ * per endpoint. The driver tags every request with {@link #HEADER}; the
+ * {@link Filter} opens a per-thread tally for it and this inspector bumps it.
+ *
+ * Statements outside a tagged request (outbox worker, schedulers, the data
+ * generator) are not counted.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    public static final String HEADER = "X-Load-Endpoint";
+
+    private static final ThreadLocal<int[]> CURRENT = new ThreadLocal<>();
+    private static final Map<String, LongAdder> STATEMENTS = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> REQUESTS = new ConcurrentHashMap<>();
+    private static volatile boolean recording;
+
+    @Override
+    public String inspect(String sql) {
+        int[] tally = CURRENT.get();
+        if (tally != null) tally[0]++;
+        return sql;
+    }
+
+    /** Drop everything counted so far (warm-up) and start recording. */
+    public static void startRecording() {
+        STATEMENTS.clear();
+        REQUESTS.clear();
+        recording = true;
+    }
+
+    public static void stopRecording() {
+        recording = false;
+    }
+
+    public static long statements(String endpoint) {
+        LongAdder a = STATEMENTS.get(endpoint);
+        return a == null ? 0 : a.sum();
+    }
+
+    public static long requests(String endpoint) {
+        LongAdder a = REQUESTS.get(endpoint);
+        return a == null ? 0 : a.sum();
+    }
+
+    // ==========================================================
+    // Servlet side: one tally per tagged request
+    // ==========================================================
+    public static class Filter extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                        FilterChain chain) throws ServletException, IOException {
+            String endpoint = request.getHeader(HEADER);
+            if (endpoint == null) {
+                chain.doFilter(request, response);
+                return;
+            }
+
+            int[] tally = new int[1];
+            CURRENT.set(tally);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                CURRENT.remove();
+                if (recording) {
+                    STATEMENTS.computeIfAbsent(endpoint, k -> new LongAdder()).add(tally[0]);
+                    REQUESTS.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.milkattendence.loadtest;
+
+import com.milkattendence.loadtest.DataGenerator.CustomerRef;
+import com.milkattendence.loadtest.DataGenerator.Dataset;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The traffic mix: what one dairy's app does over a day, flattened into
+ * weighted request types.
+ *
+ * <ul>
+ *   <li>{@code customers} — GET /api/customers for a shift (every screen loads the roster)</li>
+ *   <li>{@code milk} — GET /api/milk for the current month (entry sheet)</li>
+ *   <li>{@code milk-save} — POST /api/milk, one cell of the sheet, mostly recent days</li>
+ *   <li>{@code history} — GET /api/milk/history, first page of recent entries</li>
+ *   <li>{@code overview} — GET /api/overview (compact form, as the app requests it), mostly this month, sometimes an older one</li>
+ *   <li>{@code payments} — GET /api/payments/{shift} (today's paid/unpaid list)</li>
+ * </ul>
+ *
+ * Weights are relative; override with {@code --mix=customers:1,overview:3}.
+ */
+public class Workload {
+
+    public static final String DEFAULT_MIX = "customers:20,milk:20,milk-save:20,history:10,overview:15,payments:15";
+
+    public record Request(String endpoint, HttpRequest http) {}
+
+    private static final Set<String> KNOWN = Set.of("customers", "milk", "milk-save", "history", "overview", "payments");
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI base;
+    private final List<Long> userIds;
+    private final List<CustomerRef> customers;
+    private final LocalDate today;
+    private final List<String> endpoints = new ArrayList<>();
+    private final int[] cumulative;
+
+    public Workload(URI base, Dataset data, String mix, LocalDate today) {
+        this.base = base;
+        this.userIds = data.userIds();
+        this.customers = data.customers();
+        this.today = today;
+
+        Map<String, Integer> weights = parseMix(mix);
+        this.cumulative = new int[weights.size()];
+        int total = 0;
+        for (Map.Entry<String, Integer> e : weights.entrySet()) {
+            total += e.getValue();
+            cumulative[endpoints.size()] = total;
+            endpoints.add(e.getKey());
+        }
+        if (total == 0) throw new IllegalArgumentException("--mix has no positive weights");
+        if (customers.isEmpty()) throw new IllegalStateException("No customers to drive traffic against");
+    }
+
+    public List<String> endpoints() {
+        return endpoints;
+    }
+
+    public Request next(Random random) {
+        int pick = random.nextInt(cumulative[cumulative.length - 1]);
+        int i = 0;
+        while (pick >= cumulative[i]) i++;
+        String endpoint = endpoints.get(i);
+        return new Request(endpoint, build(endpoint, random));
+    }
+
+    private HttpRequest build(String endpoint, Random random) {
+        long userId = userIds.get(random.nextInt(userIds.size()));
+        String shift = DataGenerator.SHIFTS[random.nextInt(2)];
+
+        return switch (endpoint) {
+            case "customers" -> get(endpoint, "/api/customers?userId=" + userId + "&shift=" + shift);
+            case "milk" -> {
+                YearMonth month = YearMonth.from(today);
+                yield get(endpoint, "/api/milk?userId=" + userId + "&shift=" + shift
+                        + "&start=" + month.atDay(1) + "&end=" + month.atEndOfMonth());
+            }
+            case "milk-save" -> saveEntry(endpoint, random);
+            case "history" -> get(endpoint, "/api/milk/history?userId=" + userId + "&shift=" + shift
+                    + "&limit=50&view=compact");
+            case "overview" -> {
+                // 80% this month, otherwise one of the last twelve
+                YearMonth month = YearMonth.from(today)
+                        .minusMonths(random.nextInt(5) == 0 ? 1 + random.nextInt(12) : 0);
+                yield get(endpoint, "/api/overview?userId=" + userId + "&shift=" + shift
+                        + "&month=" + month.getMonthValue() + "&year=" + month.getYear() + "&format=compact");
+            }
+            case "payments" -> get(endpoint, "/api/payments/" + shift + "?userId=" + userId);
+            default -> throw new IllegalStateException(endpoint);
+        };
+    }
+
+    /** One sheet cell for a random customer within the last week; litres 0 deletes it. */
+    private HttpRequest saveEntry(String endpoint, Random random) {
+        CustomerRef c = customers.get(random.nextInt(customers.size()));
+        LocalDate date = today.minusDays(random.nextInt(7));
+        double litres = random.nextInt(10) == 0 ? 0 : 0.5 * (1 + random.nextInt(6));
+        String json = String.format(Locale.ROOT,
+                "{\"userId\":%d,\"customerId\":%d,\"customerName\":\"%s\",\"shift\":\"%s\",\"date\":\"%s\",\"litres\":%.2f,\"rate\":%.2f}",
+                c.userId(), c.id(), c.name(), c.shift(), date, litres, c.rate());
+
+        return HttpRequest.newBuilder(base.resolve("/api/milk"))
+                .timeout(TIMEOUT)
+                .header(SqlStatementCounter.HEADER, endpoint)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest get(String endpoint, String pathAndQuery) {
+        return HttpRequest.newBuilder(base.resolve(pathAndQuery))
+                .timeout(TIMEOUT)
+                .header(SqlStatementCounter.HEADER, endpoint)
+                .GET()
+                .build();
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad --mix entry: " + part);
+            if (!KNOWN.contains(kv[0].trim())) throw new IllegalArgumentException("Unknown endpoint in --mix: " + kv[0]);
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight > 0) weights.put(kv[0].trim(), weight);
+        }
+        return weights;
+    }
+}